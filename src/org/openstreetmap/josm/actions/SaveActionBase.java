@@ -138,6 +138,7 @@ public abstract class SaveActionBase extends DiskAccessAction {
         try {
             boolean exported = false;
             boolean canceled = false;
+            boolean saved = false;
             for (FileExporter exporter : ExtensionFileFilter.getExporters()) {
                 if (exporter.acceptFile(file, layer)) {
                     if (quiet) {
@@ -147,6 +148,7 @@ public abstract class SaveActionBase extends DiskAccessAction {
                     }
                     exported = true;
                     canceled = exporter.isCanceled();
+                    saved = exporter.isSavingLayer();
                     break;
                 }
             }
@@ -158,12 +160,14 @@ public abstract class SaveActionBase extends DiskAccessAction {
             } else if (canceled) {
                 return false;
             }
-            if (!layer.isRenamed()) {
-                layer.setName(file.getName());
-            }
-            layer.setAssociatedFile(file);
-            if (layer instanceof AbstractModifiableLayer) {
-                ((AbstractModifiableLayer) layer).onPostSaveToFile();
+            if (saved) {
+                if (!layer.isRenamed()) {
+                    layer.setName(file.getName());
+                }
+                layer.setAssociatedFile(file);
+                if (layer instanceof AbstractModifiableLayer) {
+                    ((AbstractModifiableLayer) layer).onPostSaveToFile();
+                }
             }
         } catch (IOException | InvalidPathException e) {
             showAndLogException(e);
@@ -5,16 +5,20 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Optional;
 
+import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
+import org.openstreetmap.josm.data.validation.IncrementalValidator;
 import org.openstreetmap.josm.data.validation.OsmValidator;
 import org.openstreetmap.josm.data.validation.Test;
 import org.openstreetmap.josm.data.validation.ValidationTask;
 import org.openstreetmap.josm.data.validation.util.AggregatePrimitivesVisitor;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.MapFrame;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
 import org.openstreetmap.josm.tools.Shortcut;
 
 /**
@@ -30,6 +34,9 @@ public class ValidateAction extends JosmAction {
     /** Last selection used to validate */
     private transient Collection<OsmPrimitive> lastSelection;
 
+    /** Validator of the whole active data set, if {@link ValidatorPrefHelper#PREF_INCREMENTAL} is enabled */
+    private transient IncrementalValidator incrementalValidator;
+
     /**
      * Constructor
      */
@@ -63,11 +70,12 @@ public class ValidateAction extends JosmAction {
         if (tests.isEmpty())
             return;
 
+        DataSet ds = getLayerManager().getActiveDataSet();
         Collection<OsmPrimitive> selection;
         if (getSelectedItems) {
-            selection = getLayerManager().getActiveDataSet().getAllSelected();
+            selection = ds.getAllSelected();
             if (selection.isEmpty()) {
-                selection = getLayerManager().getActiveDataSet().allNonDeletedPrimitives();
+                selection = null;
                 lastSelection = null;
             } else {
                 AggregatePrimitivesVisitor v = new AggregatePrimitivesVisitor();
@@ -75,16 +83,46 @@ public class ValidateAction extends JosmAction {
                 lastSelection = selection;
             }
         } else {
-            selection = Optional.ofNullable(lastSelection).orElseGet(
-                    () -> getLayerManager().getActiveDataSet().allNonDeletedPrimitives());
+            selection = lastSelection;
+        }
+
+        if (selection == null && Boolean.TRUE.equals(ValidatorPrefHelper.PREF_INCREMENTAL.get())) {
+            MainApplication.worker.submit(new ValidationTask(getIncrementalValidator(ds, tests)));
+            return;
+        }
+        if (selection == null) {
+            selection = ds.allNonDeletedPrimitives();
         }
 
         MainApplication.worker.submit(new ValidationTask(tests, selection, lastSelection));
     }
 
+    private IncrementalValidator getIncrementalValidator(DataSet ds, Collection<Test> tests) {
+        if (incrementalValidator != null
+                && (incrementalValidator.getDataSet() != ds || !incrementalValidator.getTests().equals(new ArrayList<>(tests)))) {
+            discardIncrementalValidator();
+        }
+        if (incrementalValidator == null) {
+            incrementalValidator = new IncrementalValidator(ds, tests);
+        }
+        return incrementalValidator;
+    }
+
+    private void discardIncrementalValidator() {
+        if (incrementalValidator != null) {
+            incrementalValidator.destroy();
+            incrementalValidator = null;
+        }
+    }
+
     @Override
     public void updateEnabledState() {
         setEnabled(getLayerManager().getActiveDataSet() != null);
+        // Stop listening to the data set of a removed layer
+        if (incrementalValidator != null && getLayerManager().getLayersOfType(OsmDataLayer.class).stream()
+                .noneMatch(layer -> layer.getDataSet() == incrementalValidator.getDataSet())) {
+            discardIncrementalValidator();
+        }
     }
 
     @Override
@@ -92,6 +130,7 @@ public class ValidateAction extends JosmAction {
         // Hack - this action should stay forever because it could be added to toolbar
         // Do not call super.destroy() here
         lastSelection = null;
+        discardIncrementalValidator();
     }
 
 }
@@ -4,6 +4,7 @@ package org.openstreetmap.josm.command;
 import static org.openstreetmap.josm.tools.I18n.marktr;
 import static org.openstreetmap.josm.tools.I18n.tr;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Objects;
 
@@ -11,8 +12,10 @@ import javax.swing.Icon;
 
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.DefaultNameFormatter;
+import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.Relation;
 import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.tools.CheckParameterUtil;
 import org.openstreetmap.josm.tools.ImageProvider;
@@ -25,7 +28,8 @@ import org.openstreetmap.josm.tools.ImageProvider;
 public class ChangeCommand extends Command {
 
     private final OsmPrimitive osm;
-    private final OsmPrimitive newOsm;
+    /** The new primitive, {@code null} once it has been dropped by {@link #spill(UndoSpillFile)} */
+    private OsmPrimitive newOsm;
 
     /**
      * Constructs a new {@code ChangeCommand} in the context of {@code osm} data set.
@@ -64,11 +68,39 @@ public class ChangeCommand extends Command {
     @Override
     public boolean executeCommand() {
         super.executeCommand();
-        osm.cloneFrom(newOsm);
+        osm.cloneFrom(getNewOsmPrimitive());
         osm.setModified(true);
         return true;
     }
 
+    @Override
+    public void undoCommand() {
+        // copy the new primitive back while the original primitive still has its state
+        getNewOsmPrimitive();
+        super.undoCommand();
+    }
+
+    @Override
+    public long getMemoryFootprint() {
+        return super.getMemoryFootprint() + (newOsm != null ? estimateMemory(newOsm) : 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * While this command is executed, the original primitive has the same state as the new one. The new primitive
+     * is thus dropped, without writing it, and is copied back from the original primitive when this command is undone.
+     */
+    @Override
+    public long spill(UndoSpillFile file) throws IOException {
+        long freed = super.spill(file);
+        if (newOsm != null) {
+            freed += estimateMemory(newOsm);
+            newOsm = null;
+        }
+        return freed;
+    }
+
     @Override
     public void fillModifiedData(Collection<OsmPrimitive> modified, Collection<OsmPrimitive> deleted, Collection<OsmPrimitive> added) {
         modified.add(osm);
@@ -106,6 +138,14 @@ public class ChangeCommand extends Command {
      * @since 14283
      */
     public final OsmPrimitive getNewOsmPrimitive() {
+        if (newOsm == null) {
+            switch (OsmPrimitiveType.from(osm)) {
+            case NODE: newOsm = new Node((Node) osm); break;
+            case WAY: newOsm = new Way((Way) osm); break;
+            case RELATION: newOsm = new Relation((Relation) osm); break;
+            default: throw new AssertionError();
+            }
+        }
         return newOsm;
     }
 
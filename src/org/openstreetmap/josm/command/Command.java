@@ -1,10 +1,14 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.command;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -16,7 +20,9 @@ import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.PrimitiveData;
 import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationData;
 import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.WayData;
 import org.openstreetmap.josm.data.osm.visitor.OsmPrimitiveVisitor;
 import org.openstreetmap.josm.tools.CheckParameterUtil;
 
@@ -165,6 +171,7 @@ public abstract class Command implements PseudoCommand {
      * This implementation undoes all objects stored by a former call to executeCommand.
      */
     public void undoCommand() {
+        cloneMap = reloadValues(cloneMap);
         for (Entry<OsmPrimitive, PrimitiveData> e : cloneMap.entrySet()) {
             OsmPrimitive primitive = e.getKey();
             if (primitive.getDataSet() != null) {
@@ -180,9 +187,167 @@ public abstract class Command implements PseudoCommand {
      * @return The original version of the requested object, if any
      */
     public PrimitiveData getOrig(OsmPrimitive osm) {
+        cloneMap = reloadValues(cloneMap);
         return cloneMap.get(osm);
     }
 
+    /**
+     * Returns an estimate of the memory used by the undo state of this command, e.g. the copies of the original
+     * primitives. The primitives of the data set are not counted.
+     * @return the estimated number of bytes, without the state moved to disk by {@link #spill(UndoSpillFile)}
+     * @since 18570
+     */
+    public long getMemoryFootprint() {
+        return estimateMemory(cloneMap);
+    }
+
+    /**
+     * Moves the undo state of this command to disk, to save memory. It is reloaded when it is needed again,
+     * e.g. when the command is undone. This implementation moves the original primitives saved by {@link #executeCommand()}.
+     * @param file the file to write to
+     * @return the estimated number of bytes freed, see {@link #getMemoryFootprint()}
+     * @throws IOException if the state cannot be written. The command is unchanged in this case.
+     * @since 18570
+     */
+    public long spill(UndoSpillFile file) throws IOException {
+        long freed = estimateMemory(cloneMap);
+        cloneMap = spillValues(cloneMap, file);
+        return freed;
+    }
+
+    /**
+     * Releases the undo state moved to disk by {@link #spill(UndoSpillFile)}, when this command is removed
+     * from the undo history without being undone.
+     * @throws IOException if the spill file cannot be compacted
+     * @since 18570
+     */
+    public void releaseSpilled() throws IOException {
+        releaseValues(cloneMap);
+    }
+
+    /**
+     * Estimates the memory used by copies of primitives.
+     * @param map the primitive copies, by primitive
+     * @return the estimated number of bytes, 0 if the copies have been moved to disk by {@link #spillValues}
+     * @since 18570
+     */
+    protected static long estimateMemory(Map<OsmPrimitive, PrimitiveData> map) {
+        if (map instanceof SpilledMap)
+            return 0;
+        long size = 0;
+        for (PrimitiveData d : map.values()) {
+            size += estimateMemory(d);
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the memory used by a copy of a primitive.
+     * @param d the primitive copy
+     * @return the estimated number of bytes
+     * @since 18570
+     */
+    protected static long estimateMemory(PrimitiveData d) {
+        // map entry, object header, fields and tag array. The tags are shared with the primitive.
+        long size = 112 + 8L * d.getNumKeys();
+        if (d instanceof WayData) {
+            size += 24L * ((WayData) d).getNodeIds().size();
+        } else if (d instanceof RelationData) {
+            size += 40L * ((RelationData) d).getMembersCount();
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the memory used by a primitive that is only referenced by a command, e.g. a copy or a primitive
+     * removed from the data set. The primitives it refers to are not counted.
+     * @param p the primitive
+     * @return the estimated number of bytes
+     * @since 18570
+     */
+    protected static long estimateMemory(OsmPrimitive p) {
+        // object header, fields, tag array and referrers
+        long size = 128 + 16L * p.getNumKeys();
+        if (p instanceof Way) {
+            size += 8L * ((Way) p).getNodesCount();
+        } else if (p instanceof Relation) {
+            size += 32L * ((Relation) p).getMembersCount();
+        }
+        return size;
+    }
+
+    /**
+     * Moves copies of primitives to a spill file. Only the primitives stay in memory.
+     * @param map the primitive copies, by primitive
+     * @param file the file to write to
+     * @return the map to use instead of {@code map}, until the copies are read back by {@link #reloadValues(Map)}
+     * @throws IOException if the copies cannot be written
+     * @since 18570
+     */
+    protected static Map<OsmPrimitive, PrimitiveData> spillValues(Map<OsmPrimitive, PrimitiveData> map, UndoSpillFile file)
+            throws IOException {
+        if (map instanceof SpilledMap || map.isEmpty())
+            return map;
+        return new SpilledMap(map.keySet(), file, file.write(new ArrayList<>(map.values())));
+    }
+
+    /**
+     * Releases copies of primitives moved to a spill file by {@link #spillValues(Map, UndoSpillFile)},
+     * when they will not be read back.
+     * @param map the map returned by {@code spillValues}, or any other map
+     * @throws IOException if the spill file cannot be compacted
+     * @since 18570
+     */
+    protected static void releaseValues(Map<OsmPrimitive, PrimitiveData> map) throws IOException {
+        if (map instanceof SpilledMap) {
+            ((SpilledMap) map).release();
+        }
+    }
+
+    /**
+     * Reads back copies of primitives moved to a spill file by {@link #spillValues(Map, UndoSpillFile)}.
+     * @param map the map returned by {@code spillValues}, or any other map
+     * @return the primitive copies, {@code map} itself if they are in memory
+     * @throws UncheckedIOException if the copies cannot be read
+     * @since 18570
+     */
+    protected static Map<OsmPrimitive, PrimitiveData> reloadValues(Map<OsmPrimitive, PrimitiveData> map) {
+        return map instanceof SpilledMap ? ((SpilledMap) map).reload() : map;
+    }
+
+    /**
+     * The primitives of copies moved to a spill file, mapped to {@code null}.
+     */
+    private static final class SpilledMap extends LinkedHashMap<OsmPrimitive, PrimitiveData> {
+        private static final long serialVersionUID = 1L;
+        private final transient UndoSpillFile file;
+        private final long key;
+
+        SpilledMap(Collection<OsmPrimitive> primitives, UndoSpillFile file, long key) {
+            super(primitives.size() * 4 / 3 + 1);
+            primitives.forEach(p -> put(p, null));
+            this.file = file;
+            this.key = key;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<OsmPrimitive, PrimitiveData> reload() {
+            try {
+                Iterator<PrimitiveData> values = ((List<PrimitiveData>) file.read(key)).iterator();
+                Map<OsmPrimitive, PrimitiveData> map = new LinkedHashMap<>(size() * 4 / 3 + 1);
+                keySet().forEach(p -> map.put(p, values.next()));
+                file.release(key);
+                return map;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void release() throws IOException {
+            file.release(key);
+        }
+    }
+
     /**
      * Gets the data set this command affects.
      * @return The data set. May be <code>null</code> if no layer was set and no edit layer was found.
@@ -5,6 +5,7 @@ import static org.openstreetmap.josm.tools.I18n.marktr;
 import static org.openstreetmap.josm.tools.I18n.tr;
 import static org.openstreetmap.josm.tools.I18n.trn;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -136,7 +137,7 @@ public class DeleteCommand extends Command {
      * The primitives that get deleted.
      */
     private final Collection<? extends OsmPrimitive> toDelete;
-    private final Map<OsmPrimitive, PrimitiveData> clonedPrimitives = new HashMap<>();
+    private Map<OsmPrimitive, PrimitiveData> clonedPrimitives = new HashMap<>();
 
     /**
      * Constructor. Deletes a collection of primitives in the current edit layer.
@@ -229,12 +230,31 @@ public class DeleteCommand extends Command {
                 osm.setDeleted(false);
             }
 
+            clonedPrimitives = reloadValues(clonedPrimitives);
             for (Entry<OsmPrimitive, PrimitiveData> entry : clonedPrimitives.entrySet()) {
                 entry.getKey().load(entry.getValue());
             }
         });
     }
 
+    @Override
+    public long getMemoryFootprint() {
+        return super.getMemoryFootprint() + estimateMemory(clonedPrimitives);
+    }
+
+    @Override
+    public long spill(UndoSpillFile file) throws IOException {
+        long freed = super.spill(file) + estimateMemory(clonedPrimitives);
+        clonedPrimitives = spillValues(clonedPrimitives, file);
+        return freed;
+    }
+
+    @Override
+    public void releaseSpilled() throws IOException {
+        super.releaseSpilled();
+        releaseValues(clonedPrimitives);
+    }
+
     @Override
     public void fillModifiedData(Collection<OsmPrimitive> modified, Collection<OsmPrimitive> deleted, Collection<OsmPrimitive> added) {
         // Do nothing
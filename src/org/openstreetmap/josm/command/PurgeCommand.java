@@ -3,8 +3,11 @@ package org.openstreetmap.josm.command;
 
 import static org.openstreetmap.josm.tools.I18n.trn;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -43,6 +46,10 @@ public class PurgeCommand extends Command {
 
     protected final ConflictCollection purgedConflicts = new ConflictCollection();
 
+    /** The file {@link #makeIncompleteData} has been moved to by {@link #spill(UndoSpillFile)}, if any */
+    private transient UndoSpillFile spillFile;
+    private transient long spillKey;
+
     /**
      * Constructs a new {@code PurgeCommand} (does not handle conflicts).
      * This command relies on a number of consistency conditions:
@@ -83,6 +90,7 @@ public class PurgeCommand extends Command {
 
     @Override
     public boolean executeCommand() {
+        reloadIncomplete();
         getAffectedDataSet().update(() -> {
             purgedConflicts.get().clear();
             // unselect primitives in advance to not fire a selection change for every one of them
@@ -123,6 +131,7 @@ public class PurgeCommand extends Command {
         if (getAffectedDataSet() == null)
             return;
 
+        reloadIncomplete();
         getAffectedDataSet().update(() -> {
             for (OsmPrimitive osm : toPurge) {
                 PrimitiveData data = makeIncompleteDataByPrimId.get(osm);
@@ -145,6 +154,67 @@ public class PurgeCommand extends Command {
         });
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The primitives removed from the data set are counted, as only this command refers to them once it is executed.
+     */
+    @Override
+    public long getMemoryFootprint() {
+        long size = super.getMemoryFootprint();
+        for (OsmPrimitive osm : toPurge) {
+            if (osm.getDataSet() == null) {
+                size += estimateMemory(osm);
+            }
+        }
+        for (PrimitiveData data : makeIncompleteData) {
+            size += estimateMemory(data);
+        }
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The saved state of the primitives made incomplete is moved to disk. The primitives removed from the data set
+     * stay in memory, as they must keep their identity.
+     */
+    @Override
+    public long spill(UndoSpillFile file) throws IOException {
+        long freed = super.spill(file);
+        if (spillFile == null && !makeIncompleteData.isEmpty()) {
+            for (PrimitiveData data : makeIncompleteData) {
+                freed += estimateMemory(data);
+            }
+            spillKey = file.write(new ArrayList<>(makeIncompleteData));
+            spillFile = file;
+            saveIncomplete(Collections.emptyList());
+        }
+        return freed;
+    }
+
+    @Override
+    public void releaseSpilled() throws IOException {
+        super.releaseSpilled();
+        if (spillFile != null) {
+            spillFile.release(spillKey);
+            spillFile = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void reloadIncomplete() {
+        if (spillFile != null) {
+            try {
+                makeIncompleteData.addAll((List<PrimitiveData>) spillFile.read(spillKey));
+                spillFile.release(spillKey);
+                spillFile = null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
     /**
      * Sorts a collection of primitives such that for each object
      * its referrers come later in the sorted collection.
@@ -3,6 +3,7 @@ package org.openstreetmap.josm.command;
 
 import static org.openstreetmap.josm.tools.I18n.tr;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -132,6 +133,32 @@ public class SequenceCommand extends Command {
         return sequence[sequence.length-1];
     }
 
+    @Override
+    public long getMemoryFootprint() {
+        long size = super.getMemoryFootprint();
+        for (Command c : sequence) {
+            size += c.getMemoryFootprint();
+        }
+        return size;
+    }
+
+    @Override
+    public long spill(UndoSpillFile file) throws IOException {
+        long freed = super.spill(file);
+        for (Command c : sequence) {
+            freed += c.spill(file);
+        }
+        return freed;
+    }
+
+    @Override
+    public void releaseSpilled() throws IOException {
+        super.releaseSpilled();
+        for (Command c : sequence) {
+            c.releaseSpilled();
+        }
+    }
+
     protected final void undoCommands(int start) {
         for (int i = start; i >= 0; --i) {
             try {
@@ -0,0 +1,166 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.command;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Temporary file holding the undo state of old commands, to limit the memory used by the undo history.
+ * <p>
+ * Objects are serialized and compressed, then appended to the file. They are read back by the key returned when
+ * they were written, and released once they are no longer needed. When the released objects take more space than
+ * the live ones, the live objects are moved to the start of the file and the file is truncated.
+ * The file is deleted when it is closed.
+ *
+ * @see Command#spill(UndoSpillFile)
+ * @since 18570
+ */
+public final class UndoSpillFile implements Closeable {
+
+    /** The released bytes above which the file may be compacted */
+    private static final long MIN_COMPACT_BYTES = 1024 * 1024;
+
+    private final Path path;
+    private final RandomAccessFile file;
+    /** The position of the live objects, by key */
+    private final Map<Long, Long> positions = new HashMap<>();
+    private long nextKey;
+    /** The bytes of the released objects that are still in the file */
+    private long deadBytes;
+
+    /**
+     * Creates a new temporary spill file in the JOSM temp directory.
+     * @throws IOException if the file cannot be created
+     */
+    public UndoSpillFile() throws IOException {
+        File tempDir = Utils.getJosmTempDir();
+        path = tempDir != null ? Files.createTempFile(tempDir.toPath(), "undo_", ".bin") : Files.createTempFile("undo_", ".bin");
+        path.toFile().deleteOnExit();
+        file = new RandomAccessFile(path.toFile(), "rw");
+    }
+
+    /**
+     * Appends an object to the file.
+     * @param object the object to write
+     * @return the key of the object, to read it back or release it
+     * @throws IOException if the object cannot be written
+     */
+    public synchronized long write(Serializable object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            out.writeObject(object);
+        } finally {
+            deflater.end();
+        }
+        long position = file.length();
+        file.seek(position);
+        file.writeInt(bytes.size());
+        file.write(bytes.toByteArray());
+        long key = nextKey++;
+        positions.put(key, position);
+        return key;
+    }
+
+    /**
+     * Reads an object written by {@link #write(Serializable)}.
+     * @param key the key returned when the object was written
+     * @return the object
+     * @throws IOException if the object cannot be read, or has been released
+     */
+    public synchronized Object read(long key) throws IOException {
+        Long position = positions.get(key);
+        if (position == null)
+            throw new IOException("No object " + key + " in " + path);
+        file.seek(position);
+        byte[] bytes = new byte[file.readInt()];
+        file.readFully(bytes);
+        try (ObjectInputStream in = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Releases an object written by {@link #write(Serializable)}. It cannot be read anymore.
+     * The file is compacted if the released objects take more space than the live ones.
+     * @param key the key returned when the object was written. Unknown keys are ignored.
+     * @throws IOException if the file cannot be compacted
+     */
+    public synchronized void release(long key) throws IOException {
+        Long position = positions.remove(key);
+        if (position == null)
+            return;
+        file.seek(position);
+        deadBytes += 4L + file.readInt();
+        if (deadBytes >= MIN_COMPACT_BYTES && 2 * deadBytes > file.length()) {
+            compact();
+        }
+    }
+
+    /**
+     * Moves the live objects to the start of the file, in their order, and truncates the file.
+     * @throws IOException in case of I/O error
+     */
+    private void compact() throws IOException {
+        List<Map.Entry<Long, Long>> records = new ArrayList<>(positions.entrySet());
+        records.sort(Map.Entry.comparingByValue());
+        byte[] buffer = new byte[0];
+        long target = 0;
+        for (Map.Entry<Long, Long> record : records) {
+            long position = record.getValue();
+            file.seek(position);
+            int size = file.readInt();
+            if (position != target) {
+                if (buffer.length < size) {
+                    buffer = new byte[size];
+                }
+                file.readFully(buffer, 0, size);
+                file.seek(target);
+                file.writeInt(size);
+                file.write(buffer, 0, size);
+                positions.put(record.getKey(), target);
+            }
+            target += 4L + size;
+        }
+        file.setLength(target);
+        deadBytes = 0;
+    }
+
+    /**
+     * Returns the size of the file.
+     * @return the number of bytes written to the file
+     * @throws IOException in case of I/O error
+     */
+    public synchronized long length() throws IOException {
+        return file.length();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            file.close();
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
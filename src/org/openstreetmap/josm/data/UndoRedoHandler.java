@@ -1,26 +1,42 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.EventObject;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 
 import org.openstreetmap.josm.command.Command;
+import org.openstreetmap.josm.command.UndoSpillFile;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.OsmDataManager;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
 import org.openstreetmap.josm.gui.util.GuiHelper;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.CheckParameterUtil;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.MemoryManager;
 
 /**
  * This is the global undo/redo handler for all {@link DataSet}s.
  * <p>
  * If you want to change a data set, you can use {@link #add(Command)} to execute a command on it and make that command undoable.
+ * <p>
+ * The memory used by the undo state of the commands is limited by {@link #PROP_MAX_MEMORY}: the state of the oldest
+ * commands is moved to a temporary file, and reloaded when they are undone.
  */
 public final class UndoRedoHandler {
 
+    /**
+     * The memory, in MiB, the undo state of the commands may use before the state of the oldest commands is moved to disk.
+     * A negative value keeps all commands in memory.
+     * @since 18570
+     */
+    public static final IntegerProperty PROP_MAX_MEMORY = new IntegerProperty("undo.max-memory", 128);
+
     /**
      * All commands that were made on the dataset
      *
@@ -36,6 +52,11 @@ public final class UndoRedoHandler {
      */
     private final LinkedList<Command> redoCommands = new LinkedList<>();
 
+    /** Estimated memory used by {@link #commands}, see {@link Command#getMemoryFootprint()} */
+    private volatile long memory;
+    /** The file holding the state of the oldest commands, created when needed */
+    private UndoSpillFile spillFile;
+
     private final LinkedList<CommandQueueListener> listenerCommands = new LinkedList<>();
     private final LinkedList<CommandQueuePreciseListener> preciseListenerCommands = new LinkedList<>();
 
@@ -56,7 +77,7 @@ public final class UndoRedoHandler {
      * Constructs a new {@code UndoRedoHandler}.
      */
     private UndoRedoHandler() {
-        // Hide constructor
+        MemoryManager.getInstance().registerMemoryUsage("undo", this::getMemoryFootprint);
     }
 
     /**
@@ -300,13 +321,70 @@ public final class UndoRedoHandler {
             c.executeCommand();
         }
         commands.add(c);
+        memory += c.getMemoryFootprint();
         // Limit the number of commands in the undo list.
         // Currently you have to undo the commands one by one. If
         // this changes, a higher default value may be reasonable.
         if (commands.size() > Config.getPref().getInt("undo.max", 1000)) {
-            commands.removeFirst();
+            Command first = commands.removeFirst();
+            memory -= first.getMemoryFootprint();
+            releaseSpilled(first);
         }
         redoCommands.clear();
+        limitMemory();
+    }
+
+    /**
+     * Returns the estimated memory used by the commands that can be undone, without their state moved to disk.
+     * This value is also reported by the {@link MemoryManager}.
+     * @return the estimated number of bytes
+     * @see Command#getMemoryFootprint()
+     * @since 18570
+     */
+    public long getMemoryFootprint() {
+        return memory;
+    }
+
+    /**
+     * Moves the state of the oldest commands to disk, until the memory is below {@link #PROP_MAX_MEMORY}.
+     * The last command is kept in memory, as it is the most likely to be undone.
+     */
+    private void limitMemory() {
+        int maxMemory = PROP_MAX_MEMORY.get();
+        if (maxMemory < 0)
+            return;
+        long maxBytes = maxMemory * 1024L * 1024L;
+        Iterator<Command> it = commands.iterator();
+        for (int i = commands.size() - 1; i > 0 && memory > maxBytes; i--) {
+            try {
+                if (spillFile == null) {
+                    spillFile = new UndoSpillFile();
+                }
+                memory -= it.next().spill(spillFile);
+            } catch (IOException e) {
+                Logging.log(Logging.LEVEL_WARN, "Unable to move undo history to disk", e);
+                return;
+            }
+        }
+    }
+
+    private static void releaseSpilled(Command c) {
+        try {
+            c.releaseSpilled();
+        } catch (IOException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to compact undo history on disk", e);
+        }
+    }
+
+    private void closeSpillFile() {
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                Logging.warn(e);
+            }
+            spillFile = null;
+        }
     }
 
     /**
@@ -377,6 +455,7 @@ public final class UndoRedoHandler {
             try {
                 for (int i = 1; i <= num; ++i) {
                     final Command c = commands.removeLast();
+                    final long footprint = c.getMemoryFootprint();
                     try {
                         c.undoCommand();
                     } catch (Exception e) { // NOPMD
@@ -384,6 +463,7 @@ public final class UndoRedoHandler {
                         commands.add(c);
                         throw e;
                     }
+                    memory -= footprint;
                     redoCommands.addFirst(c);
                     fireEvent(new CommandUndoneEvent(this, c));
                     if (commands.isEmpty()) {
@@ -417,11 +497,13 @@ public final class UndoRedoHandler {
             final Command c = redoCommands.removeFirst();
             c.executeCommand();
             commands.add(c);
+            memory += c.getMemoryFootprint();
             fireEvent(new CommandRedoneEvent(this, c));
             if (redoCommands.isEmpty()) {
                 break;
             }
         }
+        limitMemory();
         fireCommandsChanged();
     }
 
@@ -444,6 +526,8 @@ public final class UndoRedoHandler {
     public void clean() {
         redoCommands.clear();
         commands.clear();
+        memory = 0;
+        closeSpillFile();
         fireEvent(new CommandQueueCleanedEvent(this, null));
         fireCommandsChanged();
     }
@@ -457,9 +541,20 @@ public final class UndoRedoHandler {
         if (dataSet == null)
             return;
         boolean changed = false;
-        changed |= commands.removeIf(c -> c.getAffectedDataSet() == dataSet);
+        for (Iterator<Command> it = commands.iterator(); it.hasNext();) {
+            Command c = it.next();
+            if (c.getAffectedDataSet() == dataSet) {
+                it.remove();
+                changed = true;
+                releaseSpilled(c);
+            }
+        }
         changed |= redoCommands.removeIf(c -> c.getAffectedDataSet() == dataSet);
         if (changed) {
+            memory = commands.stream().mapToLong(Command::getMemoryFootprint).sum();
+            if (commands.isEmpty()) {
+                closeSpillFile();
+            }
             fireEvent(new CommandQueueCleanedEvent(this, dataSet));
             fireCommandsChanged();
         }
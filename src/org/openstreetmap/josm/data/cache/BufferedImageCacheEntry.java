@@ -2,10 +2,11 @@
 package org.openstreetmap.josm.data.cache;
 
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 
 import javax.imageio.ImageIO;
 
@@ -31,6 +32,16 @@ public class BufferedImageCacheEntry extends CacheEntry {
         super(content);
     }
 
+    /**
+     * Constructs a cache entry backed by a buffer, without copying the image data.
+     * @param content buffer containing image, between its position and its limit
+     * @see CacheEntry#CacheEntry(ByteBuffer)
+     * @since 18575
+     */
+    public BufferedImageCacheEntry(ByteBuffer content) {
+        super(content);
+    }
+
     /**
      * Encodes the given image as PNG and returns a cache entry
      * @param img the image
@@ -59,9 +70,10 @@ public class BufferedImageCacheEntry extends CacheEntry {
         synchronized (this) {
             if (imageLoaded)
                 return img;
-            byte[] content = getContent();
-            if (content.length > 0) {
-                img = ImageIO.read(new ByteArrayInputStream(content));
+            if (getContentLength() > 0) {
+                try (InputStream in = getContentStream()) {
+                    img = ImageIO.read(in);
+                }
                 imageLoaded = true;
             }
         }
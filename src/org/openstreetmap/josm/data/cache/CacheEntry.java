@@ -1,7 +1,12 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data.cache;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -12,6 +17,8 @@ import java.util.Arrays;
 public class CacheEntry implements Serializable {
     private static final long serialVersionUID = 1L; //version
     protected byte[] content;
+    /** content read from a memory-mapped cache, without copy */
+    private transient ByteBuffer buffer;
 
     /**
      * @param content of the cache entry
@@ -20,14 +27,110 @@ public class CacheEntry implements Serializable {
         this.content = Arrays.copyOf(content, content.length);
     }
 
+    /**
+     * Constructs a cache entry backed by a buffer, for instance a region of a memory-mapped file.
+     * The content is not copied, the buffer must not be modified afterwards.
+     * @param content of the cache entry, between the position and the limit of the buffer
+     * @since 18575
+     */
+    public CacheEntry(ByteBuffer content) {
+        this.buffer = content.slice().asReadOnlyBuffer();
+    }
+
     /**
      * Returns cache entry content.
      * @return cache entry content
      */
     public byte[] getContent() {
+        if (buffer != null) {
+            byte[] result = new byte[buffer.remaining()];
+            buffer.duplicate().get(result);
+            return result;
+        }
         if (content == null) {
             return new byte[]{};
         }
         return Arrays.copyOf(content, content.length);
     }
+
+    /**
+     * Returns the length of the cache entry content, without copying it.
+     * @return the number of bytes of the content
+     * @since 18575
+     */
+    public int getContentLength() {
+        if (buffer != null) {
+            return buffer.remaining();
+        }
+        return content == null ? 0 : content.length;
+    }
+
+    /**
+     * Returns a hash code of the cache entry content, without copying it.
+     * @return the hash code of the content, equal for equal contents
+     * @since 18581
+     */
+    public int getContentHash() {
+        if (buffer != null) {
+            return buffer.hashCode();
+        }
+        return ByteBuffer.wrap(content == null ? new byte[]{} : content).hashCode();
+    }
+
+    /**
+     * Returns a stream reading the cache entry content, without copying it.
+     * @return a new stream of the content
+     * @since 18575
+     */
+    public InputStream getContentStream() {
+        if (buffer != null) {
+            return new ByteBufferInputStream(buffer.duplicate());
+        }
+        return new ByteArrayInputStream(content == null ? new byte[]{} : content);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        if (buffer != null && content == null) {
+            content = getContent();
+        }
+        out.defaultWriteObject();
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
 }
@@ -23,6 +23,8 @@ import org.openstreetmap.josm.tools.Logging;
 public class CacheEntryAttributes extends ElementAttributes {
     private static final long serialVersionUID = 1L; //version
     private final Map<String, String> attrs = new ConcurrentHashMap<>(RESERVED_KEYS.size());
+    /** creation time read back from a disk cache, 0 if the attributes were created in this session */
+    private long storedCreateTime;
     private static final String NO_TILE_AT_ZOOM = "noTileAtZoom";
     private static final String ETAG = "Etag";
     private static final String LAST_MODIFICATION = "lastModification";
@@ -214,6 +216,31 @@ public class CacheEntryAttributes extends ElementAttributes {
         attrs.put(EXCEPTION, e.getClass().getCanonicalName());
     }
 
+    /**
+     * Restores attributes written to a disk cache, see {@link MappedDiskCache}.
+     * @param createTime the creation time of the attributes, in milliseconds
+     * @param attributes all attributes, including the reserved ones
+     * @return the restored attributes
+     * @since 18575
+     */
+    static CacheEntryAttributes restore(long createTime, Map<String, String> attributes) {
+        CacheEntryAttributes ret = new CacheEntryAttributes();
+        ret.attrs.putAll(attributes);
+        ret.storedCreateTime = createTime;
+        return ret;
+    }
+
+    @Override
+    public long getCreateTime() {
+        return storedCreateTime != 0 ? storedCreateTime : super.getCreateTime();
+    }
+
+    @Override
+    public void setCreateTime() {
+        storedCreateTime = 0;
+        super.setCreateTime();
+    }
+
     /**
      * Returns optional exception that was thrown when fetching resource.
      * @return Optional exception that was thrown when fetching resource
@@ -2,7 +2,6 @@
 package org.openstreetmap.josm.data.cache;
 
 import java.io.IOException;
-import java.net.URL;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingDeque;
@@ -15,6 +14,10 @@ import org.openstreetmap.josm.tools.Logging;
  * Queue for ThreadPoolExecutor that implements per-host limit. It will acquire a semaphore for each task
  * and it will set a runnable task with semaphore release, when job has finished.
  * <p>
+ * Jobs are taken by {@linkplain JCSCachedTileLoaderJob#getPriority() priority}, jobs with the same priority in insertion order.
+ * The priorities are evaluated each time a job is taken, so they can change while the jobs are queued, for instance
+ * to follow the viewport of the map.
+ * <p>
  * This implementation doesn't guarantee to have at most hostLimit connections per host[1], and it doesn't
  * guarantee that all threads will be busy, when there is work for them[2]. <br>
  * [1] More connection per host may happen, when ThreadPoolExecutor is growing its pool, and thus
@@ -50,30 +53,64 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
         this.hostLimit = hostLimit;
     }
 
+    private static double getPriority(Runnable r) {
+        return r instanceof JCSCachedTileLoaderJob ? ((JCSCachedTileLoaderJob<?, ?>) r).getPriority() : 0;
+    }
+
+    /**
+     * Finds the job with the best priority, whose host limit is not reached, and acquires its semaphore.
+     * @return the job, removed from the queue, or {@code null}
+     */
     private JCSCachedTileLoaderJob<?, ?> findJob() {
-        for (Runnable r : this) {
-            if (r instanceof JCSCachedTileLoaderJob) {
-                JCSCachedTileLoaderJob<?, ?> job = (JCSCachedTileLoaderJob<?, ?>) r;
-                if (tryAcquireSemaphore(job)) {
-                    if (remove(job)) {
-                        return job;
-                    } else {
-                        // we have acquired the semaphore, but we didn't manage to remove job, as someone else did
-                        // release the semaphore and look for another candidate
-                        releaseSemaphore(job);
+        while (true) {
+            JCSCachedTileLoaderJob<?, ?> best = null;
+            double bestPriority = Double.POSITIVE_INFINITY;
+            for (Runnable r : this) {
+                if (r instanceof JCSCachedTileLoaderJob) {
+                    JCSCachedTileLoaderJob<?, ?> job = (JCSCachedTileLoaderJob<?, ?>) r;
+                    double priority = job.getPriority();
+                    if ((best == null || priority < bestPriority) && getSemaphore(job).availablePermits() > 0) {
+                        best = job;
+                        bestPriority = priority;
                     }
-                } else {
-                    URL url = null;
-                    try {
-                        url = job.getUrl();
-                    } catch (IOException e) {
-                        Logging.debug(e);
-                    }
-                    Logging.debug("TMS - Skipping job {0} because host limit reached", url);
                 }
             }
+            if (best == null) {
+                if (Logging.isDebugEnabled() && !isEmpty()) {
+                    Logging.debug("TMS - Skipping {0} jobs because host limit reached", size());
+                }
+                return null;
+            }
+            if (tryAcquireSemaphore(best)) {
+                if (remove(best)) {
+                    return best;
+                }
+                // we have acquired the semaphore, but we didn't manage to remove job, as someone else did
+                // release the semaphore and look for another candidate
+                releaseSemaphore(best);
+            }
+        }
+    }
+
+    /**
+     * Removes the job with the best priority, regardless of the host limits.
+     * @return the job, or {@code null} if the queue is empty
+     */
+    private Runnable pollBest() {
+        while (true) {
+            Runnable best = null;
+            double bestPriority = Double.POSITIVE_INFINITY;
+            for (Runnable r : this) {
+                double priority = getPriority(r);
+                if (best == null || priority < bestPriority) {
+                    best = r;
+                    bestPriority = priority;
+                }
+            }
+            if (best == null || remove(best)) {
+                return best;
+            }
         }
-        return null;
     }
 
     @Override
@@ -82,7 +119,10 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
         if (job != null) {
             return job;
         }
-        job = pollFirst(timeout, unit);
+        job = pollBest();
+        if (job == null) {
+            job = pollFirst(timeout, unit);
+        }
         if (job != null) {
             try {
                 boolean gotLock = tryAcquireSemaphore(job, timeout, unit);
@@ -104,7 +144,10 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
         if (job != null) {
             return job;
         }
-        job = takeFirst();
+        job = pollBest();
+        if (job == null) {
+            job = takeFirst();
+        }
         try {
             acquireSemaphore(job);
         } catch (InterruptedException e) {
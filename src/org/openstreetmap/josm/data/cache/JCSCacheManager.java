@@ -3,12 +3,15 @@ package org.openstreetmap.josm.data.cache;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -17,6 +20,7 @@ import java.util.logging.SimpleFormatter;
 
 import org.apache.commons.jcs3.JCS;
 import org.apache.commons.jcs3.access.CacheAccess;
+import org.apache.commons.jcs3.access.behavior.ICacheAccess;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheFactory;
 import org.apache.commons.jcs3.auxiliary.disk.behavior.IDiskCacheAttributes;
 import org.apache.commons.jcs3.auxiliary.disk.block.BlockDiskCacheAttributes;
@@ -49,7 +53,14 @@ public final class JCSCacheManager {
      */
     public static final BooleanProperty USE_BLOCK_CACHE = new BooleanProperty(PREFERENCE_PREFIX + ".use_block_cache", true);
 
+    /**
+     * Property that determines if the tile caches use a {@link MappedDiskCache} instead of the JCS disk cache
+     * @since 18575
+     */
+    public static final BooleanProperty USE_MAPPED_CACHE = new BooleanProperty(PREFERENCE_PREFIX + ".use_mapped_cache", false);
+
     private static final AuxiliaryCacheFactory DISK_CACHE_FACTORY = getDiskCacheFactory();
+    private static final Map<String, MappedDiskCache> MAPPED_CACHES = new ConcurrentHashMap<>();
     private static FileLock cacheDirLock;
 
     /**
@@ -206,6 +217,32 @@ public final class JCSCacheManager {
         return cacheAccess;
     }
 
+    /**
+     * Returns the cache of a tile region: a {@link MappedDiskCache} if {@link #USE_MAPPED_CACHE} is set, otherwise
+     * a JCS cache without objects in memory, see {@link #getCache(String, int, int, String)}.
+     * @param cacheName         region name
+     * @param maxDiskObjects    maximum size of the objects stored on disk in kB
+     * @param cachePath         path to disk cache. if null, no disk cache will be created
+     * @return cache access object
+     * @since 18575
+     */
+    public static ICacheAccess<String, BufferedImageCacheEntry> getTileCache(String cacheName, int maxDiskObjects, String cachePath) {
+        if (cachePath != null && cacheDirLock != null && Boolean.TRUE.equals(USE_MAPPED_CACHE.get())) {
+            try {
+                return MAPPED_CACHES.computeIfAbsent(cacheName, name -> {
+                    try {
+                        return MappedDiskCache.open(name, new File(cachePath, name + "_MAPPED_v1"), maxDiskObjects * 1024L);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                Logging.log(Logging.LEVEL_WARN, "Unable to open mapped disk cache " + cacheName + ", using JCS", e);
+            }
+        }
+        return getCache(cacheName, 0, maxDiskObjects, cachePath);
+    }
+
     private static <K, V> CacheAccess<K, V> getCacheAccess(String cacheName, CompositeCacheAttributes cacheAttributes) {
         try {
             return JCS.getInstance(cacheName, cacheAttributes);
@@ -219,6 +256,8 @@ public final class JCSCacheManager {
      * Close all files to ensure, that all indexes and data are properly written
      */
     public static void shutdown() {
+        MAPPED_CACHES.values().forEach(MappedDiskCache::dispose);
+        MAPPED_CACHES.clear();
         JCS.shutdown();
     }
 
@@ -168,6 +168,15 @@ public abstract class JCSCachedTileLoaderJob<K, V extends CacheEntry> implements
         }
     }
 
+    /**
+     * Returns the priority of this job in the {@link HostLimitQueue}. The jobs with a lower value are run first.
+     * @return the priority of this job, {@code 0} by default
+     * @since 18578
+     */
+    public double getPriority() {
+        return 0;
+    }
+
     /**
      * This method is run when job has finished
      */
@@ -185,7 +194,7 @@ public abstract class JCSCachedTileLoaderJob<K, V extends CacheEntry> implements
         if (cacheData == null) {
             return false;
         }
-        return cacheData.getContent().length > 0;
+        return cacheData.getContentLength() > 0;
     }
 
     /**
@@ -0,0 +1,767 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.jcs3.access.behavior.ICacheAccess;
+import org.apache.commons.jcs3.access.exception.ObjectExistsException;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.CompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
+import org.apache.commons.jcs3.engine.stats.CacheStats;
+import org.apache.commons.jcs3.engine.stats.behavior.ICacheStats;
+import org.openstreetmap.josm.tools.Logging;
+
+/**
+ * Disk cache of {@link BufferedImageCacheEntry} based on memory-mapped segment files, an alternative to the JCS disk caches
+ * for large imagery caches, see {@link JCSCacheManager#USE_MAPPED_CACHE}.
+ * <p>
+ * Entries are appended to a log of segment files. A compact in-memory hash index maps the hash of each key to the location
+ * of its last record. Reading an entry does not copy its content: the entry is backed by the memory-mapped segment.
+ * The index is written by {@link #dispose()}, so that opening the cache does not read the segments. After a crash, the index
+ * is rebuilt by scanning the record headers.
+ * <p>
+ * When the segments exceed the maximal size, the oldest segment is compacted: the entries read since the next segment was
+ * started get a second chance and are copied to the end of the log, the other ones are dropped with the segment.
+ *
+ * @since 18575
+ */
+public final class MappedDiskCache implements ICacheAccess<String, BufferedImageCacheEntry> {
+
+    private static final int RECORD_MAGIC = 0x4a4d4352;
+    private static final int INDEX_MAGIC = 0x4a4d4349;
+    private static final int INDEX_VERSION = 1;
+    /** magic, key length, metadata length (-1 for removed entries), content length, creation time */
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8;
+    private static final int MIN_SEGMENT_SIZE = 1 << 20;
+    private static final int MAX_SEGMENT_SIZE = 64 << 20;
+    private static final String INDEX_FILE = "index.dat";
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d+)\\.dat");
+
+    private final String cacheName;
+    private final File directory;
+    private final long maxSize;
+    private final int segmentSize;
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final KeyIndex index = new KeyIndex();
+    private Segment active;
+    private long totalCapacity;
+    /** incremented at each access, to find the entries read recently */
+    private long clock;
+    private long hits;
+    private long misses;
+    private boolean disposed;
+    private IElementAttributes defaultAttributes = new CacheEntryAttributes();
+    private ICompositeCacheAttributes cacheAttributes;
+
+    /**
+     * A segment file, mapped in memory. The records are never modified once written.
+     */
+    private static final class Segment {
+        private final int id;
+        private final File file;
+        private final MappedByteBuffer buffer;
+        /** end of the written records */
+        private int end;
+        /** value of the clock when the segment was started */
+        private long startClock;
+
+        Segment(int id, File file, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Hash table of the entries with open addressing, keyed by the 64 bit hash of the keys.
+     * A collision of two hashes makes the older entry unreachable, which is harmless for a cache.
+     */
+    private static final class KeyIndex {
+        private long[] hashes = new long[1024];
+        /** segment id in the upper 32 bits, offset in the segment in the lower 32 bits */
+        private long[] locations = new long[1024];
+        /** value of the clock at the last access of the entry */
+        private long[] accesses = new long[1024];
+        private int size;
+
+        int find(long hash) {
+            int mask = hashes.length - 1;
+            for (int i = (int) hash & mask; hashes[i] != 0; i = (i + 1) & mask) {
+                if (hashes[i] == hash) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void put(long hash, long location, long access) {
+            if ((size + 1) * 4L > hashes.length * 3L) {
+                resize(hashes.length * 2);
+            }
+            int mask = hashes.length - 1;
+            int i = (int) hash & mask;
+            while (hashes[i] != 0 && hashes[i] != hash) {
+                i = (i + 1) & mask;
+            }
+            if (hashes[i] == 0) {
+                hashes[i] = hash;
+                size++;
+            }
+            locations[i] = location;
+            accesses[i] = access;
+        }
+
+        void remove(long hash) {
+            int i = find(hash);
+            if (i < 0) {
+                return;
+            }
+            int mask = hashes.length - 1;
+            hashes[i] = 0;
+            size--;
+            // shift back the following entries of the probe sequence
+            for (int j = (i + 1) & mask; hashes[j] != 0; j = (j + 1) & mask) {
+                int home = (int) hashes[j] & mask;
+                if (i <= j ? home <= i || home > j : home <= i && home > j) {
+                    hashes[i] = hashes[j];
+                    locations[i] = locations[j];
+                    accesses[i] = accesses[j];
+                    hashes[j] = 0;
+                    i = j;
+                }
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldHashes = hashes;
+            long[] oldLocations = locations;
+            long[] oldAccesses = accesses;
+            hashes = new long[capacity];
+            locations = new long[capacity];
+            accesses = new long[capacity];
+            size = 0;
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldHashes[i] != 0) {
+                    put(oldHashes[i], oldLocations[i], oldAccesses[i]);
+                }
+            }
+        }
+
+        void clear() {
+            hashes = new long[1024];
+            locations = new long[1024];
+            accesses = new long[1024];
+            size = 0;
+        }
+    }
+
+    private MappedDiskCache(String cacheName, File directory, long maxSize) {
+        this.cacheName = cacheName;
+        this.directory = directory;
+        this.segmentSize = (int) Math.max(MIN_SEGMENT_SIZE, Math.min(MAX_SEGMENT_SIZE, maxSize / 8));
+        this.maxSize = Math.max(maxSize, 2L * segmentSize);
+        CompositeCacheAttributes attributes = new CompositeCacheAttributes();
+        attributes.setCacheName(cacheName);
+        attributes.setMaxObjects(0);
+        this.cacheAttributes = attributes;
+    }
+
+    /**
+     * Opens a cache, creating it if it does not exist.
+     * @param cacheName region name
+     * @param directory directory of the segment files of the region
+     * @param maxSize maximal size of the segment files, in bytes
+     * @return the cache
+     * @throws IOException if the cache cannot be opened
+     */
+    public static MappedDiskCache open(String cacheName, File directory, long maxSize) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create cache directory " + directory);
+        }
+        MappedDiskCache cache = new MappedDiskCache(cacheName, directory, maxSize);
+        synchronized (cache) {
+            File indexFile = new File(directory, INDEX_FILE);
+            boolean loaded = indexFile.isFile() && cache.readIndex(indexFile);
+            // the index is rewritten by dispose(), a missing index means that the segments have to be scanned
+            Files.deleteIfExists(indexFile.toPath());
+            if (!loaded) {
+                cache.scan();
+            }
+            cache.deleteOrphanSegments();
+            if (cache.segments.isEmpty()) {
+                cache.startSegment();
+            }
+            cache.active = cache.segments.lastEntry().getValue();
+        }
+        return cache;
+    }
+
+    private Segment mapSegment(int id, long capacity) throws IOException {
+        File file = new File(directory, "segment-" + id + ".dat");
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            Segment segment = new Segment(id, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+            segments.put(id, segment);
+            totalCapacity += capacity;
+            return segment;
+        }
+    }
+
+    private void startSegment() throws IOException {
+        if (active != null) {
+            active.buffer.force();
+        }
+        int id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        active = mapSegment(id, segmentSize);
+        active.startClock = clock;
+    }
+
+    private boolean readIndex(File indexFile) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile.toPath()), 1 << 16))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                return false;
+            }
+            clock = in.readLong();
+            for (int n = in.readInt(); n > 0; n--) {
+                int id = in.readInt();
+                int end = in.readInt();
+                long startClock = in.readLong();
+                File file = new File(directory, "segment-" + id + ".dat");
+                if (!file.isFile() || file.length() < end) {
+                    resetIndex();
+                    return false;
+                }
+                Segment segment = mapSegment(id, file.length());
+                segment.end = end;
+                segment.startClock = startClock;
+            }
+            for (int n = in.readInt(); n > 0; n--) {
+                long hash = in.readLong();
+                long location = in.readLong();
+                long access = in.readLong();
+                Segment segment = segments.get(segmentId(location));
+                if (segment != null && offset(location) < segment.end) {
+                    index.put(hash, location, access);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to read index of cache " + cacheName + ", rebuilding it", e);
+            resetIndex();
+            return false;
+        }
+    }
+
+    private void resetIndex() {
+        segments.clear();
+        index.clear();
+        totalCapacity = 0;
+        clock = 0;
+    }
+
+    private void writeIndex() throws IOException {
+        File tmp = new File(directory, INDEX_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath()), 1 << 16))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(clock);
+            out.writeInt(segments.size());
+            for (Segment segment : segments.values()) {
+                out.writeInt(segment.id);
+                out.writeInt(segment.end);
+                out.writeLong(segment.startClock);
+            }
+            out.writeInt(index.size);
+            for (int i = 0; i < index.hashes.length; i++) {
+                if (index.hashes[i] != 0) {
+                    out.writeLong(index.hashes[i]);
+                    out.writeLong(index.locations[i]);
+                    out.writeLong(index.accesses[i]);
+                }
+            }
+        }
+        Files.move(tmp.toPath(), new File(directory, INDEX_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Rebuilds the index from the record headers of the segments.
+     */
+    private void scan() throws IOException {
+        resetIndex();
+        for (int id : listSegmentFiles().keySet()) {
+            File file = new File(directory, "segment-" + id + ".dat");
+            Segment segment = mapSegment(id, file.length());
+            segment.startClock = clock;
+            ByteBuffer buffer = segment.buffer.duplicate();
+            int offset = 0;
+            while (offset + HEADER_SIZE <= buffer.capacity() && buffer.getInt(offset) == RECORD_MAGIC) {
+                int keyLength = buffer.getInt(offset + 4);
+                int metadataLength = buffer.getInt(offset + 8);
+                int contentLength = buffer.getInt(offset + 12);
+                long length = (long) HEADER_SIZE + keyLength + Math.max(0, metadataLength) + contentLength;
+                if (keyLength < 0 || contentLength < 0 || offset + length > buffer.capacity()) {
+                    break;
+                }
+                byte[] key = new byte[keyLength];
+                buffer.position(offset + HEADER_SIZE);
+                buffer.get(key);
+                long hash = hash(new String(key, StandardCharsets.UTF_8));
+                if (metadataLength < 0) {
+                    index.remove(hash);
+                } else {
+                    index.put(hash, location(id, offset), ++clock);
+                }
+                offset += (int) length;
+            }
+            segment.end = offset;
+        }
+        Logging.info("Rebuilt index of cache {0}: {1} entries in {2} segments", cacheName, index.size, segments.size());
+    }
+
+    private Map<Integer, File> listSegmentFiles() {
+        Map<Integer, File> result = new TreeMap<>();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Matcher m = SEGMENT_FILE.matcher(file.getName());
+                if (m.matches()) {
+                    result.put(Integer.valueOf(m.group(1)), file);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void deleteOrphanSegments() {
+        for (Map.Entry<Integer, File> e : listSegmentFiles().entrySet()) {
+            if (!segments.containsKey(e.getKey())) {
+                deleteSegmentFile(e.getValue());
+            }
+        }
+    }
+
+    private static void deleteSegmentFile(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            // a file still mapped cannot be deleted on some platforms
+            Logging.log(Logging.LEVEL_WARN, "Unable to delete cache segment " + file, e);
+            file.deleteOnExit();
+        }
+    }
+
+    private static long location(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xffffffffL);
+    }
+
+    private static int segmentId(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+
+    static long hash(String key) {
+        // FNV-1a, then the finalizer of MurmurHash3 to spread the bits
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private static byte[] encodeMetadata(IElementAttributes attributes) {
+        Map<String, String> metadata = attributes instanceof CacheEntryAttributes
+                ? ((CacheEntryAttributes) attributes).getMetadata() : Collections.emptyMap();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(metadata.size());
+            for (Map.Entry<String, String> e : metadata.entrySet()) {
+                for (String s : new String[] {e.getKey(), e.getValue()}) {
+                    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(b.length);
+                    out.write(b);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, String> decodeMetadata(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        Map<String, String> metadata = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            metadata.put(decodeString(buffer), decodeString(buffer));
+        }
+        return metadata;
+    }
+
+    private static String decodeString(ByteBuffer buffer) {
+        byte[] b = new byte[buffer.getInt()];
+        buffer.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a record to the active segment, starting a new segment and compacting the oldest one if needed.
+     * @return the location of the record, or -1 if it is too large
+     */
+    private long append(byte[] key, byte[] metadata, byte[] content, long createTime) throws IOException {
+        int length = HEADER_SIZE + key.length + (metadata != null ? metadata.length : 0) + content.length;
+        if (length > segmentSize) {
+            return -1;
+        }
+        if (active.end + length > active.buffer.capacity()) {
+            startSegment();
+            while (totalCapacity > maxSize && segments.size() > 1) {
+                compact(segments.firstEntry().getValue());
+            }
+            if (active.end + length > active.buffer.capacity()) {
+                // filled by the entries kept by the compaction
+                startSegment();
+            }
+        }
+        return write(active, key, metadata, content, createTime);
+    }
+
+    private static long write(Segment segment, byte[] key, byte[] metadata, byte[] content, long createTime) {
+        int offset = segment.end;
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(offset + 4);
+        buffer.putInt(key.length).putInt(metadata != null ? metadata.length : -1).putInt(content.length).putLong(createTime);
+        buffer.put(key);
+        if (metadata != null) {
+            buffer.put(metadata);
+        }
+        buffer.put(content);
+        // the magic number is written last, so that a record interrupted by a crash is not read back
+        segment.buffer.putInt(offset, RECORD_MAGIC);
+        segment.end = buffer.position();
+        return location(segment.id, offset);
+    }
+
+    /**
+     * Removes the oldest segment. The entries read since the next segment was started are copied to the active segment,
+     * within the limit of half a segment.
+     */
+    private void compact(Segment oldest) {
+        long recentlyUsed = segments.higherEntry(oldest.id).getValue().startClock;
+        int budget = Math.min(segmentSize / 2, active.buffer.capacity() - active.end);
+        List<Long> dropped = new ArrayList<>();
+        for (int i = 0; i < index.hashes.length; i++) {
+            if (index.hashes[i] == 0 || segmentId(index.locations[i]) != oldest.id) {
+                continue;
+            }
+            ByteBuffer record = oldest.buffer.duplicate();
+            int offset = offset(index.locations[i]);
+            int length = HEADER_SIZE + record.getInt(offset + 4) + Math.max(0, record.getInt(offset + 8)) + record.getInt(offset + 12);
+            if (index.accesses[i] > recentlyUsed && length <= budget) {
+                record.position(offset).limit(offset + length);
+                ByteBuffer target = active.buffer.duplicate();
+                target.position(active.end);
+                target.put(record);
+                index.locations[i] = location(active.id, active.end);
+                active.end += length;
+                budget -= length;
+            } else {
+                dropped.add(index.hashes[i]);
+            }
+        }
+        dropped.forEach(index::remove);
+        segments.remove(oldest.id);
+        totalCapacity -= oldest.buffer.capacity();
+        deleteSegmentFile(oldest.file);
+    }
+
+    private ICacheElement<String, BufferedImageCacheEntry> read(String key) {
+        ByteBuffer record;
+        synchronized (this) {
+            int slot = disposed ? -1 : index.find(hash(key));
+            if (slot < 0) {
+                misses++;
+                return null;
+            }
+            long location = index.locations[slot];
+            record = segments.get(segmentId(location)).buffer.duplicate();
+            record.position(offset(location));
+            index.accesses[slot] = ++clock;
+            hits++;
+        }
+        // the record is read without the lock: written records are never modified, and the mapping of a removed
+        // segment stays valid as long as it is referenced
+        if (record.getInt() != RECORD_MAGIC) {
+            return null;
+        }
+        int keyLength = record.getInt();
+        int metadataLength = record.getInt();
+        int contentLength = record.getInt();
+        long createTime = record.getLong();
+        byte[] keyBytes = new byte[keyLength];
+        record.get(keyBytes);
+        if (metadataLength < 0 || !key.equals(new String(keyBytes, StandardCharsets.UTF_8))) {
+            return null;
+        }
+        Map<String, String> metadata = decodeMetadata(record);
+        record.limit(record.position() + contentLength);
+        return new CacheElement<>(cacheName, key, new BufferedImageCacheEntry(record),
+                CacheEntryAttributes.restore(createTime, metadata));
+    }
+
+    @Override
+    public BufferedImageCacheEntry get(String key) {
+        ICacheElement<String, BufferedImageCacheEntry> element = read(key);
+        return element != null ? element.getVal() : null;
+    }
+
+    @Override
+    public BufferedImageCacheEntry get(String key, Supplier<BufferedImageCacheEntry> supplier) {
+        BufferedImageCacheEntry value = get(key);
+        if (value == null) {
+            value = supplier.get();
+            put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public Map<String, BufferedImageCacheEntry> getMatching(String pattern) {
+        Map<String, BufferedImageCacheEntry> result = new HashMap<>();
+        getMatchingCacheElements(pattern).forEach((k, v) -> result.put(k, v.getVal()));
+        return result;
+    }
+
+    @Override
+    public void putSafe(String key, BufferedImageCacheEntry value) throws ObjectExistsException {
+        synchronized (this) {
+            if (!disposed && index.find(hash(key)) >= 0) {
+                throw new ObjectExistsException("Key " + key + " already exists in cache " + cacheName);
+            }
+            put(key, value);
+        }
+    }
+
+    @Override
+    public void put(String key, BufferedImageCacheEntry value) {
+        put(key, value, new CacheEntryAttributes());
+    }
+
+    @Override
+    public void put(String key, BufferedImageCacheEntry value, IElementAttributes attributes) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] metadata = encodeMetadata(attributes);
+        byte[] content = value.getContent();
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            long hash = hash(key);
+            try {
+                long location = append(keyBytes, metadata, content, attributes.getCreateTime());
+                if (location < 0) {
+                    Logging.debug("Entry {0} is too large for cache {1}", key, cacheName);
+                    index.remove(hash);
+                } else {
+                    index.put(hash, location, ++clock);
+                }
+            } catch (IOException e) {
+                Logging.log(Logging.LEVEL_WARN, "Unable to write entry " + key + " to cache " + cacheName, e);
+                index.remove(hash);
+            }
+        }
+    }
+
+    @Override
+    public ICacheElement<String, BufferedImageCacheEntry> getCacheElement(String key) {
+        return read(key);
+    }
+
+    @Override
+    public Map<String, ICacheElement<String, BufferedImageCacheEntry>> getCacheElements(Set<String> keys) {
+        Map<String, ICacheElement<String, BufferedImageCacheEntry>> result = new HashMap<>();
+        for (String key : keys) {
+            ICacheElement<String, BufferedImageCacheEntry> element = read(key);
+            if (element != null) {
+                result.put(key, element);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, ICacheElement<String, BufferedImageCacheEntry>> getMatchingCacheElements(String pattern) {
+        // keys are not kept in memory, they are read from the records
+        Pattern p = Pattern.compile(pattern);
+        List<String> keys = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; !disposed && i < index.hashes.length; i++) {
+                if (index.hashes[i] != 0) {
+                    ByteBuffer record = segments.get(segmentId(index.locations[i])).buffer.duplicate();
+                    int offset = offset(index.locations[i]);
+                    byte[] key = new byte[record.getInt(offset + 4)];
+                    record.position(offset + HEADER_SIZE);
+                    record.get(key);
+                    keys.add(new String(key, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        keys.removeIf(k -> !p.matcher(k).matches());
+        return getCacheElements(new HashSet<>(keys));
+    }
+
+    @Override
+    public void remove(String key) {
+        synchronized (this) {
+            long hash = hash(key);
+            if (disposed || index.find(hash) < 0) {
+                return;
+            }
+            index.remove(hash);
+            try {
+                // a removal record, for the scan of the segments after a crash
+                append(key.getBytes(StandardCharsets.UTF_8), null, new byte[0], 0);
+            } catch (IOException e) {
+                Logging.log(Logging.LEVEL_WARN, "Unable to remove entry " + key + " from cache " + cacheName, e);
+            }
+        }
+    }
+
+    @Override
+    public void resetElementAttributes(String key, IElementAttributes attributes) {
+        BufferedImageCacheEntry value = get(key);
+        if (value != null) {
+            put(key, value, attributes);
+        }
+    }
+
+    @Override
+    public IElementAttributes getElementAttributes(String key) {
+        ICacheElement<String, BufferedImageCacheEntry> element = read(key);
+        return element != null ? element.getElementAttributes() : null;
+    }
+
+    /**
+     * Writes the index and releases the segment files. The cache cannot be used afterwards.
+     */
+    @Override
+    public synchronized void dispose() {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+        try {
+            active.buffer.force();
+            writeIndex();
+        } catch (IOException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to write index of cache " + cacheName, e);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        if (disposed) {
+            return;
+        }
+        for (Segment segment : segments.values()) {
+            deleteSegmentFile(segment.file);
+        }
+        resetIndex();
+        active = null;
+        try {
+            startSegment();
+        } catch (IOException e) {
+            disposed = true;
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public IElementAttributes getDefaultElementAttributes() {
+        return defaultAttributes;
+    }
+
+    @Override
+    public void setDefaultElementAttributes(IElementAttributes attributes) {
+        this.defaultAttributes = attributes;
+    }
+
+    @Override
+    public ICompositeCacheAttributes getCacheAttributes() {
+        return cacheAttributes;
+    }
+
+    @Override
+    public void setCacheAttributes(ICompositeCacheAttributes attributes) {
+        this.cacheAttributes = attributes;
+    }
+
+    @Override
+    public int freeMemoryElements(int numberToFree) {
+        // the entries are not held in memory
+        return 0;
+    }
+
+    @Override
+    public ICacheStats getStatistics() {
+        CacheStats stats = new CacheStats();
+        stats.setRegionName(cacheName);
+        return stats;
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return index.size;
+    }
+
+    /**
+     * Returns the size of the segment files.
+     * @return the size of the segment files, in bytes
+     */
+    public synchronized long getDiskSize() {
+        return totalCapacity;
+    }
+
+    @Override
+    public synchronized String getStats() {
+        return "Region Name = " + cacheName + ", entries = " + index.size + ", segments = " + segments.size()
+                + ", disk size = " + totalCapacity + ", hits = " + hits + ", misses = " + misses;
+    }
+}
@@ -3,6 +3,8 @@ package org.openstreetmap.josm.data.imagery;
 
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 
 import org.apache.commons.jcs3.access.behavior.ICacheAccess;
 import org.apache.commons.jcs3.engine.behavior.ICache;
@@ -47,6 +49,7 @@ public class TMSCachedTileLoader implements TileLoader, CachedTileLoader {
 
     private ThreadPoolExecutor downloadExecutor = DEFAULT_DOWNLOAD_JOB_DISPATCHER;
     protected final TileJobOptions options;
+    private volatile ToDoubleFunction<Tile> tilePriority;
 
     /**
      * Constructor
@@ -101,12 +104,29 @@ public class TMSCachedTileLoader implements TileLoader, CachedTileLoader {
 
     @Override
     public TileJob createTileLoaderJob(Tile tile) {
-        return new TMSCachedTileLoaderJob(
+        TMSCachedTileLoaderJob job = new TMSCachedTileLoaderJob(
                 listener,
                 tile,
                 cache,
                 options,
                 getDownloadExecutor());
+        job.setLoader(this);
+        return job;
+    }
+
+    /**
+     * Sets the priority of the tiles of this loader in the download queue.
+     * @param tilePriority returns the priority of a tile, the tiles with a lower value are downloaded first.
+     * It is evaluated each time a job is taken from the queue, so that the order can follow the viewport
+     * @since 18578
+     */
+    public void setTilePriority(ToDoubleFunction<Tile> tilePriority) {
+        this.tilePriority = tilePriority;
+    }
+
+    double getTilePriority(Tile tile) {
+        ToDoubleFunction<Tile> priority = tilePriority;
+        return priority != null ? priority.applyAsDouble(tile) : 0;
     }
 
     @Override
@@ -135,6 +155,37 @@ public class TMSCachedTileLoader implements TileLoader, CachedTileLoader {
         }
     }
 
+    /**
+     * Cancels a task, if it is still in the queue. This rollbacks the state of its tile to loading = false / loaded = false
+     * @param job a job created by this loader
+     * @return {@code true} if the job was removed from the queue, {@code false} if it is already running or finished
+     * @since 18577
+     */
+    public boolean cancelTask(TileJob job) {
+        if (job instanceof TMSCachedTileLoaderJob && downloadExecutor.remove((Runnable) job)) {
+            ((TMSCachedTileLoaderJob) job).handleJobCancellation();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Cancels the outstanding tasks of this loader whose tile matches a predicate. This rollbacks the state of their tiles
+     * to loading = false / loaded = false. The tasks already running are kept.
+     * @param filter the tiles to cancel
+     * @since 18578
+     */
+    public void cancelOutstandingTasks(Predicate<Tile> filter) {
+        for (Runnable r: downloadExecutor.getQueue()) {
+            if (r instanceof TMSCachedTileLoaderJob) {
+                TMSCachedTileLoaderJob job = (TMSCachedTileLoaderJob) r;
+                if (job.getLoader() == this && filter.test(job.getTile()) && downloadExecutor.remove(job)) {
+                    job.handleJobCancellation();
+                }
+            }
+        }
+    }
+
     @Override
     public boolean hasOutstandingTasks() {
         return downloadExecutor.getTaskCount() > downloadExecutor.getCompletedTaskCount();
@@ -3,8 +3,8 @@ package org.openstreetmap.josm.data.imagery;
 
 import static org.openstreetmap.josm.tools.I18n.tr;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
@@ -58,6 +58,8 @@ public class TMSCachedTileLoaderJob extends JCSCachedTileLoaderJob<String, Buffe
     protected final Tile tile;
     private volatile URL url;
     private final TileJobOptions options;
+    /** the loader that created this job, it gives the priority of the tile */
+    private TMSCachedTileLoader loader;
 
     // we need another deduplication of Tile Loader listeners, as for each submit, new TMSCachedTileLoaderJob was created
     // that way, we reduce calls to tileLoadingFinished, and general CPU load due to surplus Map repaints
@@ -83,6 +85,35 @@ public class TMSCachedTileLoaderJob extends JCSCachedTileLoaderJob<String, Buffe
         }
     }
 
+    /**
+     * Sets the loader that created this job.
+     * @param loader the loader
+     */
+    void setLoader(TMSCachedTileLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the loader that created this job.
+     * @return the loader, can be {@code null}
+     */
+    TMSCachedTileLoader getLoader() {
+        return loader;
+    }
+
+    /**
+     * Returns the tile loaded by this job.
+     * @return the tile
+     */
+    Tile getTile() {
+        return tile;
+    }
+
+    @Override
+    public double getPriority() {
+        return loader != null ? loader.getTilePriority(tile) : 0;
+    }
+
     @Override
     public String getCacheKey() {
         if (tile != null) {
@@ -121,9 +152,8 @@ public class TMSCachedTileLoaderJob extends JCSCachedTileLoaderJob<String, Buffe
     @Override
     public boolean isObjectLoadable() {
         if (cacheData != null) {
-            byte[] content = cacheData.getContent();
             try {
-                return content.length > 0 || cacheData.getImage() != null || isNoTileAtZoom();
+                return cacheData.getContentLength() > 0 || cacheData.getImage() != null || isNoTileAtZoom();
             } catch (IOException e) {
                 Logging.logWithStackTrace(Logging.LEVEL_WARN, e, "JCS TMS - error loading from cache for tile {0}: {1}",
                         tile.getKey(), e.getMessage());
@@ -184,6 +214,15 @@ public class TMSCachedTileLoaderJob extends JCSCachedTileLoaderJob<String, Buffe
 
     @Override
     public void loadingFinished(CacheEntry object, CacheEntryAttributes attributes, LoadResult result) {
+        if (result != LoadResult.CANCELED && object != null && object.getContentLength() > 0) {
+            // decode the tile in the decoder pool, the tile is still loading until then
+            TileImageDecoder.getInstance().execute(() -> tileLoaded(object, attributes, result));
+        } else {
+            tileLoaded(object, attributes, result);
+        }
+    }
+
+    private void tileLoaded(CacheEntry object, CacheEntryAttributes attributes, LoadResult result) {
         this.attributes = attributes; // as we might get notification from other object than our selfs, pass attributes along
         Set<TileLoaderListener> listeners = inProgress.remove(getCacheKey());
         boolean status = result == LoadResult.SUCCESS;
@@ -322,13 +361,18 @@ public class TMSCachedTileLoaderJob extends JCSCachedTileLoaderJob<String, Buffe
 
     private boolean tryLoadTileImage(CacheEntry object) throws IOException {
         if (object != null) {
-            byte[] content = object.getContent();
-            if (content.length > 0 || tile instanceof VectorTile) {
-                try (ByteArrayInputStream in = new ByteArrayInputStream(content)) {
-                    tile.loadImage(in);
+            if (object.getContentLength() > 0 || tile instanceof VectorTile) {
+                try {
+                    if (tile instanceof VectorTile) {
+                        try (InputStream in = object.getContentStream()) {
+                            tile.loadImage(in);
+                        }
+                    } else {
+                        tile.setImage(TileImageDecoder.getInstance().decode(getUrl().toString(), object));
+                    }
                     if ((!(tile instanceof VectorTile) && tile.getImage() == null)
                         || ((tile instanceof VectorTile) && !tile.isLoaded())) {
-                        String s = new String(content, StandardCharsets.UTF_8);
+                        String s = new String(object.getContent(), StandardCharsets.UTF_8);
                         Matcher m = SERVICE_EXCEPTION_PATTERN.matcher(s);
                         if (m.matches()) {
                             String message = Utils.strip(m.group(1));
@@ -0,0 +1,209 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.imagery;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.openstreetmap.josm.data.cache.CacheEntry;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Decodes the images of the tiles loaded by {@link TMSCachedTileLoaderJob}.
+ * <p>
+ * The tiles are decoded by a dedicated pool of threads, so that the download threads, which are limited per host, are not
+ * blocked by the decoding. When the queue of the pool is full, the tile is decoded by the thread that submits it.
+ * <p>
+ * The decoded images are shared by URL: when a tile is shown by several layers, e.g. with different filters, it is decoded
+ * once. An image is only shared if the content of the tile did not change, and only as long as a tile uses it.
+ *
+ * @since 18581
+ */
+public final class TileImageDecoder {
+    /** The number of threads decoding the tiles */
+    public static final IntegerProperty THREADS = new IntegerProperty("imagery.decoder.threads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    private static final int QUEUE_SIZE_PER_THREAD = 16;
+    private static final TileImageDecoder INSTANCE = new TileImageDecoder(THREADS.get());
+
+    private final ThreadPoolExecutor executor;
+    /** The decoded images, by URL */
+    private final Map<String, SharedImage> images = new HashMap<>();
+    /** The images being decoded, by URL */
+    private final Map<String, Decoding> decodings = new HashMap<>();
+    private final ReferenceQueue<BufferedImage> collected = new ReferenceQueue<>();
+    private long decodedCount;
+    private long sharedCount;
+
+    TileImageDecoder(int threads) {
+        int size = Math.max(1, threads);
+        executor = new ThreadPoolExecutor(size, size, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(size * QUEUE_SIZE_PER_THREAD),
+                Utils.newThreadFactory("tile-decoder-%d", Thread.NORM_PRIORITY), new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get the decoder shared by all imagery layers
+     * @return The decoder
+     */
+    public static TileImageDecoder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Run a task in the decoder pool, or in the calling thread if the pool is busy
+     * @param task The task, decoding one tile
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Decode the image of a tile. If the same content was already decoded for the URL, and the image is still used, the same
+     * image is returned. The returned image must not be modified.
+     * @param url The URL of the tile
+     * @param entry The cache entry of the tile
+     * @return The image, or {@code null} if the content is not an image
+     * @throws IOException if the image cannot be decoded
+     */
+    public BufferedImage decode(String url, CacheEntry entry) throws IOException {
+        final int length = entry.getContentLength();
+        final int hash = entry.getContentHash();
+        final FutureTask<BufferedImage> task;
+        final boolean decodeHere;
+        synchronized (this) {
+            purgeCollected();
+            SharedImage shared = images.get(url);
+            BufferedImage image = shared != null && shared.matches(length, hash) ? shared.get() : null;
+            if (image != null) {
+                sharedCount++;
+                return image;
+            }
+            Decoding decoding = decodings.get(url);
+            decodeHere = decoding == null || !decoding.matches(length, hash);
+            if (decodeHere) {
+                task = new FutureTask<>(() -> {
+                    try (InputStream in = entry.getContentStream()) {
+                        return ImageIO.read(in);
+                    }
+                });
+                decodings.put(url, new Decoding(task, length, hash));
+            } else {
+                task = decoding.task;
+                sharedCount++;
+            }
+        }
+        if (decodeHere) {
+            task.run();
+        }
+        final BufferedImage image = getResult(task);
+        if (decodeHere) {
+            synchronized (this) {
+                Decoding decoding = decodings.get(url);
+                if (decoding != null && decoding.task == task) {
+                    decodings.remove(url);
+                }
+                decodedCount++;
+                if (image != null) {
+                    images.put(url, new SharedImage(url, image, length, hash, collected));
+                }
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage getResult(FutureTask<BufferedImage> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void purgeCollected() {
+        for (Reference<? extends BufferedImage> reference = collected.poll(); reference != null; reference = collected.poll()) {
+            SharedImage shared = (SharedImage) reference;
+            if (images.get(shared.url) == shared) {
+                images.remove(shared.url);
+            }
+        }
+    }
+
+    /**
+     * Get the number of images that were decoded
+     * @return The number of decoded tiles
+     */
+    public synchronized long getDecodedCount() {
+        return decodedCount;
+    }
+
+    /**
+     * Get the number of times an image was shared instead of being decoded again
+     * @return The number of tiles that were not decoded
+     */
+    public synchronized long getSharedCount() {
+        return sharedCount;
+    }
+
+    /**
+     * Get the number of images that can currently be shared
+     * @return The number of decoded images still in use
+     */
+    public synchronized int getImageCount() {
+        purgeCollected();
+        return images.size();
+    }
+
+    private static final class SharedImage extends WeakReference<BufferedImage> {
+        private final String url;
+        private final int length;
+        private final int hash;
+
+        SharedImage(String url, BufferedImage image, int length, int hash, ReferenceQueue<BufferedImage> queue) {
+            super(image, queue);
+            this.url = url;
+            this.length = length;
+            this.hash = hash;
+        }
+
+        boolean matches(int length, int hash) {
+            return this.length == length && this.hash == hash;
+        }
+    }
+
+    private static final class Decoding {
+        private final FutureTask<BufferedImage> task;
+        private final int length;
+        private final int hash;
+
+        Decoding(FutureTask<BufferedImage> task, int length, int hash) {
+            this.task = task;
+            this.length = length;
+            this.hash = hash;
+        }
+
+        boolean matches(int length, int hash) {
+            return this.length == length && this.hash == hash;
+        }
+    }
+}
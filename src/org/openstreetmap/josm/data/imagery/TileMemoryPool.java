@@ -0,0 +1,377 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.imagery;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openstreetmap.gui.jmapviewer.Tile;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.MemoryManager;
+import org.openstreetmap.josm.tools.MemoryManager.MemoryHandle;
+import org.openstreetmap.josm.tools.MemoryManager.NotEnoughMemoryException;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Keeps the decoded images of the tiles of all imagery layers under one memory budget.
+ * <p>
+ * The budget is allocated from the {@link MemoryManager} when the first layer is {@link #attach attached}, whatever the
+ * number of layers, and the memory used by the tiles of each layer is reported to it. When the tile images use more than
+ * the budget, the least recently used tiles of all layers drop their image and are marked as not loaded, so that they are
+ * decoded again from the tile cache when they are needed. Tiles used in the last seconds are not evicted: the visible tiles
+ * are kept even if they exceed the budget.
+ * <p>
+ * An image shared by several tiles, e.g. decoded once by the {@link TileImageDecoder} for several layers, is counted once.
+ * It is reported as used by the layer of one of these tiles.
+ *
+ * @since 18580
+ */
+public final class TileMemoryPool {
+    /** The maximal memory used by the tile images, in megabytes */
+    public static final IntegerProperty MAX_SIZE = new IntegerProperty("imagery.memory.max_mb",
+            (int) Math.min(512, Runtime.getRuntime().maxMemory() / 4 / 1024 / 1024));
+    /** The budget is not reduced below this size if there is not enough free memory */
+    private static final long MIN_SIZE = 16L << 20;
+    private static final long PROTECTION_DELAY = TimeUnit.SECONDS.toNanos(2);
+    private static final TileMemoryPool INSTANCE = new TileMemoryPool(PROTECTION_DELAY);
+
+    private final long protectionDelay;
+    private final Map<Object, Owner> owners = new IdentityHashMap<>();
+    private final Map<Tile, PooledTile> tiles = new IdentityHashMap<>();
+    /** The tiles in the pool by image, the first tile of each list is the one whose layer is charged for the image */
+    private final Map<BufferedImage, List<PooledTile>> images = new IdentityHashMap<>();
+    /** Sentinel of the list of tiles, from the least recently used one ({@code head.next}) to the most recently used one */
+    private final PooledTile head = new PooledTile(null, null, null, 0);
+    private MemoryHandle<TileMemoryPool> memory;
+    private long maxBytes;
+    private long bytes;
+    private long evictions;
+
+    TileMemoryPool(long protectionDelay) {
+        this.protectionDelay = protectionDelay;
+        head.previous = head;
+        head.next = head;
+    }
+
+    /**
+     * Get the pool shared by all imagery layers
+     * @return The pool
+     */
+    public static TileMemoryPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Determine if a new layer can be attached
+     * @return {@code true} if the memory of the pool is already allocated, or if there is enough memory to allocate it
+     */
+    public synchronized boolean isAvailable() {
+        return memory != null || MemoryManager.getInstance().isAvailable(Math.min(MIN_SIZE, getConfiguredSize()));
+    }
+
+    /**
+     * Attach a layer to the pool. The tiles of the layer are only kept in the pool while it is attached.
+     * @param owner The layer
+     * @param name The name of the layer, used to report its memory usage to the {@link MemoryManager}
+     * @return A handle whose size is the memory currently used by the tiles of the layer. Freeing it detaches the layer.
+     * @throws NotEnoughMemoryException if the memory of the pool cannot be allocated
+     */
+    public synchronized MemoryHandle<TileMemoryPool> attach(Object owner, String name) throws NotEnoughMemoryException {
+        Owner existing = owners.get(owner);
+        if (existing != null) {
+            return existing;
+        }
+        if (memory == null) {
+            MemoryManager manager = MemoryManager.getInstance();
+            long size = Math.min(getConfiguredSize(), Math.max(MIN_SIZE, manager.getAvailableMemory()));
+            memory = manager.allocateMemory("imagery tiles", size, () -> this);
+            maxBytes = size;
+        }
+        String usageName = "imagery tiles: " + name;
+        for (int i = 2; isUsageNameUsed(usageName); i++) {
+            usageName = MessageFormat.format("imagery tiles: {0} ({1})", name, i);
+        }
+        Owner newOwner = new Owner(owner, usageName);
+        owners.put(owner, newOwner);
+        MemoryManager.getInstance().registerMemoryUsage(usageName, newOwner::getSize);
+        return newOwner;
+    }
+
+    private static long getConfiguredSize() {
+        return Math.max(1, MAX_SIZE.get()) * 1024L * 1024L;
+    }
+
+    private boolean isUsageNameUsed(String usageName) {
+        return owners.values().stream().anyMatch(o -> o.usageName.equals(usageName));
+    }
+
+    private synchronized void detach(Owner owner) {
+        if (owners.remove(owner.owner) != owner) {
+            throw new IllegalStateException(MessageFormat.format("Tile memory was already freed: {0}", owner.usageName));
+        }
+        removeAll(owner);
+        MemoryManager.getInstance().unregisterMemoryUsage(owner.usageName);
+        if (owners.isEmpty() && memory != null) {
+            memory.free();
+            memory = null;
+        }
+    }
+
+    /**
+     * Add a loaded tile to the pool, or update its size if it was already added. The least recently used tiles are evicted
+     * if the pool is full.
+     * @param owner The layer of the tile. The tile is not added if the layer is not attached.
+     * @param tile The tile
+     */
+    public void add(Object owner, Tile tile) {
+        BufferedImage image = tile.getImage();
+        List<PooledTile> evicted;
+        synchronized (this) {
+            Owner o = owners.get(owner);
+            if (o == null) {
+                return;
+            }
+            PooledTile old = tiles.remove(tile);
+            if (old != null) {
+                unlink(old);
+            }
+            if (image == null) {
+                return;
+            }
+            PooledTile pooled = new PooledTile(tile, o, image, getSize(image));
+            pooled.lastUsed = System.nanoTime();
+            tiles.put(tile, pooled);
+            link(pooled);
+            evicted = evict();
+        }
+        for (PooledTile pooled : evicted) {
+            synchronized (pooled.tile) {
+                // the tile may have been loaded again since it was evicted
+                if (pooled.tile.getImage() == pooled.image && pooled.tile.isLoaded() && !pooled.tile.isLoading()) {
+                    pooled.tile.setImage(null);
+                    pooled.tile.loadingCanceled();
+                }
+            }
+        }
+        if (!evicted.isEmpty()) {
+            Logging.trace("Evicted {0} tile images from memory", evicted.size());
+        }
+    }
+
+    private List<PooledTile> evict() {
+        List<PooledTile> evicted = new ArrayList<>();
+        long now = System.nanoTime();
+        while (bytes > maxBytes && head.next != head && now - head.next.lastUsed >= protectionDelay) {
+            PooledTile pooled = head.next;
+            tiles.remove(pooled.tile);
+            unlink(pooled);
+            pooled.owner.evictions++;
+            evictions++;
+            evicted.add(pooled);
+        }
+        return evicted;
+    }
+
+    /**
+     * Mark a tile as used, e.g. when it is painted. It becomes the last one to be evicted.
+     * @param tile The tile
+     */
+    public synchronized void touch(Tile tile) {
+        PooledTile pooled = tiles.get(tile);
+        if (pooled != null) {
+            pooled.lastUsed = System.nanoTime();
+            pooled.previous.next = pooled.next;
+            pooled.next.previous = pooled.previous;
+            pooled.previous = head.previous;
+            pooled.next = head;
+            head.previous.next = pooled;
+            head.previous = pooled;
+        }
+    }
+
+    /**
+     * Remove the tiles of a layer from the pool, e.g. when its tile cache is cleared. The tiles keep their images.
+     * @param owner The layer
+     */
+    public synchronized void clear(Object owner) {
+        Owner o = owners.get(owner);
+        if (o != null) {
+            removeAll(o);
+        }
+    }
+
+    private void removeAll(Owner owner) {
+        for (PooledTile pooled = head.next; pooled != head; pooled = pooled.next) {
+            if (pooled.owner == owner) {
+                tiles.remove(pooled.tile);
+                unlink(pooled);
+            }
+        }
+    }
+
+    private void link(PooledTile pooled) {
+        pooled.previous = head.previous;
+        pooled.next = head;
+        head.previous.next = pooled;
+        head.previous = pooled;
+        List<PooledTile> sharing = images.computeIfAbsent(pooled.image, i -> new ArrayList<>(1));
+        sharing.add(pooled);
+        if (sharing.size() == 1) {
+            pooled.owner.bytes += pooled.bytes;
+            bytes += pooled.bytes;
+        }
+    }
+
+    private void unlink(PooledTile pooled) {
+        // keep pooled.next, so that the list can be iterated while removing
+        pooled.previous.next = pooled.next;
+        pooled.next.previous = pooled.previous;
+        List<PooledTile> sharing = images.get(pooled.image);
+        boolean charged = sharing.get(0) == pooled;
+        sharing.remove(pooled);
+        if (!charged) {
+            return;
+        }
+        pooled.owner.bytes -= pooled.bytes;
+        if (sharing.isEmpty()) {
+            images.remove(pooled.image);
+            bytes -= pooled.bytes;
+        } else {
+            // the image is still used, charge the layer of another tile
+            sharing.get(0).owner.bytes += pooled.bytes;
+        }
+    }
+
+    /**
+     * Get the memory used by an image
+     * @param image The image
+     * @return The size of the pixel data of the image, in bytes
+     */
+    static long getSize(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    /**
+     * Get the memory used by the tile images
+     * @return The size of the images in the pool, in bytes, each shared image counted once
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Get the memory used by the tile images of a layer
+     * @param owner The layer
+     * @return The size of the images of the layer, in bytes
+     */
+    public synchronized long getBytes(Object owner) {
+        Owner o = owners.get(owner);
+        return o != null ? o.bytes : 0;
+    }
+
+    /**
+     * Get the budget of the pool. Until a layer is attached, this is the configured size.
+     * @return The maximal size of the images, in bytes
+     */
+    public synchronized long getMaxBytes() {
+        return memory != null ? maxBytes : getConfiguredSize();
+    }
+
+    /**
+     * Get the number of tiles in the pool
+     * @return The number of tiles whose image is kept
+     */
+    public synchronized int getTileCount() {
+        return tiles.size();
+    }
+
+    /**
+     * Get the number of tile images that were evicted
+     * @return The number of evictions, since JOSM was started
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Get the number of tile images of a layer that were evicted
+     * @param owner The layer
+     * @return The number of evictions, since the layer was attached
+     */
+    public synchronized long getEvictionCount(Object owner) {
+        Owner o = owners.get(owner);
+        return o != null ? o.evictions : 0;
+    }
+
+    /**
+     * Get the statistics of the pool, for the debug information of the layers
+     * @return The memory used, the budget and the number of evictions
+     */
+    public synchronized String getStats() {
+        return MessageFormat.format("Tile memory: {0} / {1}, {2} tiles, {3} evictions",
+                Utils.getSizeString(bytes, Locale.getDefault()), Utils.getSizeString(getMaxBytes(), Locale.getDefault()),
+                tiles.size(), evictions);
+    }
+
+    private static final class PooledTile {
+        private final Tile tile;
+        private final Owner owner;
+        private final BufferedImage image;
+        private final long bytes;
+        private long lastUsed;
+        private PooledTile previous;
+        private PooledTile next;
+
+        PooledTile(Tile tile, Owner owner, BufferedImage image, long bytes) {
+            this.tile = tile;
+            this.owner = owner;
+            this.image = image;
+            this.bytes = bytes;
+        }
+    }
+
+    private final class Owner implements MemoryHandle<TileMemoryPool> {
+        private final Object owner;
+        private final String usageName;
+        private volatile long bytes;
+        private long evictions;
+        private boolean freed;
+
+        Owner(Object owner, String usageName) {
+            this.owner = owner;
+            this.usageName = usageName;
+        }
+
+        @Override
+        public TileMemoryPool get() {
+            if (freed) {
+                throw new IllegalStateException(MessageFormat.format("Tile memory was accessed after free(): {0}", usageName));
+            }
+            return TileMemoryPool.this;
+        }
+
+        @Override
+        public long getSize() {
+            return bytes;
+        }
+
+        @Override
+        public void free() {
+            detach(this);
+            freed = true;
+        }
+
+        @Override
+        public String toString() {
+            return "TileMemoryHandle [name=" + usageName + ", size=" + bytes + ']';
+        }
+    }
+}
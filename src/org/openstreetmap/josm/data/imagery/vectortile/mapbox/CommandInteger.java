@@ -49,6 +49,15 @@ public class CommandInteger {
         this.parameters[added++] = parameterInteger.shortValue();
     }
 
+    /**
+     * Add a parameter
+     * @param parameterInteger The parameter to add (converted to {@code short}).
+     * @since 18561
+     */
+    public void addParameter(long parameterInteger) {
+        this.parameters[added++] = (short) parameterInteger;
+    }
+
     /**
      * Get the operations for the command
      * @return The operations
@@ -74,8 +74,10 @@ public class Geometry {
         // Area is used to determine the inner/outer of a polygon
         final int maxArraySize = commands.stream().filter(command -> command.getType() != Command.ClosePath)
                 .mapToInt(command -> command.getOperations().length).sum();
-        final List<Integer> xArray = new ArrayList<>(maxArraySize);
-        final List<Integer> yArray = new ArrayList<>(maxArraySize);
+        // Primitive arrays avoid boxing every coordinate
+        final int[] xArray = new int[maxArraySize];
+        final int[] yArray = new int[maxArraySize];
+        int ringSize = 0;
         for (CommandInteger command : commands) {
             final short[] operations = command.getOperations();
             // Technically, there is no reason why there can be multiple MoveTo operations in one command, but that is undefined behavior
@@ -85,15 +87,15 @@ public class Geometry {
                 // Avoid fairly expensive Arrays.copyOf calls
                 line = new Path2D.Float(Path2D.WIND_NON_ZERO, commands.size());
                 line.moveTo(x, y);
-                xArray.add(x);
-                yArray.add(y);
+                xArray[ringSize] = x;
+                yArray[ringSize++] = y;
                 shapes.add(line);
             } else if (command.getType() == Command.LineTo && operations.length % 2 == 0 && line != null) {
                 for (int i = 0; i < operations.length / 2; i++) {
                     x += operations[2 * i];
                     y += operations[2 * i + 1];
-                    xArray.add(x);
-                    yArray.add(y);
+                    xArray[ringSize] = x;
+                    yArray[ringSize++] = y;
                     line.lineTo(x, y);
                 }
                 // ClosePath should only be used with Polygon geometry
@@ -105,8 +107,7 @@ public class Geometry {
                     shapes.add(area);
                 }
 
-                final double areaAreaSq = calculateSurveyorsArea(xArray.stream().mapToInt(i -> i).toArray(),
-                        yArray.stream().mapToInt(i -> i).toArray());
+                final double areaAreaSq = calculateSurveyorsArea(xArray, yArray, ringSize);
                 Area nArea = new Area(line);
                 // SonarLint thinks that this is never > 0. It can be.
                 if (areaAreaSq > 0) {
@@ -116,8 +117,7 @@ public class Geometry {
                 } else {
                     throw new IllegalArgumentException(tr("{0} cannot have zero area", geometryType));
                 }
-                xArray.clear();
-                yArray.clear();
+                ringSize = 0;
             } else {
                 throw new IllegalArgumentException(tr("{0} with {1} arguments is not understood", geometryType, operations.length));
             }
@@ -135,17 +135,28 @@ public class Geometry {
         if (xArray.length != yArray.length) {
             throw new IllegalArgumentException("Cannot calculate areas when arrays are uneven");
         }
+        return calculateSurveyorsArea(xArray, yArray, xArray.length);
+    }
+
+    /**
+     * This is also known as the "shoelace formula".
+     * @param xArray The array of x coordinates
+     * @param yArray The array of y coordinates
+     * @param length The number of coordinates to use in both arrays
+     * @return The area of the object
+     */
+    private static double calculateSurveyorsArea(int[] xArray, int[] yArray, int length) {
         // Lines have no area
-        if (xArray.length < 3) {
+        if (length < 3) {
             return 0;
         }
         int area = 0;
         // Do the non-special stuff first (x0 * y1 - x1 * y0)
-        for (int i = 0; i < xArray.length - 1; i++) {
+        for (int i = 0; i < length - 1; i++) {
             area += xArray[i] * yArray[i + 1] - xArray[i + 1] * yArray[i];
         }
         // Now calculate the edges (xn * y0 - x0 * yn)
-        area += xArray[xArray.length - 1] * yArray[0] - xArray[0] * yArray[yArray.length - 1];
+        area += xArray[length - 1] * yArray[0] - xArray[0] * yArray[length - 1];
         return area / 2d;
     }
 
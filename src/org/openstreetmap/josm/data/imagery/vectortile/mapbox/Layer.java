@@ -3,7 +3,6 @@ package org.openstreetmap.josm.data.imagery.vectortile.mapbox;
 
 import static org.openstreetmap.josm.tools.I18n.tr;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -34,7 +33,7 @@ public final class Layer implements Destroyable {
         // This may have issues if there are actual uint_values (i.e., more than {@link Long#MAX_VALUE})
         static final ValueFields<Number> UINT64 = new ValueFields<>(5, ProtobufRecord::asUnsignedVarInt);
         static final ValueFields<Number> SINT64 = new ValueFields<>(6, ProtobufRecord::asSignedVarInt);
-        static final ValueFields<Boolean> BOOL = new ValueFields<>(7, r -> r.asUnsignedVarInt().longValue() != 0);
+        static final ValueFields<Boolean> BOOL = new ValueFields<>(7, r -> r.asUnsignedVarLong() != 0);
 
         /**
          * A collection of methods to map a record to a type
@@ -104,10 +103,9 @@ public final class Layer implements Destroyable {
         byte tVersion = DEFAULT_VERSION;
         String tName = null;
         int tExtent = DEFAULT_EXTENT;
-        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(4);
         for (ProtobufRecord protobufRecord : records) {
             if (protobufRecord.getField() == VERSION_FIELD) {
-                tVersion = protobufRecord.asUnsignedVarInt().byteValue();
+                tVersion = (byte) protobufRecord.asUnsignedVarLong();
                 // Per spec, we cannot continue past this until we have checked the version number
                 if (tVersion != 1 && tVersion != 2) {
                     throw new IllegalArgumentException(tr("We do not understand version {0} of the vector tile specification", tVersion));
@@ -115,11 +113,11 @@ public final class Layer implements Destroyable {
             } else if (protobufRecord.getField() == NAME_FIELD) {
                 tName = protobufRecord.asString();
             } else if (protobufRecord.getField() == EXTENT_FIELD) {
-                tExtent = protobufRecord.asUnsignedVarInt().intValue();
+                tExtent = (int) protobufRecord.asUnsignedVarLong();
             } else if (protobufRecord.getField() == KEY_FIELD) {
                 this.keyList.add(protobufRecord.asString());
             } else if (protobufRecord.getField() == VALUE_FIELD) {
-                parseValueRecord(byteArrayOutputStream, protobufRecord);
+                parseValueRecord(protobufRecord);
             } else {
                 sorted.computeIfAbsent(protobufRecord.getField(), i -> new ArrayList<>(records.size())).add(protobufRecord);
             }
@@ -141,10 +139,9 @@ public final class Layer implements Destroyable {
         }
     }
 
-    private void parseValueRecord(ByteArrayOutputStream byteArrayOutputStream, ProtobufRecord protobufRecord)
-            throws IOException {
+    private void parseValueRecord(ProtobufRecord protobufRecord) throws IOException {
         try (ProtobufParser parser = new ProtobufParser(protobufRecord.getBytes())) {
-            ProtobufRecord protobufRecord2 = new ProtobufRecord(byteArrayOutputStream, parser);
+            ProtobufRecord protobufRecord2 = new ProtobufRecord(parser);
             int field = protobufRecord2.getField();
             int valueListSize = this.valueList.size();
             for (Layer.ValueFields<?> mapper : ValueFields.MAPPERS) {
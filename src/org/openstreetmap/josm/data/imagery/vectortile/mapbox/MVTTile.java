@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 
 import org.openstreetmap.gui.jmapviewer.Tile;
 import org.openstreetmap.gui.jmapviewer.interfaces.ICoordinate;
@@ -34,6 +35,7 @@ public class MVTTile extends Tile implements VectorTile, IQuadBucketType {
     static final BufferedImage CLEAR_LOADED = new BufferedImage(1, 1, BufferedImage.TYPE_4BYTE_ABGR);
     private BBox bbox;
     private VectorDataStore vectorDataStore;
+    private Function<MVTTile, BufferedImage> renderer;
 
     /**
      * Create a new Tile
@@ -68,7 +70,13 @@ public class MVTTile extends Tile implements VectorTile, IQuadBucketType {
             this.layers = new ArrayList<>(this.layers);
 
             this.extent = layers.stream().filter(Objects::nonNull).mapToInt(Layer::getExtent).max().orElse(Layer.DEFAULT_EXTENT);
-            if (this.getData() != null) {
+            if (this.renderer != null) {
+                // The features are drawn directly, they are kept to be converted to primitives by getData() when needed
+                final BufferedImage rendered = this.renderer.apply(this);
+                this.image = rendered != null ? rendered : CLEAR_LOADED;
+                this.finishLoading();
+                this.listenerList.fireEvent(event -> event.finishedLoading(this));
+            } else if (this.getData() != null) {
                 this.finishLoading();
                 this.listenerList.fireEvent(event -> event.finishedLoading(this));
                 // Ensure that we don't keep the loading image around
@@ -90,6 +98,31 @@ public class MVTTile extends Tile implements VectorTile, IQuadBucketType {
         return this.extent;
     }
 
+    /**
+     * Set the renderer of this tile. If set, the image of the tile is rendered from its features when it is loaded, and the
+     * features are only converted to primitives when {@link #getData()} is called.
+     * @param renderer The renderer, or {@code null} to convert the features to primitives when the tile is loaded
+     * @since 18579
+     */
+    public void setRenderer(Function<MVTTile, BufferedImage> renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Get a loaded copy of this tile which only holds its features, with an empty image. The copy can be converted to primitives by
+     * {@link #getData()} after this tile is evicted from the tile cache.
+     * @return The copy of this tile
+     * @since 18579
+     */
+    public MVTTile getFeatureTile() {
+        final MVTTile copy = new MVTTile(this.getTileSource(), this.getXtile(), this.getYtile(), this.getZoom());
+        copy.layers = this.layers;
+        copy.extent = this.extent;
+        copy.image = CLEAR_LOADED;
+        copy.finishLoading();
+        return copy;
+    }
+
     /**
      * Add a tile loader finisher listener
      *
@@ -0,0 +1,187 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.imagery.vectortile.mapbox;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.style.PaintLayer;
+import org.openstreetmap.josm.tools.Logging;
+
+/**
+ * Draws the features of a {@link MVTTile} into an image, with the layers of a Mapbox vector style.
+ * <p>
+ * The features are drawn from their {@link PackedGeometry}, without creating the {@link org.openstreetmap.josm.data.vector.VectorDataStore}
+ * of the tile. The filters of the style are evaluated once per feature and style layer.
+ * <p>
+ * A tile displayed beyond its zoom level is drawn at a larger scale, with the style of the display zoom level, instead of
+ * being scaled up. A tile draws the symbols of the points inside of it, and the symbols of its neighbours which cross its edges.
+ *
+ * @since 18579
+ */
+public class MVTTileRenderer {
+    private final List<PaintLayer> backgroundLayers = new ArrayList<>();
+    private final List<PaintLayer> featureLayers = new ArrayList<>();
+    private final int tileSize;
+
+    /**
+     * Create a new renderer
+     * @param layers The layers of the style, in drawing order
+     * @param tileSize The size of the rendered tiles
+     */
+    public MVTTileRenderer(Collection<PaintLayer> layers, int tileSize) {
+        for (PaintLayer layer : layers) {
+            if (layer.isBackground()) {
+                this.backgroundLayers.add(layer);
+            } else if (layer.getSourceLayer() != null) {
+                this.featureLayers.add(layer);
+            }
+        }
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Render a tile
+     * @param tile The tile, with its layers
+     * @param visibleLayers The names of the vector tile layers to draw
+     * @return The image of the tile
+     */
+    public BufferedImage render(MVTTile tile, Predicate<String> visibleLayers) {
+        return render(tile, visibleLayers, 1, Collections.emptyList());
+    }
+
+    /**
+     * Render a tile at a scale
+     * @param tile The tile, with its layers
+     * @param visibleLayers The names of the vector tile layers to draw
+     * @param scale The scale of the image, a power of two: the style of the zoom level {@code log2(scale)} levels above the
+     * zoom of the tile is used
+     * @param neighbours The loaded tiles around the tile, at the same zoom level, whose symbols may cross the tile edges
+     * @return The image of the tile, {@code scale} times the size of the tiles
+     * @since 18579
+     */
+    public BufferedImage render(MVTTile tile, Predicate<String> visibleLayers, int scale, Collection<MVTTile> neighbours) {
+        final int size = this.tileSize * scale;
+        final BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g = createGraphics(image);
+        try {
+            final int zoom = getDisplayZoom(tile, scale);
+            for (PaintLayer paintLayer : this.backgroundLayers) {
+                if (paintLayer.isVisible(zoom)) {
+                    paintLayer.paintBackground(g, size, size);
+                }
+            }
+            final Map<String, Layer> layerMap = getVisibleLayers(tile, visibleLayers);
+            for (PaintLayer paintLayer : this.featureLayers) {
+                final Layer layer = layerMap.get(paintLayer.getSourceLayer());
+                if (layer != null && paintLayer.isVisible(zoom)) {
+                    final double featureScale = size / (double) layer.getExtent();
+                    for (Feature feature : layer.getFeatures()) {
+                        paint(g, paintLayer, feature, featureScale, layer.getExtent());
+                    }
+                }
+            }
+            for (MVTTile neighbour : neighbours) {
+                paintSymbols(g, tile, neighbour, visibleLayers, scale);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Draw the symbols of a neighbouring tile which cross the edges of a rendered tile
+     * @param image The image of the tile, as {@link #render rendered}
+     * @param tile The tile
+     * @param neighbour The tile next to {@code tile}, at the same zoom level, loaded after {@code image} was rendered
+     * @param visibleLayers The names of the vector tile layers to draw
+     * @since 18579
+     */
+    public void renderSymbols(BufferedImage image, MVTTile tile, MVTTile neighbour, Predicate<String> visibleLayers) {
+        final Graphics2D g = createGraphics(image);
+        try {
+            paintSymbols(g, tile, neighbour, visibleLayers, Math.max(1, image.getWidth() / this.tileSize));
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void paintSymbols(Graphics2D g, MVTTile tile, MVTTile neighbour, Predicate<String> visibleLayers, int scale) {
+        final int size = this.tileSize * scale;
+        final int zoom = getDisplayZoom(tile, scale);
+        final Map<String, Layer> layerMap = getVisibleLayers(neighbour, visibleLayers);
+        final AffineTransform transform = g.getTransform();
+        g.translate((neighbour.getXtile() - tile.getXtile()) * size, (neighbour.getYtile() - tile.getYtile()) * size);
+        try {
+            for (PaintLayer paintLayer : this.featureLayers) {
+                final Layer layer = layerMap.get(paintLayer.getSourceLayer());
+                if (layer != null && paintLayer.isSymbol() && paintLayer.isVisible(zoom)) {
+                    final double featureScale = size / (double) layer.getExtent();
+                    for (Feature feature : layer.getFeatures()) {
+                        paint(g, paintLayer, feature, featureScale, layer.getExtent());
+                    }
+                }
+            }
+        } finally {
+            g.setTransform(transform);
+        }
+    }
+
+    private static Graphics2D createGraphics(BufferedImage image) {
+        final Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        return g;
+    }
+
+    private static int getDisplayZoom(MVTTile tile, int scale) {
+        return tile.getZoom() + 31 - Integer.numberOfLeadingZeros(scale);
+    }
+
+    private static Map<String, Layer> getVisibleLayers(MVTTile tile, Predicate<String> visibleLayers) {
+        final Collection<Layer> layers = tile.getLayers();
+        if (layers == null) {
+            return Collections.emptyMap();
+        }
+        final Map<String, Layer> layerMap = new HashMap<>(layers.size());
+        for (Layer layer : layers) {
+            if (layer != null && visibleLayers.test(layer.getName())) {
+                layerMap.put(layer.getName(), layer);
+            }
+        }
+        return layerMap;
+    }
+
+    private static void paint(Graphics2D g, PaintLayer paintLayer, Feature feature, double scale, int extent) {
+        try {
+            if (!paintLayer.matches(feature)) {
+                return;
+            }
+            if (paintLayer.isSymbol()) {
+                paintLayer.paintSymbols(g, feature, scale, extent);
+            } else {
+                paintLayer.paint(g, feature, scale);
+            }
+        } catch (IllegalArgumentException e) {
+            // The geometry is not understood, the same feature is skipped by VectorDataStore
+            Logging.trace(e);
+        }
+    }
+
+    /**
+     * Get the size of the rendered tiles
+     * @return The size of the tiles, in pixels
+     */
+    public int getTileSize() {
+        return this.tileSize;
+    }
+}
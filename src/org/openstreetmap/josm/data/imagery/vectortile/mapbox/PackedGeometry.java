@@ -0,0 +1,180 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.imagery.vectortile.mapbox;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The geometry of a {@link Feature}, decoded into packed coordinate arrays.
+ * <p>
+ * Unlike {@link Geometry}, this does not create any shape: the coordinates of all the parts (points, lines or polygon rings)
+ * are stored in tile coordinates in a single array, which is cheap to create and to draw.
+ *
+ * @since 18579
+ */
+public final class PackedGeometry {
+    private static final int[] EMPTY = new int[0];
+
+    private final GeometryTypes type;
+    /** The x and y coordinates of the points, interleaved */
+    private final int[] coordinates;
+    /** The index of the first point of each part, followed by the number of points */
+    private final int[] parts;
+
+    /**
+     * Decode the geometry of a feature
+     * @param geometryType The type of geometry
+     * @param commands The commands used to create the geometry
+     * @throws IllegalArgumentException if the commands are not understood
+     */
+    public PackedGeometry(GeometryTypes geometryType, List<CommandInteger> commands) {
+        this.type = geometryType;
+        if (geometryType != GeometryTypes.POINT && geometryType != GeometryTypes.LINESTRING && geometryType != GeometryTypes.POLYGON) {
+            this.coordinates = EMPTY;
+            this.parts = new int[] {0};
+            return;
+        }
+        int size = 0;
+        int partCount = 0;
+        for (CommandInteger command : commands) {
+            if (command.getType() == Command.MoveTo) {
+                partCount += geometryType == GeometryTypes.POINT ? command.getOperations().length / 2 : 1;
+            }
+            size += command.getOperations().length;
+        }
+        final int[] tCoordinates = new int[size];
+        final int[] tParts = new int[partCount + 1];
+        // MVT uses delta encoding. Each feature starts at (0, 0).
+        int x = 0;
+        int y = 0;
+        int point = 0;
+        int part = 0;
+        for (CommandInteger command : commands) {
+            final short[] operations = command.getOperations();
+            if (command.getType() == Command.MoveTo && operations.length % 2 == 0 && operations.length > 0
+                    && (geometryType == GeometryTypes.POINT || operations.length == 2)) {
+                // Each MoveTo is a new point, or the start of a new line or ring
+                for (int i = 0; i < operations.length / 2; i++) {
+                    x += operations[2 * i];
+                    y += operations[2 * i + 1];
+                    tParts[part++] = point;
+                    tCoordinates[2 * point] = x;
+                    tCoordinates[2 * point++ + 1] = y;
+                }
+            } else if (command.getType() == Command.LineTo && geometryType != GeometryTypes.POINT && operations.length % 2 == 0
+                    && part > 0) {
+                for (int i = 0; i < operations.length / 2; i++) {
+                    x += operations[2 * i];
+                    y += operations[2 * i + 1];
+                    tCoordinates[2 * point] = x;
+                    tCoordinates[2 * point++ + 1] = y;
+                }
+            } else if (command.getType() != Command.ClosePath || geometryType != GeometryTypes.POLYGON || part == 0) {
+                // ClosePath should only be used with Polygon geometry. The ring is implicitly closed.
+                throw new IllegalArgumentException(tr("{0} with {1} arguments is not understood", geometryType, operations.length));
+            }
+        }
+        tParts[part] = point;
+        this.coordinates = tCoordinates.length == 2 * point ? tCoordinates : Arrays.copyOf(tCoordinates, 2 * point);
+        this.parts = tParts;
+    }
+
+    /**
+     * Get the geometry type
+     * @return The geometry type
+     */
+    public GeometryTypes getType() {
+        return this.type;
+    }
+
+    /**
+     * Get the number of parts. A part is a point, a line or a polygon ring.
+     * @return The number of parts
+     */
+    public int getPartCount() {
+        return this.parts.length - 1;
+    }
+
+    /**
+     * Get the index of the first point of a part
+     * @param part The part
+     * @return The index of the first point
+     */
+    public int getPartStart(int part) {
+        return this.parts[part];
+    }
+
+    /**
+     * Get the index after the last point of a part
+     * @param part The part
+     * @return The index after the last point
+     */
+    public int getPartEnd(int part) {
+        return this.parts[part + 1];
+    }
+
+    /**
+     * Get the number of points of all the parts
+     * @return The number of points
+     */
+    public int getPointCount() {
+        return this.coordinates.length / 2;
+    }
+
+    /**
+     * Get the x coordinate of a point
+     * @param point The index of the point
+     * @return The x coordinate, in tile coordinates
+     */
+    public int getX(int point) {
+        return this.coordinates[2 * point];
+    }
+
+    /**
+     * Get the y coordinate of a point
+     * @param point The index of the point
+     * @return The y coordinate, in tile coordinates
+     */
+    public int getY(int point) {
+        return this.coordinates[2 * point + 1];
+    }
+
+    /**
+     * Determine if a polygon ring is an exterior ring. The exterior rings are clockwise, the interior rings are counter-clockwise.
+     * @param part The ring
+     * @return {@code true} if the ring is an exterior ring
+     */
+    public boolean isExteriorRing(int part) {
+        final int start = this.parts[part];
+        final int end = this.parts[part + 1];
+        long area = 0;
+        for (int i = start; i < end; i++) {
+            final int next = i + 1 < end ? i + 1 : start;
+            area += (long) getX(i) * getY(next) - (long) getX(next) * getY(i);
+        }
+        return area > 0;
+    }
+
+    /**
+     * Append the lines or the rings of this geometry to a path
+     * @param path The path to append to
+     * @param scale The scale from tile coordinates to path coordinates
+     */
+    public void appendTo(Path2D path, double scale) {
+        final boolean close = this.type == GeometryTypes.POLYGON;
+        for (int part = 0; part < getPartCount(); part++) {
+            final int start = this.parts[part];
+            final int end = this.parts[part + 1];
+            path.moveTo(getX(start) * scale, getY(start) * scale);
+            for (int i = start + 1; i < end; i++) {
+                path.lineTo(getX(i) * scale, getY(i) * scale);
+            }
+            if (close) {
+                path.closePath();
+            }
+        }
+    }
+}
@@ -12,6 +12,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -79,6 +80,8 @@ public class MapboxVectorStyle {
     private final String glyphUrl;
     /** The required collection of sources with a list of layers that are applicable for that source*/
     private final Map<Source, ElemStyles> sources;
+    /** The layers of each source, for the direct rendering of the tiles */
+    private final Map<Source, List<PaintLayer>> paintLayers;
 
     /**
      * Create a new MapboxVector style. You should prefer {@link #getMapboxVectorStyle(String)}
@@ -116,18 +119,27 @@ public class MapboxVectorStyle {
                 sourceList = Collections.emptyList();
             }
             final List<Layers> layers;
+            final List<PaintLayer> paintLayerList;
             if (jsonObject.containsKey("layers") && jsonObject.get("layers").getValueType() == JsonValue.ValueType.ARRAY) {
-                layers = jsonObject.getJsonArray("layers").stream()
-                  .filter(JsonObject.class::isInstance).map(JsonObject.class::cast).map(obj -> new Layers(id, obj))
-                  .collect(Collectors.toList());
+                final List<JsonObject> layerObjects = jsonObject.getJsonArray("layers").stream()
+                  .filter(JsonObject.class::isInstance).map(JsonObject.class::cast).collect(Collectors.toList());
+                layers = layerObjects.stream().map(obj -> new Layers(id, obj)).collect(Collectors.toList());
+                paintLayerList = layerObjects.stream().map(obj -> new PaintLayer(id, obj)).collect(Collectors.toList());
             } else {
                 layers = Collections.emptyList();
+                paintLayerList = Collections.emptyList();
             }
             final Map<Optional<Source>, List<Layers>> sourceLayer = layers.stream().collect(
               Collectors.groupingBy(layer -> sourceList.stream().filter(source -> source.getName().equals(layer.getSource()))
                 .findFirst(), LinkedHashMap::new, Collectors.toList()));
             // Abuse HashMap null (null == default)
             this.sources = new LinkedHashMap<>();
+            this.paintLayers = new LinkedHashMap<>();
+            for (int i = 0; i < layers.size(); i++) {
+                final String layerSource = layers.get(i).getSource();
+                final Source source = sourceList.stream().filter(s -> s.getName().equals(layerSource)).findFirst().orElse(null);
+                this.paintLayers.computeIfAbsent(source, s -> new ArrayList<>()).add(paintLayerList.get(i));
+            }
             for (Entry<Optional<Source>, List<Layers>> entry : sourceLayer.entrySet()) {
                 final Source source = entry.getKey().orElse(null);
                 final String data = entry.getValue().stream().map(Layers::toString).collect(Collectors.joining());
@@ -256,6 +268,16 @@ public class MapboxVectorStyle {
         return this.sources;
     }
 
+    /**
+     * Get the layers of each source, compiled for the direct rendering of the vector tiles.
+     * The background layers are in the {@code null} source.
+     * @return The layers of each source, in drawing order
+     * @since 18579
+     */
+    public Map<Source, List<PaintLayer>> getPaintLayers() {
+        return Collections.unmodifiableMap(this.paintLayers);
+    }
+
     /**
      * Get the sprite url for the style
      * @return The base sprite url
@@ -272,14 +294,15 @@ public class MapboxVectorStyle {
               && Objects.equals(this.name, o.name)
               && Objects.equals(this.glyphUrl, o.glyphUrl)
               && Objects.equals(this.spriteUrl, o.spriteUrl)
-              && Objects.equals(this.sources, o.sources);
+              && Objects.equals(this.sources, o.sources)
+              && Objects.equals(this.paintLayers, o.paintLayers);
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.name, this.version, this.glyphUrl, this.spriteUrl, this.sources);
+        return Objects.hash(this.name, this.version, this.glyphUrl, this.spriteUrl, this.sources, this.paintLayers);
     }
 
     @Override
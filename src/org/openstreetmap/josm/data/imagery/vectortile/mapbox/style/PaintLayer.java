@@ -0,0 +1,635 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.imagery.vectortile.mapbox.style;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Stroke;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.json.JsonArray;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.swing.ImageIcon;
+
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.Feature;
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.GeometryTypes;
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.PackedGeometry;
+import org.openstreetmap.josm.gui.mappaint.mapcss.CSSColors;
+import org.openstreetmap.josm.tools.ColorHelper;
+import org.openstreetmap.josm.tools.ImageProvider;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * A Mapbox style layer, compiled for drawing the features of a vector tile directly.
+ * <p>
+ * Unlike {@link Layers}, which is converted to MapCSS and applied to primitives, the filter and the paint properties are
+ * evaluated against the {@link Feature}s of the tiles. Only constant paint properties are supported, the properties
+ * depending on the zoom level or on the feature use their default value.
+ *
+ * @see <a href="https://docs.mapbox.com/mapbox-gl-js/style-spec/layers/">https://docs.mapbox.com/mapbox-gl-js/style-spec/layers/</a>
+ * @since 18579
+ */
+public final class PaintLayer {
+    private static final BiPredicate<Map<String, String>, GeometryTypes> ALWAYS = (tags, type) -> true;
+    private static final Pattern CURLY_BRACES = Pattern.compile("\\{(.*?)}");
+    private static final Pattern RGB = Pattern.compile("(rgb|hsl)a?\\(([^,]+),([^,]+),([^,)]+)(?:,([^)]+))?\\)");
+    private static final String LAYOUT = "layout";
+    private static final String PAINT = "paint";
+
+    /** The style layer, used for equality */
+    private final JsonObject layerInfo;
+    private final String id;
+    private final Layers.Type type;
+    private final String sourceLayer;
+    private final int minZoom;
+    private final int maxZoom;
+    private final boolean visible;
+    private final BiPredicate<Map<String, String>, GeometryTypes> filter;
+
+    /** fill-color, line-color, circle-color, text-color or background-color */
+    private final Color color;
+    /** fill-outline-color or circle-stroke-color, {@code null} if there is no outline */
+    private final Color outlineColor;
+    /** line-width, circle-radius or text-size */
+    private final float size;
+    /** circle-stroke-width */
+    private final float outlineWidth;
+    private final Stroke stroke;
+    private final String textField;
+    private final String iconImage;
+    private final String styleId;
+    private final Map<String, Optional<Image>> icons = new ConcurrentHashMap<>();
+
+    /**
+     * Create a paint layer
+     * @param styleId The id for the style (image paths require this)
+     * @param layerInfo The info to use to create the layer
+     */
+    public PaintLayer(String styleId, JsonObject layerInfo) {
+        this.layerInfo = layerInfo;
+        this.id = layerInfo.getString("id");
+        this.styleId = styleId;
+        this.type = Layers.Type.valueOf(layerInfo.getString("type").replace("-", "_").toUpperCase(Locale.ROOT));
+        this.sourceLayer = layerInfo.getString("source-layer", null);
+        this.minZoom = layerInfo.getInt("minzoom", Integer.MIN_VALUE);
+        this.maxZoom = layerInfo.getInt("maxzoom", Integer.MAX_VALUE);
+        this.filter = layerInfo.containsKey("filter") ? compileFilter(layerInfo.get("filter")) : ALWAYS;
+        final JsonObject paint = getObject(layerInfo, PAINT);
+        final JsonObject layout = getObject(layerInfo, LAYOUT);
+        this.visible = "visible".equalsIgnoreCase(layout.getString("visibility", "visible"));
+        Color tColor = null;
+        Color tOutlineColor = null;
+        float tSize = 0;
+        float tOutlineWidth = 0;
+        Stroke tStroke = null;
+        String tTextField = null;
+        String tIconImage = null;
+        switch (this.type) {
+        case FILL:
+            tColor = getColor(paint, "fill-color", "fill-opacity");
+            if (paint.containsKey("fill-outline-color")) {
+                tOutlineColor = getColor(paint, "fill-outline-color", "fill-opacity");
+                tStroke = new BasicStroke(1);
+            }
+            break;
+        case LINE:
+            tColor = getColor(paint, "line-color", "line-opacity");
+            tSize = getNumber(paint, "line-width", 1);
+            tStroke = getLineStroke(layout, paint, tSize);
+            break;
+        case CIRCLE:
+            tColor = getColor(paint, "circle-color", "circle-opacity");
+            tSize = getNumber(paint, "circle-radius", 5);
+            tOutlineWidth = getNumber(paint, "circle-stroke-width", 0);
+            tOutlineColor = getColor(paint, "circle-stroke-color", "circle-stroke-opacity");
+            tStroke = new BasicStroke(tOutlineWidth);
+            break;
+        case SYMBOL:
+            tColor = getColor(paint, "text-color", "text-opacity");
+            tSize = getNumber(layout, "text-size", 16);
+            tTextField = getString(layout, "text-field");
+            tIconImage = getString(layout, "icon-image");
+            break;
+        case BACKGROUND:
+            tColor = getColor(paint, "background-color", "background-opacity");
+            break;
+        default:
+            // not supported
+        }
+        this.color = tColor;
+        this.outlineColor = tOutlineColor;
+        this.size = tSize;
+        this.outlineWidth = tOutlineWidth;
+        this.stroke = tStroke;
+        this.textField = tTextField;
+        this.iconImage = tIconImage;
+    }
+
+    private static JsonObject getObject(JsonObject object, String key) {
+        final JsonValue value = object.get(key);
+        return value != null && value.getValueType() == JsonValue.ValueType.OBJECT ? value.asJsonObject() : JsonValue.EMPTY_JSON_OBJECT;
+    }
+
+    private static String getString(JsonObject object, String key) {
+        final JsonValue value = object.get(key);
+        return value instanceof JsonString ? ((JsonString) value).getString() : null;
+    }
+
+    private static float getNumber(JsonObject object, String key, float defaultValue) {
+        final JsonValue value = object.get(key);
+        return value instanceof JsonNumber ? (float) ((JsonNumber) value).doubleValue() : defaultValue;
+    }
+
+    private static Color getColor(JsonObject paint, String colorKey, String opacityKey) {
+        Color parsed = parseColor(getString(paint, colorKey));
+        if (parsed == null) {
+            parsed = Color.BLACK;
+        }
+        final float opacity = (float) Utils.clamp(getNumber(paint, opacityKey, 1), 0, 1);
+        return opacity < 1 ? ColorHelper.alphaMultiply(parsed, opacity) : parsed;
+    }
+
+    /**
+     * Parse a Mapbox style color
+     * @param value The color, as an HTML color, a CSS color name or a {@code rgb()}, {@code rgba()}, {@code hsl()}
+     * or {@code hsla()} function
+     * @return The color, or {@code null} if it is not understood
+     */
+    static Color parseColor(String value) {
+        if (Utils.isBlank(value)) {
+            return null;
+        }
+        final String color = value.replace(" ", "").toLowerCase(Locale.ROOT);
+        if (color.charAt(0) == '#') {
+            return ColorHelper.html2color(color);
+        }
+        final Matcher matcher = RGB.matcher(color);
+        if (matcher.matches()) {
+            try {
+                final float alpha = matcher.group(5) != null ? (float) Utils.clamp(Float.parseFloat(matcher.group(5)), 0, 1) : 1;
+                final Color opaque;
+                if ("rgb".equals(matcher.group(1))) {
+                    opaque = new Color(Utils.clamp(Integer.parseInt(matcher.group(2)), 0, 255),
+                            Utils.clamp(Integer.parseInt(matcher.group(3)), 0, 255),
+                            Utils.clamp(Integer.parseInt(matcher.group(4)), 0, 255));
+                } else {
+                    // convert from hue, saturation, lightness to hue, saturation, brightness
+                    final float lightness = percent(matcher.group(4));
+                    final float brightness = lightness + percent(matcher.group(3)) * Math.min(lightness, 1 - lightness);
+                    opaque = Color.getHSBColor(Float.parseFloat(matcher.group(2)) / 360,
+                            brightness > 0 ? 2 * (1 - lightness / brightness) : 0, brightness);
+                }
+                return alpha < 1 ? ColorHelper.alphaMultiply(opaque, alpha) : opaque;
+            } catch (NumberFormatException e) {
+                Logging.trace(e);
+                return null;
+            }
+        }
+        return CSSColors.get(color);
+    }
+
+    private static float percent(String value) {
+        return (float) Utils.clamp(Float.parseFloat(value.replace("%", "")) / 100, 0, 1);
+    }
+
+    private static Stroke getLineStroke(JsonObject layout, JsonObject paint, float width) {
+        final int cap;
+        switch (layout.getString("line-cap", "butt")) {
+        case "round":
+            cap = BasicStroke.CAP_ROUND;
+            break;
+        case "square":
+            cap = BasicStroke.CAP_SQUARE;
+            break;
+        default:
+            cap = BasicStroke.CAP_BUTT;
+        }
+        final int join;
+        switch (layout.getString("line-join", "miter")) {
+        case "round":
+            join = BasicStroke.JOIN_ROUND;
+            break;
+        case "bevel":
+            join = BasicStroke.JOIN_BEVEL;
+            break;
+        default:
+            join = BasicStroke.JOIN_MITER;
+        }
+        final JsonValue dashArray = paint.get("line-dasharray");
+        if (dashArray instanceof JsonArray && !((JsonArray) dashArray).isEmpty()) {
+            // The dashes are in line widths
+            final List<JsonNumber> values = ((JsonArray) dashArray).getValuesAs(JsonNumber.class);
+            final float[] dashes = new float[values.size()];
+            float total = 0;
+            for (int i = 0; i < dashes.length; i++) {
+                dashes[i] = (float) values.get(i).doubleValue() * Math.max(width, 1);
+                total += dashes[i];
+            }
+            if (total > 0) {
+                return new BasicStroke(width, cap, join, 10, dashes, 0);
+            }
+        }
+        return new BasicStroke(width, cap, join);
+    }
+
+    /**
+     * Compile a Mapbox filter. The legacy filters and the comparison, {@code get}, {@code has}, {@code in}, {@code all},
+     * {@code any}, {@code none}, {@code !} and {@code geometry-type} expressions are supported.
+     * @param value The filter
+     * @return The filter to apply on the tags and the geometry type of the features
+     */
+    static BiPredicate<Map<String, String>, GeometryTypes> compileFilter(JsonValue value) {
+        if (value.getValueType() != JsonValue.ValueType.ARRAY) {
+            return value.getValueType() == JsonValue.ValueType.FALSE ? (tags, type) -> false : ALWAYS;
+        }
+        final JsonArray array = value.asJsonArray();
+        if (array.isEmpty() || array.get(0).getValueType() != JsonValue.ValueType.STRING) {
+            return ALWAYS;
+        }
+        final String operator = array.getString(0);
+        switch (operator) {
+        case "all":
+        case "any":
+        case "none":
+            final List<BiPredicate<Map<String, String>, GeometryTypes>> filters = new ArrayList<>(array.size() - 1);
+            for (int i = 1; i < array.size(); i++) {
+                filters.add(compileFilter(array.get(i)));
+            }
+            if ("all".equals(operator)) {
+                return (tags, type) -> filters.stream().allMatch(f -> f.test(tags, type));
+            } else if ("any".equals(operator)) {
+                return (tags, type) -> filters.stream().anyMatch(f -> f.test(tags, type));
+            }
+            return (tags, type) -> filters.stream().noneMatch(f -> f.test(tags, type));
+        case "!":
+            return array.size() == 2 ? compileFilter(array.get(1)).negate() : ALWAYS;
+        case "has":
+        case "!has":
+            if (array.size() == 2 && array.get(1) instanceof JsonString) {
+                final String key = array.getString(1);
+                final BiPredicate<Map<String, String>, GeometryTypes> has = (tags, type) -> tags.containsKey(key);
+                return "has".equals(operator) ? has : has.negate();
+            }
+            break;
+        case "in":
+        case "!in":
+            if (array.size() >= 2) {
+                final BiFunction<Map<String, String>, GeometryTypes, Object> operand = compileOperand(array.get(1), true);
+                final List<Object> values = new ArrayList<>(array.size() - 2);
+                for (int i = 2; i < array.size(); i++) {
+                    values.add(literal(array.get(i)));
+                }
+                final BiPredicate<Map<String, String>, GeometryTypes> in =
+                        (tags, type) -> values.stream().anyMatch(v -> compare(operand.apply(tags, type), v) == 0);
+                return "in".equals(operator) ? in : in.negate();
+            }
+            break;
+        case "==":
+        case "!=":
+        case "<":
+        case "<=":
+        case ">":
+        case ">=":
+            if (array.size() == 3) {
+                return compileComparison(operator, compileOperand(array.get(1), true), compileOperand(array.get(2), false));
+            }
+            break;
+        default:
+            // not supported
+        }
+        Logging.debug("Mapbox filter not supported, ignored: {0}", value);
+        return ALWAYS;
+    }
+
+    private static BiPredicate<Map<String, String>, GeometryTypes> compileComparison(String operator,
+            BiFunction<Map<String, String>, GeometryTypes, Object> left, BiFunction<Map<String, String>, GeometryTypes, Object> right) {
+        switch (operator) {
+        case "==":
+            return (tags, type) -> compare(left.apply(tags, type), right.apply(tags, type)) == 0;
+        case "!=":
+            return (tags, type) -> compare(left.apply(tags, type), right.apply(tags, type)) != 0;
+        case "<":
+            return (tags, type) -> compare(left.apply(tags, type), right.apply(tags, type)) < 0;
+        case "<=":
+            return (tags, type) -> compare(left.apply(tags, type), right.apply(tags, type)) <= 0;
+        case ">":
+            return (tags, type) -> compare(left.apply(tags, type), right.apply(tags, type)) > 0;
+        default:
+            return (tags, type) -> compare(left.apply(tags, type), right.apply(tags, type)) >= 0;
+        }
+    }
+
+    /**
+     * Compile an operand of a filter
+     * @param value The operand
+     * @param legacyKey {@code true} if a string is a key (legacy filter syntax), {@code false} if it is a literal
+     * @return The function returning the value of the operand for a feature
+     */
+    private static BiFunction<Map<String, String>, GeometryTypes, Object> compileOperand(JsonValue value, boolean legacyKey) {
+        if (value instanceof JsonArray && !((JsonArray) value).isEmpty() && ((JsonArray) value).get(0) instanceof JsonString) {
+            final JsonArray array = (JsonArray) value;
+            if ("get".equals(array.getString(0)) && array.size() == 2 && array.get(1) instanceof JsonString) {
+                final String key = array.getString(1);
+                return (tags, type) -> tags.get(key);
+            } else if ("geometry-type".equals(array.getString(0))) {
+                return (tags, type) -> getGeometryTypeName(type);
+            }
+        } else if (legacyKey && value instanceof JsonString) {
+            final String key = ((JsonString) value).getString();
+            if ("$type".equals(key)) {
+                return (tags, type) -> getGeometryTypeName(type);
+            }
+            return (tags, type) -> tags.get(key);
+        }
+        final Object literal = literal(value);
+        return (tags, type) -> literal;
+    }
+
+    private static Object literal(JsonValue value) {
+        switch (value.getValueType()) {
+        case STRING:
+            return ((JsonString) value).getString();
+        case NUMBER:
+            return ((JsonNumber) value).doubleValue();
+        case TRUE:
+            return Boolean.TRUE.toString();
+        case FALSE:
+            return Boolean.FALSE.toString();
+        default:
+            return null;
+        }
+    }
+
+    private static String getGeometryTypeName(GeometryTypes type) {
+        switch (type) {
+        case POINT:
+            return "Point";
+        case LINESTRING:
+            return "LineString";
+        case POLYGON:
+            return "Polygon";
+        default:
+            return "Unknown";
+        }
+    }
+
+    /**
+     * Compare two values, numerically if both are numbers
+     * @param first The first value (a tag value or a literal)
+     * @param second The second value
+     * @return The comparison result. A {@code null} value is not equal to a non-{@code null} one.
+     */
+    private static int compare(Object first, Object second) {
+        if (first == null || second == null) {
+            return first == second ? 0 : first == null ? -1 : 1;
+        }
+        final Double firstNumber = toNumber(first);
+        final Double secondNumber = toNumber(second);
+        if (firstNumber != null && secondNumber != null) {
+            return Double.compare(firstNumber, secondNumber);
+        }
+        return first.toString().compareTo(second.toString());
+    }
+
+    private static Double toNumber(Object value) {
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        try {
+            return Double.valueOf(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the unique id for this layer
+     * @return The unique id
+     */
+    public String getId() {
+        return this.id;
+    }
+
+    /**
+     * Get the vector tile layer that this applies to
+     * @return The layer name, {@code null} for the background
+     */
+    public String getSourceLayer() {
+        return this.sourceLayer;
+    }
+
+    /**
+     * Determine if this is the background layer
+     * @return {@code true} if this paints the background of the tiles
+     */
+    public boolean isBackground() {
+        return this.type == Layers.Type.BACKGROUND;
+    }
+
+    /**
+     * Determine if this layer draws symbols, whose icons and labels may extend beyond the tile of their point
+     * @return {@code true} if this paints symbols
+     * @since 18579
+     */
+    public boolean isSymbol() {
+        return this.type == Layers.Type.SYMBOL;
+    }
+
+    /**
+     * Determine if this layer draws something at a zoom level
+     * @param zoom The zoom level
+     * @return {@code true} if this layer is visible at the zoom level
+     */
+    public boolean isVisible(int zoom) {
+        return this.visible && this.color != null && zoom >= this.minZoom && zoom < this.maxZoom;
+    }
+
+    /**
+     * Determine if a feature is drawn by this layer
+     * @param feature The feature
+     * @return {@code true} if the feature matches the filter and its geometry can be drawn by this layer
+     */
+    public boolean matches(Feature feature) {
+        final GeometryTypes geometryType = feature.getGeometryType();
+        final boolean drawable;
+        switch (this.type) {
+        case FILL:
+            drawable = geometryType == GeometryTypes.POLYGON;
+            break;
+        case LINE:
+            drawable = geometryType == GeometryTypes.LINESTRING || geometryType == GeometryTypes.POLYGON;
+            break;
+        case CIRCLE:
+        case SYMBOL:
+            drawable = geometryType == GeometryTypes.POINT;
+            break;
+        default:
+            drawable = false;
+        }
+        if (!drawable) {
+            return false;
+        }
+        final Map<String, String> tags = feature.getTags() != null ? feature.getTags() : Collections.emptyMap();
+        return this.filter.test(tags, geometryType);
+    }
+
+    /**
+     * Paint the background
+     * @param g The graphics to paint on
+     * @param width The width of the tile
+     * @param height The height of the tile
+     */
+    public void paintBackground(Graphics2D g, int width, int height) {
+        g.setColor(this.color);
+        g.fillRect(0, 0, width, height);
+    }
+
+    /**
+     * Paint a feature. The feature should {@link #matches(Feature) match} this layer.
+     * @param g The graphics to paint on
+     * @param feature The feature
+     * @param scale The scale from the tile coordinates to the graphics coordinates
+     */
+    public void paint(Graphics2D g, Feature feature, double scale) {
+        final PackedGeometry geometry = feature.getPackedGeometry();
+        switch (this.type) {
+        case FILL:
+            final Path2D area = new Path2D.Float(Path2D.WIND_EVEN_ODD, geometry.getPointCount());
+            geometry.appendTo(area, scale);
+            g.setColor(this.color);
+            g.fill(area);
+            if (this.outlineColor != null) {
+                g.setColor(this.outlineColor);
+                g.setStroke(this.stroke);
+                g.draw(area);
+            }
+            break;
+        case LINE:
+            final Path2D line = new Path2D.Float(Path2D.WIND_NON_ZERO, geometry.getPointCount());
+            geometry.appendTo(line, scale);
+            g.setColor(this.color);
+            g.setStroke(this.stroke);
+            g.draw(line);
+            break;
+        case CIRCLE:
+            for (int i = 0; i < geometry.getPointCount(); i++) {
+                final Ellipse2D circle = new Ellipse2D.Double(geometry.getX(i) * scale - this.size,
+                        geometry.getY(i) * scale - this.size, 2 * this.size, 2 * this.size);
+                g.setColor(this.color);
+                g.fill(circle);
+                if (this.outlineWidth > 0) {
+                    g.setColor(this.outlineColor);
+                    g.setStroke(this.stroke);
+                    g.draw(circle);
+                }
+            }
+            break;
+        case SYMBOL:
+            paintSymbol(g, feature, geometry, scale, Integer.MAX_VALUE);
+            break;
+        default:
+            // not supported
+        }
+    }
+
+    /**
+     * Paint the symbols of a feature whose points are inside of their tile. The points in the buffer around the tile are left
+     * to the neighbouring tiles, which also paint the symbols crossing their edges.
+     * @param g The graphics to paint on
+     * @param feature The feature, which should {@link #matches(Feature) match} this {@link #isSymbol() symbol} layer
+     * @param scale The scale from the tile coordinates to the graphics coordinates
+     * @param extent The extent of the tile
+     * @since 18579
+     */
+    public void paintSymbols(Graphics2D g, Feature feature, double scale, int extent) {
+        paintSymbol(g, feature, feature.getPackedGeometry(), scale, extent);
+    }
+
+    private void paintSymbol(Graphics2D g, Feature feature, PackedGeometry geometry, double scale, int extent) {
+        final Map<String, String> tags = feature.getTags() != null ? feature.getTags() : Collections.emptyMap();
+        final Image icon = this.iconImage != null ? getIcon(replaceTags(this.iconImage, tags)) : null;
+        final String text = this.textField != null ? replaceTags(this.textField, tags) : null;
+        FontMetrics metrics = null;
+        if (!Utils.isEmpty(text)) {
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, Math.round(this.size)));
+            g.setColor(this.color);
+            metrics = g.getFontMetrics();
+        }
+        for (int i = 0; i < geometry.getPointCount(); i++) {
+            if (extent != Integer.MAX_VALUE && (geometry.getX(i) < 0 || geometry.getX(i) >= extent
+                    || geometry.getY(i) < 0 || geometry.getY(i) >= extent)) {
+                continue;
+            }
+            final int x = (int) Math.round(geometry.getX(i) * scale);
+            final int y = (int) Math.round(geometry.getY(i) * scale);
+            int textY = y;
+            if (icon != null) {
+                g.drawImage(icon, x - icon.getWidth(null) / 2, y - icon.getHeight(null) / 2, null);
+                textY += icon.getHeight(null) / 2 + (metrics != null ? metrics.getAscent() : 0);
+            }
+            if (metrics != null) {
+                g.drawString(text, x - metrics.stringWidth(text) / 2, textY);
+            }
+        }
+    }
+
+    private static String replaceTags(String template, Map<String, String> tags) {
+        final Matcher matcher = CURLY_BRACES.matcher(template);
+        final StringBuffer sb = new StringBuffer(template.length());
+        while (matcher.find()) {
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(Objects.toString(tags.get(matcher.group(1)), "")));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private Image getIcon(String name) {
+        if (Utils.isEmpty(name)) {
+            return null;
+        }
+        // The sprites are saved in a directory of the style by MapboxVectorStyle
+        return this.icons.computeIfAbsent(name, key -> {
+            final ImageIcon icon = ImageProvider.getIfAvailable(Utils.isBlank(this.styleId) ? key : this.styleId + '/' + key);
+            return Optional.ofNullable(icon).map(ImageIcon::getImage);
+        }).orElse(null);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other != null && this.getClass() == other.getClass()) {
+            PaintLayer o = (PaintLayer) other;
+            return Objects.equals(this.styleId, o.styleId) && Objects.equals(this.layerInfo, o.layerInfo);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.styleId, this.layerInfo);
+    }
+
+    @Override
+    public String toString() {
+        return "PaintLayer [id=" + this.id + ", type=" + this.type + ", sourceLayer=" + this.sourceLayer + ']';
+    }
+}
@@ -549,8 +549,8 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
         String[] newKeys = new String[keys.size() * 2];
         int index = 0;
         for (Entry<String, String> entry:keys.entrySet()) {
-            newKeys[index++] = Objects.requireNonNull(entry.getKey());
-            newKeys[index++] = Objects.requireNonNull(entry.getValue());
+            newKeys[index++] = TagStringPool.intern(Objects.requireNonNull(entry.getKey()));
+            newKeys[index++] = TagStringPool.intern(Objects.requireNonNull(entry.getValue()));
         }
         this.keys = newKeys;
         keysChangedImpl(originalKeys);
@@ -594,7 +594,11 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
             return;
         else if (value == null) {
             remove(key);
-        } else if (keys == null) {
+            return;
+        }
+        key = TagStringPool.intern(key);
+        value = TagStringPool.intern(value);
+        if (keys == null) {
             keys = new String[] {key, value};
             keysChangedImpl(originalKeys);
         } else {
@@ -633,7 +637,7 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
                 if (keyIndex < 0 || newKeys == null) {
                     tagsToAdd.add(tag);
                 } else {
-                    newKeys[keyIndex + 1] = tag.getValue();
+                    newKeys[keyIndex + 1] = TagStringPool.intern(tag.getValue());
                 }
             }
         }
@@ -641,8 +645,8 @@ public abstract class AbstractPrimitive implements IPrimitive, IFilterablePrimit
             int index = newKeys != null ? newKeys.length : 0;
             newKeys = newKeys != null ? Arrays.copyOf(newKeys, newKeys.length + 2 * tagsToAdd.size()) : new String[2 * tagsToAdd.size()];
             for (Map.Entry<String, String> tag : tagsToAdd) {
-                newKeys[index++] = tag.getKey();
-                newKeys[index++] = tag.getValue();
+                newKeys[index++] = TagStringPool.intern(tag.getKey());
+                newKeys[index++] = TagStringPool.intern(tag.getValue());
             }
             keys = newKeys;
         }
@@ -0,0 +1,442 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openstreetmap.josm.data.coor.LatLon;
+
+/**
+ * A compact, column oriented store of node data.
+ * <p>
+ * Instead of keeping one {@link Node} object per node, this store holds ids, versions, changeset ids, timestamps,
+ * flags and coordinates in parallel primitive arrays. Coordinates are kept in the fixed point representation used by
+ * the OSM API ({@link LatLon#MAX_SERVER_PRECISION}), users are shared through a per-store user table and tags keep the
+ * flat key/value array layout of {@link AbstractPrimitive}. A node uses about a third of the heap needed by a
+ * {@link Node} object, which makes this store suitable for holding very large node sets (e.g. city-scale extracts)
+ * of which only a part is actually edited or displayed.
+ * <p>
+ * {@link Node} objects are only created on demand, see {@link #getNode(int)} and {@link #materialize(DataSet, BBox)}.
+ * A node is materialized at most once, later calls return the same object. Changes made to a materialized node are
+ * not written back to this store. A data set can be given a store, see {@link DataSet#setNodeStore(ColumnarNodeStore)}:
+ * its nodes are then added to the data set when the area they are in is displayed.
+ * <p>
+ * This class does not do any synchronization.
+ * @since 18557
+ */
+public class ColumnarNodeStore {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    /** Fixed point value used for unknown coordinates (incomplete nodes) */
+    private static final int UNKNOWN_COORDINATE = Integer.MIN_VALUE;
+
+    private static final byte STORED_MODIFIED = 1 << 0;
+    private static final byte STORED_VISIBLE = 1 << 1;
+    private static final byte STORED_DELETED = 1 << 2;
+    private static final byte STORED_INCOMPLETE = 1 << 3;
+    /** Set once the node has been added to a data set, or skipped, by {@link #materialize(DataSet, BBox)} */
+    private static final byte STORED_ADDED = 1 << 4;
+
+    private int size;
+    private long[] ids;
+    private int[] versions;
+    private int[] changesetIds;
+    private int[] timestamps;
+    private int[] lats;
+    private int[] lons;
+    private byte[] flags;
+    private int[] userIndices;
+    private String[][] keys;
+
+    private final List<User> users = new ArrayList<>();
+    private final Map<User, Integer> userIndex = new HashMap<>();
+
+    /** Whether {@link #ids} is sorted in ascending order. OSM files usually are, which allows a binary search. */
+    private boolean sorted = true;
+    /** Permutation of the indices, sorted by id. Only computed if {@link #sorted} is false */
+    private int[] sortedIndices;
+    /** Number of nodes flagged {@link #STORED_ADDED} */
+    private int handled;
+    /** Nodes created from this store, allocated on first use */
+    private Node[] materialized;
+
+    /**
+     * Constructs a new, empty {@code ColumnarNodeStore}.
+     */
+    public ColumnarNodeStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new, empty {@code ColumnarNodeStore} with the given initial capacity.
+     * @param initialCapacity the expected number of nodes
+     */
+    public ColumnarNodeStore(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        allocate(Math.max(initialCapacity, 1));
+        users.add(null);
+        userIndex.put(null, 0);
+    }
+
+    private void allocate(int capacity) {
+        ids = ids == null ? new long[capacity] : Arrays.copyOf(ids, capacity);
+        versions = versions == null ? new int[capacity] : Arrays.copyOf(versions, capacity);
+        changesetIds = changesetIds == null ? new int[capacity] : Arrays.copyOf(changesetIds, capacity);
+        timestamps = timestamps == null ? new int[capacity] : Arrays.copyOf(timestamps, capacity);
+        lats = lats == null ? new int[capacity] : Arrays.copyOf(lats, capacity);
+        lons = lons == null ? new int[capacity] : Arrays.copyOf(lons, capacity);
+        flags = flags == null ? new byte[capacity] : Arrays.copyOf(flags, capacity);
+        userIndices = userIndices == null ? new int[capacity] : Arrays.copyOf(userIndices, capacity);
+        keys = keys == null ? new String[capacity][] : Arrays.copyOf(keys, capacity);
+        if (materialized != null) {
+            materialized = Arrays.copyOf(materialized, capacity);
+        }
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > ids.length) {
+            allocate(Math.max(minCapacity, ids.length + (ids.length >> 1)));
+        }
+    }
+
+    /**
+     * Adds a node to this store.
+     * @param data the node data. Must not be {@code null}
+     * @return the index of the stored node
+     */
+    public int add(NodeData data) {
+        int index = add(data.getUniqueId(), data.getVersion(), data.lat(), data.lon());
+        changesetIds[index] = data.getChangesetId();
+        timestamps[index] = data.getRawTimestamp();
+        userIndices[index] = indexOfUser(data.getUser());
+        keys[index] = data.keys;
+        flags[index] = toStoredFlags(data);
+        return index;
+    }
+
+    /**
+     * Adds a visible, untagged node to this store.
+     * @param id the unique id of the node
+     * @param version the version of the node
+     * @param lat the latitude, or {@link Double#NaN} if unknown
+     * @param lon the longitude, or {@link Double#NaN} if unknown
+     * @return the index of the stored node
+     */
+    public int add(long id, int version, double lat, double lon) {
+        ensureCapacity(size + 1);
+        int index = size++;
+        if (index > 0 && sorted && ids[index - 1] >= id) {
+            sorted = false;
+        }
+        sortedIndices = null;
+        ids[index] = id;
+        versions[index] = version;
+        changesetIds[index] = 0;
+        timestamps[index] = 0;
+        userIndices[index] = 0;
+        keys[index] = null;
+        if (Double.isNaN(lat) || Double.isNaN(lon)) {
+            lats[index] = UNKNOWN_COORDINATE;
+            lons[index] = UNKNOWN_COORDINATE;
+            flags[index] = STORED_VISIBLE | STORED_INCOMPLETE;
+        } else {
+            lats[index] = toFixed(lat);
+            lons[index] = toFixed(lon);
+            flags[index] = STORED_VISIBLE;
+        }
+        return index;
+    }
+
+    private static byte toStoredFlags(NodeData data) {
+        byte result = 0;
+        if (data.isModified()) result |= STORED_MODIFIED;
+        if (data.isVisible()) result |= STORED_VISIBLE;
+        if (data.isDeleted()) result |= STORED_DELETED;
+        if (data.isIncomplete() || !data.isLatLonKnown()) result |= STORED_INCOMPLETE;
+        return result;
+    }
+
+    private int indexOfUser(User user) {
+        return userIndex.computeIfAbsent(user, u -> {
+            users.add(u);
+            return users.size() - 1;
+        });
+    }
+
+    private static int toFixed(double coordinate) {
+        return (int) Math.round(coordinate * LatLon.MAX_SERVER_INV_PRECISION);
+    }
+
+    private static double fromFixed(int coordinate) {
+        return coordinate == UNKNOWN_COORDINATE ? Double.NaN : coordinate / LatLon.MAX_SERVER_INV_PRECISION;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+
+    /**
+     * Returns the number of nodes in this store.
+     * @return the number of nodes in this store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Determines if this store is empty.
+     * @return {@code true} if this store does not contain any node
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the unique id of the node at the given index.
+     * @param index the index
+     * @return the unique id
+     */
+    public long getUniqueId(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    /**
+     * Returns the version of the node at the given index.
+     * @param index the index
+     * @return the version
+     */
+    public int getVersion(int index) {
+        checkIndex(index);
+        return versions[index];
+    }
+
+    /**
+     * Returns the latitude of the node at the given index.
+     * @param index the index
+     * @return the latitude, or {@link Double#NaN} if unknown
+     */
+    public double lat(int index) {
+        checkIndex(index);
+        return fromFixed(lats[index]);
+    }
+
+    /**
+     * Returns the longitude of the node at the given index.
+     * @param index the index
+     * @return the longitude, or {@link Double#NaN} if unknown
+     */
+    public double lon(int index) {
+        checkIndex(index);
+        return fromFixed(lons[index]);
+    }
+
+    /**
+     * Determines if the node at the given index has tags.
+     * @param index the index
+     * @return {@code true} if the node has at least one tag
+     */
+    public boolean hasKeys(int index) {
+        checkIndex(index);
+        return keys[index] != null;
+    }
+
+    /**
+     * Returns the index of the node with the given unique id.
+     * @param uniqueId the unique id
+     * @return the index of the node, or {@code -1} if this store does not contain such a node
+     */
+    public int indexOf(long uniqueId) {
+        if (sorted) {
+            int index = Arrays.binarySearch(ids, 0, size, uniqueId);
+            return index >= 0 ? index : -1;
+        }
+        int[] order = getSortedIndices();
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = ids[order[mid]];
+            if (midId < uniqueId) {
+                low = mid + 1;
+            } else if (midId > uniqueId) {
+                high = mid - 1;
+            } else {
+                return order[mid];
+            }
+        }
+        return -1;
+    }
+
+    private int[] getSortedIndices() {
+        if (sortedIndices == null) {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            // bottom-up merge sort of the indices by id, without boxing them
+            int[] buffer = new int[size];
+            for (long width = 1; width < size; width *= 2) {
+                for (long low = 0; low < size; low += 2 * width) {
+                    merge(order, buffer, (int) low, (int) Math.min(low + width, size), (int) Math.min(low + 2 * width, size));
+                }
+                int[] swap = order;
+                order = buffer;
+                buffer = swap;
+            }
+            sortedIndices = order;
+        }
+        return sortedIndices;
+    }
+
+    private void merge(int[] src, int[] dst, int low, int mid, int high) {
+        int i = low;
+        int j = mid;
+        for (int k = low; k < high; k++) {
+            if (i < mid && (j >= high || ids[src[i]] <= ids[src[j]])) {
+                dst[k] = src[i++];
+            } else {
+                dst[k] = src[j++];
+            }
+        }
+    }
+
+    /**
+     * Returns the data of the node at the given index. A new object is created on each call.
+     * @param index the index
+     * @return the node data
+     */
+    public NodeData getNodeData(int index) {
+        checkIndex(index);
+        NodeData data = new NodeData(ids[index]);
+        data.setVersion(versions[index]);
+        data.setChangesetId(changesetIds[index]);
+        data.setRawTimestamp(timestamps[index]);
+        data.setUser(users.get(userIndices[index]));
+        data.keys = keys[index];
+        byte f = flags[index];
+        data.setModified((f & STORED_MODIFIED) != 0);
+        data.setVisible((f & STORED_VISIBLE) != 0);
+        data.setDeleted((f & STORED_DELETED) != 0);
+        data.setIncomplete((f & STORED_INCOMPLETE) != 0);
+        if ((f & STORED_INCOMPLETE) == 0) {
+            data.setCoor(new LatLon(fromFixed(lats[index]), fromFixed(lons[index])));
+        }
+        return data;
+    }
+
+    /**
+     * Returns the node at the given index, creating it if needed.
+     * The returned node does not belong to any dataset, unless it has been added to one before.
+     * @param index the index
+     * @return the node
+     */
+    public Node getNode(int index) {
+        checkIndex(index);
+        if (materialized == null) {
+            materialized = new Node[ids.length];
+        }
+        Node node = materialized[index];
+        if (node == null) {
+            node = new Node(ids[index], true);
+            node.load(getNodeData(index));
+            materialized[index] = node;
+        }
+        return node;
+    }
+
+    /**
+     * Determines if the node at the given index has already been created.
+     * @param index the index
+     * @return {@code true} if {@link #getNode(int)} has been called for this index
+     */
+    public boolean isMaterialized(int index) {
+        checkIndex(index);
+        return materialized != null && materialized[index] != null;
+    }
+
+    /**
+     * Adds all nodes inside the given bounding box to the dataset, if they have not been added before.
+     * This allows to populate a dataset lazily, e.g. for the area currently displayed.
+     * A node is added at most once: a node removed from the dataset afterwards, e.g. purged, is not added again.
+     * Nodes whose id is already used in the dataset are skipped.
+     * @param ds the target dataset
+     * @param bbox the bounding box. If {@code null}, all nodes are added
+     * @return the nodes that have been added to the dataset
+     * @see DataSet#setNodeStore(ColumnarNodeStore)
+     */
+    public List<Node> materialize(DataSet ds, BBox bbox) {
+        List<Node> added = new ArrayList<>();
+        if (handled == size)
+            return added;
+        ds.update(() -> {
+            for (int i = 0; i < size; i++) {
+                if ((flags[i] & STORED_ADDED) != 0 || (bbox != null && !isInside(i, bbox)))
+                    continue;
+                if (ds.getPrimitiveById(ids[i], OsmPrimitiveType.NODE) == null) {
+                    Node node = getNode(i);
+                    if (node.getDataSet() == null) {
+                        ds.addPrimitive(node);
+                        added.add(node);
+                    }
+                }
+                flags[i] |= STORED_ADDED;
+                handled++;
+            }
+        });
+        return added;
+    }
+
+    private boolean isInside(int index, BBox bbox) {
+        if (lats[index] == UNKNOWN_COORDINATE)
+            return false;
+        double lat = fromFixed(lats[index]);
+        double lon = fromFixed(lons[index]);
+        return lat >= bbox.getMinLat() && lat <= bbox.getMaxLat() && lon >= bbox.getMinLon() && lon <= bbox.getMaxLon();
+    }
+
+    /**
+     * Reduces the capacity of the underlying arrays to the number of stored nodes.
+     */
+    public void trimToSize() {
+        if (size < ids.length) {
+            allocate(Math.max(size, 1));
+        }
+    }
+
+    /**
+     * Estimates the heap used by the arrays of this store, excluding the tags and users it references.
+     * @return the estimated heap usage in bytes
+     */
+    public long getEstimatedMemoryUsage() {
+        long capacity = ids.length;
+        long perNode = Long.BYTES + 5L * Integer.BYTES + Byte.BYTES + 4 /* keys reference */;
+        if (materialized != null) {
+            perNode += 4;
+        }
+        return capacity * perNode;
+    }
+
+    /**
+     * Creates a store containing all the nodes of the given dataset.
+     * @param ds the dataset
+     * @return a new store with all nodes of {@code ds}
+     */
+    public static ColumnarNodeStore of(DataSet ds) {
+        ColumnarNodeStore store = new ColumnarNodeStore(ds.getNodes().size());
+        ds.getReadLock().lock();
+        try {
+            for (Node n : ds.getNodes()) {
+                store.add(n.save());
+            }
+        } finally {
+            ds.getReadLock().unlock();
+        }
+        return store;
+    }
+}
@@ -4,6 +4,7 @@ package org.openstreetmap.josm.data.osm;
 import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.awt.geom.Area;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -45,6 +46,7 @@ import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
 import org.openstreetmap.josm.data.osm.event.DataSetListener;
 import org.openstreetmap.josm.data.osm.event.DataSourceAddedEvent;
 import org.openstreetmap.josm.data.osm.event.DataSourceRemovedEvent;
+import org.openstreetmap.josm.data.osm.event.DatasetEventBatch;
 import org.openstreetmap.josm.data.osm.event.FilterChangedEvent;
 import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
 import org.openstreetmap.josm.data.osm.event.PrimitiveFlagsChangedEvent;
@@ -115,11 +117,13 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
     private static final int MAX_SINGLE_EVENTS = 30;
 
     /**
-     * Maximum number of events to kept between beginUpdate/endUpdate. When more events are created, that simple DatasetChangedEvent is sent)
+     * Number of coalesced events to kept between beginUpdate/endUpdate, in addition to two events per primitive.
+     * When more events are created, that simple DatasetChangedEvent is sent)
      */
     private static final int MAX_EVENTS = 1000;
 
-    private final QuadBucketPrimitiveStore<Node, Way, Relation> store = new QuadBucketPrimitiveStore<>();
+    private final QuadBucketPrimitiveStore<Node, Way, Relation> store = new QuadBucketPrimitiveStore<>(
+            Config.getPref() != null && Config.getPref().getBoolean("osm.spatial-index.rtree", false));
 
     private final Storage<OsmPrimitive> allPrimitives = new Storage<>(new Storage.PrimitiveIdHash(), true);
     private final Map<PrimitiveId, OsmPrimitive> primitivesMap = allPrimitives
@@ -134,7 +138,7 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
     // Number of open calls to beginUpdate
     private int updateCount;
     // Events that occurred while dataset was locked but should be fired after write lock is released
-    private final List<AbstractDatasetChangedEvent> cachedEvents = new ArrayList<>();
+    private final DatasetEventBatch cachedEvents = new DatasetEventBatch(() -> MAX_EVENTS + 2 * allPrimitives.size());
 
     private String name;
     private DownloadPolicy downloadPolicy = DownloadPolicy.NORMAL;
@@ -144,6 +148,15 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
+    /** Number of changes of this dataset, see {@link #getEpoch()} */
+    private volatile long epoch;
+    /** Latest snapshot, see {@link #getSnapshot()}. Weakly referenced, so that it is released when no reader holds it. */
+    private volatile WeakReference<DataSetSnapshot> snapshot;
+    /** Primitives changed since the latest snapshot by their id at the time of the change, {@code null} to copy all primitives */
+    private Map<PrimitiveId, OsmPrimitive> snapshotChanges;
+    /** The mutex lock that is used to synchronize the creation of snapshots. */
+    private final Object snapshotLock = new Object();
+
     /**
      * The mutex lock that is used to synchronize selection changes.
      */
@@ -175,6 +188,9 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     private final ConflictCollection conflicts = new ConflictCollection();
 
+    /** Nodes which are only added to this data set when they are needed, see {@link #setNodeStore} */
+    private volatile ColumnarNodeStore nodeStore;
+
     private short mappaintCacheIdx = 1;
     private String remark;
 
@@ -304,6 +320,63 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         return lock.readLock();
     }
 
+    /**
+     * Returns the epoch of this dataset. The epoch grows each time a primitive is changed, even if no event is fired
+     * to the {@link DataSetListener}s, e.g. for a change of user or timestamp.
+     * @return the epoch of this dataset
+     * @since 18571
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns an immutable copy of the primitives of this dataset, which can be read without holding the read lock.
+     * <p>
+     * The snapshot is shared by all readers until the next change. A new snapshot only copies the primitives changed
+     * since the previous one. If another thread is currently modifying the dataset, the previous snapshot is returned
+     * instead of waiting for the end of the modification: its {@link DataSetSnapshot#getEpoch() epoch} is then older
+     * than the {@link #getEpoch() epoch} of the dataset.
+     * <p>
+     * The changes are only tracked as long as the latest snapshot is referenced by a reader.
+     * Once it is garbage collected, the next snapshot copies all primitives again.
+     * @return a snapshot of this dataset
+     * @since 18571
+     */
+    public DataSetSnapshot getSnapshot() {
+        DataSetSnapshot current = getLatestSnapshot();
+        if (current != null && current.getEpoch() == epoch) {
+            return current;
+        }
+        if (current == null) {
+            lock.readLock().lock();
+        } else if (!lock.readLock().tryLock()) {
+            // do not wait for the writer
+            return current;
+        }
+        try {
+            synchronized (snapshotLock) {
+                current = getLatestSnapshot();
+                long currentEpoch = epoch;
+                if (current == null || current.getEpoch() != currentEpoch) {
+                    current = current == null || snapshotChanges == null
+                            ? DataSetSnapshot.of(currentEpoch, allPrimitives)
+                            : current.update(currentEpoch, this, snapshotChanges);
+                    snapshotChanges = new HashMap<>();
+                    snapshot = new WeakReference<>(current);
+                }
+                return current;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private DataSetSnapshot getLatestSnapshot() {
+        WeakReference<DataSetSnapshot> reference = snapshot;
+        return reference != null ? reference.get() : null;
+    }
+
     /**
      * History of selections - shared by plugins and SelectionListDialog
      */
@@ -429,6 +502,161 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         }
     }
 
+    /**
+     * Searches for the nodes nearest to a point, for hit-testing and proximity checks.
+     * <p>
+     * Distances are measured in the current projection. The spatial index is traversed by increasing distance,
+     * only the nodes close to {@code en} are visited. The lower bound of the distance to a bounding box is computed from
+     * the projection of its corners and of the middles of its edges, widened by the curvature of the projected edges.
+     * @param en the point
+     * @param k the maximal number of nodes to return
+     * @param maxDistance the maximal distance of the nodes, in east/north units
+     * @param predicate the nodes to consider
+     * @return the (at most) {@code k} nearest nodes within {@code maxDistance}, sorted by increasing distance.
+     * Can be empty but not null
+     * @since 18574
+     */
+    public List<Node> nearestNodes(EastNorth en, int k, double maxDistance, Predicate<? super Node> predicate) {
+        Projection projection = ProjectionRegistry.getProjection();
+        lock.readLock().lock();
+        try {
+            return store.nearestNodes(getSearchBBox(projection, en, maxDistance), getBoxDistance(projection, en),
+                    n -> distance(n.getEastNorth(projection), en), k, maxDistance, predicate);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches for the nodes within a distance of a point, see {@link #nearestNodes(EastNorth, int, double, Predicate)}.
+     * @param en the point
+     * @param distance the maximal distance of the nodes, in east/north units
+     * @param predicate the nodes to consider
+     * @return the nodes within {@code distance}, sorted by increasing distance. Can be empty but not null
+     * @since 18574
+     */
+    public List<Node> nodesWithinDistance(EastNorth en, double distance, Predicate<? super Node> predicate) {
+        return nearestNodes(en, Integer.MAX_VALUE, distance, predicate);
+    }
+
+    /**
+     * Searches for the ways nearest to a point, for hit-testing and proximity checks.
+     * <p>
+     * The distance of a way is the distance between the point and its nearest segment, in the current projection.
+     * See {@link #nearestNodes(EastNorth, int, double, Predicate)} for the traversal of the spatial index.
+     * @param en the point
+     * @param k the maximal number of ways to return
+     * @param maxDistance the maximal distance of the ways, in east/north units
+     * @param predicate the ways to consider
+     * @return the (at most) {@code k} nearest ways within {@code maxDistance}, sorted by increasing distance.
+     * Can be empty but not null
+     * @since 18574
+     */
+    public List<Way> nearestWays(EastNorth en, int k, double maxDistance, Predicate<? super Way> predicate) {
+        Projection projection = ProjectionRegistry.getProjection();
+        lock.readLock().lock();
+        try {
+            return store.nearestWays(getSearchBBox(projection, en, maxDistance), getBoxDistance(projection, en),
+                    w -> distance(w, projection, en), k, maxDistance, predicate);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches for the ways within a distance of a point, see {@link #nearestWays(EastNorth, int, double, Predicate)}.
+     * @param en the point
+     * @param distance the maximal distance of the ways, in east/north units
+     * @param predicate the ways to consider
+     * @return the ways within {@code distance}, sorted by increasing distance. Can be empty but not null
+     * @since 18574
+     */
+    public List<Way> waysWithinDistance(EastNorth en, double distance, Predicate<? super Way> predicate) {
+        return nearestWays(en, Integer.MAX_VALUE, distance, predicate);
+    }
+
+    private static BBox getSearchBBox(Projection projection, EastNorth en, double distance) {
+        if (Double.isInfinite(distance)) {
+            return new BBox(-180, -90, 180, 90);
+        }
+        BBox bbox = new BBox(projection.eastNorth2latlon(en.add(-distance, -distance)),
+                projection.eastNorth2latlon(en.add(distance, distance)));
+        bbox.add(projection.eastNorth2latlon(en.add(-distance, distance)));
+        bbox.add(projection.eastNorth2latlon(en.add(distance, -distance)));
+        return bbox;
+    }
+
+    private static SpatialIndex.BoxDistance getBoxDistance(Projection projection, EastNorth en) {
+        return (minLon, minLat, maxLon, maxLat) -> {
+            // the projected box is bounded by the projection of its edges, which are curves in most projections:
+            // the bounds of the corners and of the middles of the edges are widened by the largest distance
+            // between the middle of an edge and the middle of its chord
+            double midLon = (minLon + maxLon) / 2;
+            double midLat = (minLat + maxLat) / 2;
+            EastNorth[] boundary = {
+                projection.latlon2eastNorth(new LatLon(minLat, minLon)),
+                projection.latlon2eastNorth(new LatLon(minLat, midLon)),
+                projection.latlon2eastNorth(new LatLon(minLat, maxLon)),
+                projection.latlon2eastNorth(new LatLon(midLat, maxLon)),
+                projection.latlon2eastNorth(new LatLon(maxLat, maxLon)),
+                projection.latlon2eastNorth(new LatLon(maxLat, midLon)),
+                projection.latlon2eastNorth(new LatLon(maxLat, minLon)),
+                projection.latlon2eastNorth(new LatLon(midLat, minLon))
+            };
+            double minEast = Double.POSITIVE_INFINITY;
+            double minNorth = Double.POSITIVE_INFINITY;
+            double maxEast = Double.NEGATIVE_INFINITY;
+            double maxNorth = Double.NEGATIVE_INFINITY;
+            double margin = 0;
+            for (int i = 0; i < boundary.length; i++) {
+                EastNorth p = boundary[i];
+                minEast = Math.min(minEast, p.east());
+                minNorth = Math.min(minNorth, p.north());
+                maxEast = Math.max(maxEast, p.east());
+                maxNorth = Math.max(maxNorth, p.north());
+                if (i % 2 == 1) {
+                    EastNorth start = boundary[i - 1];
+                    EastNorth end = boundary[(i + 1) % boundary.length];
+                    margin = Math.max(margin, p.distance(start.getCenter(end)));
+                }
+            }
+            return SpatialIndex.distance(minEast - margin, minNorth - margin, maxEast + margin, maxNorth + margin,
+                    en.east(), en.north());
+        };
+    }
+
+    private static double distance(EastNorth p, EastNorth en) {
+        return p == null ? Double.NaN : p.distance(en);
+    }
+
+    private static double distance(Way w, Projection projection, EastNorth en) {
+        double minSq = Double.NaN;
+        EastNorth last = null;
+        for (int i = 0; i < w.getNodesCount(); i++) {
+            EastNorth p = w.getNode(i).getEastNorth(projection);
+            if (p == null) {
+                continue;
+            }
+            double dSq = last == null ? p.distanceSq(en) : segmentDistanceSq(last, p, en);
+            if (!(dSq >= minSq)) {
+                minSq = dSq;
+            }
+            last = p;
+        }
+        return Math.sqrt(minSq);
+    }
+
+    private static double segmentDistanceSq(EastNorth a, EastNorth b, EastNorth p) {
+        double dx = b.east() - a.east();
+        double dy = b.north() - a.north();
+        double lenSq = dx * dx + dy * dy;
+        double t = lenSq == 0 ? 0 : ((p.east() - a.east()) * dx + (p.north() - a.north()) * dy) / lenSq;
+        t = Math.max(0, Math.min(1, t));
+        double ex = a.east() + t * dx - p.east();
+        double ey = a.north() + t * dy - p.north();
+        return ex * ex + ey * ey;
+    }
+
     @Override
     public List<Relation> searchRelations(BBox bbox) {
         lock.readLock().lock();
@@ -968,21 +1196,23 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         if (updateCount > 0) {
             updateCount--;
             List<AbstractDatasetChangedEvent> eventsToFire = Collections.emptyList();
+            boolean overflowed = false;
             if (updateCount == 0) {
-                eventsToFire = new ArrayList<>(cachedEvents);
+                overflowed = cachedEvents.isOverflowed();
+                eventsToFire = cachedEvents.getEvents();
                 cachedEvents.clear();
             }
 
-            if (!eventsToFire.isEmpty()) {
+            if (overflowed || !eventsToFire.isEmpty()) {
                 lock.readLock().lock();
                 try {
                     lock.writeLock().unlock();
-                    if (eventsToFire.size() < MAX_SINGLE_EVENTS) {
+                    if (overflowed) {
+                        fireEventToListeners(new DataChangedEvent(this));
+                    } else if (eventsToFire.size() < MAX_SINGLE_EVENTS) {
                         for (AbstractDatasetChangedEvent event : eventsToFire) {
                             fireEventToListeners(event);
                         }
-                    } else if (eventsToFire.size() == MAX_EVENTS) {
-                        fireEventToListeners(new DataChangedEvent(this));
                     } else {
                         fireEventToListeners(new DataChangedEvent(this, eventsToFire));
                     }
@@ -1055,8 +1285,34 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
     private void fireEvent(AbstractDatasetChangedEvent event) {
         if (updateCount == 0)
             throw new AssertionError("dataset events can be fired only when dataset is locked");
-        if (cachedEvents.size() < MAX_EVENTS) {
-            cachedEvents.add(event);
+        recordChange(event.getPrimitives());
+        cachedEvents.add(event);
+    }
+
+    /**
+     * Records a change of a primitive, including the changes which are not notified to the listeners,
+     * e.g. of its user, visibility or timestamp. Must be called with the write lock held.
+     * @param primitive the changed primitive
+     */
+    void primitiveChanged(OsmPrimitive primitive) {
+        recordChange(Collections.singleton(primitive));
+    }
+
+    private void recordChange(Collection<? extends OsmPrimitive> primitives) {
+        epoch++;
+        if (snapshotChanges != null) {
+            if (getLatestSnapshot() == null) {
+                // no reader holds the latest snapshot anymore, stop tracking the changes
+                snapshotChanges = null;
+                snapshot = null;
+            } else if (snapshotChanges.size() > allPrimitives.size() / 2) {
+                // copying all primitives is cheaper
+                snapshotChanges = null;
+            } else {
+                for (OsmPrimitive p : primitives) {
+                    snapshotChanges.put(p.getPrimitiveId(), p);
+                }
+            }
         }
     }
 
@@ -1072,9 +1328,9 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         fireEvent(new TagsChangedEvent(this, prim, originalKeys));
     }
 
-    void fireRelationMembersChanged(Relation r) {
+    void fireRelationMembersChanged(Relation r, List<RelationMember> originalMembers) {
         store.reindexRelation(r, Relation::updatePosition);
-        fireEvent(new RelationMembersChangedEvent(this, r));
+        fireEvent(new RelationMembersChangedEvent(this, r, originalMembers));
     }
 
     void fireNodeMoved(Node node, LatLon newCoor, EastNorth eastNorth) {
@@ -1082,11 +1338,11 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         fireEvent(new NodeMovedEvent(this, node));
     }
 
-    void fireWayNodesChanged(Way way) {
+    void fireWayNodesChanged(Way way, List<Node> originalNodes) {
         if (!way.isEmpty()) {
             store.reindexWay(way, Way::updatePosition, Relation::updatePosition);
         }
-        fireEvent(new WayNodesChangedEvent(this, way));
+        fireEvent(new WayNodesChangedEvent(this, way, originalNodes));
     }
 
     void fireChangesetIdChanged(OsmPrimitive primitive, int oldChangesetId, int newChangesetId) {
@@ -1155,9 +1411,53 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
             store.clear();
             allPrimitives.clear();
             conflicts.get().clear();
+            nodeStore = null;
+            // no event is fired for the removed primitives
+            snapshotChanges = null;
+            epoch++;
         });
     }
 
+    /**
+     * Returns the store of the nodes which are added to this data set when they are needed.
+     * @return the node store, or {@code null}
+     * @see #setNodeStore(ColumnarNodeStore)
+     * @since 18557
+     */
+    public ColumnarNodeStore getNodeStore() {
+        return nodeStore;
+    }
+
+    /**
+     * Sets a store of nodes which are added to this data set when they are needed, instead of being added at once.
+     * This is optional and saves memory for very large node sets, of which only a part is displayed or edited.
+     * <p>
+     * The nodes of the store are not part of this data set until they are materialized, by
+     * {@link #materializeNodes(BBox)}. The data layer does this for the area it paints. Until then, they are not
+     * returned by searches, saved or uploaded, like data which has not been downloaded yet.
+     * The store is neither copied by {@link #DataSet(DataSet)} nor merged by {@link #mergeFrom(DataSet)}.
+     * @param nodeStore the node store, or {@code null} to remove it
+     * @since 18557
+     */
+    public void setNodeStore(ColumnarNodeStore nodeStore) {
+        this.nodeStore = nodeStore;
+    }
+
+    /**
+     * Adds the nodes of the node store inside the given bounding box to this data set, if they have not been added before.
+     * Nothing is done if this data set has no node store or is locked.
+     * @param bbox the bounding box. If {@code null}, all the nodes of the store are added
+     * @return the nodes that have been added
+     * @see ColumnarNodeStore#materialize(DataSet, BBox)
+     * @since 18557
+     */
+    public List<Node> materializeNodes(BBox bbox) {
+        ColumnarNodeStore nodes = nodeStore;
+        if (nodes == null || isLocked())
+            return Collections.emptyList();
+        return nodes.materialize(this, bbox);
+    }
+
     /**
      * Marks all "invisible" objects as deleted. These objects should be always marked as
      * deleted when downloaded from the server. They can be undeleted later if necessary.
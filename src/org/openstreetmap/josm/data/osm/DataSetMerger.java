@@ -6,6 +6,7 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 import java.awt.geom.Area;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -13,6 +14,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import org.openstreetmap.josm.data.DataSource;
 import org.openstreetmap.josm.data.conflict.Conflict;
@@ -20,6 +25,8 @@ import org.openstreetmap.josm.data.conflict.ConflictCollection;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.tools.CheckParameterUtil;
 import org.openstreetmap.josm.tools.JosmRuntimeException;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
 
 /**
  * A dataset merger which takes a target and a source dataset and merges the source data set
@@ -28,6 +35,19 @@ import org.openstreetmap.josm.tools.JosmRuntimeException;
  */
 public class DataSetMerger {
 
+    private static final ForkJoinPool THREAD_POOL = newForkJoinPool();
+    /** Minimal number of source primitives of one type to look up their merge targets in parallel */
+    private static final int PARALLEL_THRESHOLD = 1000;
+
+    private static ForkJoinPool newForkJoinPool() {
+        try {
+            return Utils.newForkJoinPool("datasetmerger.threads", "dataset-merger-%d", Thread.NORM_PRIORITY);
+        } catch (SecurityException e) {
+            Logging.log(Logging.LEVEL_ERROR, "Unable to create new ForkJoinPool", e);
+            return null;
+        }
+    }
+
     /** the collection of conflicts created during merging */
     private final ConflictCollection conflicts;
 
@@ -81,11 +101,29 @@ public class DataSetMerger {
      * @param candidates a set of possible candidates for a new primitive
      */
     protected void mergePrimitive(OsmPrimitive source, Collection<? extends OsmPrimitive> candidates) {
+        OsmPrimitive target = null;
+        if (!source.isNew()) {
+            target = targetDataSet.getPrimitiveById(source.getId(), source.getType());
+        } else if (!source.isDeleted()) {
+            target = findMatchingCandidate(source, candidates);
+        }
+        mergePrimitive(source, target);
+    }
+
+    /**
+     * Merges a primitive onto the target primitive found by {@link #findMergeTargets}.
+     * @param source the primitive to merge
+     * @param target the primitive with the same id if the source is not new, the semantically equal new primitive
+     * otherwise, or {@code null} if there is no such primitive in the target dataset
+     */
+    private void mergePrimitive(OsmPrimitive source, OsmPrimitive target) {
         if (!source.isNew()) {
             // try to merge onto a matching primitive with the same defined id
             //
-            if (mergeById(source))
+            if (target != null) {
+                mergeById(source, target);
                 return;
+            }
         } else {
             // ignore deleted primitives from source
             if (source.isDeleted()) return;
@@ -93,39 +131,105 @@ public class DataSetMerger {
             // try to merge onto a primitive  which has no id assigned
             // yet but which is equal in its semantic attributes
             //
-            for (OsmPrimitive target : candidates) {
-                if (!target.isNew() || target.isDeleted()) {
-                    continue;
-                }
-                if (target.hasEqualSemanticAttributes(source)) {
-                    mergedMap.put(source.getPrimitiveId(), target.getPrimitiveId());
-                    // copy the technical attributes from other version
-                    target.setVisible(source.isVisible());
-                    target.setUser(source.getUser());
-                    target.setRawTimestamp(source.getRawTimestamp());
-                    target.setModified(source.isModified());
-                    objectsWithChildrenToMerge.add(source.getPrimitiveId());
-                    return;
-                }
+            if (target != null) {
+                mergedMap.put(source.getPrimitiveId(), target.getPrimitiveId());
+                // copy the technical attributes from other version
+                target.setVisible(source.isVisible());
+                target.setUser(source.getUser());
+                target.setRawTimestamp(source.getRawTimestamp());
+                target.setModified(source.isModified());
+                objectsWithChildrenToMerge.add(source.getPrimitiveId());
+                return;
             }
         }
 
         // If we get here we didn't find a suitable primitive in
         // the target dataset. Create a clone and add it to the target dataset.
         //
-        OsmPrimitive target;
+        OsmPrimitive clone;
         switch(source.getType()) {
-        case NODE: target = source.isNew() ? new Node() : new Node(source.getId()); break;
-        case WAY: target = source.isNew() ? new Way() : new Way(source.getId()); break;
-        case RELATION: target = source.isNew() ? new Relation() : new Relation(source.getId()); break;
+        case NODE: clone = source.isNew() ? new Node() : new Node(source.getId()); break;
+        case WAY: clone = source.isNew() ? new Way() : new Way(source.getId()); break;
+        case RELATION: clone = source.isNew() ? new Relation() : new Relation(source.getId()); break;
         default: throw new AssertionError();
         }
-        target.mergeFrom(source);
-        targetDataSet.addPrimitive(target);
-        mergedMap.put(source.getPrimitiveId(), target.getPrimitiveId());
+        clone.mergeFrom(source);
+        targetDataSet.addPrimitive(clone);
+        mergedMap.put(source.getPrimitiveId(), clone.getPrimitiveId());
         objectsWithChildrenToMerge.add(source.getPrimitiveId());
     }
 
+    /**
+     * Finds the first new and not deleted candidate which is semantically equal to a new source primitive.
+     * @param source the new primitive to merge
+     * @param candidates the candidates, in the order they are tested
+     * @return the matching candidate, or {@code null}
+     */
+    private static OsmPrimitive findMatchingCandidate(OsmPrimitive source, Iterable<? extends OsmPrimitive> candidates) {
+        for (OsmPrimitive target : candidates) {
+            if (target.isNew() && !target.isDeleted() && target.hasEqualSemanticAttributes(source)) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the merge targets of the source primitives of one type, before any of them is merged.
+     * <p>
+     * Merging a primitive does not change which target primitive another source primitive of the same type is merged
+     * onto: it only adds primitives with other ids, and does not change the semantic attributes of new target primitives.
+     * Hence the targets can be looked up in parallel, in chunks of the source primitives, while only the merge itself
+     * modifies the target dataset. New candidates are grouped by their tags, as only primitives with equal tags are
+     * semantically equal, so that a new source primitive is only compared with the candidates having the same tags.
+     *
+     * @param sources the source primitives
+     * @param targets the target primitives of the same type, some of them being candidates for new source primitives
+     * @return the merge targets, in the order of the source primitives, {@code null} if there is none
+     */
+    private OsmPrimitive[] findMergeTargets(List<? extends OsmPrimitive> sources, Collection<? extends OsmPrimitive> targets) {
+        final OsmPrimitive[] result = new OsmPrimitive[sources.size()];
+        if (sources.isEmpty()) {
+            return result;
+        }
+        // lazy initialisation to improve performance, see #19898
+        final Map<Map<String, String>, List<OsmPrimitive>> candidatesByTags = sources.stream().anyMatch(OsmPrimitive::isNew)
+                ? getCandidatesByTags(targets) : Collections.emptyMap();
+        final IntConsumer lookup = i -> {
+            final OsmPrimitive source = sources.get(i);
+            if (!source.isNew()) {
+                result[i] = targetDataSet.getPrimitiveById(source.getId(), source.getType());
+            } else if (!source.isDeleted()) {
+                result[i] = findMatchingCandidate(source,
+                        candidatesByTags.getOrDefault(source.getKeys(), Collections.emptyList()));
+            }
+        };
+        final ForkJoinPool pool = THREAD_POOL;
+        if (pool == null || sources.size() < PARALLEL_THRESHOLD) {
+            IntStream.range(0, sources.size()).forEach(lookup);
+        } else {
+            final int chunkSize = Math.max(PARALLEL_THRESHOLD / 4, sources.size() / (4 * pool.getParallelism()));
+            final List<ForkJoinTask<?>> chunks = new ArrayList<>();
+            for (int start = 0; start < sources.size(); start += chunkSize) {
+                final int from = start;
+                final int to = Math.min(sources.size(), start + chunkSize);
+                chunks.add(pool.submit(() -> IntStream.range(from, to).forEach(lookup)));
+            }
+            chunks.forEach(ForkJoinTask::join);
+        }
+        return result;
+    }
+
+    private static Map<Map<String, String>, List<OsmPrimitive>> getCandidatesByTags(Collection<? extends OsmPrimitive> targets) {
+        final Map<Map<String, String>, List<OsmPrimitive>> candidates = new HashMap<>();
+        for (OsmPrimitive target : targets) {
+            if (target.isNew() && !target.isDeleted()) {
+                candidates.computeIfAbsent(target.getKeys(), k -> new ArrayList<>(1)).add(target);
+            }
+        }
+        return candidates;
+    }
+
     protected OsmPrimitive getMergeTarget(OsmPrimitive mergeSource) {
         PrimitiveId targetId = mergedMap.get(mergeSource.getPrimitiveId());
         if (targetId == null)
@@ -275,23 +379,18 @@ public class DataSetMerger {
     }
 
     /**
-     * Tries to merge a primitive <code>source</code> into an existing primitive with the same id.
+     * Merges a primitive <code>source</code> into an existing primitive with the same id.
      *
      * @param source  the source primitive which is to be merged into a target primitive
-     * @return true, if this method was able to merge <code>source</code> into a target object; false, otherwise
+     * @param target  the target primitive with the same id
      */
-    private boolean mergeById(OsmPrimitive source) {
-        OsmPrimitive target = targetDataSet.getPrimitiveById(source.getId(), source.getType());
-        // merge other into an existing primitive with the same id, if possible
-        //
-        if (target == null)
-            return false;
+    private void mergeById(OsmPrimitive source, OsmPrimitive target) {
         // found a corresponding target, remember it
         mergedMap.put(source.getPrimitiveId(), target.getPrimitiveId());
 
         if (target.getVersion() > source.getVersion())
             // target.version > source.version => keep target version
-            return true;
+            return;
 
         boolean mergeFromSource = false;
         boolean haveSameVersion = target.getVersion() == source.getVersion();
@@ -373,7 +472,24 @@ public class DataSetMerger {
             target.mergeFrom(source);
             objectsWithChildrenToMerge.add(source.getPrimitiveId());
         }
-        return true;
+    }
+
+    /**
+     * Merges the source primitives of one type: their merge targets are looked up first, in parallel, then the source
+     * primitives are merged one after the other.
+     * @param sources the source primitives
+     * @param targets the target primitives of the same type
+     * @param progressMonitor The progress monitor
+     */
+    private void mergePrimitives(List<? extends OsmPrimitive> sources, Collection<? extends OsmPrimitive> targets,
+            ProgressMonitor progressMonitor) {
+        final OsmPrimitive[] mergeTargets = findMergeTargets(sources, targets);
+        for (int i = 0; i < mergeTargets.length; i++) {
+            mergePrimitive(sources.get(i), mergeTargets[i]);
+            if (progressMonitor != null) {
+                progressMonitor.worked(1);
+            }
+        }
     }
 
     /**
@@ -414,40 +530,9 @@ public class DataSetMerger {
             progressMonitor.beginTask(tr("Merging data..."), sourceDataSet.allPrimitives().size());
         }
         targetDataSet.update(() -> {
-            List<? extends OsmPrimitive> candidates = null;
-            for (Node node: sourceDataSet.getNodes()) {
-                // lazy initialisation to improve performance, see #19898
-                if (candidates == null) {
-                    candidates = new ArrayList<>(targetDataSet.getNodes());
-                }
-                mergePrimitive(node, candidates);
-                if (progressMonitor != null) {
-                    progressMonitor.worked(1);
-                }
-            }
-            candidates = null;
-            for (Way way: sourceDataSet.getWays()) {
-                // lazy initialisation to improve performance
-                if (candidates == null) {
-                    candidates = new ArrayList<>(targetDataSet.getWays());
-                }
-                mergePrimitive(way, candidates);
-                if (progressMonitor != null) {
-                    progressMonitor.worked(1);
-                }
-            }
-            candidates = null;
-            for (Relation relation: sourceDataSet.getRelations()) {
-                // lazy initialisation to improve performance
-                if (candidates == null) {
-                    candidates = new ArrayList<>(targetDataSet.getRelations());
-                }
-                mergePrimitive(relation, candidates);
-                if (progressMonitor != null) {
-                    progressMonitor.worked(1);
-                }
-            }
-            candidates = null;
+            mergePrimitives(new ArrayList<>(sourceDataSet.getNodes()), targetDataSet.getNodes(), progressMonitor);
+            mergePrimitives(new ArrayList<>(sourceDataSet.getWays()), targetDataSet.getWays(), progressMonitor);
+            mergePrimitives(new ArrayList<>(sourceDataSet.getRelations()), targetDataSet.getRelations(), progressMonitor);
             fixReferences();
 
             Area a = targetDataSet.getDataSourceArea();
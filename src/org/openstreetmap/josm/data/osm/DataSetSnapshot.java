@@ -0,0 +1,185 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.openstreetmap.josm.tools.SubclassFilteredCollection;
+
+/**
+ * Immutable copy of the primitives of a {@link DataSet} at a given epoch, see {@link DataSet#getSnapshot()}.
+ * <p>
+ * A snapshot can be read from any thread without holding the dataset lock, while the dataset is edited.
+ * It contains the same primitives as {@link DataSet#allPrimitives()}, including the deleted and incomplete ones.
+ * <p>
+ * Consecutive snapshots share the copies of the unchanged primitives: a new snapshot only copies the primitives
+ * changed since the previous one, and snapshots nobody refers to anymore are garbage collected.
+ *
+ * @since 18571
+ */
+public final class DataSetSnapshot {
+
+    /**
+     * Minimal number of changed primitives kept apart from the shared copies, before they are merged.
+     */
+    private static final int MIN_CHANGES = 1024;
+
+    private final long epoch;
+    /** Copies shared with the previous snapshots, never modified once the snapshot is published */
+    private final Storage<PrimitiveData> base;
+    private final Map<PrimitiveId, PrimitiveData> baseMap;
+    /** Copies of the primitives changed since {@link #base} was built, {@code null} values for removed primitives */
+    private final Map<PrimitiveId, PrimitiveData> changes;
+    private final int size;
+
+    private DataSetSnapshot(long epoch, Storage<PrimitiveData> base, Map<PrimitiveId, PrimitiveData> changes) {
+        this.epoch = epoch;
+        this.base = base;
+        this.baseMap = base.foreignKey(new Storage.PrimitiveIdHash());
+        this.changes = changes;
+        int count = base.size();
+        for (Map.Entry<PrimitiveId, PrimitiveData> e : changes.entrySet()) {
+            boolean inBase = baseMap.containsKey(e.getKey());
+            if (e.getValue() == null && inBase) {
+                count--;
+            } else if (e.getValue() != null && !inBase) {
+                count++;
+            }
+        }
+        this.size = count;
+    }
+
+    /**
+     * Copies all primitives of a dataset. The caller must hold the read lock of the dataset.
+     * @param epoch the epoch of the dataset
+     * @param primitives the primitives of the dataset
+     * @return the new snapshot
+     */
+    static DataSetSnapshot of(long epoch, Collection<OsmPrimitive> primitives) {
+        Storage<PrimitiveData> base = new Storage<>(new Storage.PrimitiveIdHash(), Math.max(16, primitives.size()));
+        for (OsmPrimitive p : primitives) {
+            base.add(p.save());
+        }
+        return new DataSetSnapshot(epoch, base, Collections.emptyMap());
+    }
+
+    /**
+     * Creates the next snapshot, copying only the changed primitives. The caller must hold the read lock of the dataset.
+     * @param epoch the new epoch of the dataset
+     * @param dataSet the dataset
+     * @param changed the primitives changed since this snapshot, by their id at the time of the change
+     * @return the new snapshot
+     */
+    DataSetSnapshot update(long epoch, DataSet dataSet, Map<PrimitiveId, OsmPrimitive> changed) {
+        Map<PrimitiveId, PrimitiveData> newChanges = new HashMap<>(changes);
+        for (Map.Entry<PrimitiveId, OsmPrimitive> e : changed.entrySet()) {
+            OsmPrimitive p = e.getValue();
+            // the primitive may have been removed, or reindexed with another id
+            boolean present = p.getDataSet() == dataSet && p.getUniqueId() == e.getKey().getUniqueId();
+            newChanges.put(e.getKey(), present ? p.save() : null);
+        }
+        if (newChanges.size() <= Math.max(MIN_CHANGES, base.size() / 8)) {
+            return new DataSetSnapshot(epoch, base, newChanges);
+        }
+        Storage<PrimitiveData> newBase = new Storage<>(new Storage.PrimitiveIdHash(), Math.max(16, size + changed.size()));
+        newBase.addAll(new DataSetSnapshot(epoch, base, newChanges).allPrimitives());
+        return new DataSetSnapshot(epoch, newBase, Collections.emptyMap());
+    }
+
+    /**
+     * Returns the epoch of the dataset at the time of this snapshot.
+     * The epoch of a dataset grows with each change, see {@link DataSet#getEpoch()}.
+     * @return the epoch of this snapshot
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns the number of primitives in this snapshot.
+     * @return the number of primitives
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the copy of a primitive.
+     * @param primitiveId the id of the primitive
+     * @return the copy of the primitive at the time of this snapshot, or {@code null}
+     */
+    public PrimitiveData getPrimitiveById(PrimitiveId primitiveId) {
+        if (primitiveId == null) {
+            return null;
+        }
+        if (!changes.isEmpty()) {
+            PrimitiveId key = new SimplePrimitiveId(primitiveId.getUniqueId(), primitiveId.getType());
+            if (changes.containsKey(key)) {
+                return changes.get(key);
+            }
+        }
+        return baseMap.get(primitiveId);
+    }
+
+    /**
+     * Returns all primitives of this snapshot.
+     * @return an unmodifiable collection of all primitive copies
+     */
+    public Collection<PrimitiveData> allPrimitives() {
+        return new AbstractCollection<PrimitiveData>() {
+            @Override
+            public Iterator<PrimitiveData> iterator() {
+                // the unchanged copies of base, then the changed ones
+                return Stream.concat(
+                        base.stream().filter(d -> changes.isEmpty() || !changes.containsKey(d.getPrimitiveId())),
+                        changes.values().stream().filter(Objects::nonNull)).iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Returns the primitives of this snapshot matching the given predicate.
+     * @param <T> type of the primitives
+     * @param predicate the predicate to match
+     * @return an unmodifiable collection of the matching primitive copies
+     */
+    public <T extends PrimitiveData> Collection<T> getPrimitives(Predicate<? super PrimitiveData> predicate) {
+        return new SubclassFilteredCollection<>(allPrimitives(), predicate);
+    }
+
+    /**
+     * Returns the nodes of this snapshot.
+     * @return an unmodifiable collection of the node copies
+     */
+    public Collection<NodeData> getNodes() {
+        return getPrimitives(NodeData.class::isInstance);
+    }
+
+    /**
+     * Returns the ways of this snapshot.
+     * @return an unmodifiable collection of the way copies
+     */
+    public Collection<WayData> getWays() {
+        return getPrimitives(WayData.class::isInstance);
+    }
+
+    /**
+     * Returns the relations of this snapshot.
+     * @return an unmodifiable collection of the relation copies
+     */
+    public Collection<RelationData> getRelations() {
+        return getPrimitives(RelationData.class::isInstance);
+    }
+}
@@ -4,6 +4,7 @@ package org.openstreetmap.josm.data.osm;
 import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.text.MessageFormat;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -209,6 +210,8 @@ public abstract class OsmPrimitive extends AbstractPrimitive implements Template
     protected boolean writeLock() {
         if (dataSet != null) {
             dataSet.beginUpdate();
+            // some changes are not notified to the listeners, e.g. of the user or the timestamp
+            dataSet.primitiveChanged(this);
             return true;
         } else
             return false;
@@ -311,6 +314,28 @@ public abstract class OsmPrimitive extends AbstractPrimitive implements Template
         }
     }
 
+    @Override
+    public void setInstant(Instant timestamp) {
+        checkDatasetNotReadOnly();
+        boolean locked = writeLock();
+        try {
+            super.setInstant(timestamp);
+        } finally {
+            writeUnlock(locked);
+        }
+    }
+
+    @Override
+    public void setRawTimestamp(int timestamp) {
+        checkDatasetNotReadOnly();
+        boolean locked = writeLock();
+        try {
+            super.setRawTimestamp(timestamp);
+        } finally {
+            writeUnlock(locked);
+        }
+    }
+
     /* -------
     /* FLAGS
     /* ------*/
@@ -5,6 +5,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 import org.openstreetmap.josm.tools.JosmRuntimeException;
@@ -12,6 +14,8 @@ import org.openstreetmap.josm.tools.JosmRuntimeException;
 /**
  * Stores primitives in quad buckets. This can be used to hold a collection of primitives, e.g. in a {@link DataSet}
  *
+ * Nodes and ways can be indexed by a {@link RTree} instead, see {@link #QuadBucketPrimitiveStore(boolean)}.
+ *
  * This class does not do any synchronization.
  * @author Michael Zangl
  * @param <N> type representing OSM nodes
@@ -24,20 +28,38 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
      * All nodes goes here, even when included in other data (ways etc). This enables the instant
      * conversion of the whole DataSet by iterating over this data structure.
      */
-    private final QuadBuckets<N> nodes = new QuadBuckets<>();
+    private final SpatialIndex<N> nodes;
 
     /**
      * All ways (Streets etc.) in the DataSet.
      *
      * The way nodes are stored only in the way list.
      */
-    private final QuadBuckets<W> ways = new QuadBuckets<>();
+    private final SpatialIndex<W> ways;
 
     /**
      * All relations/relationships
      */
     private final Collection<R> relations = new ArrayList<>();
 
+    /**
+     * Constructs a new {@code QuadBucketPrimitiveStore} indexing nodes and ways with {@link QuadBuckets}.
+     */
+    public QuadBucketPrimitiveStore() {
+        this(false);
+    }
+
+    /**
+     * Constructs a new {@code QuadBucketPrimitiveStore}.
+     * @param rtree {@code true} to index nodes and ways with a {@link RTree}, {@code false} for {@link QuadBuckets}.
+     * A R-tree can be searched by several threads at the same time.
+     * @since 18573
+     */
+    public QuadBucketPrimitiveStore(boolean rtree) {
+        nodes = rtree ? new RTree<>() : new QuadBuckets<>();
+        ways = rtree ? new RTree<>() : new QuadBuckets<>();
+    }
+
     /**
      * Searches for nodes in the given bounding box.
      * @param bbox the bounding box
@@ -47,6 +69,23 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
         return nodes.search(bbox);
     }
 
+    /**
+     * Searches for the nodes nearest to a reference location.
+     * @param searchBbox a bounding box containing all nodes within {@code maxDistance}
+     * @param boxDistance the lower bound of the distance of the nodes lying in a bounding box
+     * @param distance the distance of a node
+     * @param k the maximal number of nodes to return
+     * @param maxDistance the maximal distance of the nodes
+     * @param filter the nodes to consider
+     * @return the nearest nodes, sorted by increasing distance. Can be empty but not null
+     * @see SpatialIndex#nearest(BBox, SpatialIndex.BoxDistance, ToDoubleFunction, int, double, Predicate)
+     * @since 18574
+     */
+    public List<N> nearestNodes(BBox searchBbox, SpatialIndex.BoxDistance boxDistance, ToDoubleFunction<? super N> distance,
+            int k, double maxDistance, Predicate<? super N> filter) {
+        return nodes.nearest(searchBbox, boxDistance, distance, k, maxDistance, filter);
+    }
+
     /**
      * Determines if the given node can be retrieved in the store through its bounding box. Useful for dataset consistency test.
      * @param n The node to search
@@ -65,6 +104,23 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
         return ways.search(bbox);
     }
 
+    /**
+     * Searches for the ways nearest to a reference location.
+     * @param searchBbox a bounding box containing all ways within {@code maxDistance}
+     * @param boxDistance the lower bound of the distance of the ways lying in a bounding box
+     * @param distance the distance of a way
+     * @param k the maximal number of ways to return
+     * @param maxDistance the maximal distance of the ways
+     * @param filter the ways to consider
+     * @return the nearest ways, sorted by increasing distance. Can be empty but not null
+     * @see SpatialIndex#nearest(BBox, SpatialIndex.BoxDistance, ToDoubleFunction, int, double, Predicate)
+     * @since 18574
+     */
+    public List<W> nearestWays(BBox searchBbox, SpatialIndex.BoxDistance boxDistance, ToDoubleFunction<? super W> distance,
+            int k, double maxDistance, Predicate<? super W> filter) {
+        return ways.nearest(searchBbox, boxDistance, distance, k, maxDistance, filter);
+    }
+
     /**
      * Determines if the given way can be retrieved in the store through its bounding box. Useful for dataset consistency test.
      * @param w The way to search
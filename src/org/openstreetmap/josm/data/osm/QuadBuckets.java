@@ -25,7 +25,7 @@ import org.openstreetmap.josm.tools.Utils;
  * @param <T> type of object extending {@link IQuadBucketType}.
  * @since 2165 ({@link IPrimitive} only), 17459 for {@link IQuadBucketType}
  */
-public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
+public class QuadBuckets<T extends IQuadBucketType> implements SpatialIndex<T> {
     private static final boolean CONSISTENCY_TESTING = false;
     private static final byte NW_INDEX = 1;
     private static final byte NE_INDEX = 3;
@@ -362,7 +362,8 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
     }
 
     private QBLevel<T> root;
-    private QBLevel<T> searchCache;
+    /** The last level which bounded a search, where the next search starts. Only a hint, read once by each search */
+    private volatile QBLevel<T> searchCache;
     private int size;
     private Collection<T> invalidBBoxPrimitives;
 
@@ -576,6 +577,7 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
      * @param searchBbox the bbox
      * @return List of primitives within the bbox (or crossing the bbox if they are ways). Can be empty, but not null.
      */
+    @Override
     public List<T> search(BBox searchBbox) {
         List<T> ret = new ArrayList<>();
         if (searchBbox == null || !searchBbox.isValid()) {
@@ -583,23 +585,25 @@ public class QuadBuckets<T extends IQuadBucketType> implements Collection<T> {
         }
 
         // Doing this cuts down search cost on a real-life data set by about 25%
-        if (searchCache == null) {
-            searchCache = root;
+        // The search starts from a local copy: several threads holding the read lock of the data set may search at the same
+        // time, and each of them updates the cache
+        QBLevel<T> start = searchCache;
+        if (start == null) {
+            start = root;
         }
         // Walk back up the tree when the last search spot can not cover the current search
-        while (searchCache != null && !searchCache.bounds(searchBbox)) {
-            searchCache = searchCache.parent;
+        while (start != null && !start.bounds(searchBbox)) {
+            start = start.parent;
         }
 
-        if (searchCache == null) {
-            searchCache = root;
+        if (start == null) {
+            start = root;
             Logging.info("bbox: " + searchBbox + " is out of the world");
         }
 
-        // Save parent because searchCache might change during search call
-        QBLevel<T> tmp = searchCache.parent;
+        QBLevel<T> tmp = start.parent;
 
-        searchCache.search(this, searchBbox, ret);
+        start.search(this, searchBbox, ret);
 
         // A way that spans this bucket may be stored in one
         // of the nodes which is a parent of the search cache
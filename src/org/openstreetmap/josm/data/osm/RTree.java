@@ -0,0 +1,571 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+import org.openstreetmap.josm.data.IQuadBucketType;
+
+/**
+ * A R-tree, indexing objects by their bounding box. It can replace {@link QuadBuckets}.
+ * <p>
+ * Objects added to an empty tree are kept aside, and bulk loaded with the Sort-Tile-Recursive (STR) algorithm on the
+ * first query. This packs the tree of a freshly loaded data set. Objects added to a non-empty tree are inserted one by
+ * one, splitting the full nodes. Contrary to {@link QuadBuckets}, a long way is stored in a single leaf whose bounds
+ * grow with it, so that it is only tested by the searches crossing its bounding box.
+ * <p>
+ * The bounding box of an object is read when it is added, and must not change until the object is removed.
+ * Objects with an invalid bounding box are kept in a separate set, which is not searched.
+ * <p>
+ * Searches do not modify the tree: any number of threads can search it at the same time, as long as no thread
+ * modifies it. Modifications must be synchronized by the caller.
+ * @param <T> the type of the indexed objects
+ * @since 18573
+ */
+public class RTree<T extends IQuadBucketType> extends AbstractCollection<T> implements SpatialIndex<T> {
+
+    /**
+     * Maximal number of entries of a node.
+     */
+    static final int MAX_ENTRIES = 32;
+
+    /**
+     * A node of the tree, holding the bounds of its entries: minX, minY, maxX, maxY for each entry.
+     */
+    private static final class RNode {
+        private final boolean leaf;
+        private final Object[] entries = new Object[MAX_ENTRIES + 1];
+        private final double[] bounds = new double[4 * (MAX_ENTRIES + 1)];
+        private int size;
+        private RNode parent;
+
+        RNode(boolean leaf) {
+            this.leaf = leaf;
+        }
+
+        void add(Object entry, double minX, double minY, double maxX, double maxY) {
+            entries[size] = entry;
+            setBounds(size, minX, minY, maxX, maxY);
+            size++;
+            if (entry instanceof RNode) {
+                ((RNode) entry).parent = this;
+            }
+        }
+
+        void add(RNode child) {
+            add(child, child.minX(), child.minY(), child.maxX(), child.maxY());
+        }
+
+        void setBounds(int i, double minX, double minY, double maxX, double maxY) {
+            bounds[4 * i] = minX;
+            bounds[4 * i + 1] = minY;
+            bounds[4 * i + 2] = maxX;
+            bounds[4 * i + 3] = maxY;
+        }
+
+        void removeAt(int i) {
+            size--;
+            entries[i] = entries[size];
+            System.arraycopy(bounds, 4 * size, bounds, 4 * i, 4);
+            entries[size] = null;
+        }
+
+        int indexOf(Object entry) {
+            for (int i = 0; i < size; i++) {
+                if (entries[i] == entry) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Updates the bounds of a child after its entries changed.
+         * @param child the child
+         */
+        void updateBounds(RNode child) {
+            setBounds(indexOf(child), child.minX(), child.minY(), child.maxX(), child.maxY());
+        }
+
+        double minX() {
+            return min(0);
+        }
+
+        double minY() {
+            return min(1);
+        }
+
+        double maxX() {
+            return max(2);
+        }
+
+        double maxY() {
+            return max(3);
+        }
+
+        private double min(int offset) {
+            double min = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, bounds[4 * i + offset]);
+            }
+            return min;
+        }
+
+        private double max(int offset) {
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, bounds[4 * i + offset]);
+            }
+            return max;
+        }
+
+        boolean intersects(int i, double minX, double minY, double maxX, double maxY) {
+            return bounds[4 * i] <= maxX && bounds[4 * i + 2] >= minX && bounds[4 * i + 1] <= maxY && bounds[4 * i + 3] >= minY;
+        }
+
+        boolean contains(int i, double minX, double minY, double maxX, double maxY) {
+            return bounds[4 * i] <= minX && bounds[4 * i + 2] >= maxX && bounds[4 * i + 1] <= minY && bounds[4 * i + 3] >= maxY;
+        }
+
+        double distance(int i, BoxDistance boxDistance) {
+            return boxDistance.distance(bounds[4 * i], bounds[4 * i + 1], bounds[4 * i + 2], bounds[4 * i + 3]);
+        }
+    }
+
+    /**
+     * An entry during the bulk load, or a candidate of a nearest neighbour search.
+     */
+    private static final class Entry {
+        private final Object object;
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+        private final double distance;
+
+        Entry(Object object, double minX, double minY, double maxX, double maxY, double distance) {
+            this.object = object;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.distance = distance;
+        }
+
+        double centerX() {
+            return minX + maxX;
+        }
+
+        double centerY() {
+            return minY + maxY;
+        }
+    }
+
+    private RNode root;
+    private int treeSize;
+    private final Set<T> invalidBBoxPrimitives = new LinkedHashSet<>();
+    /** Objects waiting for the bulk load, when the tree is empty */
+    private volatile List<T> pending;
+
+    /**
+     * Constructs a new empty {@code RTree}.
+     */
+    public RTree() {
+        clear();
+    }
+
+    @Override
+    public final void clear() {
+        root = new RNode(true);
+        treeSize = 0;
+        invalidBBoxPrimitives.clear();
+        pending = null;
+    }
+
+    @Override
+    public boolean add(T t) {
+        BBox bbox = t.getBBox();
+        if (!bbox.isValid()) {
+            return invalidBBoxPrimitives.add(t);
+        }
+        if (treeSize == 0) {
+            if (pending == null) {
+                pending = new ArrayList<>();
+            }
+            pending.add(t);
+            return true;
+        }
+        insert(chooseLeaf(bbox), t, bbox.getMinLon(), bbox.getMinLat(), bbox.getMaxLon(), bbox.getMaxLat());
+        treeSize++;
+        return true;
+    }
+
+    /**
+     * Bulk loads the pending objects, if any.
+     */
+    private void ensureLoaded() {
+        if (pending != null) {
+            synchronized (this) {
+                List<T> objects = pending;
+                if (objects != null) {
+                    load(objects);
+                    pending = null;
+                }
+            }
+        }
+    }
+
+    private void load(List<T> objects) {
+        List<Entry> entries = new ArrayList<>(objects.size());
+        for (T t : objects) {
+            BBox bbox = t.getBBox();
+            entries.add(new Entry(t, bbox.getMinLon(), bbox.getMinLat(), bbox.getMaxLon(), bbox.getMaxLat(), 0));
+        }
+        boolean leaf = true;
+        do {
+            entries = pack(entries, leaf);
+            leaf = false;
+        } while (entries.size() > 1);
+        root = (RNode) entries.get(0).object;
+        root.parent = null;
+        treeSize = objects.size();
+    }
+
+    /**
+     * Packs entries into nodes with the Sort-Tile-Recursive algorithm.
+     * @param entries the entries
+     * @param leaf whether the entries are objects, or nodes
+     * @return the entries of the new nodes
+     */
+    private static List<Entry> pack(List<Entry> entries, boolean leaf) {
+        int nodeCount = (entries.size() + MAX_ENTRIES - 1) / MAX_ENTRIES;
+        int sliceSize = (int) Math.ceil(Math.sqrt(nodeCount)) * MAX_ENTRIES;
+        entries.sort(Comparator.comparingDouble(Entry::centerX));
+        List<Entry> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < entries.size(); i += sliceSize) {
+            List<Entry> slice = entries.subList(i, Math.min(entries.size(), i + sliceSize));
+            slice.sort(Comparator.comparingDouble(Entry::centerY));
+            for (int j = 0; j < slice.size(); j += MAX_ENTRIES) {
+                RNode node = new RNode(leaf);
+                for (Entry e : slice.subList(j, Math.min(slice.size(), j + MAX_ENTRIES))) {
+                    node.add(e.object, e.minX, e.minY, e.maxX, e.maxY);
+                }
+                nodes.add(new Entry(node, node.minX(), node.minY(), node.maxX(), node.maxY(), 0));
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Finds the leaf whose bounds need the least enlargement to include a bbox.
+     * @param bbox the bbox
+     * @return the leaf
+     */
+    private RNode chooseLeaf(BBox bbox) {
+        RNode node = root;
+        while (!node.leaf) {
+            int best = 0;
+            double bestEnlargement = Double.POSITIVE_INFINITY;
+            double bestArea = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < node.size; i++) {
+                double[] b = node.bounds;
+                double area = (b[4 * i + 2] - b[4 * i]) * (b[4 * i + 3] - b[4 * i + 1]);
+                double enlarged = (Math.max(b[4 * i + 2], bbox.getMaxLon()) - Math.min(b[4 * i], bbox.getMinLon()))
+                        * (Math.max(b[4 * i + 3], bbox.getMaxLat()) - Math.min(b[4 * i + 1], bbox.getMinLat()));
+                double enlargement = enlarged - area;
+                if (enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea)) {
+                    best = i;
+                    bestEnlargement = enlargement;
+                    bestArea = area;
+                }
+            }
+            node = (RNode) node.entries[best];
+        }
+        return node;
+    }
+
+    /**
+     * Adds an entry to a node, then splits the full nodes and updates the bounds up to the root.
+     */
+    private void insert(RNode target, Object entry, double minX, double minY, double maxX, double maxY) {
+        target.add(entry, minX, minY, maxX, maxY);
+        RNode node = target;
+        while (node != null) {
+            RNode parent = node.parent;
+            if (node.size > MAX_ENTRIES) {
+                RNode sibling = split(node);
+                if (parent == null) {
+                    root = new RNode(false);
+                    root.add(node);
+                    root.add(sibling);
+                } else {
+                    parent.updateBounds(node);
+                    parent.add(sibling);
+                }
+            } else if (parent != null) {
+                parent.updateBounds(node);
+            }
+            node = parent;
+        }
+    }
+
+    /**
+     * Splits a node in two halves, along the axis on which the centers of its entries are the most spread.
+     * @param node the node to split
+     * @return the new node holding the second half of the entries
+     */
+    private static RNode split(RNode node) {
+        double[] b = node.bounds;
+        double minCx = Double.POSITIVE_INFINITY;
+        double maxCx = Double.NEGATIVE_INFINITY;
+        double minCy = Double.POSITIVE_INFINITY;
+        double maxCy = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < node.size; i++) {
+            double cx = b[4 * i] + b[4 * i + 2];
+            double cy = b[4 * i + 1] + b[4 * i + 3];
+            minCx = Math.min(minCx, cx);
+            maxCx = Math.max(maxCx, cx);
+            minCy = Math.min(minCy, cy);
+            maxCy = Math.max(maxCy, cy);
+        }
+        int axis = maxCx - minCx >= maxCy - minCy ? 0 : 1;
+        Integer[] order = new Integer[node.size];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> b[4 * i + axis] + b[4 * i + axis + 2]));
+        Object[] entries = node.entries.clone();
+        double[] bounds = b.clone();
+        RNode sibling = new RNode(node.leaf);
+        node.size = 0;
+        Arrays.fill(node.entries, null);
+        for (int k = 0; k < order.length; k++) {
+            int i = order[k];
+            RNode target = k < order.length / 2 ? node : sibling;
+            target.add(entries[i], bounds[4 * i], bounds[4 * i + 1], bounds[4 * i + 2], bounds[4 * i + 3]);
+        }
+        return sibling;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        ensureLoaded();
+        @SuppressWarnings("unchecked")
+        T t = (T) o;
+        BBox bbox = t.getBBox();
+        if (bbox.isValid()) {
+            RNode leaf = findLeaf(root, o, bbox);
+            if (leaf != null) {
+                leaf.removeAt(leaf.indexOf(o));
+                treeSize--;
+                condense(leaf);
+                return true;
+            }
+        }
+        return invalidBBoxPrimitives.remove(o);
+    }
+
+    /**
+     * Removes the empty nodes and updates the bounds up to the root, after an entry was removed from a leaf.
+     * @param leaf the leaf
+     */
+    private void condense(RNode leaf) {
+        RNode node = leaf;
+        while (node.parent != null) {
+            RNode parent = node.parent;
+            if (node.size == 0) {
+                parent.removeAt(parent.indexOf(node));
+            } else {
+                parent.updateBounds(node);
+            }
+            node = parent;
+        }
+        while (!root.leaf && root.size == 1) {
+            root = (RNode) root.entries[0];
+            root.parent = null;
+        }
+        if (root.size == 0) {
+            root = new RNode(true);
+        }
+    }
+
+    private static RNode findLeaf(RNode node, Object o, BBox bbox) {
+        double minX = bbox.getMinLon();
+        double minY = bbox.getMinLat();
+        double maxX = bbox.getMaxLon();
+        double maxY = bbox.getMaxLat();
+        for (int i = 0; i < node.size; i++) {
+            if (node.contains(i, minX, minY, maxX, maxY)) {
+                if (node.leaf) {
+                    if (node.entries[i] == o) {
+                        return node;
+                    }
+                } else {
+                    RNode leaf = findLeaf((RNode) node.entries[i], o, bbox);
+                    if (leaf != null) {
+                        return leaf;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        @SuppressWarnings("unchecked")
+        T t = (T) o;
+        BBox bbox = t.getBBox();
+        if (!bbox.isValid()) {
+            return invalidBBoxPrimitives.contains(o);
+        }
+        ensureLoaded();
+        return findLeaf(root, o, bbox) != null;
+    }
+
+    @Override
+    public List<T> search(BBox searchBbox) {
+        List<T> result = new ArrayList<>();
+        if (searchBbox == null || !searchBbox.isValid()) {
+            return result;
+        }
+        ensureLoaded();
+        search(root, searchBbox.getMinLon(), searchBbox.getMinLat(), searchBbox.getMaxLon(), searchBbox.getMaxLat(), result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void search(RNode node, double minX, double minY, double maxX, double maxY, List<T> result) {
+        for (int i = 0; i < node.size; i++) {
+            if (node.intersects(i, minX, minY, maxX, maxY)) {
+                if (node.leaf) {
+                    result.add((T) node.entries[i]);
+                } else {
+                    search((RNode) node.entries[i], minX, minY, maxX, maxY, result);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The tree is traversed best-first: the nodes and objects crossing {@code searchBbox} are visited by increasing distance.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> nearest(BBox searchBbox, BoxDistance boxDistance, ToDoubleFunction<? super T> distance,
+            int k, double maxDistance, Predicate<? super T> filter) {
+        List<T> result = new ArrayList<>();
+        if (k <= 0) {
+            return result;
+        }
+        ensureLoaded();
+        PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingDouble(e -> e.distance));
+        queue.add(new Entry(root, 0, 0, 0, 0, 0));
+        Entry candidate;
+        while ((candidate = queue.poll()) != null && result.size() < k) {
+            if (candidate.object instanceof RNode) {
+                RNode node = (RNode) candidate.object;
+                for (int i = 0; i < node.size; i++) {
+                    if (!node.intersects(i, searchBbox.getMinLon(), searchBbox.getMinLat(),
+                            searchBbox.getMaxLon(), searchBbox.getMaxLat())) {
+                        continue;
+                    }
+                    double d;
+                    if (node.leaf) {
+                        T t = (T) node.entries[i];
+                        d = filter.test(t) ? distance.applyAsDouble(t) : Double.NaN;
+                    } else {
+                        d = node.distance(i, boxDistance);
+                    }
+                    if (d <= maxDistance) {
+                        queue.add(new Entry(node.entries[i], 0, 0, 0, 0, d));
+                    }
+                }
+            } else {
+                result.add((T) candidate.object);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        List<T> objects = new ArrayList<>(size());
+        collect(root, objects);
+        List<T> objectsToLoad = pending;
+        if (objectsToLoad != null) {
+            objects.addAll(objectsToLoad);
+        }
+        objects.addAll(invalidBBoxPrimitives);
+        Iterator<T> it = objects.iterator();
+        return new Iterator<T>() {
+            private T last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = it.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                RTree.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void collect(RNode node, Collection<T> result) {
+        for (int i = 0; i < node.size; i++) {
+            if (node.leaf) {
+                result.add((T) node.entries[i]);
+            } else {
+                collect((RNode) node.entries[i], result);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        List<T> objectsToLoad = pending;
+        return treeSize + invalidBBoxPrimitives.size() + (objectsToLoad != null ? objectsToLoad.size() : 0);
+    }
+
+    /**
+     * Returns the height of the tree, for tests.
+     * @return the number of levels of the tree
+     */
+    int height() {
+        ensureLoaded();
+        int height = 1;
+        for (RNode node = root; !node.leaf; node = (RNode) node.entries[0]) {
+            height++;
+        }
+        return height;
+    }
+}
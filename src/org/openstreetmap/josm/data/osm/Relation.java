@@ -43,6 +43,7 @@ public final class Relation extends OsmPrimitive implements IRelation<RelationMe
         checkDatasetNotReadOnly();
         boolean locked = writeLock();
         try {
+            final RelationMember[] originalMembers = this.members;
             for (RelationMember rm : this.members) {
                 rm.getMember().removeReferrer(this);
                 rm.getMember().clearCachedStyle();
@@ -58,7 +59,7 @@ public final class Relation extends OsmPrimitive implements IRelation<RelationMe
                 rm.getMember().clearCachedStyle();
             }
 
-            fireMembersChanged();
+            fireMembersChanged(originalMembers);
         } finally {
             writeUnlock(locked);
         }
@@ -82,10 +83,11 @@ public final class Relation extends OsmPrimitive implements IRelation<RelationMe
         checkDatasetNotReadOnly();
         boolean locked = writeLock();
         try {
+            final RelationMember[] originalMembers = members;
             members = Utils.addInArrayCopy(members, member);
             member.getMember().addReferrer(this);
             member.getMember().clearCachedStyle();
-            fireMembersChanged();
+            fireMembersChanged(originalMembers);
         } finally {
             writeUnlock(locked);
         }
@@ -104,10 +106,11 @@ public final class Relation extends OsmPrimitive implements IRelation<RelationMe
             System.arraycopy(members, 0, newMembers, 0, index);
             System.arraycopy(members, index, newMembers, index + 1, members.length - index);
             newMembers[index] = member;
+            final RelationMember[] originalMembers = members;
             members = newMembers;
             member.getMember().addReferrer(this);
             member.getMember().clearCachedStyle();
-            fireMembersChanged();
+            fireMembersChanged(originalMembers);
         } finally {
             writeUnlock(locked);
         }
@@ -124,13 +127,15 @@ public final class Relation extends OsmPrimitive implements IRelation<RelationMe
         boolean locked = writeLock();
         try {
             RelationMember originalMember = members[index];
+            // the array is modified in place, the listeners get a copy of the original members
+            final RelationMember[] originalMembers = members.clone();
             members[index] = member;
             if (originalMember.getMember() != member.getMember()) {
                 member.getMember().addReferrer(this);
                 member.getMember().clearCachedStyle();
                 originalMember.getMember().removeReferrer(this);
                 originalMember.getMember().clearCachedStyle();
-                fireMembersChanged();
+                fireMembersChanged(originalMembers);
             }
             return originalMember;
         } finally {
@@ -501,13 +506,14 @@ public final class Relation extends OsmPrimitive implements IRelation<RelationMe
 
     /**
      * Fires the {@code RelationMembersChangedEvent} to listeners.
+     * @param originalMembers the members before the change
      * @throws DataIntegrityProblemException if members are not valid
      * @see #checkMembers
      */
-    private void fireMembersChanged() {
+    private void fireMembersChanged(RelationMember[] originalMembers) {
         checkMembers();
         if (getDataSet() != null) {
-            getDataSet().fireRelationMembersChanged(this);
+            getDataSet().fireRelationMembersChanged(this, Collections.unmodifiableList(Arrays.asList(originalMembers)));
         }
     }
 
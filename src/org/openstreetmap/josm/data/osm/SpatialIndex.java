@@ -0,0 +1,129 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+import org.openstreetmap.josm.data.IQuadBucketType;
+
+/**
+ * A collection of objects indexed by their bounding box.
+ * @param <T> the type of the indexed objects
+ * @see QuadBuckets
+ * @see RTree
+ * @since 18573
+ */
+public interface SpatialIndex<T extends IQuadBucketType> extends Collection<T> {
+
+    /**
+     * Searches the objects in the bbox (or crossing the bbox if they are ways).
+     * @param searchBbox the bbox
+     * @return List of objects within the bbox (or crossing the bbox if they are ways). Can be empty, but not null.
+     */
+    List<T> search(BBox searchBbox);
+
+    /**
+     * Lower bound of the distance between a reference location and the objects lying in a bounding box.
+     * @since 18574
+     */
+    @FunctionalInterface
+    interface BoxDistance {
+        /**
+         * Computes the lower bound of the distance to the objects lying in the given bounding box.
+         * @param minLon the minimal longitude of the bounding box
+         * @param minLat the minimal latitude of the bounding box
+         * @param maxLon the maximal longitude of the bounding box
+         * @param maxLat the maximal latitude of the bounding box
+         * @return a value lower or equal to the distance of every object lying in the bounding box
+         */
+        double distance(double minLon, double minLat, double maxLon, double maxLat);
+    }
+
+    /**
+     * Searches the objects nearest to a point.
+     * <p>
+     * The distance of an object is the euclidean distance in degrees between the point and its bounding box,
+     * 0 if the point lies in the bounding box.
+     * @param lon the longitude of the point
+     * @param lat the latitude of the point
+     * @param k the maximal number of objects to return
+     * @param maxDistance the maximal distance of the objects, in degrees
+     * @param filter the objects to consider
+     * @return the nearest objects, sorted by increasing distance. Can be empty, but not null.
+     */
+    default List<T> nearest(double lon, double lat, int k, double maxDistance, Predicate<? super T> filter) {
+        BBox bbox = Double.isInfinite(maxDistance) ? new BBox(-180, -90, 180, 90) : new BBox(lon, lat, maxDistance);
+        return nearest(bbox, (minLon, minLat, maxLon, maxLat) -> distance(minLon, minLat, maxLon, maxLat, lon, lat),
+                t -> distance(t.getBBox(), lon, lat), k, maxDistance, filter);
+    }
+
+    /**
+     * Searches the objects nearest to a reference location, for an arbitrary distance.
+     * <p>
+     * The default implementation searches the objects of {@code searchBbox} and sorts them.
+     * Implementations may instead visit their bounding boxes by increasing {@code boxDistance},
+     * and stop as soon as {@code k} objects are found.
+     * @param searchBbox a bounding box containing all objects within {@code maxDistance}
+     * @param boxDistance the lower bound of the distance of the objects lying in a bounding box
+     * @param distance the distance of an object. Objects with a {@code NaN} distance are ignored
+     * @param k the maximal number of objects to return
+     * @param maxDistance the maximal distance of the objects
+     * @param filter the objects to consider
+     * @return the nearest objects, sorted by increasing distance. Can be empty, but not null.
+     * @since 18574
+     */
+    default List<T> nearest(BBox searchBbox, BoxDistance boxDistance, ToDoubleFunction<? super T> distance,
+            int k, double maxDistance, Predicate<? super T> filter) {
+        List<T> found = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        for (T t : search(searchBbox)) {
+            if (filter.test(t)) {
+                double d = distance.applyAsDouble(t);
+                if (d <= maxDistance) {
+                    found.add(t);
+                    distances.add(d);
+                }
+            }
+        }
+        Integer[] order = new Integer[found.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingDouble(distances::get));
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(k, order.length)));
+        for (int i = 0; i < order.length && i < k; i++) {
+            result.add(found.get(order[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Computes the euclidean distance in degrees between a point and a bounding box.
+     * @param bbox the bounding box
+     * @param lon the longitude of the point
+     * @param lat the latitude of the point
+     * @return the distance, 0 if the point lies in the bounding box
+     */
+    static double distance(BBox bbox, double lon, double lat) {
+        return distance(bbox.getMinLon(), bbox.getMinLat(), bbox.getMaxLon(), bbox.getMaxLat(), lon, lat);
+    }
+
+    /**
+     * Computes the euclidean distance between a point and a rectangle.
+     * @param minX the minimal x of the rectangle
+     * @param minY the minimal y of the rectangle
+     * @param maxX the maximal x of the rectangle
+     * @param maxY the maximal y of the rectangle
+     * @param x the x of the point
+     * @param y the y of the point
+     * @return the distance, 0 if the point lies in the rectangle
+     */
+    static double distance(double minX, double minY, double maxX, double maxY, double x, double y) {
+        double dx = x < minX ? minX - x : Math.max(0, x - maxX);
+        double dy = y < minY ? minY - y : Math.max(0, y - maxY);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,99 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.lang.ref.WeakReference;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A shared dictionary for tag keys and values.
+ * <p>
+ * Keys like {@code highway} or {@code building} and values like {@code yes} are repeated millions of times in large
+ * datasets. This pool makes sure that equal strings read from different sources share one instance.
+ * <p>
+ * Unlike {@link String#intern()}, the pool is bounded: it is a fixed size, direct mapped table where a new string
+ * replaces the one stored in its slot. Strings are only weakly referenced, so strings no longer used by any primitive
+ * can be garbage collected. The pool is thread safe and does not block, so it can be used by parallel readers.
+ * @since 18558
+ */
+public final class TagStringPool {
+
+    /** Number of slots, must be a power of two */
+    private static final int CAPACITY = 1 << 16;
+    /** Longer strings (e.g. notes or descriptions) are unlikely to be repeated and are not pooled */
+    private static final int MAX_LENGTH = 255;
+
+    private static final AtomicReferenceArray<WeakReference<String>> TABLE = new AtomicReferenceArray<>(CAPACITY);
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    private TagStringPool() {
+        // Hide default constructor for utils classes
+    }
+
+    /**
+     * Returns a canonical representation of the given string.
+     * @param s the string. Can be null
+     * @return a string equal to {@code s}, shared with previous callers if possible. {@code null} if {@code s} is null
+     */
+    public static String intern(String s) {
+        if (s == null || s.length() > MAX_LENGTH) {
+            return s;
+        }
+        int h = s.hashCode();
+        int slot = (h ^ (h >>> 16)) & (CAPACITY - 1);
+        WeakReference<String> ref = TABLE.get(slot);
+        String pooled = ref != null ? ref.get() : null;
+        if (pooled != null && (pooled == s || (pooled.hashCode() == h && pooled.equals(s)))) {
+            HITS.increment();
+            return pooled;
+        }
+        MISSES.increment();
+        TABLE.set(slot, new WeakReference<>(s));
+        return s;
+    }
+
+    /**
+     * Returns the number of lookups that returned an already pooled string.
+     * @return the number of hits
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * Returns the number of lookups that added a string to the pool.
+     * @return the number of misses
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+
+    /**
+     * Returns the ratio of lookups that returned an already pooled string.
+     * @return the hit rate, between 0 and 1
+     */
+    public static double getHitRate() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public static void resetStatistics() {
+        HITS.reset();
+        MISSES.reset();
+    }
+
+    /**
+     * Returns a human readable summary of the pool statistics, e.g. for logging.
+     * @return the pool statistics
+     */
+    public static String getStatistics() {
+        return String.format(Locale.ROOT, "tag string pool: %d hits, %d misses, hit rate %.1f%%",
+                getHitCount(), getMissCount(), 100 * getHitRate());
+    }
+}
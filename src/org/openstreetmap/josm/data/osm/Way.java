@@ -5,6 +5,7 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +50,7 @@ public final class Way extends OsmPrimitive implements IWay<Node> {
         checkDatasetNotReadOnly();
         boolean locked = writeLock();
         try {
+            final Node[] originalNodes = this.nodes;
             for (Node node:this.nodes) {
                 node.removeReferrer(this);
                 node.clearCachedStyle();
@@ -65,7 +67,7 @@ public final class Way extends OsmPrimitive implements IWay<Node> {
             }
 
             clearCachedStyle();
-            fireNodesChanged();
+            fireNodesChanged(originalNodes);
         } finally {
             writeUnlock(locked);
         }
@@ -419,9 +421,10 @@ public final class Way extends OsmPrimitive implements IWay<Node> {
                 throw new IllegalStateException(tr("Cannot add node {0} to incomplete way {1}.", n.getId(), getId()));
             clearCachedStyle();
             n.addReferrer(this);
+            final Node[] originalNodes = nodes;
             nodes = Utils.addInArrayCopy(nodes, n);
             n.clearCachedStyle();
-            fireNodesChanged();
+            fireNodesChanged(originalNodes);
         } finally {
             writeUnlock(locked);
         }
@@ -452,9 +455,10 @@ public final class Way extends OsmPrimitive implements IWay<Node> {
             System.arraycopy(nodes, 0, newNodes, 0, offs);
             System.arraycopy(nodes, offs, newNodes, offs + 1, nodes.length - offs);
             newNodes[offs] = n;
+            final Node[] originalNodes = nodes;
             nodes = newNodes;
             n.clearCachedStyle();
-            fireNodesChanged();
+            fireNodesChanged(originalNodes);
         } finally {
             writeUnlock(locked);
         }
@@ -472,7 +476,7 @@ public final class Way extends OsmPrimitive implements IWay<Node> {
                 }
                 n.clearCachedStyle();
             }
-            fireNodesChanged();
+            fireNodesChanged(nodes);
             super.setDeleted(deleted);
         } finally {
             writeUnlock(locked);
@@ -569,10 +573,10 @@ public final class Way extends OsmPrimitive implements IWay<Node> {
         }
     }
 
-    private void fireNodesChanged() {
+    private void fireNodesChanged(Node[] originalNodes) {
         checkNodes();
         if (getDataSet() != null) {
-            getDataSet().fireWayNodesChanged(this);
+            getDataSet().fireWayNodesChanged(this, Collections.unmodifiableList(Arrays.asList(originalNodes)));
         }
     }
 
@@ -0,0 +1,160 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntSupplier;
+
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent.DatasetEventType;
+
+/**
+ * Collects the events of a dataset update, to fire them after the update as a compact list.
+ * <p>
+ * The events are coalesced by primitive: only the first {@link NodeMovedEvent}, {@link TagsChangedEvent},
+ * {@link WayNodesChangedEvent}, {@link RelationMembersChangedEvent} and {@link PrimitiveFlagsChangedEvent}
+ * of a primitive is kept, listeners read the current state of the primitive anyway. Consecutive
+ * {@link PrimitivesAddedEvent}s and {@link PrimitivesRemovedEvent}s are merged into one event, and so are
+ * {@link FilterChangedEvent}s. When the batch holds more than the maximal number of events, it overflows:
+ * the events are dropped and a {@link DataChangedEvent} without details should be fired instead.
+ *
+ * @since 18572
+ */
+public final class DatasetEventBatch {
+
+    private static final Set<DatasetEventType> COALESCED_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            DatasetEventType.NODE_MOVED, DatasetEventType.TAGS_CHANGED, DatasetEventType.WAY_NODES_CHANGED,
+            DatasetEventType.RELATION_MEMBERS_CHANGED, DatasetEventType.PRIMITIVE_FLAGS_CHANGED));
+
+    private final IntSupplier maxEvents;
+    /** Events, or {@link MergedEvents} for the merged events */
+    private final List<Object> events = new ArrayList<>();
+    /** Primitives which already have an event of the given type in the batch */
+    private final Map<DatasetEventType, Set<OsmPrimitive>> coalesced = new EnumMap<>(DatasetEventType.class);
+    private boolean filterChanged;
+    private boolean overflowed;
+
+    /**
+     * Primitives of consecutive {@link PrimitivesAddedEvent}s or {@link PrimitivesRemovedEvent}s.
+     */
+    private static final class MergedEvents {
+        private final AbstractDatasetChangedEvent first;
+        private final boolean flag;
+        private final List<OsmPrimitive> primitives = new ArrayList<>();
+
+        MergedEvents(AbstractDatasetChangedEvent first, boolean flag) {
+            this.first = first;
+            this.flag = flag;
+            primitives.addAll(first.getPrimitives());
+        }
+
+        AbstractDatasetChangedEvent toEvent() {
+            if (primitives.size() == first.getPrimitives().size()) {
+                return first;
+            } else if (first instanceof PrimitivesAddedEvent) {
+                return new PrimitivesAddedEvent(first.getDataset(), primitives, flag);
+            } else {
+                return new PrimitivesRemovedEvent(first.getDataset(), primitives, flag);
+            }
+        }
+    }
+
+    /**
+     * Constructs a new {@code DatasetEventBatch}.
+     * @param maxEvents supplies the maximal number of events kept by the batch
+     */
+    public DatasetEventBatch(IntSupplier maxEvents) {
+        this.maxEvents = maxEvents;
+    }
+
+    /**
+     * Adds an event to the batch.
+     * @param event the event
+     */
+    public void add(AbstractDatasetChangedEvent event) {
+        if (overflowed) {
+            return;
+        }
+        DatasetEventType type = event.getType();
+        if (type == DatasetEventType.FILTERS_CHANGED) {
+            if (filterChanged) {
+                return;
+            }
+            filterChanged = true;
+        } else if (COALESCED_TYPES.contains(type)) {
+            if (!coalesced.computeIfAbsent(type, t -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                    .addAll(event.getPrimitives())) {
+                return;
+            }
+        } else if (event instanceof PrimitivesAddedEvent || event instanceof PrimitivesRemovedEvent) {
+            // later changes of the added or removed primitives must be reported after this event
+            for (Set<OsmPrimitive> primitives : coalesced.values()) {
+                event.getPrimitives().forEach(primitives::remove);
+            }
+            boolean flag = event instanceof PrimitivesAddedEvent
+                    ? ((PrimitivesAddedEvent) event).wasIncomplete() : ((PrimitivesRemovedEvent) event).wasComplete();
+            Object last = events.isEmpty() ? null : events.get(events.size() - 1);
+            if (last instanceof MergedEvents && ((MergedEvents) last).first.getClass() == event.getClass()
+                    && ((MergedEvents) last).flag == flag) {
+                ((MergedEvents) last).primitives.addAll(event.getPrimitives());
+                return;
+            }
+            events.add(new MergedEvents(event, flag));
+            checkOverflow();
+            return;
+        }
+        events.add(event);
+        checkOverflow();
+    }
+
+    private void checkOverflow() {
+        if (events.size() > maxEvents.getAsInt()) {
+            clear();
+            overflowed = true;
+        }
+    }
+
+    /**
+     * Determines if the batch has overflowed since the last {@link #clear()}.
+     * @return {@code true} if too many events were added, and the events were dropped
+     */
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    /**
+     * Determines if the batch is empty.
+     * @return {@code true} if no event was added since the last {@link #clear()}
+     */
+    public boolean isEmpty() {
+        return events.isEmpty() && !overflowed;
+    }
+
+    /**
+     * Returns the coalesced events.
+     * @return a new modifiable list of the coalesced events, in the order they were added
+     */
+    public List<AbstractDatasetChangedEvent> getEvents() {
+        List<AbstractDatasetChangedEvent> result = new ArrayList<>(events.size());
+        for (Object event : events) {
+            result.add(event instanceof MergedEvents ? ((MergedEvents) event).toEvent() : (AbstractDatasetChangedEvent) event);
+        }
+        return result;
+    }
+
+    /**
+     * Removes all events from the batch.
+     */
+    public void clear() {
+        events.clear();
+        coalesced.clear();
+        filterChanged = false;
+        overflowed = false;
+    }
+}
@@ -6,8 +6,14 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
 import javax.swing.SwingUtilities;
 
@@ -24,7 +30,8 @@ import org.openstreetmap.josm.tools.Logging;
  * (it's no longer necessary to register for layer events and re-register every time
  * new layer is selected)
  *
- * Events in EDT are supported, see {@link #addDatasetListener(DataSetListener, FireMode)}
+ * Events in EDT are supported, see {@link #addDatasetListener(DataSetListener, FireMode)}, and so are events on the
+ * executor of the listener, see {@link #addDatasetListener(DataSetListener, Executor)}.
  *
  */
 public class DatasetEventManager implements ActiveLayerChangeListener, Listener {
@@ -37,16 +44,21 @@ public class DatasetEventManager implements ActiveLayerChangeListener, Listener
             while (!eventsInEDT.isEmpty()) {
                 DataSet dataSet = null;
                 AbstractDatasetChangedEvent consolidatedEvent = null;
-                AbstractDatasetChangedEvent event;
+                long consolidatedReceived = 0;
+                QueuedEvent queued;
 
-                while ((event = eventsInEDT.poll()) != null) {
-                    fireEvents(inEDTListeners, event);
+                while ((queued = eventsInEDT.poll()) != null) {
+                    AbstractDatasetChangedEvent event = queued.event;
+                    fireEvents(inEDTListeners, event, queued.received);
 
                     // DataSet changed - fire consolidated event early
                     if (consolidatedEvent != null && dataSet != event.getDataset()) {
-                        fireConsolidatedEvents(inEDTListeners, consolidatedEvent);
+                        fireConsolidatedEvents(inEDTListeners, consolidatedEvent, consolidatedReceived);
                         consolidatedEvent = null;
                     }
+                    if (consolidatedEvent == null) {
+                        consolidatedReceived = queued.received;
+                    }
 
                     dataSet = event.getDataset();
 
@@ -87,7 +99,7 @@ public class DatasetEventManager implements ActiveLayerChangeListener, Listener
 
                 // Fire consolidated event
                 if (consolidatedEvent != null) {
-                    fireConsolidatedEvents(inEDTListeners, consolidatedEvent);
+                    fireConsolidatedEvents(inEDTListeners, consolidatedEvent, consolidatedReceived);
                 }
             }
         }
@@ -111,13 +123,146 @@ public class DatasetEventManager implements ActiveLayerChangeListener, Listener
         IN_EDT_CONSOLIDATED
     }
 
+    /**
+     * Event waiting to be fired, with the time it was received, see {@link System#nanoTime()}.
+     */
+    private static final class QueuedEvent {
+        private final AbstractDatasetChangedEvent event;
+        private final long received;
+
+        QueuedEvent(AbstractDatasetChangedEvent event, long received) {
+            this.event = event;
+            this.received = received;
+        }
+    }
+
+    /**
+     * Dispatch statistics of a listener, see {@link DatasetEventManager#getDispatchStatistics(DataSetListener)}.
+     * The latency of an event is the time between its reception by the manager and the end of its processing by the listener.
+     * @since 18572
+     */
+    public static final class DispatchStatistics {
+        private final long eventCount;
+        private final long totalLatency;
+        private final long maxLatency;
+
+        DispatchStatistics(long eventCount, long totalLatency, long maxLatency) {
+            this.eventCount = eventCount;
+            this.totalLatency = totalLatency;
+            this.maxLatency = maxLatency;
+        }
+
+        /**
+         * Returns the number of events fired to the listener.
+         * @return the number of events fired to the listener
+         */
+        public long getEventCount() {
+            return eventCount;
+        }
+
+        /**
+         * Returns the average latency of the events.
+         * @return the average latency in nanoseconds, 0 if no event was fired
+         */
+        public long getAverageLatency() {
+            return eventCount == 0 ? 0 : totalLatency / eventCount;
+        }
+
+        /**
+         * Returns the maximal latency of the events.
+         * @return the maximal latency in nanoseconds
+         */
+        public long getMaxLatency() {
+            return maxLatency;
+        }
+    }
+
     private static class ListenerInfo {
         private final DataSetListener listener;
         private final boolean consolidate;
+        private final Executor executor;
+        private final Queue<QueuedEvent> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final LongAdder eventCount = new LongAdder();
+        private final LongAdder totalLatency = new LongAdder();
+        private final LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
 
         ListenerInfo(DataSetListener listener, boolean consolidate) {
+            this(listener, consolidate, null);
+        }
+
+        ListenerInfo(DataSetListener listener, boolean consolidate, Executor executor) {
             this.listener = listener;
             this.consolidate = consolidate;
+            this.executor = executor;
+        }
+
+        void fire(AbstractDatasetChangedEvent event, long received) {
+            event.fire(listener);
+            long latency = System.nanoTime() - received;
+            eventCount.increment();
+            totalLatency.add(latency);
+            maxLatency.accumulate(latency);
+        }
+
+        /**
+         * Queues an event for the executor of the listener.
+         * @param event the event
+         */
+        void dispatch(QueuedEvent event) {
+            pending.add(event);
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Fires the pending events, consolidated per dataset.
+         */
+        private void drain() {
+            try {
+                List<QueuedEvent> events = new ArrayList<>();
+                QueuedEvent queued;
+                while ((queued = pending.poll()) != null) {
+                    if (!events.isEmpty() && events.get(0).event.getDataset() != queued.event.getDataset()) {
+                        fireConsolidated(events);
+                        events.clear();
+                    }
+                    events.add(queued);
+                }
+                if (!events.isEmpty()) {
+                    fireConsolidated(events);
+                }
+            } finally {
+                scheduled.set(false);
+                if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+                    executor.execute(this::drain);
+                }
+            }
+        }
+
+        private void fireConsolidated(List<QueuedEvent> events) {
+            long received = events.get(0).received;
+            if (events.size() == 1) {
+                fire(events.get(0).event, received);
+                return;
+            }
+            List<AbstractDatasetChangedEvent> consolidated = new ArrayList<>();
+            for (QueuedEvent e : events) {
+                if (e.event instanceof DataChangedEvent) {
+                    List<AbstractDatasetChangedEvent> evts = ((DataChangedEvent) e.event).getEvents();
+                    if (evts == null) {
+                        // Dataset was completely changed, we can ignore older events
+                        consolidated = null;
+                    } else if (consolidated != null) {
+                        consolidated.addAll(evts);
+                    }
+                } else if (consolidated != null) {
+                    consolidated.add(e.event);
+                }
+            }
+            Logging.trace("Firing {0} events to {1} (async)", events.size(), listener);
+            fire(new DataChangedEvent(events.get(0).event.getDataset(), consolidated), received);
         }
 
         @Override
@@ -142,9 +287,10 @@ public class DatasetEventManager implements ActiveLayerChangeListener, Listener
         return INSTANCE;
     }
 
-    private final Queue<AbstractDatasetChangedEvent> eventsInEDT = new LinkedBlockingQueue<>();
+    private final Queue<QueuedEvent> eventsInEDT = new LinkedBlockingQueue<>();
     private final CopyOnWriteArrayList<ListenerInfo> inEDTListeners = new CopyOnWriteArrayList<>();
     private final CopyOnWriteArrayList<ListenerInfo> normalListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<ListenerInfo> asyncListeners = new CopyOnWriteArrayList<>();
     private final DataSetListener myListener = new DataSetListenerAdapter(this);
     private final Runnable edtRunnable = new EdtRunnable();
 
@@ -170,6 +316,20 @@ public class DatasetEventManager implements ActiveLayerChangeListener, Listener
         }
     }
 
+    /**
+     * Register listener, that will receive events from currently active dataset on its own executor.
+     * <p>
+     * The events are fired in the order they happened. The events which are pending when the listener is run are
+     * consolidated in one {@link DataChangedEvent}, so a slow listener does not delay the other listeners nor
+     * accumulate a backlog of events.
+     * @param listener the listener to be registered
+     * @param executor the executor on which the listener is notified
+     * @since 18572
+     */
+    public void addDatasetListener(DataSetListener listener, Executor executor) {
+        asyncListeners.addIfAbsent(new ListenerInfo(listener, true, Objects.requireNonNull(executor)));
+    }
+
     /**
      * Unregister listener.
      * @param listener listener to remove
@@ -178,6 +338,22 @@ public class DatasetEventManager implements ActiveLayerChangeListener, Listener
         ListenerInfo searchListener = new ListenerInfo(listener, false);
         inEDTListeners.remove(searchListener);
         normalListeners.remove(searchListener);
+        asyncListeners.remove(searchListener);
+    }
+
+    /**
+     * Returns the dispatch statistics of a registered listener.
+     * @param listener the listener
+     * @return the dispatch statistics of the listener, or {@code null} if the listener is not registered
+     * @since 18572
+     */
+    public DispatchStatistics getDispatchStatistics(DataSetListener listener) {
+        return Stream.of(normalListeners, inEDTListeners, asyncListeners)
+                .flatMap(List::stream)
+                .filter(info -> info.listener == listener)
+                .findFirst()
+                .map(info -> new DispatchStatistics(info.eventCount.sum(), info.totalLatency.sum(), info.maxLatency.get()))
+                .orElse(null);
     }
 
     @Override
@@ -194,28 +370,32 @@ public class DatasetEventManager implements ActiveLayerChangeListener, Listener
         processDatasetEvent(new DataChangedEvent(newData));
     }
 
-    private static void fireEvents(List<ListenerInfo> listeners, AbstractDatasetChangedEvent event) {
+    private static void fireEvents(List<ListenerInfo> listeners, AbstractDatasetChangedEvent event, long received) {
         for (ListenerInfo listener: listeners) {
             if (!listener.consolidate) {
                 Logging.trace("Firing {0} to {1} (normal)", event, listener.listener);
-                event.fire(listener.listener);
+                listener.fire(event, received);
             }
         }
     }
 
-    private static void fireConsolidatedEvents(List<ListenerInfo> listeners, AbstractDatasetChangedEvent event) {
+    private static void fireConsolidatedEvents(List<ListenerInfo> listeners, AbstractDatasetChangedEvent event, long received) {
         for (ListenerInfo listener: listeners) {
             if (listener.consolidate) {
                 Logging.trace("Firing {0} to {1} (consolidated)", event, listener.listener);
-                event.fire(listener.listener);
+                listener.fire(event, received);
             }
         }
     }
 
     @Override
     public void processDatasetEvent(AbstractDatasetChangedEvent event) {
-        fireEvents(normalListeners, event);
-        eventsInEDT.add(event);
+        QueuedEvent queued = new QueuedEvent(event, System.nanoTime());
+        fireEvents(normalListeners, event, queued.received);
+        for (ListenerInfo listener : asyncListeners) {
+            listener.dispatch(queued);
+        }
+        eventsInEDT.add(queued);
         SwingUtilities.invokeLater(edtRunnable);
     }
 }
@@ -7,6 +7,7 @@ import java.util.List;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
 
 /**
  * An event that is triggered if the members of a single relation have changed
@@ -14,6 +15,7 @@ import org.openstreetmap.josm.data.osm.Relation;
 public class RelationMembersChangedEvent extends AbstractDatasetChangedEvent {
 
     private final Relation relation;
+    private final List<RelationMember> originalMembers;
 
     /**
      * Constructs a new {@code RelationMembersChangedEvent}.
@@ -21,8 +23,20 @@ public class RelationMembersChangedEvent extends AbstractDatasetChangedEvent {
      * @param relation the relation affected by the change
      */
     public RelationMembersChangedEvent(DataSet dataSet, Relation relation) {
+        this(dataSet, relation, null);
+    }
+
+    /**
+     * Constructs a new {@code RelationMembersChangedEvent}.
+     * @param dataSet the dataset from which the event comes from
+     * @param relation the relation affected by the change
+     * @param originalMembers the members of the relation before the change, {@code null} if unknown
+     * @since 18562
+     */
+    public RelationMembersChangedEvent(DataSet dataSet, Relation relation, List<RelationMember> originalMembers) {
         super(dataSet);
         this.relation = relation;
+        this.originalMembers = originalMembers;
     }
 
     @Override
@@ -38,6 +52,15 @@ public class RelationMembersChangedEvent extends AbstractDatasetChangedEvent {
         return relation;
     }
 
+    /**
+     * Returns the members of the relation before the change, e.g. to find the members removed from the relation.
+     * @return the original members, {@code null} if unknown
+     * @since 18562
+     */
+    public List<RelationMember> getOriginalMembers() {
+        return originalMembers;
+    }
+
     @Override
     public List<? extends OsmPrimitive> getPrimitives() {
         return Collections.singletonList(relation);
@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.List;
 
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.Way;
 
@@ -14,6 +15,7 @@ import org.openstreetmap.josm.data.osm.Way;
 public class WayNodesChangedEvent extends AbstractDatasetChangedEvent {
 
     private final Way way;
+    private final List<Node> originalNodes;
 
     /**
      * Constructs a new {@code WayNodesChangedEvent}.
@@ -21,8 +23,20 @@ public class WayNodesChangedEvent extends AbstractDatasetChangedEvent {
      * @param way the way affected by the change
      */
     public WayNodesChangedEvent(DataSet dataSet, Way way) {
+        this(dataSet, way, null);
+    }
+
+    /**
+     * Constructs a new {@code WayNodesChangedEvent}.
+     * @param dataSet the dataset from which the event comes from
+     * @param way the way affected by the change
+     * @param originalNodes the nodes of the way before the change, {@code null} if unknown
+     * @since 18562
+     */
+    public WayNodesChangedEvent(DataSet dataSet, Way way, List<Node> originalNodes) {
         super(dataSet);
         this.way = way;
+        this.originalNodes = originalNodes;
     }
 
     @Override
@@ -38,6 +52,15 @@ public class WayNodesChangedEvent extends AbstractDatasetChangedEvent {
         return way;
     }
 
+    /**
+     * Returns the nodes of the way before the change, e.g. to find the nodes removed from the way.
+     * @return the original nodes, {@code null} if unknown
+     * @since 18562
+     */
+    public List<Node> getOriginalNodes() {
+        return originalNodes;
+    }
+
     @Override
     public List<? extends OsmPrimitive> getPrimitives() {
         return Collections.singletonList(way);
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.function.Supplier;
 
 import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer.StyleRecord;
+import org.openstreetmap.josm.gui.mappaint.MapPaintStyles;
 import org.openstreetmap.josm.gui.mappaint.mapcss.Selector;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.Logging;
@@ -122,10 +123,14 @@ public class RenderBenchmarkCollector {
     public static class LoggingBenchmark extends RenderBenchmarkCollector.CapturingBenchmark {
         private final PrintStream outStream = System.err;
         private double circum;
+        private long cacheHits;
+        private long cacheMisses;
 
         @Override
         public void renderStart(double circum) {
             this.circum = circum;
+            cacheHits = MapPaintStyles.getStyles().getCacheHits();
+            cacheMisses = MapPaintStyles.getStyles().getCacheMisses();
             super.renderStart(circum);
             outStream.print("BENCHMARK: rendering ");
         }
@@ -133,7 +138,9 @@ public class RenderBenchmarkCollector {
         @Override
         public boolean renderDraw(List<StyleRecord> allStyleElems) {
             boolean res = super.renderDraw(allStyleElems);
-            outStream.print("phase 1 (calculate styles): " + Utils.getDurationString(timeSortingDone - timeStart));
+            outStream.print("phase 1 (calculate styles): " + Utils.getDurationString(timeSortingDone - timeStart) +
+                    " (" + (MapPaintStyles.getStyles().getCacheHits() - cacheHits) + " cached, " +
+                    (MapPaintStyles.getStyles().getCacheMisses() - cacheMisses) + " computed)");
             return res;
         }
 
@@ -110,6 +110,15 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         }
     }
 
+    /**
+     * Returns the thread pool used to compute the styles, shared with the {@link TiledMapRenderer}.
+     * @return the thread pool, or {@code null} if it could not be created
+     * @since 18566
+     */
+    static ForkJoinPool getThreadPool() {
+        return THREAD_POOL;
+    }
+
     /**
      * This stores a style and a primitive that should be painted with that style.
      */
@@ -0,0 +1,557 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.visitor.paint;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.ProjectionBounds;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.DataSelectionListener;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.HighlightUpdateListener;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.WaySegment;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListener;
+import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesAddedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesRemovedEvent;
+import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
+import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
+import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.gui.MapViewState;
+import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.gui.mappaint.MapPaintStyles;
+import org.openstreetmap.josm.gui.mappaint.MapPaintStyles.MapPaintStylesUpdateListener;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.spi.preferences.PreferenceChangeEvent;
+import org.openstreetmap.josm.spi.preferences.PreferenceChangedListener;
+import org.openstreetmap.josm.tools.Destroyable;
+import org.openstreetmap.josm.tools.JosmRuntimeException;
+
+/**
+ * Renders a data set into fixed screen-space tiles which are cached as images, so that panning the map only draws the
+ * cached tiles and renders the tiles scrolled into view.
+ * <p>
+ * The tiles are aligned on a grid of projected coordinates, hence they stay valid while panning. All tiles are dropped
+ * when the projection, the scale, the render settings, the map paint styles or the rendering preferences change.
+ * Otherwise, only the tiles touched by the primitives given by the {@link DataSetListener} and
+ * {@link DataSelectionListener} events, or whose highlighting changed, are rendered again. The missing tiles are rendered
+ * in parallel on the thread pool of the {@link StyledMapRenderer}, with the
+ * {@linkplain MapRendererFactory#createActiveRenderer active renderer}.
+ * <p>
+ * The tiles are rendered in device pixels, according to the scale of the graphics they are painted on, so that they are
+ * not upscaled on HiDPI screens.
+ *
+ * @since 18566
+ */
+public class TiledMapRenderer implements DataSetListener, DataSelectionListener, HighlightUpdateListener,
+        MapPaintStylesUpdateListener, PreferenceChangedListener, Destroyable {
+
+    /** Whether data layers are rendered into cached tiles */
+    public static final BooleanProperty PROP_TILED_RENDERING = new BooleanProperty("mappaint.render.tiled", false);
+    /** The maximum number of tiles cached for a data layer. Each tile needs 256 KB, four times more on HiDPI screens */
+    public static final IntegerProperty PROP_MAX_TILES = new IntegerProperty("mappaint.render.tiled.max-tiles", 128);
+
+    /** The size of the tiles, in pixels of the map view */
+    static final int TILE_SIZE = 256;
+    /**
+     * The margin around a tile in which primitives are rendered too, in pixels.
+     * It avoids cutting the icons and labels of primitives just outside of the tile.
+     */
+    static final int MARGIN = 64;
+    /** The prefixes of the keys of the preferences which change the rendering, like colors and line widths */
+    private static final String[] RENDERING_PREFERENCES = {"mappaint.", "draw.", "clr.", "color."};
+    /** Above this number of changed primitives, all tiles are rendered again */
+    private static final int MAX_INVALIDATED_PRIMITIVES = 1000;
+
+    private final DataSet data;
+
+    /** The cached tiles, least recently used first */
+    private final Map<Long, Tile> tiles = new LinkedHashMap<>(64, 0.75f, true);
+    /** The settings the cached tiles were rendered with */
+    private RenderSettings settings;
+    /** Incremented each time tiles are dropped, so that tiles rendered meanwhile are not cached */
+    private int generation;
+    /** The primitives highlighted in the cached tiles, as of the last change of the highlighting */
+    private Set<OsmPrimitive> highlighted = Collections.emptySet();
+    /** The highlighted way segments and virtual nodes, when the highlighting last changed */
+    private Set<WaySegment> highlightedSegments = Collections.emptySet();
+
+    /**
+     * A rendered tile.
+     */
+    private static final class Tile {
+        private final BufferedImage image;
+        /** The sorted unique ids of the primitives rendered in the tile */
+        private final long[] primitives;
+        /** The primitives rendered highlighted in the tile */
+        private final List<OsmPrimitive> highlighted;
+        private final boolean slowOperations;
+
+        Tile(BufferedImage image, long[] primitives, List<OsmPrimitive> highlighted, boolean slowOperations) {
+            this.image = image;
+            this.primitives = primitives;
+            this.highlighted = highlighted;
+            this.slowOperations = slowOperations;
+        }
+
+        boolean contains(long uniqueId) {
+            return Arrays.binarySearch(primitives, uniqueId) >= 0;
+        }
+    }
+
+    /**
+     * The settings which apply to all tiles.
+     */
+    private static final class RenderSettings {
+        private final Projection projection;
+        private final double scale;
+        private final boolean inactive;
+        private final boolean renderVirtualNodes;
+        /** The number of device pixels per pixel of the map view */
+        private final double pixelScale;
+
+        RenderSettings(Projection projection, double scale, boolean inactive, boolean renderVirtualNodes, double pixelScale) {
+            this.projection = projection;
+            this.scale = scale;
+            this.inactive = inactive;
+            this.renderVirtualNodes = renderVirtualNodes;
+            this.pixelScale = pixelScale;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projection, scale, inactive, renderVirtualNodes, pixelScale);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || getClass() != obj.getClass())
+                return false;
+            RenderSettings other = (RenderSettings) obj;
+            return Objects.equals(projection, other.projection) && Double.compare(scale, other.scale) == 0
+                    && inactive == other.inactive && renderVirtualNodes == other.renderVirtualNodes
+                    && Double.compare(pixelScale, other.pixelScale) == 0;
+        }
+    }
+
+    /**
+     * Constructs a new {@code TiledMapRenderer} and starts listening to the changes of the data set.
+     * Call {@link #destroy()} once the renderer is not needed anymore.
+     * @param data the data set to render
+     */
+    public TiledMapRenderer(DataSet data) {
+        this.data = Objects.requireNonNull(data, "data");
+        data.addDataSetListener(this);
+        data.addSelectionListener(this);
+        data.addHighlightUpdateListener(this);
+        MapPaintStyles.addMapPaintStylesUpdateListener(this);
+        Config.getPref().addPreferenceChangeListener(this);
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    private static int keyX(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int keyY(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Paints the data set, rendering the visible tiles which are not cached yet.
+     * @param g the graphics context of the map view
+     * @param nc the map view
+     * @param inactive if true, the primitives are rendered such that they look inactive
+     * @param renderVirtualNodes whether virtual nodes are rendered
+     * @param enableSlowOperations whether slow operations (like drawing labels) are enabled. Tiles rendered without them
+     * are rendered again once they are enabled.
+     */
+    public void paint(Graphics2D g, NavigatableComponent nc, boolean inactive, boolean renderVirtualNodes,
+            boolean enableSlowOperations) {
+        final MapViewState state = nc.getState();
+        final double pixelScale = getPixelScale(g.getTransform());
+        final RenderSettings renderSettings = new RenderSettings(state.getProjection(), state.getScale(), inactive,
+                renderVirtualNodes, pixelScale);
+        final int renderGeneration;
+        synchronized (this) {
+            if (!renderSettings.equals(settings)) {
+                clear();
+                settings = renderSettings;
+            }
+            renderGeneration = generation;
+        }
+
+        // position of the view in the grid of tiles, in pixels
+        final EastNorth topLeft = state.getForView(0, 0).getEastNorth();
+        final double originX = topLeft.east() / state.getScale();
+        final double originY = -topLeft.north() / state.getScale();
+        final Rectangle2D view = state.getViewArea().getInView();
+        final int minX = (int) Math.floor(originX / TILE_SIZE);
+        final int minY = (int) Math.floor(originY / TILE_SIZE);
+        final int maxX = (int) Math.floor((originX + view.getWidth()) / TILE_SIZE);
+        final int maxY = (int) Math.floor((originY + view.getHeight()) / TILE_SIZE);
+
+        final Map<Long, Tile> visible = new HashMap<>();
+        final List<Long> missing = new ArrayList<>();
+        synchronized (this) {
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    final long key = key(x, y);
+                    final Tile tile = tiles.get(key);
+                    if (tile == null || (enableSlowOperations && !tile.slowOperations)) {
+                        missing.add(key);
+                    } else {
+                        visible.put(key, tile);
+                    }
+                }
+            }
+        }
+
+        final List<Callable<Tile>> tasks = new ArrayList<>(missing.size());
+        for (long key : missing) {
+            final int left = (int) Math.round(keyX(key) * (double) TILE_SIZE - originX);
+            final int top = (int) Math.round(keyY(key) * (double) TILE_SIZE - originY);
+            tasks.add(() -> renderTile(nc, left, top, pixelScale, inactive, renderVirtualNodes, enableSlowOperations));
+        }
+        final List<Tile> rendered = renderTiles(tasks);
+        synchronized (this) {
+            for (int i = 0; i < missing.size(); i++) {
+                visible.put(missing.get(i), rendered.get(i));
+                // tiles rendered while the data set changed might already be outdated
+                if (generation == renderGeneration && renderSettings.equals(settings)) {
+                    tiles.put(missing.get(i), rendered.get(i));
+                    if (!rendered.get(i).highlighted.isEmpty()) {
+                        highlighted = new HashSet<>(highlighted);
+                        highlighted.addAll(rendered.get(i).highlighted);
+                    }
+                }
+            }
+            final int maxTiles = Math.max(PROP_MAX_TILES.get(), visible.size());
+            for (Iterator<Long> it = tiles.keySet().iterator(); tiles.size() > maxTiles && it.hasNext();) {
+                it.next();
+                it.remove();
+            }
+        }
+
+        for (Map.Entry<Long, Tile> entry : visible.entrySet()) {
+            // the image has TILE_SIZE * pixelScale pixels, it is drawn one to one on the device
+            g.drawImage(entry.getValue().image,
+                    (int) Math.round(keyX(entry.getKey()) * (double) TILE_SIZE - originX),
+                    (int) Math.round(keyY(entry.getKey()) * (double) TILE_SIZE - originY), TILE_SIZE, TILE_SIZE, null);
+        }
+    }
+
+    /**
+     * Returns the number of device pixels per pixel of the map view.
+     * @param transform the transform of the graphics the map is painted on
+     * @return the scale of the transform, {@code 1} if it does not only scale and translate
+     */
+    static double getPixelScale(AffineTransform transform) {
+        final int type = transform.getType() & ~AffineTransform.TYPE_TRANSLATION;
+        if (type == AffineTransform.TYPE_UNIFORM_SCALE && transform.getScaleX() > 0) {
+            return transform.getScaleX();
+        }
+        return 1;
+    }
+
+    private static List<Tile> renderTiles(List<Callable<Tile>> tasks) {
+        final List<Tile> result = new ArrayList<>(tasks.size());
+        final ForkJoinPool pool = StyledMapRenderer.getThreadPool();
+        try {
+            if (pool != null && tasks.size() > 1) {
+                for (Future<Tile> future : pool.invokeAll(tasks)) {
+                    result.add(future.get());
+                }
+            } else {
+                for (Callable<Tile> task : tasks) {
+                    result.add(task.call());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JosmRuntimeException(e);
+        } catch (Exception e) {
+            throw new JosmRuntimeException(e);
+        }
+        return result;
+    }
+
+    private Tile renderTile(NavigatableComponent nc, int left, int top, double pixelScale, boolean inactive,
+            boolean renderVirtualNodes, boolean enableSlowOperations) {
+        final Bounds bounds = nc.getState().getViewArea(new Rectangle2D.Double(
+                left - MARGIN, top - MARGIN, TILE_SIZE + 2d * MARGIN, TILE_SIZE + 2d * MARGIN)).getLatLonBoundsBox();
+        final List<OsmPrimitive> inTile = getPrimitives(bounds.toBBox());
+        final long[] primitives = inTile.stream().mapToLong(OsmPrimitive::getUniqueId).sorted().toArray();
+        final List<OsmPrimitive> highlightedInTile = inTile.stream().filter(OsmPrimitive::isHighlighted).collect(Collectors.toList());
+        final int size = (int) Math.ceil(TILE_SIZE * pixelScale);
+        final BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g = image.createGraphics();
+        try {
+            g.scale(pixelScale, pixelScale);
+            g.translate(-left, -top);
+            g.setClip(left, top, TILE_SIZE, TILE_SIZE);
+            final AbstractMapRenderer renderer = MapRendererFactory.getInstance().createActiveRenderer(g, nc, inactive);
+            renderer.enableSlowOperations(enableSlowOperations);
+            renderer.render(data, renderVirtualNodes, bounds);
+        } finally {
+            g.dispose();
+        }
+        return new Tile(image, primitives, highlightedInTile, enableSlowOperations);
+    }
+
+    private List<OsmPrimitive> getPrimitives(BBox bbox) {
+        final Lock readLock = data.getReadLock();
+        readLock.lock();
+        try {
+            return Stream.of(data.searchNodes(bbox), data.searchWays(bbox), data.searchRelations(bbox))
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toList());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of cached tiles.
+     * @return the number of cached tiles
+     */
+    public synchronized int getCachedTileCount() {
+        return tiles.size();
+    }
+
+    /**
+     * Drops all cached tiles.
+     */
+    public final synchronized void clear() {
+        tiles.clear();
+        generation++;
+    }
+
+    /**
+     * Drops the cached tiles in which the given primitives, or the primitives referring to them, are or were rendered.
+     * @param primitives the changed primitives
+     */
+    public void invalidate(Collection<? extends OsmPrimitive> primitives) {
+        final Set<OsmPrimitive> affected = new HashSet<>();
+        for (OsmPrimitive p : primitives) {
+            addWithReferrers(p, affected);
+            if (affected.size() > MAX_INVALIDATED_PRIMITIVES) {
+                clear();
+                return;
+            }
+        }
+        synchronized (this) {
+            generation++;
+            if (tiles.isEmpty() || settings == null) {
+                return;
+            }
+            final List<int[]> ranges = new ArrayList<>(affected.size());
+            for (OsmPrimitive p : affected) {
+                final BBox bbox = p.getBBox();
+                if (bbox.isValid()) {
+                    ranges.add(getTileRange(bbox));
+                }
+            }
+            tiles.entrySet().removeIf(entry -> intersects(entry.getKey(), ranges)
+                    || affected.stream().anyMatch(p -> entry.getValue().contains(p.getUniqueId())));
+        }
+    }
+
+    private void addWithReferrers(OsmPrimitive p, Set<OsmPrimitive> primitives) {
+        if (primitives.add(p) && p.getDataSet() == data) {
+            for (OsmPrimitive referrer : p.getReferrers()) {
+                addWithReferrers(referrer, primitives);
+            }
+        }
+    }
+
+    private int[] getTileRange(BBox bbox) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (LatLon ll : Arrays.asList(bbox.getTopLeft(), bbox.getBottomRight(),
+                new LatLon(bbox.getTopLeftLat(), bbox.getBottomRightLon()), new LatLon(bbox.getBottomRightLat(), bbox.getTopLeftLon()))) {
+            final EastNorth en = settings.projection.latlon2eastNorth(ll);
+            minX = Math.min(minX, en.east() / settings.scale);
+            maxX = Math.max(maxX, en.east() / settings.scale);
+            minY = Math.min(minY, -en.north() / settings.scale);
+            maxY = Math.max(maxY, -en.north() / settings.scale);
+        }
+        return new int[] {
+            (int) Math.floor((minX - MARGIN) / TILE_SIZE), (int) Math.floor((minY - MARGIN) / TILE_SIZE),
+            (int) Math.floor((maxX + MARGIN) / TILE_SIZE), (int) Math.floor((maxY + MARGIN) / TILE_SIZE)
+        };
+    }
+
+    private static boolean intersects(long key, List<int[]> ranges) {
+        final int x = keyX(key);
+        final int y = keyY(key);
+        return ranges.stream().anyMatch(r -> r[0] <= x && x <= r[2] && r[1] <= y && y <= r[3]);
+    }
+
+    @Override
+    public void primitivesAdded(PrimitivesAddedEvent event) {
+        invalidate(event.getPrimitives());
+    }
+
+    @Override
+    public void primitivesRemoved(PrimitivesRemovedEvent event) {
+        invalidate(event.getPrimitives());
+    }
+
+    @Override
+    public void tagsChanged(TagsChangedEvent event) {
+        invalidate(event.getPrimitives());
+    }
+
+    @Override
+    public void nodeMoved(NodeMovedEvent event) {
+        invalidate(event.getPrimitives());
+    }
+
+    @Override
+    public void wayNodesChanged(WayNodesChangedEvent event) {
+        invalidate(event.getPrimitives());
+    }
+
+    @Override
+    public void relationMembersChanged(RelationMembersChangedEvent event) {
+        invalidate(event.getPrimitives());
+    }
+
+    @Override
+    public void otherDatasetChange(AbstractDatasetChangedEvent event) {
+        if (event.getPrimitives().isEmpty()) {
+            // e.g. the filters changed
+            clear();
+        } else {
+            invalidate(event.getPrimitives());
+        }
+    }
+
+    @Override
+    public void dataChanged(DataChangedEvent event) {
+        if (event.getEvents() != null) {
+            event.getEvents().forEach(e -> e.fire(this));
+        } else {
+            clear();
+        }
+    }
+
+    @Override
+    public void selectionChanged(SelectionChangeEvent event) {
+        invalidate(event.getRemoved());
+        invalidate(event.getAdded());
+    }
+
+    @Override
+    public void highlightUpdated(HighlightUpdateEvent e) {
+        // the event does not tell which primitives changed, they are found by comparing with the previous highlighting
+        final Set<WaySegment> segments = Stream.of(data.getHighlightedWaySegments(), data.getHighlightedVirtualNodes())
+                .flatMap(Collection::stream).collect(Collectors.toSet());
+        final Set<OsmPrimitive> current = getHighlighted();
+        final Set<OsmPrimitive> changed = new HashSet<>();
+        synchronized (this) {
+            addDifference(highlighted, current, changed);
+            final Set<WaySegment> changedSegments = new HashSet<>();
+            addDifference(highlightedSegments, segments, changedSegments);
+            changedSegments.forEach(segment -> changed.add(segment.getWay()));
+            highlighted = current;
+            highlightedSegments = segments;
+        }
+        if (!changed.isEmpty()) {
+            invalidate(changed);
+        }
+    }
+
+    private static <T> void addDifference(Set<T> previous, Set<T> current, Set<? super T> result) {
+        previous.stream().filter(p -> !current.contains(p)).forEach(result::add);
+        current.stream().filter(p -> !previous.contains(p)).forEach(result::add);
+    }
+
+    /**
+     * Returns the highlighted primitives in the area of the cached tiles. Highlighted primitives outside of this area
+     * are not rendered in any cached tile.
+     * @return the highlighted primitives
+     */
+    private Set<OsmPrimitive> getHighlighted() {
+        final BBox bbox;
+        synchronized (this) {
+            if (tiles.isEmpty() || settings == null) {
+                return Collections.emptySet();
+            }
+            final int minX = tiles.keySet().stream().mapToInt(TiledMapRenderer::keyX).min().getAsInt();
+            final int maxX = tiles.keySet().stream().mapToInt(TiledMapRenderer::keyX).max().getAsInt();
+            final int minY = tiles.keySet().stream().mapToInt(TiledMapRenderer::keyY).min().getAsInt();
+            final int maxY = tiles.keySet().stream().mapToInt(TiledMapRenderer::keyY).max().getAsInt();
+            final double tileSize = TILE_SIZE * settings.scale;
+            final double margin = MARGIN * settings.scale;
+            bbox = settings.projection.getLatLonBoundsBox(new ProjectionBounds(
+                    minX * tileSize - margin, -(maxY + 1) * tileSize - margin,
+                    (maxX + 1) * tileSize + margin, -minY * tileSize + margin)).toBBox();
+        }
+        return getPrimitives(bbox).stream().filter(OsmPrimitive::isHighlighted).collect(Collectors.toSet());
+    }
+
+    @Override
+    public void mapPaintStylesUpdated() {
+        clear();
+    }
+
+    @Override
+    public void mapPaintStyleEntryUpdated(int index) {
+        clear();
+    }
+
+    @Override
+    public void preferenceChanged(PreferenceChangeEvent e) {
+        if (Stream.of(RENDERING_PREFERENCES).anyMatch(e.getKey()::startsWith)) {
+            clear();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        data.removeDataSetListener(this);
+        data.removeSelectionListener(this);
+        data.removeHighlightUpdateListener(this);
+        MapPaintStyles.removeMapPaintStylesUpdateListener(this);
+        Config.getPref().removePreferenceChangeListener(this);
+        clear();
+    }
+}
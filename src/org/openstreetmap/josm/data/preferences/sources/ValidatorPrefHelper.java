@@ -44,6 +44,12 @@ public class ValidatorPrefHelper extends SourcePrefHelper {
     /** The preferences for ignored severity other */
     public static final BooleanProperty PREF_OTHER = new BooleanProperty(PREFIX + ".other", false);
 
+    /**
+     * The preferences key for validating only the changes since the last validation of the whole data set
+     * @since 18562
+     */
+    public static final BooleanProperty PREF_INCREMENTAL = new BooleanProperty(PREFIX + ".incremental", false);
+
     /** The preferences key for the ignorelist */
     public static final String PREF_IGNORELIST = PREFIX + ".ignorelist";
 
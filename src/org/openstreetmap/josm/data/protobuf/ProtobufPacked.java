@@ -2,8 +2,9 @@
 package org.openstreetmap.josm.data.protobuf;
 
 import java.io.ByteArrayOutputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 
 /**
  * Parse packed values (only numerical values)
@@ -12,58 +13,120 @@ import java.util.List;
  * @since 17862
  */
 public class ProtobufPacked {
-    private static final Number[] NO_NUMBERS = new Number[0];
     private final byte[] bytes;
-    private final Number[] numbers;
-    private int location;
+    private Number[] numbers;
 
     /**
      * Create a new ProtobufPacked object
      *
      * @param byteArrayOutputStream A reusable ByteArrayOutputStream (helps to reduce memory allocations)
      * @param bytes The packed bytes
+     * @deprecated since 18561, the stream is not needed anymore, use {@link #ProtobufPacked(byte[])}
      */
+    @Deprecated
     public ProtobufPacked(ByteArrayOutputStream byteArrayOutputStream, byte[] bytes) {
-        this.location = 0;
-        this.bytes = bytes;
-
-        // By creating a list of size bytes.length, we avoid 36 MB of allocations from list growth. This initialization
-        // only adds 3.7 MB to the ArrayList#init calls. Note that the real-world test case (Mapillary vector tiles)
-        // primarily created Shorts.
-        List<Number> numbersT = new ArrayList<>(bytes.length);
-        // By reusing a ByteArrayOutputStream, we can reduce allocations in nextVarInt from 230 MB to 74 MB.
-        while (this.location < bytes.length) {
-            numbersT.add(ProtobufParser.convertByteArray(this.nextVarInt(byteArrayOutputStream), ProtobufParser.VAR_INT_BYTE_SIZE));
-        }
+        this(bytes);
+    }
 
-        this.numbers = numbersT.toArray(NO_NUMBERS);
+    /**
+     * Create a new ProtobufPacked object. The values are only decoded when requested.
+     *
+     * @param bytes The packed bytes
+     * @since 18561
+     */
+    public ProtobufPacked(byte[] bytes) {
+        this.bytes = bytes;
     }
 
     /**
      * Get the parsed number array
      *
      * @return The number array
+     * @see #iterator()
      */
     public Number[] getArray() {
+        if (this.numbers == null) {
+            final Number[] numbersT = new Number[this.size()];
+            final PrimitiveIterator.OfLong iterator = this.iterator();
+            for (int i = 0; i < numbersT.length; i++) {
+                numbersT[i] = ProtobufParser.convertLong(iterator.nextLong());
+            }
+            this.numbers = numbersT;
+        }
         return this.numbers;
     }
 
-    private byte[] nextVarInt(final ByteArrayOutputStream byteArrayOutputStream) {
-        // In a real world test, the largest List<Byte> seen had 3 elements. Use 4 to avoid most new array allocations.
-        // Memory allocations went from 368 MB to 280 MB by using an initial array allocation. When using a
-        // ByteArrayOutputStream, it went down to 230 MB. By further reusing the ByteArrayOutputStream between method
-        // calls, it went down further to 73 MB.
-        while ((this.bytes[this.location] & ProtobufParser.MOST_SIGNIFICANT_BYTE)
-          == ProtobufParser.MOST_SIGNIFICANT_BYTE) {
-            // Get rid of the leading bit (shift left 1, then shift right 1 unsigned)
-            byteArrayOutputStream.write(this.bytes[this.location++] ^ ProtobufParser.MOST_SIGNIFICANT_BYTE);
+    /**
+     * Get the number of packed values
+     *
+     * @return The number of values
+     * @since 18561
+     */
+    public int size() {
+        // Each var int ends with the only byte of the var int which does not have the most significant bit set
+        int size = 0;
+        for (byte b : this.bytes) {
+            if (b >= 0) {
+                size++;
+            }
         }
-        // The last byte doesn't drop the most significant bit
-        byteArrayOutputStream.write(this.bytes[this.location++]);
-        try {
-            return byteArrayOutputStream.toByteArray();
-        } finally {
-            byteArrayOutputStream.reset();
+        return size;
+    }
+
+    /**
+     * Get the parsed values
+     *
+     * @return The values as unsigned var ints. Use {@link ProtobufParser#decodeZigZagLong(long)} for signed values.
+     * @since 18561
+     */
+    public long[] toLongArray() {
+        final long[] values = new long[this.size()];
+        final PrimitiveIterator.OfLong iterator = this.iterator();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = iterator.nextLong();
+        }
+        return values;
+    }
+
+    /**
+     * Get an iterator over the packed values. Unlike {@link #getArray()}, this does not create an object per value.
+     *
+     * @return An iterator over the values as unsigned var ints. Use {@link ProtobufParser#decodeZigZagLong(long)} for signed values.
+     * @since 18561
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new VarIntIterator(ByteBuffer.wrap(this.bytes));
+    }
+
+    /**
+     * An iterator over var ints stored in a buffer
+     */
+    private static final class VarIntIterator implements PrimitiveIterator.OfLong {
+        private final ByteBuffer buffer;
+
+        VarIntIterator(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.buffer.hasRemaining();
+        }
+
+        @Override
+        public long nextLong() {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += ProtobufParser.VAR_INT_BYTE_SIZE) {
+                if (!this.buffer.hasRemaining()) {
+                    throw new NoSuchElementException();
+                }
+                final byte currentByte = this.buffer.get();
+                value |= (long) (currentByte & ~ProtobufParser.MOST_SIGNIFICANT_BYTE) << shift;
+                if (currentByte >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Var int is longer than 64 bits");
         }
     }
 }
@@ -2,10 +2,11 @@
 package org.openstreetmap.josm.data.protobuf;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 
@@ -71,8 +72,18 @@ public class ProtobufParser implements AutoCloseable {
      * @return The decoded value
      */
     public static Number decodeZigZag(Number signed) {
-        final long value = signed.longValue();
-        return convertLong((value >> 1) ^ -(value & 1));
+        return convertLong(decodeZigZagLong(signed.longValue()));
+    }
+
+    /**
+     * Decode a zig-zag encoded value, without boxing it
+     *
+     * @param signed The value to decode
+     * @return The decoded value
+     * @since 18561
+     */
+    public static long decodeZigZagLong(long signed) {
+        return (signed >>> 1) ^ -(signed & 1);
     }
 
     /**
@@ -90,6 +101,8 @@ public class ProtobufParser implements AutoCloseable {
     }
 
     private final InputStream inputStream;
+    /** The bytes to parse, if known in advance. Reading from a buffer avoids the synchronized {@link InputStream} methods. */
+    private final ByteBuffer buffer;
 
     /**
      * Create a new parser
@@ -97,7 +110,8 @@ public class ProtobufParser implements AutoCloseable {
      * @param bytes The bytes to parse
      */
     public ProtobufParser(byte[] bytes) {
-        this(new ByteArrayInputStream(bytes));
+        this.inputStream = null;
+        this.buffer = ByteBuffer.wrap(bytes);
     }
 
     /**
@@ -106,6 +120,7 @@ public class ProtobufParser implements AutoCloseable {
      * @param inputStream The InputStream (will be fully read at this time)
      */
     public ProtobufParser(InputStream inputStream) {
+        this.buffer = null;
         if (inputStream.markSupported()) {
             this.inputStream = inputStream;
         } else {
@@ -121,15 +136,17 @@ public class ProtobufParser implements AutoCloseable {
      */
     public Collection<ProtobufRecord> allRecords() throws IOException {
         Collection<ProtobufRecord> records = new ArrayList<>();
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(4);
         while (this.hasNext()) {
-            records.add(new ProtobufRecord(byteArrayOutputStream, this));
+            records.add(new ProtobufRecord(this));
         }
         return records;
     }
 
     @Override
     public void close() {
+        if (this.inputStream == null) {
+            return;
+        }
         try {
             this.inputStream.close();
         } catch (IOException e) {
@@ -144,6 +161,9 @@ public class ProtobufParser implements AutoCloseable {
      * @throws IOException - if an IO error occurs
      */
     public boolean hasNext() throws IOException {
+        if (this.buffer != null) {
+            return this.buffer.hasRemaining();
+        }
         return this.inputStream.available() > 0;
     }
 
@@ -154,6 +174,9 @@ public class ProtobufParser implements AutoCloseable {
      * @throws IOException - if an IO error occurs
      */
     public WireType next() throws IOException {
+        if (this.buffer != null) {
+            return WireType.getAllValues()[this.buffer.get(this.buffer.position()) << 3];
+        }
         this.inputStream.mark(16);
         try {
             return WireType.getAllValues()[this.inputStream.read() << 3];
@@ -169,6 +192,9 @@ public class ProtobufParser implements AutoCloseable {
      * @throws IOException - if an IO error occurs
      */
     public int nextByte() throws IOException {
+        if (this.buffer != null) {
+            return this.buffer.hasRemaining() ? Byte.toUnsignedInt(this.buffer.get()) : -1;
+        }
         return this.inputStream.read();
     }
 
@@ -203,8 +229,67 @@ public class ProtobufParser implements AutoCloseable {
      * @throws IOException - if an IO error occurs
      */
     public byte[] nextLengthDelimited(ByteArrayOutputStream byteArrayOutputStream) throws IOException {
-        int length = convertByteArray(this.nextVarInt(byteArrayOutputStream), VAR_INT_BYTE_SIZE).intValue();
-        return readNextBytes(length);
+        return nextLengthDelimited();
+    }
+
+    /**
+     * Get the next delimited message ({@link WireType#LENGTH_DELIMITED})
+     *
+     * @return The next length delimited message
+     * @throws IOException - if an IO error occurs, or if the message is truncated
+     * @since 18561
+     */
+    public byte[] nextLengthDelimited() throws IOException {
+        final long length = this.readVarLong();
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Invalid length: " + length);
+        }
+        return readNextBytes((int) length);
+    }
+
+    /**
+     * Read the next var int ({@code WireType#VARINT}) without allocating memory
+     *
+     * @return The next var int ({@code int32}, {@code int64}, {@code uint32}, {@code uint64}, {@code bool}, {@code enum}).
+     *         Use {@link Long#toUnsignedString(long)} or similar methods for {@code uint64} values above {@link Long#MAX_VALUE}.
+     * @throws IOException - if an IO error occurs, or if the var int is truncated or longer than 64 bits
+     * @since 18561
+     */
+    public long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += VAR_INT_BYTE_SIZE) {
+            final int currentByte = this.nextByte();
+            if (currentByte < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (currentByte & ~MOST_SIGNIFICANT_BYTE) << shift;
+            if ((currentByte & MOST_SIGNIFICANT_BYTE) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Var int is longer than 64 bits");
+    }
+
+    /**
+     * Read the next zig-zag encoded var int ({@code sint32}) without allocating memory
+     *
+     * @return The next signed var int
+     * @throws IOException - if an IO error occurs
+     * @since 18561
+     */
+    public int readSInt32() throws IOException {
+        return (int) decodeZigZagLong(this.readVarLong());
+    }
+
+    /**
+     * Read the next zig-zag encoded var int ({@code sint64}) without allocating memory
+     *
+     * @return The next signed var int
+     * @throws IOException - if an IO error occurs
+     * @since 18561
+     */
+    public long readSInt64() throws IOException {
+        return decodeZigZagLong(this.readVarLong());
     }
 
     /**
@@ -240,6 +325,14 @@ public class ProtobufParser implements AutoCloseable {
      * @throws IOException - if an IO error occurs
      */
     private byte[] readNextBytes(int size) throws IOException {
+        if (this.buffer != null) {
+            if (size > this.buffer.remaining()) {
+                throw new EOFException();
+            }
+            byte[] bytesRead = new byte[size];
+            this.buffer.get(bytesRead);
+            return bytesRead;
+        }
         byte[] bytesRead = new byte[size];
         for (int i = 0; i < bytesRead.length; i++) {
             bytesRead[i] = (byte) this.nextByte();
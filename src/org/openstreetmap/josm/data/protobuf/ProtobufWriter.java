@@ -0,0 +1,191 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.protobuf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A basic Protobuf writer, the counterpart of {@link ProtobufParser}.
+ * <p>
+ * Fields are appended in the order of the method calls. Embedded messages are written with
+ * {@link #writeMessage(int, ProtobufWriter)}, so they can be built with a separate writer.
+ *
+ * @since 18560
+ */
+public class ProtobufWriter {
+    private final ByteArrayOutputStream out;
+    /** Reusable buffer for packed fields, whose length must be known before they are written */
+    private ByteArrayOutputStream packed;
+
+    /**
+     * Create a new writer
+     */
+    public ProtobufWriter() {
+        this(256);
+    }
+
+    /**
+     * Create a new writer
+     *
+     * @param initialSize The initial size of the buffer
+     */
+    public ProtobufWriter(int initialSize) {
+        this.out = new ByteArrayOutputStream(initialSize);
+    }
+
+    /**
+     * Write a var int ({@code int32}, {@code int64}, {@code uint32}, {@code uint64}, {@code bool}, {@code enum})
+     *
+     * @param field The field number
+     * @param value The value
+     * @return this writer
+     */
+    public ProtobufWriter writeVarInt(int field, long value) {
+        writeKey(field, WireType.VARINT);
+        writeRawVarInt(out, value);
+        return this;
+    }
+
+    /**
+     * Write a zig-zag encoded var int ({@code sint32} or {@code sint64})
+     *
+     * @param field The field number
+     * @param value The value
+     * @return this writer
+     */
+    public ProtobufWriter writeSignedVarInt(int field, long value) {
+        return writeVarInt(field, encodeZigZag(value));
+    }
+
+    /**
+     * Write bytes ({@link WireType#LENGTH_DELIMITED})
+     *
+     * @param field The field number
+     * @param bytes The bytes
+     * @return this writer
+     */
+    public ProtobufWriter writeBytes(int field, byte[] bytes) {
+        writeKey(field, WireType.LENGTH_DELIMITED);
+        writeRawVarInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    /**
+     * Write a string ({@link WireType#LENGTH_DELIMITED}, encoded as {@link StandardCharsets#UTF_8})
+     *
+     * @param field The field number
+     * @param string The string
+     * @return this writer
+     */
+    public ProtobufWriter writeString(int field, String string) {
+        return writeBytes(field, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write an embedded message ({@link WireType#LENGTH_DELIMITED})
+     *
+     * @param field The field number
+     * @param message The writer holding the message
+     * @return this writer
+     */
+    public ProtobufWriter writeMessage(int field, ProtobufWriter message) {
+        writeKey(field, WireType.LENGTH_DELIMITED);
+        writeRawVarInt(out, message.size());
+        copy(message.out, out);
+        return this;
+    }
+
+    /**
+     * Write packed var ints
+     *
+     * @param field The field number
+     * @param values The values
+     * @param length The number of values to write
+     * @return this writer
+     */
+    public ProtobufWriter writePackedVarInts(int field, long[] values, int length) {
+        return writePacked(field, values, length, false);
+    }
+
+    /**
+     * Write packed zig-zag encoded var ints
+     *
+     * @param field The field number
+     * @param values The values
+     * @param length The number of values to write
+     * @return this writer
+     */
+    public ProtobufWriter writePackedSignedVarInts(int field, long[] values, int length) {
+        return writePacked(field, values, length, true);
+    }
+
+    private ProtobufWriter writePacked(int field, long[] values, int length, boolean zigZag) {
+        if (length == 0) {
+            return this;
+        }
+        if (packed == null) {
+            packed = new ByteArrayOutputStream(length * 2);
+        }
+        packed.reset();
+        for (int i = 0; i < length; i++) {
+            writeRawVarInt(packed, zigZag ? encodeZigZag(values[i]) : values[i]);
+        }
+        writeKey(field, WireType.LENGTH_DELIMITED);
+        writeRawVarInt(out, packed.size());
+        copy(packed, out);
+        return this;
+    }
+
+    /**
+     * Get the number of bytes written so far
+     *
+     * @return The size of the message
+     */
+    public int size() {
+        return out.size();
+    }
+
+    /**
+     * Discard the bytes written so far, so that the writer can be reused
+     */
+    public void reset() {
+        out.reset();
+    }
+
+    /**
+     * Get the written message
+     *
+     * @return The bytes of the message
+     */
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private void writeKey(int field, WireType type) {
+        writeRawVarInt(out, ((long) field << 3) | type.getTypeRepresentation());
+    }
+
+    private static void copy(ByteArrayOutputStream from, ByteArrayOutputStream to) {
+        try {
+            from.writeTo(to);
+        } catch (IOException e) {
+            // Cannot happen, ByteArrayOutputStream does not throw
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long encodeZigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeRawVarInt(ByteArrayOutputStream stream, long value) {
+        while ((value & ~0x7FL) != 0) {
+            stream.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        stream.write((int) value);
+    }
+}
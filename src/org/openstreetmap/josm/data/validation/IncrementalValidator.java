@@ -0,0 +1,362 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListener;
+import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesAddedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesRemovedEvent;
+import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
+import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
+import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
+import org.openstreetmap.josm.data.preferences.DoubleProperty;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.tools.Destroyable;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Stopwatch;
+
+/**
+ * Validates a data set incrementally.
+ * <p>
+ * The first call to {@link #validate(ProgressMonitor)} runs all tests on the whole data set. Afterwards, the validator
+ * listens to the data set events and only runs the tests again on the changed primitives, their referrers and their
+ * spatial neighbourhood, found with the {@link org.openstreetmap.josm.data.osm.QuadBuckets} index of the data set.
+ * The errors of the untouched primitives are kept from the previous runs, so that the validation time depends on the
+ * size of the edit and not on the size of the data set.
+ * <p>
+ * This relies on the errors referring to the primitives causing them (see {@link TestError#getPrimitives()}): the cached
+ * errors of changed primitives are dropped, and the cached errors of the visited neighbourhood are compared with the new
+ * ones. An edit may change the errors of unchanged neighbours, e.g. a node removed from a way becomes unconnected.
+ * The nodes removed from a way and the members removed from a relation are validated again like changed primitives.
+ *
+ * @since 18562
+ */
+public class IncrementalValidator implements DataSetListener, Destroyable {
+
+    /** The margin added around changed primitives to find their neighbourhood, in degrees (about 20 m) */
+    public static final DoubleProperty NEIGHBOURHOOD_MARGIN = new DoubleProperty("validator.incremental.margin", 0.0002);
+
+    private final DataSet dataSet;
+    private final List<Test> tests;
+
+    /** The primitives changed since the last validation */
+    private final Set<OsmPrimitive> changed = ConcurrentHashMap.newKeySet();
+    /** Whether the next validation must run on the whole data set */
+    private volatile boolean fullRunRequired = true;
+
+    /** The current errors */
+    private final Set<TestError> errors = new LinkedHashSet<>();
+    /** The current errors of each primitive */
+    private final Map<OsmPrimitive, List<TestError>> errorsByPrimitive = new HashMap<>();
+
+    /**
+     * Constructs a new {@code IncrementalValidator} and starts listening to the changes of the data set.
+     * Call {@link #destroy()} once the validator is not needed anymore.
+     * @param dataSet the data set to validate
+     * @param tests the tests to run. They must already be initialized, see {@link OsmValidator#initializeTests()}
+     */
+    public IncrementalValidator(DataSet dataSet, Collection<Test> tests) {
+        this.dataSet = Objects.requireNonNull(dataSet, "dataSet");
+        this.tests = new ArrayList<>(tests);
+        dataSet.addDataSetListener(this);
+    }
+
+    /**
+     * Returns the validated data set.
+     * @return the validated data set
+     */
+    public DataSet getDataSet() {
+        return dataSet;
+    }
+
+    /**
+     * Returns the tests run by this validator.
+     * @return the tests, unmodifiable
+     */
+    public List<Test> getTests() {
+        return Collections.unmodifiableList(tests);
+    }
+
+    /**
+     * Returns the number of primitives changed since the last validation.
+     * @return the number of primitives to validate again, without their neighbourhood
+     */
+    public int getChangedCount() {
+        return changed.size();
+    }
+
+    /**
+     * Returns the errors found by the last validation.
+     * @return the errors of the last validation
+     */
+    public synchronized List<TestError> getErrors() {
+        return new ArrayList<>(errors);
+    }
+
+    /**
+     * Validates the data set. Only the primitives changed since the last validation (and their neighbourhood) are tested,
+     * unless this is the first validation or the whole data set changed.
+     * <p>
+     * If the progress monitor is canceled, the errors of the previous validation are kept and the changes are validated
+     * the next time.
+     * @param progressMonitor the progress monitor, can be {@code null}
+     * @return all current errors of the data set
+     */
+    public synchronized List<TestError> validate(ProgressMonitor progressMonitor) {
+        ProgressMonitor monitor = progressMonitor != null ? progressMonitor : NullProgressMonitor.INSTANCE;
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        final boolean fullRun = fullRunRequired;
+        fullRunRequired = false;
+        final Set<OsmPrimitive> pending = new HashSet<>(changed);
+        changed.removeAll(pending);
+
+        final Set<OsmPrimitive> affected;
+        final Collection<OsmPrimitive> toVisit;
+        if (fullRun) {
+            affected = null;
+            toVisit = dataSet.allNonDeletedPrimitives();
+        } else {
+            affected = new HashSet<>();
+            for (OsmPrimitive p : pending) {
+                addWithReferrers(p, affected);
+            }
+            toVisit = getPrimitivesToVisit(affected);
+        }
+
+        final List<TestError> newErrors = runTests(monitor, toVisit, !fullRun);
+        if (newErrors == null) {
+            // Canceled, the changes need to be validated next time
+            changed.addAll(pending);
+            fullRunRequired |= fullRun;
+            return getErrors();
+        }
+        if (fullRun) {
+            errors.clear();
+            errorsByPrimitive.clear();
+            newErrors.forEach(this::addError);
+        } else {
+            updateErrors(affected, toVisit, newErrors);
+        }
+        Logging.debug(stopwatch.toString(fullRun
+                ? "Validation of " + toVisit.size() + " primitives"
+                : "Incremental validation of " + pending.size() + " changed primitives (" + toVisit.size() + " visited)"));
+        return getErrors();
+    }
+
+    private Collection<OsmPrimitive> getPrimitivesToVisit(Set<OsmPrimitive> affected) {
+        final Set<OsmPrimitive> neighbourhood = new HashSet<>();
+        final double margin = NEIGHBOURHOOD_MARGIN.get();
+        for (OsmPrimitive p : affected) {
+            if (p.getDataSet() != dataSet) {
+                continue;
+            }
+            neighbourhood.add(p);
+            if (p instanceof Way) {
+                neighbourhood.addAll(((Way) p).getNodes());
+            }
+            // The neighbourhood of relations is too large, they are only tested with their members
+            if (p instanceof Relation || !p.isUsable() || (p instanceof Node && !((Node) p).isLatLonKnown())) {
+                continue;
+            }
+            BBox bbox = new BBox();
+            bbox.addPrimitive(p, margin);
+            neighbourhood.addAll(dataSet.searchNodes(bbox));
+            neighbourhood.addAll(dataSet.searchWays(bbox));
+        }
+        return neighbourhood;
+    }
+
+    private void addWithReferrers(OsmPrimitive p, Set<OsmPrimitive> primitives) {
+        // Primitives removed from the data set have no referrers anymore, only their errors need to be dropped
+        if (primitives.add(p) && p.getDataSet() == dataSet) {
+            for (OsmPrimitive referrer : p.getReferrers()) {
+                addWithReferrers(referrer, primitives);
+            }
+        }
+    }
+
+    private List<TestError> runTests(ProgressMonitor monitor, Collection<OsmPrimitive> toVisit, boolean partialSelection) {
+        for (Test test : tests) {
+            test.setBeforeUpload(false);
+            test.setPartialSelection(partialSelection);
+        }
+        final List<TestError> result = ValidationScheduler.runTests(tests, toVisit, monitor);
+        return monitor.isCanceled() ? null : result;
+    }
+
+    private void updateErrors(Set<OsmPrimitive> affected, Collection<OsmPrimitive> visited, List<TestError> newErrors) {
+        for (OsmPrimitive p : affected) {
+            List<TestError> obsolete = errorsByPrimitive.get(p);
+            if (obsolete != null) {
+                new ArrayList<>(obsolete).forEach(this::removeError);
+            }
+        }
+        // The errors of the neighbourhood which are not found anymore are fixed
+        final Set<TestError> cached = new HashSet<>();
+        for (OsmPrimitive p : visited) {
+            for (TestError error : errorsByPrimitive.getOrDefault(p, Collections.emptyList())) {
+                if (visited.containsAll(error.getPrimitives())) {
+                    cached.add(error);
+                }
+            }
+        }
+        for (TestError error : newErrors) {
+            if (error.getPrimitives().isEmpty()) {
+                // not related to the changes
+                continue;
+            }
+            TestError known = findSimilarError(error);
+            if (known != null) {
+                // keep the known error, it might be referenced by the user interface
+                cached.remove(known);
+            } else {
+                removeSupersededErrors(error);
+                addError(error);
+            }
+        }
+        cached.forEach(this::removeError);
+    }
+
+    private TestError findSimilarError(TestError error) {
+        // a similar error refers to the same primitives
+        OsmPrimitive first = error.getPrimitives().iterator().next();
+        for (TestError other : errorsByPrimitive.getOrDefault(first, Collections.emptyList())) {
+            if (other.getTester() == error.getTester() && other.isSimilar(error)) {
+                return other;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the errors of unchanged primitives which are now part of a larger error,
+     * e.g. when a node is moved onto two already duplicated nodes.
+     * @param error the new error
+     */
+    private void removeSupersededErrors(TestError error) {
+        final Collection<? extends OsmPrimitive> primitives = error.getPrimitives();
+        final List<TestError> superseded = new ArrayList<>();
+        for (OsmPrimitive p : primitives) {
+            for (TestError other : errorsByPrimitive.getOrDefault(p, Collections.emptyList())) {
+                if (other.getTester() == error.getTester() && other.getCode() == error.getCode()
+                        && primitives.containsAll(other.getPrimitives())) {
+                    superseded.add(other);
+                }
+            }
+        }
+        superseded.forEach(this::removeError);
+    }
+
+    private void addError(TestError error) {
+        if (errors.add(error)) {
+            for (OsmPrimitive p : error.getPrimitives()) {
+                errorsByPrimitive.computeIfAbsent(p, k -> new ArrayList<>(2)).add(error);
+            }
+        }
+    }
+
+    private void removeError(TestError error) {
+        if (errors.remove(error)) {
+            for (OsmPrimitive p : error.getPrimitives()) {
+                List<TestError> list = errorsByPrimitive.get(p);
+                if (list != null && list.remove(error) && list.isEmpty()) {
+                    errorsByPrimitive.remove(p);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void primitivesAdded(PrimitivesAddedEvent event) {
+        changed.addAll(event.getPrimitives());
+    }
+
+    @Override
+    public void primitivesRemoved(PrimitivesRemovedEvent event) {
+        changed.addAll(event.getPrimitives());
+    }
+
+    @Override
+    public void tagsChanged(TagsChangedEvent event) {
+        changed.addAll(event.getPrimitives());
+    }
+
+    @Override
+    public void nodeMoved(NodeMovedEvent event) {
+        changed.addAll(event.getPrimitives());
+    }
+
+    @Override
+    public void wayNodesChanged(WayNodesChangedEvent event) {
+        changed.addAll(event.getPrimitives());
+        // The removed nodes may have new errors, e.g. if they are not connected anymore
+        if (event.getOriginalNodes() != null) {
+            Set<Node> nodes = new HashSet<>(event.getChangedWay().getNodes());
+            for (Node n : event.getOriginalNodes()) {
+                if (!nodes.contains(n)) {
+                    changed.add(n);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void relationMembersChanged(RelationMembersChangedEvent event) {
+        changed.addAll(event.getPrimitives());
+        if (event.getOriginalMembers() != null) {
+            Set<OsmPrimitive> members = event.getRelation().getMemberPrimitives();
+            for (RelationMember member : event.getOriginalMembers()) {
+                if (!members.contains(member.getMember())) {
+                    changed.add(member.getMember());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void otherDatasetChange(AbstractDatasetChangedEvent event) {
+        changed.addAll(event.getPrimitives());
+    }
+
+    @Override
+    public void dataChanged(DataChangedEvent event) {
+        if (event.getEvents() != null) {
+            event.getEvents().forEach(e -> e.fire(this));
+        } else {
+            // Too many changes to keep track of them, validate everything again
+            changed.clear();
+            fullRunRequired = true;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        dataSet.removeDataSetListener(this);
+        changed.clear();
+        synchronized (this) {
+            errors.clear();
+            errorsByPrimitive.clear();
+        }
+    }
+}
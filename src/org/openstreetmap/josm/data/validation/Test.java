@@ -139,6 +139,19 @@ public class Test implements OsmPrimitiveVisitor {
             check(r);
         }
 
+        /**
+         * Determines if {@link #check(OsmPrimitive)} can be called concurrently from several threads.
+         * If so, the primitives of a large data set are split into chunks checked in parallel, see {@link ValidationScheduler}.
+         * <p>
+         * Only return {@code true} if the checks do not modify any state shared between primitives, except by adding
+         * errors with {@code errors.add} or {@code errors.addAll}.
+         * @return {@code true} if the primitives can be checked concurrently. {@code false} by default
+         * @since 18563
+         */
+        public boolean isCheckThreadSafe() {
+            return false;
+        }
+
         protected boolean includeOtherSeverityChecks() {
             return isBeforeUpload ? ValidatorPrefHelper.PREF_OTHER_UPLOAD.get() : ValidatorPrefHelper.PREF_OTHER.get();
         }
@@ -227,6 +240,17 @@ public class Test implements OsmPrimitiveVisitor {
         }
     }
 
+    /**
+     * Determines if this test can run at the same time as other tests, see {@link ValidationScheduler}.
+     * <p>
+     * Tests sharing state with other tests, or requiring to run in a specific thread, must return {@code false}.
+     * @return {@code true} if this test can run concurrently with other tests. {@code true} by default
+     * @since 18563
+     */
+    public boolean isParallelizable() {
+        return true;
+    }
+
     /**
      * Determines if the primitive is usable for tests.
      * @param p The primitive
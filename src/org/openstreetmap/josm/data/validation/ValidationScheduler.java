@@ -0,0 +1,217 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Runs validation tests, in parallel when possible.
+ * <p>
+ * Tests which are {@linkplain Test#isParallelizable() parallelizable} run concurrently on a fork-join pool, whose size is
+ * given by the {@code validator.threads} preference. The primitives visited by a {@link Test.TagTest} which
+ * {@linkplain Test.TagTest#isCheckThreadSafe() can check them concurrently} are split into chunks checked in parallel.
+ * <p>
+ * In any case, the errors are returned in the same order as if the tests were run one after another.
+ *
+ * @since 18563
+ */
+public final class ValidationScheduler {
+
+    /** The minimum number of primitives checked by a task when splitting the visit of a tag test */
+    private static final int MIN_CHUNK_SIZE = 2048;
+
+    private static final ForkJoinPool THREAD_POOL = newForkJoinPool();
+
+    private ValidationScheduler() {
+        // Hide default constructor for utils classes
+    }
+
+    private static ForkJoinPool newForkJoinPool() {
+        try {
+            return Utils.newForkJoinPool("validator.threads", "validator-%d", Thread.NORM_PRIORITY);
+        } catch (SecurityException e) {
+            Logging.log(Logging.LEVEL_ERROR, "Unable to create new ForkJoinPool", e);
+            return null;
+        }
+    }
+
+    /**
+     * Runs the given tests on the given primitives.
+     * <p>
+     * The tests must already be set up by the caller, see {@link Test#setBeforeUpload(boolean)} and
+     * {@link Test#setPartialSelection(boolean)}. They are {@linkplain Test#clear() cleared} once their errors are collected.
+     * @param tests the tests to run
+     * @param primitives the primitives to validate
+     * @param progressMonitor the progress monitor, can be {@code null}
+     * @return the errors of all tests, in the order of the tests
+     */
+    public static List<TestError> runTests(Collection<? extends Test> tests, Collection<OsmPrimitive> primitives,
+            ProgressMonitor progressMonitor) {
+        return runTests(tests, primitives, progressMonitor, THREAD_POOL);
+    }
+
+    static List<TestError> runTests(Collection<? extends Test> tests, Collection<OsmPrimitive> primitives,
+            ProgressMonitor progressMonitor, ForkJoinPool pool) {
+        final ProgressMonitor monitor = progressMonitor != null ? progressMonitor : NullProgressMonitor.INSTANCE;
+        final List<Test> testList = new ArrayList<>(tests);
+        monitor.setTicksCount(testList.size() * primitives.size());
+        final List<List<TestError>> errors = new ArrayList<>(testList.size());
+        if (pool == null || pool.getParallelism() < 2) {
+            for (int i = 0; i < testList.size() && !monitor.isCanceled(); i++) {
+                errors.add(runTest(testList.get(i), i, testList.size(), primitives, monitor, null));
+            }
+        } else {
+            runInParallel(testList, primitives, monitor, errors, pool);
+        }
+        return errors.stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    private static void runInParallel(List<Test> tests, Collection<OsmPrimitive> primitives, ProgressMonitor monitor,
+            List<List<TestError>> errors, ForkJoinPool pool) {
+        // Tests which cannot run concurrently with other tests run first, in this thread
+        for (int i = 0; i < tests.size(); i++) {
+            final Test test = tests.get(i);
+            errors.add(test.isParallelizable() ? null : runTest(test, i, tests.size(), primitives, monitor, pool));
+        }
+        final List<ForkJoinTask<List<TestError>>> tasks = new ArrayList<>(tests.size());
+        for (int i = 0; i < tests.size(); i++) {
+            final Test test = tests.get(i);
+            final int index = i;
+            tasks.add(errors.get(i) != null ? null
+                    : pool.submit(() -> runTest(test, index, tests.size(), primitives, monitor, pool)));
+        }
+        for (int i = 0; i < tests.size(); i++) {
+            if (tasks.get(i) != null) {
+                errors.set(i, tasks.get(i).join());
+            }
+        }
+    }
+
+    private static List<TestError> runTest(Test test, int index, int count, Collection<OsmPrimitive> primitives,
+            ProgressMonitor monitor, ForkJoinPool pool) {
+        if (monitor.isCanceled()) {
+            return new ArrayList<>();
+        }
+        monitor.setCustomText(tr("Test {0}/{1}: Starting {2}", index + 1, count, test.getName()));
+        test.startTest(monitor.createSubTaskMonitor(primitives.size(), false));
+        if (pool != null && primitives.size() >= 2 * MIN_CHUNK_SIZE
+                && test instanceof Test.TagTest && ((Test.TagTest) test).isCheckThreadSafe()) {
+            visitInParallel((Test.TagTest) test, primitives, pool);
+        } else {
+            test.visit(primitives);
+        }
+        test.endTest();
+        final List<TestError> errors = new ArrayList<>(test.getErrors());
+        test.clear();
+        return errors;
+    }
+
+    /**
+     * Visits the primitives with a tag test, splitting them into chunks checked in parallel.
+     * The errors of each chunk are collected separately, so that they can be added in the same order as
+     * by {@link Test#visit(Collection)}.
+     * @param test the tag test
+     * @param primitives the primitives to check
+     * @param pool the thread pool
+     */
+    private static void visitInParallel(Test.TagTest test, Collection<OsmPrimitive> primitives, ForkJoinPool pool) {
+        final List<OsmPrimitive> list = new ArrayList<>(primitives);
+        final int chunkSize = Math.max(MIN_CHUNK_SIZE, list.size() / (4 * pool.getParallelism()) + 1);
+        final List<ForkJoinTask<List<TestError>>> chunks = new ArrayList<>();
+        final ChunkErrors chunkErrors = new ChunkErrors();
+        final List<TestError> errors = test.errors;
+        test.errors = chunkErrors;
+        try {
+            for (int start = 0; start < list.size(); start += chunkSize) {
+                final List<OsmPrimitive> chunk = list.subList(start, Math.min(list.size(), start + chunkSize));
+                chunks.add(pool.submit(() -> chunkErrors.check(test, chunk)));
+            }
+            for (ForkJoinTask<List<TestError>> chunk : chunks) {
+                errors.addAll(chunk.join());
+            }
+        } finally {
+            test.errors = errors;
+        }
+    }
+
+    /**
+     * The error list of a tag test while its primitives are checked in parallel.
+     * Each thread adds the errors to the list of the chunk it is checking.
+     */
+    private static final class ChunkErrors extends AbstractList<TestError> {
+        private final ThreadLocal<List<TestError>> current = new ThreadLocal<>();
+
+        List<TestError> check(Test.TagTest test, List<OsmPrimitive> chunk) {
+            final List<TestError> previous = current.get();
+            final List<TestError> errors = new ArrayList<>();
+            current.set(errors);
+            try {
+                for (OsmPrimitive p : chunk) {
+                    if (test.isCanceled()) {
+                        break;
+                    }
+                    if (test.isPrimitiveUsable(p)) {
+                        p.accept(test);
+                    }
+                }
+                final ProgressMonitor monitor = test.progressMonitor;
+                if (monitor != null) {
+                    // worked() is not atomic
+                    synchronized (monitor) {
+                        monitor.worked(chunk.size());
+                    }
+                }
+            } finally {
+                // a thread waiting for a chunk may check another one in the meantime
+                current.set(previous);
+            }
+            return errors;
+        }
+
+        private List<TestError> current() {
+            final List<TestError> errors = current.get();
+            if (errors == null) {
+                throw new IllegalStateException("Errors can only be accessed while checking a chunk");
+            }
+            return errors;
+        }
+
+        @Override
+        public TestError get(int index) {
+            return current().get(index);
+        }
+
+        @Override
+        public int size() {
+            return current().size();
+        }
+
+        @Override
+        public void add(int index, TestError element) {
+            current().add(index, element);
+        }
+
+        @Override
+        public TestError set(int index, TestError element) {
+            return current().set(index, element);
+        }
+
+        @Override
+        public TestError remove(int index) {
+            return current().remove(index);
+        }
+    }
+}
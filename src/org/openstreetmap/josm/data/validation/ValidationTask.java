@@ -6,10 +6,18 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import javax.swing.JOptionPane;
 
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.DataSetSnapshot;
+import org.openstreetmap.josm.data.osm.NodeData;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.RelationData;
+import org.openstreetmap.josm.data.osm.WayData;
 import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.MapFrame;
@@ -23,11 +31,16 @@ import org.openstreetmap.josm.tools.Utils;
 
 /**
  * Asynchronous task for running a collection of tests against a collection of primitives
+ * <p>
+ * The primitives to validate are taken from a {@link DataSet#getSnapshot() snapshot} of their data set, so that
+ * the validation sees the primitives as they were when it started. The errors of the primitives changed
+ * while the tests were running are dropped.
  */
 public class ValidationTask extends PleaseWaitRunnable {
     private Collection<Test> tests;
     private final Collection<OsmPrimitive> validatedPrimitives;
     private final Collection<OsmPrimitive> formerValidatedPrimitives;
+    private final IncrementalValidator incrementalValidator;
     private boolean canceled;
     private List<TestError> errors;
 
@@ -52,6 +65,25 @@ public class ValidationTask extends PleaseWaitRunnable {
         this.validatedPrimitives = validatedPrimitives;
         this.formerValidatedPrimitives = formerValidatedPrimitives;
         this.tests = tests;
+        this.incrementalValidator = null;
+    }
+
+    /**
+     * Constructs a new {@code ValidationTask} validating the changes of a data set since its last validation
+     *
+     * @param incrementalValidator the validator keeping the errors of the data set
+     * @since 18562
+     */
+    public ValidationTask(IncrementalValidator incrementalValidator) {
+        this(new PleaseWaitProgressMonitor(tr("Validating")), incrementalValidator);
+    }
+
+    protected ValidationTask(ProgressMonitor progressMonitor, IncrementalValidator incrementalValidator) {
+        super(tr("Validating"), progressMonitor, false /*don't ignore exceptions */);
+        this.validatedPrimitives = null;
+        this.formerValidatedPrimitives = null;
+        this.tests = incrementalValidator.getTests();
+        this.incrementalValidator = incrementalValidator;
     }
 
     @Override
@@ -80,22 +112,14 @@ public class ValidationTask extends PleaseWaitRunnable {
     protected void realRun() {
         if (Utils.isEmpty(tests))
             return;
-        errors = new ArrayList<>();
-        getProgressMonitor().setTicksCount(tests.size() * validatedPrimitives.size());
-        int testCounter = 0;
-        for (Test test : tests) {
-            if (canceled)
-                return;
-            testCounter++;
-            getProgressMonitor().setCustomText(tr("Test {0}/{1}: Starting {2}", testCounter, tests.size(), test.getName()));
-            test.setBeforeUpload(false);
-            test.setPartialSelection(formerValidatedPrimitives != null);
-            test.startTest(getProgressMonitor().createSubTaskMonitor(validatedPrimitives.size(), false));
-            test.visit(validatedPrimitives);
-            test.endTest();
-            errors.addAll(test.getErrors());
-            test.clear();
+        if (incrementalValidator != null) {
+            errors = incrementalValidator.validate(getProgressMonitor());
+            canceled |= getProgressMonitor().isCanceled();
+        } else {
+            runTests();
         }
+        if (canceled)
+            return;
         tests = null;
         if (Boolean.TRUE.equals(ValidatorPrefHelper.PREF_USE_IGNORE.get())) {
             getProgressMonitor().setCustomText("");
@@ -117,6 +141,51 @@ public class ValidationTask extends PleaseWaitRunnable {
         }
     }
 
+    private void runTests() {
+        for (Test test : tests) {
+            test.setBeforeUpload(false);
+            test.setPartialSelection(formerValidatedPrimitives != null);
+        }
+        DataSet ds = validatedPrimitives.stream().map(OsmPrimitive::getDataSet).filter(Objects::nonNull).findFirst().orElse(null);
+        if (ds == null) {
+            errors = ValidationScheduler.runTests(tests, validatedPrimitives, getProgressMonitor());
+        } else {
+            // pin the state of the data set, the user may keep editing while the tests run
+            DataSetSnapshot snapshot = ds.getSnapshot();
+            List<OsmPrimitive> primitives = new ArrayList<>(validatedPrimitives.size());
+            for (OsmPrimitive p : validatedPrimitives) {
+                PrimitiveData data = snapshot.getPrimitiveById(p);
+                if (data != null && !data.isDeleted()) {
+                    primitives.add(p);
+                }
+            }
+            errors = ValidationScheduler.runTests(tests, primitives, getProgressMonitor());
+            DataSetSnapshot latest = ds.getSnapshot();
+            if (latest != snapshot) {
+                // the errors of the primitives changed meanwhile may be outdated
+                errors = errors.stream()
+                        .filter(e -> e.getPrimitives().stream().allMatch(p -> isUnchanged(snapshot, latest, p)))
+                        .collect(Collectors.toList());
+            }
+        }
+        canceled |= getProgressMonitor().isCanceled();
+    }
+
+    private static boolean isUnchanged(DataSetSnapshot snapshot, DataSetSnapshot latest, OsmPrimitive p) {
+        PrimitiveData before = snapshot.getPrimitiveById(p);
+        PrimitiveData after = latest.getPrimitiveById(p);
+        if (before == after)
+            return true;
+        if (before == null || after == null || before.getClass() != after.getClass() || before.isDeleted() != after.isDeleted()
+                || !before.getKeys().equals(after.getKeys()))
+            return false;
+        if (before instanceof NodeData)
+            return Objects.equals(((NodeData) before).getCoor(), ((NodeData) after).getCoor());
+        if (before instanceof WayData)
+            return ((WayData) before).getNodeIds().equals(((WayData) after).getNodeIds());
+        return ((RelationData) before).getMembers().equals(((RelationData) after).getMembers());
+    }
+
     /**
      * Gets the validation errors accumulated until this moment.
      * @return The list of errors
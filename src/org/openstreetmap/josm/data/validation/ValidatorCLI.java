@@ -273,7 +273,15 @@ public class ValidatorCLI implements CLIModule {
             }
             GeoJSONMapRouletteWriter geoJSONMapRouletteWriter = new GeoJSONMapRouletteWriter(dataSet);
             try (OutputStream fileOutputStream = Files.newOutputStream(Paths.get(outputFile))) {
-                tests.parallelStream().forEach(test -> runTest(test, geoJSONMapRouletteWriter, fileOutputStream, dataSet));
+                final ProgressMonitor testsMonitor = progressMonitorFactory.get();
+                testsMonitor.beginTask(task);
+                final List<TestError> errors;
+                try {
+                    errors = ValidationScheduler.runTests(tests, dataSet.allPrimitives(), testsMonitor);
+                } finally {
+                    testsMonitor.finishTask();
+                }
+                writeErrors(errors, geoJSONMapRouletteWriter, fileOutputStream);
             }
         } finally {
             if (dataLayer != null) {
@@ -290,7 +298,7 @@ public class ValidatorCLI implements CLIModule {
      */
     private static String getDefaultOutputName(final String inputString) {
         final String extension = FileNameUtils.getExtension(inputString);
-        if (!Arrays.asList("zip", "bz", "xz", "geojson").contains(extension)) {
+        if (!Arrays.asList("zip", "bz", "xz", "pbf", "geojson").contains(extension)) {
             return FileNameUtils.getBaseName(inputString) + ".geojson";
         } else if ("geojson".equals(extension)) {
             // Account for geojson input files
@@ -300,18 +308,14 @@ public class ValidatorCLI implements CLIModule {
     }
 
     /**
-     * Run a test
-     * @param test The test to run
+     * Write the errors found by the tests
+     * @param errors The errors to write
      * @param geoJSONMapRouletteWriter The object to use to create challenges
      * @param fileOutputStream The location to write data to
-     * @param dataSet The dataset to check
      */
-    private void runTest(final Test test, final GeoJSONMapRouletteWriter geoJSONMapRouletteWriter,
-            final OutputStream fileOutputStream, DataSet dataSet) {
-        test.startTest(progressMonitorFactory.get());
-        test.visit(dataSet.allPrimitives());
-        test.endTest();
-        test.getErrors().stream().map(geoJSONMapRouletteWriter::write)
+    private void writeErrors(final List<TestError> errors, final GeoJSONMapRouletteWriter geoJSONMapRouletteWriter,
+            final OutputStream fileOutputStream) {
+        errors.stream().map(geoJSONMapRouletteWriter::write)
                 .filter(Optional::isPresent).map(Optional::get)
                 .map(jsonObject -> jsonObject.toString().getBytes(StandardCharsets.UTF_8)).forEach(bytes -> {
                     try {
@@ -320,7 +324,6 @@ public class ValidatorCLI implements CLIModule {
                         throw new JosmRuntimeException(e);
                     }
                 });
-        test.clear();
     }
 
     /**
@@ -458,7 +461,7 @@ public class ValidatorCLI implements CLIModule {
                 tr("Validates data and saves the result to a file.") + "\n\n"+
                 tr("Options") + ":\n" +
                 "\t--help|-h                 " + tr("Show this help") + "\n" +
-                "\t--input|-i <file>         " + tr("Input data file name (.osm, .validator.mapcss, .mapcss).") + '\n' +
+                "\t--input|-i <file>         " + tr("Input data file name (.osm, .osm.pbf, .validator.mapcss, .mapcss).") + '\n' +
                 helpPadding                    + tr("OSM files can be specified multiple times. Required.") + '\n' +
                 helpPadding                    + tr(".validator.mapcss and .mapcss files will stop processing on first error.") + '\n' +
                 helpPadding                    + tr("Non-osm files do not use --output or --change-file") + '\n' +
@@ -245,6 +245,11 @@ public class ConditionalKeys extends Test.TagTest {
         return errors;
     }
 
+    @Override
+    public boolean isCheckThreadSafe() {
+        return true;
+    }
+
     @Override
     public void check(OsmPrimitive p) {
         if (p.isTagged()) {
@@ -11,17 +11,16 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Objects;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 import org.openstreetmap.josm.data.osm.IPrimitive;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
@@ -36,7 +35,6 @@ import org.openstreetmap.josm.data.validation.TestError;
 import org.openstreetmap.josm.gui.mappaint.Environment;
 import org.openstreetmap.josm.gui.mappaint.MultiCascade;
 import org.openstreetmap.josm.gui.mappaint.mapcss.MapCSSRule;
-import org.openstreetmap.josm.gui.mappaint.mapcss.MapCSSStyleIndex;
 import org.openstreetmap.josm.gui.mappaint.mapcss.Selector;
 import org.openstreetmap.josm.gui.mappaint.mapcss.parsergen.ParseException;
 import org.openstreetmap.josm.gui.mappaint.mapcss.parsergen.TokenMgrError;
@@ -57,10 +55,10 @@ import org.openstreetmap.josm.tools.Utils;
  * @since 6506
  */
 public class MapCSSTagChecker extends Test.TagTest {
-    private MapCSSStyleIndex indexData;
-    private final Map<MapCSSRule, MapCSSTagCheckerAndRule> ruleToCheckMap = new HashMap<>();
-    private static final Map<IPrimitive, Area> mpAreaCache = new HashMap<>();
-    private static final Set<IPrimitive> toMatchForSurrounding = new HashSet<>();
+    /** The index of all rules, replaced as a whole so that it can be read without locking */
+    private volatile MapCSSTagCheckerIndex indexData;
+    // accessed concurrently by the selectors when several primitives are checked at the same time
+    private static final Map<IPrimitive, Area> mpAreaCache = Collections.synchronizedMap(new HashMap<>());
     static final boolean ALL_TESTS = true;
     static final boolean ONLY_SELECTED_TESTS = false;
 
@@ -136,60 +134,49 @@ public class MapCSSTagChecker extends Test.TagTest {
         }
     }
 
-    static MapCSSStyleIndex createMapCSSTagCheckerIndex(
-            MultiMap<String, MapCSSTagCheckerRule> checks, boolean includeOtherSeverity, boolean allTests) {
-        final MapCSSStyleIndex index = new MapCSSStyleIndex();
-        final Stream<MapCSSRule> ruleStream = checks.values().stream()
-                .flatMap(Collection::stream)
-                // Ignore "information" level checks if not wanted, unless they also set a MapCSS class
-                .filter(c -> includeOtherSeverity || Severity.OTHER != c.getSeverity() || !c.setClassExpressions.isEmpty())
-                .filter(c -> allTests || c.rule.selectors.stream().anyMatch(Selector.ChildOrParentSelector.class::isInstance))
-                .map(c -> c.rule);
-        index.buildIndex(ruleStream);
-        return index;
-    }
-
     /**
      * Obtains all {@link TestError}s for the {@link OsmPrimitive} {@code p}.
+     * <p>
+     * Only the candidate rules given by the index of the checks are evaluated. This method can be called
+     * by several threads at the same time.
      * @param p The OSM primitive
      * @param includeOtherSeverity if {@code true}, errors of severity {@link Severity#OTHER} (info) will also be returned
      * @return all errors for the given primitive, with or without those of "info" severity
      */
-    public synchronized Collection<TestError> getErrorsForPrimitive(OsmPrimitive p, boolean includeOtherSeverity) {
-        final List<TestError> res = new ArrayList<>();
-        if (indexData == null) {
-            indexData = createMapCSSTagCheckerIndex(checks, includeOtherSeverity, ALL_TESTS);
-        }
+    public Collection<TestError> getErrorsForPrimitive(OsmPrimitive p, boolean includeOtherSeverity) {
+        return getErrorsForPrimitive(p, getIndex(includeOtherSeverity), null);
+    }
 
+    /**
+     * Obtains the {@link TestError}s for the {@link OsmPrimitive} {@code p} with the candidate rules of an index.
+     * @param p The OSM primitive
+     * @param index the index of the rules to check
+     * @param toMatchForSurrounding the primitives that the surrounding primitives must contain or cross, or {@code null}
+     * @return all errors for the given primitive
+     */
+    private static Collection<TestError> getErrorsForPrimitive(OsmPrimitive p, MapCSSTagCheckerIndex index,
+            Set<IPrimitive> toMatchForSurrounding) {
+        final List<TestError> res = new ArrayList<>();
         final Environment env = new Environment(p, new MultiCascade(), Environment.DEFAULT_LAYER, null);
         env.mpAreaCache = mpAreaCache;
         env.toMatchForSurrounding = toMatchForSurrounding;
 
-        Iterator<MapCSSRule> candidates = indexData.getRuleCandidates(p);
+        Iterator<MapCSSRule> candidates = index.getRuleCandidates(p);
         while (candidates.hasNext()) {
             MapCSSRule r = candidates.next();
+            MapCSSTagCheckerAndRule test = index.getCheck(r);
+            if (test == null) {
+                continue;
+            }
             for (Selector selector : r.selectors) {
                 env.clearSelectorMatchingInformation();
                 if (!selector.matches(env)) { // as side effect env.parent will be set (if s is a child selector)
                     continue;
                 }
-                MapCSSTagCheckerAndRule test = ruleToCheckMap.computeIfAbsent(r, rule -> checks.entrySet().stream()
-                        .map(e -> e.getValue().stream()
-                                // rule.selectors might be different due to MapCSSStyleIndex, however, the declarations are the same object
-                                .filter(c -> c.rule.declaration == rule.declaration)
-                                .findFirst()
-                                .map(c -> new MapCSSTagCheckerAndRule(c, getTitle(e.getKey())))
-                                .orElse(null))
-                        .filter(Objects::nonNull)
-                        .findFirst()
-                        .orElse(null));
-                MapCSSTagCheckerRule check = test == null ? null : test.tagCheck;
-                if (check != null) {
-                    r.declaration.execute(env);
-                    if (!check.errors.isEmpty()) {
-                        for (TestError e: check.getErrorsForPrimitive(p, selector, env, test)) {
-                            addIfNotSimilar(e, res);
-                        }
+                r.declaration.execute(env);
+                if (!test.tagCheck.errors.isEmpty()) {
+                    for (TestError e: test.tagCheck.getErrorsForPrimitive(p, selector, env, test)) {
+                        addIfNotSimilar(e, res);
                     }
                 }
             }
@@ -197,6 +184,20 @@ public class MapCSSTagChecker extends Test.TagTest {
         return res;
     }
 
+    private MapCSSTagCheckerIndex getIndex(boolean includeOtherSeverity) {
+        MapCSSTagCheckerIndex index = indexData;
+        if (index == null) {
+            synchronized (this) {
+                index = indexData;
+                if (index == null) {
+                    index = new MapCSSTagCheckerIndex(checks, includeOtherSeverity, ALL_TESTS, this::getTitle);
+                    indexData = index;
+                }
+            }
+        }
+        return index;
+    }
+
     private String getTitle(String url) {
         return urlTitles.getOrDefault(url, tr("unknown"));
     }
@@ -221,7 +222,6 @@ public class MapCSSTagChecker extends Test.TagTest {
         final List<TestError> r = new ArrayList<>();
         final Environment env = new Environment(p, new MultiCascade(), Environment.DEFAULT_LAYER, null);
         env.mpAreaCache = mpAreaCache;
-        env.toMatchForSurrounding = toMatchForSurrounding;
         for (Set<MapCSSTagCheckerRule> schecks : checksCol) {
             for (MapCSSTagCheckerRule check : schecks) {
                 boolean ignoreError = Severity.OTHER == check.getSeverity() && !includeOtherSeverity;
@@ -374,8 +374,6 @@ public class MapCSSTagChecker extends Test.TagTest {
         indexData = null;
         // always clear the cache to make sure that we catch changes in geometry
         mpAreaCache.clear();
-        ruleToCheckMap.clear();
-        toMatchForSurrounding.clear();
         super.endTest();
     }
 
@@ -395,7 +393,6 @@ public class MapCSSTagChecker extends Test.TagTest {
         }
 
         mpAreaCache.clear();
-        toMatchForSurrounding.clear();
 
         Set<OsmPrimitive> surrounding = new HashSet<>();
         for (Entry<String, Set<MapCSSTagCheckerRule>> entry : checks.entrySet()) {
@@ -419,7 +416,9 @@ public class MapCSSTagChecker extends Test.TagTest {
     private void visit(String url, Set<MapCSSTagCheckerRule> checksForUrl, Collection<OsmPrimitive> selection, Set<OsmPrimitive> surrounding) {
         MultiMap<String, MapCSSTagCheckerRule> currentCheck = new MultiMap<>();
         currentCheck.putAll(url, checksForUrl);
-        indexData = createMapCSSTagCheckerIndex(currentCheck, includeOtherSeverityChecks(), ALL_TESTS);
+        // the index of the rules of this url is local to the run, the shared index is left for the other callers
+        final MapCSSTagCheckerIndex index = new MapCSSTagCheckerIndex(currentCheck, includeOtherSeverityChecks(), ALL_TESTS,
+                this::getTitle);
         Set<OsmPrimitive> tested = new HashSet<>();
 
 
@@ -434,7 +433,9 @@ public class MapCSSTagChecker extends Test.TagTest {
                 break;
             }
             if (isPrimitiveUsable(p)) {
-                check(p);
+                for (TestError e : getErrorsForPrimitive(p, index, null)) {
+                    addIfNotSimilar(e, errors);
+                }
                 if (partialSelection) {
                     tested.add(p);
                 }
@@ -463,8 +464,9 @@ public class MapCSSTagChecker extends Test.TagTest {
         final boolean includeOtherSeverity = includeOtherSeverityChecks();
         // rebuild index with a reduced set of rules (those that use ChildOrParentSelector) and thus may have left selectors
         // matching the previously tested elements
-        indexData = createMapCSSTagCheckerIndex(currentCheck, includeOtherSeverity, ONLY_SELECTED_TESTS);
-        if (indexData.isEmpty())
+        final MapCSSTagCheckerIndex index = new MapCSSTagCheckerIndex(currentCheck, includeOtherSeverity, ONLY_SELECTED_TESTS,
+                this::getTitle);
+        if (index.isEmpty())
             return; // performance: some *.mapcss rule files don't use ChildOrParentSelector
 
         if (surrounding.isEmpty()) {
@@ -476,12 +478,11 @@ public class MapCSSTagChecker extends Test.TagTest {
             }
         }
 
-        toMatchForSurrounding.clear();
-        toMatchForSurrounding.addAll(tested);
+        final Set<IPrimitive> toMatchForSurrounding = new HashSet<>(tested);
         for (OsmPrimitive p : surrounding) {
             if (tested.contains(p))
                 continue;
-            Collection<TestError> additionalErrors = getErrorsForPrimitive(p, includeOtherSeverity);
+            Collection<TestError> additionalErrors = getErrorsForPrimitive(p, index, toMatchForSurrounding);
             for (TestError e : additionalErrors) {
                 if (e.getPrimitives().stream().anyMatch(tested::contains))
                     addIfNotSimilar(e, errors);
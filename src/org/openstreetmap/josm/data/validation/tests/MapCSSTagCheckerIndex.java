@@ -0,0 +1,90 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation.tests;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import org.openstreetmap.josm.data.osm.IPrimitive;
+import org.openstreetmap.josm.data.validation.Severity;
+import org.openstreetmap.josm.data.validation.tests.MapCSSTagChecker.MapCSSTagCheckerAndRule;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Declaration;
+import org.openstreetmap.josm.gui.mappaint.mapcss.MapCSSRule;
+import org.openstreetmap.josm.gui.mappaint.mapcss.MapCSSStyleIndex;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Selector;
+import org.openstreetmap.josm.tools.MultiMap;
+
+/**
+ * Index of the {@link MapCSSTagCheckerRule}s of a {@link MapCSSTagChecker}, the validator counterpart of the
+ * {@link MapCSSStyleIndex} used by the map paint styles.
+ * <p>
+ * The rules are filtered by primitive type, key and value, so that only the candidate rules of a primitive have to be
+ * evaluated. The check of each candidate rule is found directly, without searching all checks.
+ * The index cannot be modified once built, hence it can be used by several threads at the same time.
+ *
+ * @since 18564
+ */
+final class MapCSSTagCheckerIndex {
+
+    private final MapCSSStyleIndex ruleIndex = new MapCSSStyleIndex();
+    /**
+     * The checks of the indexed rules. The rules of {@link #ruleIndex} might be copies of the rules of the checks
+     * with a subset of their selectors, but the declarations are the same object.
+     */
+    private final Map<Declaration, MapCSSTagCheckerAndRule> checksByDeclaration = new IdentityHashMap<>();
+
+    /**
+     * Builds a new index.
+     * @param checks the checks to index, by source URL
+     * @param includeOtherSeverity if {@code true}, the checks of severity {@link Severity#OTHER} (info) are indexed too
+     * @param allTests if {@code false}, only the checks using a {@link Selector.ChildOrParentSelector} are indexed
+     * @param titles gives the title of a source URL
+     */
+    MapCSSTagCheckerIndex(MultiMap<String, MapCSSTagCheckerRule> checks, boolean includeOtherSeverity, boolean allTests,
+            UnaryOperator<String> titles) {
+        final List<MapCSSRule> rules = new ArrayList<>();
+        for (Entry<String, Set<MapCSSTagCheckerRule>> entry : checks.entrySet()) {
+            final String title = titles.apply(entry.getKey());
+            for (MapCSSTagCheckerRule c : entry.getValue()) {
+                // Ignore "information" level checks if not wanted, unless they also set a MapCSS class
+                if ((includeOtherSeverity || Severity.OTHER != c.getSeverity() || !c.setClassExpressions.isEmpty())
+                        && (allTests || c.rule.selectors.stream().anyMatch(Selector.ChildOrParentSelector.class::isInstance))) {
+                    rules.add(c.rule);
+                    checksByDeclaration.putIfAbsent(c.rule.declaration, new MapCSSTagCheckerAndRule(c, title));
+                }
+            }
+        }
+        ruleIndex.buildIndex(rules.stream());
+    }
+
+    /**
+     * Returns the rules which might match the primitive, see {@link MapCSSStyleIndex#getRuleCandidates(IPrimitive)}.
+     * @param p the primitive to match
+     * @return an iterator over the candidate rules, in the order of the checks
+     */
+    Iterator<MapCSSRule> getRuleCandidates(IPrimitive p) {
+        return ruleIndex.getRuleCandidates(p);
+    }
+
+    /**
+     * Returns the check of a rule given by {@link #getRuleCandidates(IPrimitive)}.
+     * @param rule the indexed rule
+     * @return the check of the rule, as a test, or {@code null} if the rule is unknown
+     */
+    MapCSSTagCheckerAndRule getCheck(MapCSSRule rule) {
+        return checksByDeclaration.get(rule.declaration);
+    }
+
+    /**
+     * Determines if this index is empty.
+     * @return {@code true} if no check is indexed
+     */
+    boolean isEmpty() {
+        return ruleIndex.isEmpty();
+    }
+}
@@ -124,6 +124,11 @@ public class OpeningHourTest extends TagTest {
         }
     }
 
+    @Override
+    public boolean isCheckThreadSafe() {
+        return true;
+    }
+
     @Override
     public void check(final OsmPrimitive p) {
         addErrorsForPrimitive(p, this.errors);
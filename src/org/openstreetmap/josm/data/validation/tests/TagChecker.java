@@ -617,6 +617,11 @@ public class TagChecker extends TagTest implements TaggingPresetListener {
         return false;
     }
 
+    @Override
+    public boolean isCheckThreadSafe() {
+        return true;
+    }
+
     /**
      * Checks the primitive tags
      * @param p The primitive to check
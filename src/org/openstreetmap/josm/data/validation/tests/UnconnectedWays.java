@@ -9,7 +9,6 @@ import java.awt.geom.Area;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -29,7 +28,8 @@ import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmDataManager;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.OsmUtils;
-import org.openstreetmap.josm.data.osm.QuadBuckets;
+import org.openstreetmap.josm.data.osm.RTree;
+import org.openstreetmap.josm.data.osm.SpatialIndex;
 import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
 import org.openstreetmap.josm.data.projection.Ellipsoid;
@@ -212,7 +212,7 @@ public abstract class UnconnectedWays extends Test {
     private Set<Node> endnodes; // nodes at end of way
     private Set<Node> middlenodes; // nodes in middle of way
     private Set<Node> othernodes; // nodes appearing at least twice
-    private QuadBuckets<Node> searchNodes;
+    private SpatialIndex<Node> searchNodes;
     private Set<Way> waysToTest;
     private Set<Node> nodesToTest;
     private Area dsArea;
@@ -248,7 +248,7 @@ public abstract class UnconnectedWays extends Test {
     public void startTest(ProgressMonitor monitor) {
         super.startTest(monitor);
         waySegments = new ArrayList<>();
-        searchNodes = new QuadBuckets<>();
+        searchNodes = new RTree<>();
         waysToTest = new HashSet<>();
         nodesToTest = new HashSet<>();
         endnodes = new HashSet<>();
@@ -518,13 +518,6 @@ public abstract class UnconnectedWays extends Test {
             return n.greatCircleDistance(ProjectionRegistry.getProjection().eastNorth2latlon(closest));
         }
 
-        private boolean nearby(Node n, double dist) {
-            if (w.containsNode(n))
-                return false;
-            double d = getDist(n);
-            return !Double.isNaN(d) && d < dist;
-        }
-
         private BBox getBounds(double fudge) {
             double x1 = n1.lon();
             double x2 = n2.lon();
@@ -550,25 +543,16 @@ public abstract class UnconnectedWays extends Test {
          * least as close as the other end of the line, plus
          * a little fudge for the distance away (dist)
          * @param dist fudge to add
-         * @return collection of nearby nodes
+         * @return collection of nearby nodes, sorted by increasing distance
          */
         Collection<Node> nearbyNodes(double dist) {
             BBox bounds = this.getBounds(dist * (360.0d / (Ellipsoid.WGS84.a * 2 * Math.PI)));
-            List<Node> result = null;
-            List<Node> foundNodes = searchNodes.search(bounds);
-            for (Node n : foundNodes) {
-                if (!nearby(n, dist)) {
-                    continue;
-                }
-                // It is actually very rare for us to find a node
-                // so defer as much of the work as possible, like
-                // allocating the hash set
-                if (result == null) {
-                    result = new ArrayList<>();
-                }
-                result.add(n);
-            }
-            return result == null ? Collections.emptyList() : result;
+            // It is actually very rare for us to find a node, so the index
+            // is only descended where it overlaps the bounds
+            return searchNodes.nearest(bounds,
+                    (minLon, minLat, maxLon, maxLat) -> minLon <= bounds.getMaxLon() && maxLon >= bounds.getMinLon()
+                            && minLat <= bounds.getMaxLat() && maxLat >= bounds.getMinLat() ? 0 : Double.POSITIVE_INFINITY,
+                    this::getDist, Integer.MAX_VALUE, Math.nextDown(dist), n -> !w.containsNode(n));
         }
 
         private boolean obstacleBetween(Node endnode) {
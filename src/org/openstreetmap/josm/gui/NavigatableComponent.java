@@ -19,7 +19,6 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.Stack;
 import java.util.TreeMap;
@@ -38,7 +37,6 @@ import org.openstreetmap.josm.data.ViewportData;
 import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.coor.ILatLon;
 import org.openstreetmap.josm.data.coor.LatLon;
-import org.openstreetmap.josm.data.osm.BBox;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
@@ -974,36 +972,25 @@ public class NavigatableComponent extends JComponent implements Helpful {
         return !zoomRedoBuffer.isEmpty();
     }
 
-    private BBox getBBox(Point p, int snapDistance) {
-        return new BBox(getLatLon(p.x - snapDistance, p.y - snapDistance),
-                getLatLon(p.x + snapDistance, p.y + snapDistance));
-    }
-
     /**
      * The *result* does not depend on the current map selection state, neither does the result *order*.
      * It solely depends on the distance to point p.
      * @param p point
      * @param predicate predicate to match
      *
-     * @return a sorted map with the keys representing the distance of their associated nodes to point p.
+     * @return the nodes within snap distance of point p, sorted by increasing distance.
      */
-    private Map<Double, List<Node>> getNearestNodesImpl(Point p, Predicate<OsmPrimitive> predicate) {
-        Map<Double, List<Node>> nearestMap = new TreeMap<>();
+    private List<Node> getNearestNodesImpl(Point p, Predicate<OsmPrimitive> predicate) {
         DataSet ds = MainApplication.getLayerManager().getActiveDataSet();
-
-        if (ds != null) {
-            double dist, snapDistanceSq = PROP_SNAP_DISTANCE.get();
-            snapDistanceSq *= snapDistanceSq;
-
-            for (Node n : ds.searchNodes(getBBox(p, PROP_SNAP_DISTANCE.get()))) {
-                if (predicate.test(n)
-                        && (dist = getPoint2D(n).distanceSq(p)) < snapDistanceSq) {
-                    nearestMap.computeIfAbsent(dist, k -> new LinkedList<>()).add(n);
-                }
-            }
+        if (ds == null) {
+            return Collections.emptyList();
         }
-
-        return nearestMap;
+        int snapDistance = PROP_SNAP_DISTANCE.get();
+        double snapDistanceSq = (double) snapDistance * snapDistance;
+        // one pixel of slack for rounding, the exact check is done in screen coordinates
+        List<Node> nearestList = ds.nodesWithinDistance(getEastNorth(p.x, p.y), (snapDistance + 1) * getScale(), predicate);
+        nearestList.removeIf(n -> getPoint2D(n).distanceSq(p) >= snapDistanceSq);
+        return nearestList;
     }
 
     /**
@@ -1027,26 +1014,19 @@ public class NavigatableComponent extends JComponent implements Helpful {
             ignore = Collections.emptySet();
         }
 
-        Map<Double, List<Node>> nlists = getNearestNodesImpl(p, predicate);
-        if (!nlists.isEmpty()) {
-            Double minDistSq = null;
-            for (Entry<Double, List<Node>> entry : nlists.entrySet()) {
-                Double distSq = entry.getKey();
-                List<Node> nlist = entry.getValue();
-
-                // filter nodes to be ignored before determining minDistSq..
-                nlist.removeAll(ignore);
-                if (minDistSq == null) {
-                    if (!nlist.isEmpty()) {
-                        minDistSq = distSq;
-                        nearestList = new ArrayList<>();
-                        nearestList.addAll(nlist);
-                    }
-                } else {
-                    if (distSq-minDistSq < 16) {
-                        nearestList.addAll(nlist);
-                    }
-                }
+        Double minDistSq = null;
+        for (Node n : getNearestNodesImpl(p, predicate)) {
+            // filter nodes to be ignored before determining minDistSq..
+            if (ignore.contains(n)) {
+                continue;
+            }
+            double distSq = getPoint2D(n).distanceSq(p);
+            if (minDistSq == null) {
+                minDistSq = distSq;
+                nearestList = new ArrayList<>();
+                nearestList.add(n);
+            } else if (distSq-minDistSq < 16) {
+                nearestList.add(n);
             }
         }
 
@@ -1120,38 +1100,36 @@ public class NavigatableComponent extends JComponent implements Helpful {
     public final Node getNearestNode(Point p, Predicate<OsmPrimitive> predicate,
             boolean useSelected, Collection<OsmPrimitive> preferredRefs) {
 
-        Map<Double, List<Node>> nlists = getNearestNodesImpl(p, predicate);
-        if (nlists.isEmpty()) return null;
+        List<Node> nlist = getNearestNodesImpl(p, predicate);
+        if (nlist.isEmpty()) return null;
 
         if (preferredRefs != null && preferredRefs.isEmpty()) preferredRefs = null;
         Node ntsel = null, ntnew = null, ntref = null;
         boolean useNtsel = useSelected;
-        double minDistSq = nlists.keySet().iterator().next();
-
-        for (Entry<Double, List<Node>> entry : nlists.entrySet()) {
-            Double distSq = entry.getKey();
-            for (Node nd : entry.getValue()) {
-                // find the nearest selected node
-                if (ntsel == null && nd.isSelected()) {
-                    ntsel = nd;
-                    // if there are multiple nearest nodes, prefer the one
-                    // that is selected. This is required in order to drag
-                    // the selected node if multiple nodes have the same
-                    // coordinates (e.g. after unglue)
-                    useNtsel |= Utils.equalsEpsilon(distSq, minDistSq);
-                }
-                if (ntref == null && preferredRefs != null && Utils.equalsEpsilon(distSq, minDistSq)) {
-                    List<OsmPrimitive> ndRefs = nd.getReferrers();
-                    if (preferredRefs.stream().anyMatch(ndRefs::contains)) {
-                        ntref = nd;
-                    }
-                }
-                // find the nearest newest node that is within about the same
-                // distance as the true nearest node
-                if (ntnew == null && nd.isNew() && (distSq-minDistSq < 1)) {
-                    ntnew = nd;
+        double minDistSq = getPoint2D(nlist.get(0)).distanceSq(p);
+
+        for (Node nd : nlist) {
+            double distSq = getPoint2D(nd).distanceSq(p);
+            // find the nearest selected node
+            if (ntsel == null && nd.isSelected()) {
+                ntsel = nd;
+                // if there are multiple nearest nodes, prefer the one
+                // that is selected. This is required in order to drag
+                // the selected node if multiple nodes have the same
+                // coordinates (e.g. after unglue)
+                useNtsel |= Utils.equalsEpsilon(distSq, minDistSq);
+            }
+            if (ntref == null && preferredRefs != null && Utils.equalsEpsilon(distSq, minDistSq)) {
+                List<OsmPrimitive> ndRefs = nd.getReferrers();
+                if (preferredRefs.stream().anyMatch(ndRefs::contains)) {
+                    ntref = nd;
                 }
             }
+            // find the nearest newest node that is within about the same
+            // distance as the true nearest node
+            if (ntnew == null && nd.isNew() && (distSq-minDistSq < 1)) {
+                ntnew = nd;
+            }
         }
 
         // take nearest selected, nearest new or true nearest node to p, in that order
@@ -1161,7 +1139,7 @@ public class NavigatableComponent extends JComponent implements Helpful {
             return ntref;
         if (ntnew != null)
             return ntnew;
-        return nlists.values().iterator().next().get(0);
+        return nlist.get(0);
     }
 
     /**
@@ -1194,10 +1172,9 @@ public class NavigatableComponent extends JComponent implements Helpful {
             double snapDistanceSq = Config.getPref().getInt("mappaint.segment.snap-distance", 10);
             snapDistanceSq *= snapDistanceSq;
 
-            for (Way w : ds.searchWays(getBBox(p, Config.getPref().getInt("mappaint.segment.snap-distance", 10)))) {
-                if (!predicate.test(w)) {
-                    continue;
-                }
+            // one pixel of slack for rounding, the exact check is done in screen coordinates
+            double maxDistance = (Config.getPref().getInt("mappaint.segment.snap-distance", 10) + 1) * getScale();
+            for (Way w : ds.waysWithinDistance(getEastNorth(p.x, p.y), maxDistance, predicate)) {
                 Node lastN = null;
                 int i = -2;
                 for (Node n : w.getNodes()) {
@@ -1607,8 +1584,7 @@ public class NavigatableComponent extends JComponent implements Helpful {
                 .collect(Collectors.toList());
 
         // add nearby nodes
-        getNearestNodesImpl(p, predicate).values()
-                .forEach(nearestList::addAll);
+        nearestList.addAll(getNearestNodesImpl(p, predicate));
 
         // add parent relations of nearby nodes and ways
         Set<OsmPrimitive> parentRelations = nearestList.stream()
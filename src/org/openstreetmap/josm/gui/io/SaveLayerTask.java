@@ -52,7 +52,8 @@ public class SaveLayerTask extends AbstractIOTask {
                 setFailed(true);
                 return;
             }
-            if (!isCanceled()) {
+            // the layer is not associated with the file if it was only exported, e.g. to a format without its modifications
+            if (!isCanceled() && layerInfo.getFile().equals(layerInfo.getLayer().getAssociatedFile())) {
                 layerInfo.getLayer().onPostSaveToFile();
             }
         } catch (JosmRuntimeException | IllegalArgumentException | IllegalStateException e) {
@@ -66,6 +66,16 @@ public abstract class FileExporter implements ActiveLayerChangeListener {
         exportData(file, layer); //backwards compatibility
     }
 
+    /**
+     * Determines if the layer is saved by this exporter. If not, the file is only an export of the data of the layer: the
+     * layer is neither associated with the file nor marked as saved, e.g. when the file format cannot store all its data.
+     * @return {@code true} if the layer is saved to the exported file. {@code true} by default
+     * @since 18560
+     */
+    public boolean isSavingLayer() {
+        return true;
+    }
+
     /**
      * Returns the enabled state of this {@code FileExporter}. When enabled, it is listed and usable in "File-&gt;Save" dialogs.
      * @return true if this {@code FileExporter} is enabled
@@ -101,7 +101,7 @@ public class OsmExporter extends FileExporter {
             if ((isAutosave || !Config.getPref().getBoolean("save.keepbackup", false)) && tmpFile != null) {
                 Utils.deleteFile(tmpFile);
             }
-            if (!isAutosave) {
+            if (!isAutosave && isSavingLayer()) {
                 layer.onPostSaveToFile();
             }
         } catch (IOException | InvalidPathException e) {
@@ -0,0 +1,84 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.io.importexport;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.swing.JOptionPane;
+
+import org.openstreetmap.josm.actions.ExtensionFileFilter;
+import org.openstreetmap.josm.gui.ConditionalOptionPaneUtil;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.layer.Layer;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.io.PbfWriter;
+
+/**
+ * Exports data to an .osm.pbf file.
+ * <p>
+ * The PBF format does not store local modifications, use {@link OsmExporter} to keep them. The layer is only exported:
+ * it is not associated with the file, and stays modified. The user is asked for confirmation if it has modifications.
+ * @since 18560
+ */
+public class PbfExporter extends OsmExporter {
+
+    /**
+     * Constructs a new {@code PbfExporter}.
+     */
+    public PbfExporter() {
+        super(new ExtensionFileFilter(
+            "osm.pbf,pbf", "osm.pbf", tr("OSM PBF Files") + " (*.osm.pbf)"));
+    }
+
+    @Override
+    public void exportData(File file, Layer layer) throws IOException {
+        if (layer instanceof OsmDataLayer && ((OsmDataLayer) layer).data.requiresUploadToServer()
+                && !ConditionalOptionPaneUtil.showConfirmationDialog(
+                        "pbf_export_modified",
+                        MainApplication.getMainFrame(),
+                        "<html>" + tr("The layer contains new, modified or deleted objects.") + "<br>"
+                            + tr("The PBF format does not store local modifications: deleted objects are not exported, "
+                                + "and the file cannot be uploaded later.") + "<br>"
+                            + tr("The layer stays modified, save it as .osm to keep the modifications.") + "<br>"
+                            + tr("Export anyway?") + "</html>",
+                        tr("Export to PBF"),
+                        JOptionPane.YES_NO_OPTION,
+                        JOptionPane.WARNING_MESSAGE,
+                        JOptionPane.YES_OPTION)) {
+            setCanceled(true);
+            return;
+        }
+        setCanceled(false);
+        super.exportData(file, layer);
+    }
+
+    @Override
+    public void exportDataQuiet(File file, Layer layer) throws IOException {
+        // the layer is not marked as saved, its modifications are not lost
+        setCanceled(false);
+        super.exportData(file, layer);
+    }
+
+    @Override
+    public boolean isSavingLayer() {
+        return false;
+    }
+
+    @Override
+    protected void doSave(File file, OsmDataLayer layer) throws IOException {
+        try (
+            OutputStream out = getOutputStream(file);
+            PbfWriter w = new PbfWriter(out)
+        ) {
+            layer.data.getReadLock().lock();
+            try {
+                w.write(layer.data);
+            } finally {
+                layer.data.getReadLock().unlock();
+            }
+        }
+    }
+}
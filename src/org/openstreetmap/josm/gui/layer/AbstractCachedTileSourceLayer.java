@@ -78,8 +78,7 @@ public abstract class AbstractCachedTileSourceLayer<T extends AbstractTMSTileSou
      */
     private synchronized ICacheAccess<String, BufferedImageCacheEntry> getCache() {
         if (cache == null) {
-            cache = JCSCacheManager.getCache(getCacheName(),
-                    0,
+            cache = JCSCacheManager.getTileCache(getCacheName(),
                     getDiskCacheSize(),
                     CachedTileLoaderFactory.PROP_TILECACHE_DIR.get());
         }
@@ -102,7 +101,9 @@ public abstract class AbstractCachedTileSourceLayer<T extends AbstractTMSTileSou
      * @return factory returning cached tile loaders using specified cache and TileLoaders
      */
     public static TileLoaderFactory getTileLoaderFactory(String name, Class<? extends TileLoader> klazz) {
-        CacheAccess<String, BufferedImageCacheEntry> cache = getCache(name);
+        ICacheAccess<String, BufferedImageCacheEntry> cache = JCSCacheManager.getTileCache(name,
+                MAX_DISK_CACHE_SIZE.get() * 1024, // MAX_DISK_CACHE_SIZE is in MB, needs to by in sync with getDiskCacheSize
+                CachedTileLoaderFactory.PROP_TILECACHE_DIR.get());
         if (cache == null) {
             return null;
         }
@@ -86,6 +86,7 @@ import org.openstreetmap.josm.data.imagery.ImageryInfo;
 import org.openstreetmap.josm.data.imagery.OffsetBookmark;
 import org.openstreetmap.josm.data.imagery.TMSCachedTileLoader;
 import org.openstreetmap.josm.data.imagery.TileLoaderFactory;
+import org.openstreetmap.josm.data.imagery.TileMemoryPool;
 import org.openstreetmap.josm.data.imagery.vectortile.VectorTile;
 import org.openstreetmap.josm.data.osm.visitor.BoundingXYVisitor;
 import org.openstreetmap.josm.data.preferences.BooleanProperty;
@@ -116,6 +117,7 @@ import org.openstreetmap.josm.gui.layer.imagery.ShowErrorsAction;
 import org.openstreetmap.josm.gui.layer.imagery.TileAnchor;
 import org.openstreetmap.josm.gui.layer.imagery.TileCoordinateConverter;
 import org.openstreetmap.josm.gui.layer.imagery.TilePosition;
+import org.openstreetmap.josm.gui.layer.imagery.TilePrefetcher;
 import org.openstreetmap.josm.gui.layer.imagery.TileSourceDisplaySettings;
 import org.openstreetmap.josm.gui.layer.imagery.TileSourceDisplaySettings.DisplaySettingsChangeEvent;
 import org.openstreetmap.josm.gui.layer.imagery.TileSourceDisplaySettings.DisplaySettingsChangeListener;
@@ -126,7 +128,6 @@ import org.openstreetmap.josm.gui.util.GuiHelper;
 import org.openstreetmap.josm.tools.GBC;
 import org.openstreetmap.josm.tools.HttpClient;
 import org.openstreetmap.josm.tools.Logging;
-import org.openstreetmap.josm.tools.MemoryManager;
 import org.openstreetmap.josm.tools.MemoryManager.MemoryHandle;
 import org.openstreetmap.josm.tools.MemoryManager.NotEnoughMemoryException;
 import org.openstreetmap.josm.tools.Utils;
@@ -188,6 +189,10 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
     protected TileCache tileCache; // initialized together with tileSource
     protected T tileSource;
     protected TileLoader tileLoader;
+    /** loads the tiles likely to be displayed next, if the tile loader supports it */
+    private TilePrefetcher prefetcher;
+    /** the tiles displayed at the zoom level being loaded, used to prioritize the downloads */
+    private volatile TileRange visibleRange;
 
     /** A timer that is used to delay invalidation events if required. */
     private final Timer invalidateLaterTimer = new Timer(100, e -> this.invalidate());
@@ -298,6 +303,12 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
         if (tileLoader == null)
             tileLoader = new OsmTileLoader(this, headers);
 
+        if (tileLoader instanceof TMSCachedTileLoader) {
+            prefetcher = new TilePrefetcher((TMSCachedTileLoader) tileLoader, this::getTileSet, this::getOrCreateTile,
+                    this::isOffscreen);
+            ((TMSCachedTileLoader) tileLoader).setTilePriority(this::getTilePriority);
+        }
+
         tileCache = new MemoryTileCache(estimateTileCacheSize());
     }
 
@@ -307,6 +318,12 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             success = false;
             tile.setImage(null);
         }
+        if (prefetcher != null) {
+            prefetcher.tileLoadingFinished(tile, success);
+        }
+        if (success && !(tile instanceof VectorTile)) {
+            TileMemoryPool.getInstance().add(this, tile);
+        }
         invalidateLater();
         Logging.debug("tileLoadingFinished() tile: {0} success: {1}", tile, success);
     }
@@ -319,6 +336,7 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             ((CachedTileLoader) tileLoader).clearCache(tileSource);
         }
         tileCache.clear();
+        TileMemoryPool.getInstance().clear(this);
     }
 
     @Override
@@ -777,13 +795,64 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
     private void zoomChanged(boolean invalidate) {
         Logging.debug("zoomChanged(): {0}", currentZoomLevel);
         if (tileLoader instanceof TMSCachedTileLoader) {
-            ((TMSCachedTileLoader) tileLoader).cancelOutstandingTasks();
+            // the queued tiles are reordered by getTilePriority, only the tiles that will not be displayed are dropped
+            updateVisibleRange();
+            TilePrefetcher p = prefetcher;
+            ((TMSCachedTileLoader) tileLoader).cancelOutstandingTasks(tile -> isOffscreen(tile) && (p == null || !p.isPrefetching(tile)));
         }
         if (invalidate) {
             invalidate();
         }
     }
 
+    private void updateVisibleRange() {
+        if (MainApplication.isDisplayingMapView()) {
+            int zoom = getDisplaySettings().isAutoZoom() ? getBestZoom() : currentZoomLevel;
+            visibleRange = getTileSet(MainApplication.getMap().mapView.getProjectionBounds(), zoom);
+        }
+    }
+
+    /**
+     * Returns the download priority of a tile, the tiles with a lower value are downloaded first.
+     * The visible tiles come first, then the tiles of the nearest zoom levels, ordered by their distance to the center of the view.
+     * @param tile the tile
+     * @return the priority of the tile
+     */
+    private double getTilePriority(Tile tile) {
+        TileRange range = visibleRange;
+        if (range == null || range.getZoom() == 0) {
+            return 0;
+        }
+        int dz = tile.getZoom() - range.getZoom();
+        // tile size in tiles of the visible zoom level
+        double scale = Math.pow(2, -dz);
+        double x = (tile.getXtile() + 0.5) * scale - (range.getMinX() + range.getMaxX() + 1) / 2d;
+        double y = (tile.getYtile() + 0.5) * scale - (range.getMinY() + range.getMaxY() + 1) / 2d;
+        return (overlaps(range, tile) ? 0 : 1000) + 100 * Math.abs(dz) + Math.hypot(x, y);
+    }
+
+    /**
+     * Determines if a tile will not be displayed in the current view: it is outside the view or its zoom level is too far away.
+     * @param tile the tile
+     * @return {@code true} if the tile is off-screen
+     */
+    private boolean isOffscreen(Tile tile) {
+        TileRange range = visibleRange;
+        if (range == null || range.getZoom() == 0) {
+            return false;
+        }
+        int dz = tile.getZoom() - range.getZoom();
+        return dz > 2 || dz < -5 || !overlaps(range, tile);
+    }
+
+    private static boolean overlaps(TileRange range, Tile tile) {
+        double scale = Math.pow(2, range.getZoom() - tile.getZoom());
+        double minX = tile.getXtile() * scale;
+        double minY = tile.getYtile() * scale;
+        return minX + scale > range.getMinX() && minX < range.getMaxX() + 1
+            && minY + scale > range.getMinY() && minY < range.getMaxY() + 1;
+    }
+
     protected int getMaxZoomLvl() {
         if (info.getMaxZoom() != 0)
             return checkMaxZoomLvl(info.getMaxZoom(), tileSource);
@@ -1061,6 +1130,7 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
                 //cannot paint in parallel
                 drawImageInside(g, img, anchorImage, anchorScreen, null);
             }
+            TileMemoryPool.getInstance().touch(tile);
             MapView mapView = MainApplication.getMap().mapView;
             if (tile instanceof ReprojectionTile && ((ReprojectionTile) tile).needsUpdate(mapView.getScale())) {
                 // This means we have a reprojected tile in memory cache, but not at
@@ -1125,6 +1195,7 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             }
             TileAnchor anchorScreen = coordinateConverter.getScreenAnchorForTile(tile);
             drawImageInside(g, img, anchorImage, anchorScreen, clip);
+            TileMemoryPool.getInstance().touch(tile);
         }
         return Collections.unmodifiableList(missedTiles);
     }
@@ -1572,6 +1643,7 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             setZoomLevel(zoom, false);
         }
         TileSet ts = dts.getTileSet(zoom);
+        visibleRange = ts;
 
         // try to load tiles from desired zoom level, no matter what we will show (for example, tiles from previous zoom level
         // on zoom in)
@@ -1592,6 +1664,9 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
         List<Tile> missedTiles = this.paintTileImages(g, ts);
         if (getDisplaySettings().isAutoLoad()) {
             ts.overloadTiles();
+            if (prefetcher != null) {
+                prefetcher.viewportChanged(pb, zoom, getMinZoomLvl(), getMaxZoomLvl());
+            }
         }
         if (getDisplaySettings().isAutoZoom()) {
             /**
@@ -1616,9 +1691,13 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
         g.setFont(InfoFont);
 
         // The current zoom tileset should have all of its tiles due to the loadAllTiles(), unless it to tooLarge()
-        for (Tile t : ts.allExistingTiles()) {
+        List<Tile> shownTiles = ts.allExistingTiles();
+        for (Tile t : shownTiles) {
             this.paintTileText(t, g);
         }
+        if (prefetcher != null) {
+            prefetcher.tilesShown(shownTiles);
+        }
 
         EastNorth min = pb.getMin();
         EastNorth max = pb.getMax();
@@ -1642,8 +1721,12 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             myDrawString(g, tr("Pixel scale: {0}", getScaleFactor(currentZoomLevel)), xOffset, 195);
             myDrawString(g, tr("Best zoom: {0}", getBestZoom()), xOffset, 210);
             myDrawString(g, tr("Estimated cache size: {0}", estimateTileCacheSize()), xOffset, 225);
+            myDrawString(g, TileMemoryPool.getInstance().getStats(), xOffset, 240);
+            if (prefetcher != null) {
+                myDrawString(g, prefetcher.getStats(), xOffset, 255);
+            }
             if (tileLoader instanceof TMSCachedTileLoader) {
-                int yOffset = 255;
+                int yOffset = 270;
                 myDrawString(g, tr("=== Cache stats ==="), xOffset, yOffset);
                 yOffset += 5;
                 for (String part: ((TMSCachedTileLoader) tileLoader).getStats().split("\n", -1)) {
@@ -1988,13 +2071,16 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
         super.destroy();
         MapView.removeZoomChangeListener(this);
         adjustAction.destroy();
+        if (prefetcher != null) {
+            prefetcher.clear();
+        }
         if (tileLoader instanceof TMSCachedTileLoader) {
             ((TMSCachedTileLoader) tileLoader).shutdown();
         }
     }
 
     private class TileSourcePainter extends CompatibilityModeLayerPainter {
-        /** The memory handle that will hold our tile source. */
+        /** The memory handle of the tiles of this layer in the {@link TileMemoryPool}. */
         private MemoryHandle<?> memory;
 
         @Override
@@ -2028,10 +2114,10 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
 
         private void allocateCacheMemory() {
             if (memory == null) {
-                MemoryManager manager = MemoryManager.getInstance();
-                if (manager.isAvailable(getEstimatedCacheSize())) {
+                TileMemoryPool pool = TileMemoryPool.getInstance();
+                if (pool.isAvailable()) {
                     try {
-                        memory = manager.allocateMemory("tile source layer", getEstimatedCacheSize(), Object::new);
+                        memory = pool.attach(AbstractTileSourceLayer.this, getName());
                     } catch (NotEnoughMemoryException e) {
                         Logging.warn("Could not allocate tile source memory", e);
                     }
@@ -2039,10 +2125,6 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             }
         }
 
-        protected long getEstimatedCacheSize() {
-            return 4L * tileSource.getTileSize() * tileSource.getTileSize() * estimateTileCacheSize();
-        }
-
         @Override
         public void detachFromMapView(MapViewEvent event) {
             event.getMapView().removeMouseListener(adapter);
@@ -2050,6 +2132,7 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             super.detachFromMapView(event);
             if (memory != null) {
                 memory.free();
+                memory = null;
             }
         }
     }
@@ -2060,6 +2143,7 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
         displaySettings.setOffsetBookmark(displaySettings.getOffsetBookmark());
         if (tileCache != null) {
             tileCache.clear();
+            TileMemoryPool.getInstance().clear(this);
         }
     }
 
@@ -0,0 +1,456 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.DataSetSnapshot;
+import org.openstreetmap.josm.data.osm.DownloadPolicy;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.RelationData;
+import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
+import org.openstreetmap.josm.data.osm.UploadPolicy;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.WayData;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListenerAdapter.Listener;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.io.Compression;
+import org.openstreetmap.josm.io.IllegalDataException;
+import org.openstreetmap.josm.io.OsmReader;
+import org.openstreetmap.josm.io.OsmWriter;
+import org.openstreetmap.josm.io.OsmWriterFactory;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Journal of the changes of a data layer since its last autosave snapshot.
+ * <p>
+ * Instead of writing the whole layer each time it has been modified, the {@link AutosaveTask} appends the primitives
+ * changed since the last save to a journal file next to the snapshot. The cost of a save is then proportional to the
+ * number of modified primitives, and the data set is only read-locked while these primitives are copied. The full
+ * snapshots are written from a {@link DataSetSnapshot}, so the data set is not locked while they are written.
+ * A new full snapshot is written (and the journal restarted) when the journal gets too large compared to the layer,
+ * or when a change cannot be journaled, e.g. a change of the data sources.
+ * <p>
+ * The journal is a sequence of blocks. Each block is made of its length followed by the serialized users, changed
+ * primitives and removed primitive ids. A truncated last block, e.g. after a crash during the write, is ignored.
+ * Before an autosaved file is restored or archived, its journal is replayed into it with {@link #replay(File)}.
+ *
+ * @since 18569
+ */
+final class AutosaveJournal implements Listener {
+
+    /**
+     * Defines if the changes of data layers are journaled instead of writing the whole layer at each autosave
+     */
+    static final BooleanProperty PROP_JOURNAL_ENABLED = new BooleanProperty("autosave.journal", true);
+    /**
+     * Number of journaled primitives, in percent of the layer size, after which a new full snapshot is written
+     */
+    static final IntegerProperty PROP_MAX_JOURNAL_RATIO = new IntegerProperty("autosave.journal.max-ratio", 50);
+
+    private static final String JOURNAL_EXTENSION = ".journal";
+    /** Minimal number of journaled primitives before a new snapshot is written, to avoid rewriting tiny layers */
+    private static final int MIN_JOURNAL_SIZE = 1000;
+    private static final Comparator<PrimitiveId> TYPE_ORDER = Comparator.comparing(PrimitiveId::getType);
+
+    private final DataSet data;
+    /** Primitives changed since the last save, by identity */
+    private Set<OsmPrimitive> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** Set if a change cannot be journaled */
+    private boolean snapshotRequired = true;
+    /** Unique ids of the new primitives at the last save, to detect id changes on upload */
+    private final Map<OsmPrimitive, Long> newIds = new IdentityHashMap<>();
+    private File snapshot;
+    private long journaledPrimitives;
+    private int dataSourceCount;
+    private DownloadPolicy downloadPolicy;
+    private UploadPolicy uploadPolicy;
+    private boolean locked;
+
+    /**
+     * Constructs a new {@code AutosaveJournal}. It has to be registered as data set listener of the data.
+     * @param data the data set of the layer
+     */
+    AutosaveJournal(DataSet data) {
+        this.data = data;
+    }
+
+    /**
+     * Returns the journaled data set.
+     * @return the data set of the layer
+     */
+    DataSet getDataSet() {
+        return data;
+    }
+
+    /**
+     * Returns the journal file of an autosaved file.
+     * @param snapshot the autosaved file
+     * @return the journal file, which might not exist
+     */
+    static File getJournalFile(File snapshot) {
+        return new File(snapshot.getParentFile(), snapshot.getName() + JOURNAL_EXTENSION);
+    }
+
+    /**
+     * Determines if a file is the journal of an autosaved file.
+     * @param file the file
+     * @return {@code true} if the file is a journal
+     */
+    static boolean isJournalFile(File file) {
+        return file.getName().endsWith(JOURNAL_EXTENSION);
+    }
+
+    @Override
+    public void processDatasetEvent(AbstractDatasetChangedEvent event) {
+        synchronized (this) {
+            if (!snapshotRequired && !addChanged(event)) {
+                // unknown changes
+                snapshotRequired = true;
+                dirty.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds the primitives changed by an event to the dirty primitives.
+     * The primitives of a {@link DataChangedEvent} are all primitives of the data set, its events are unpacked instead.
+     * @param event the event
+     * @return {@code false} if the changed primitives are unknown
+     */
+    private boolean addChanged(AbstractDatasetChangedEvent event) {
+        if (event instanceof DataChangedEvent) {
+            List<AbstractDatasetChangedEvent> events = ((DataChangedEvent) event).getEvents();
+            if (events == null)
+                return false;
+            for (AbstractDatasetChangedEvent e : events) {
+                if (!addChanged(e))
+                    return false;
+            }
+            return true;
+        }
+        dirty.addAll(event.getPrimitives());
+        return true;
+    }
+
+    /**
+     * Determines if the changes since the last save can be appended to the journal.
+     * @return {@code false} if a new full snapshot has to be written
+     */
+    synchronized boolean canAppend() {
+        return !snapshotRequired && snapshot != null && snapshot.isFile()
+                && journaledPrimitives + dirty.size() <= Math.max(MIN_JOURNAL_SIZE,
+                        (long) data.allPrimitives().size() * PROP_MAX_JOURNAL_RATIO.get() / 100)
+                && dataSourceCount == data.getDataSources().size()
+                && downloadPolicy == data.getDownloadPolicy()
+                && uploadPolicy == data.getUploadPolicy()
+                && locked == data.isLocked();
+    }
+
+    /**
+     * Writes a new full snapshot of the layer and restarts the journal. Changes made from now on will be journaled.
+     * <p>
+     * The data set is only read-locked while its {@link DataSet#getSnapshot() snapshot} is taken, the file is written
+     * from the snapshot without holding the lock.
+     * @param file the new snapshot file
+     * @throws IOException if the snapshot cannot be written
+     */
+    void writeSnapshot(File file) throws IOException {
+        final DataSetSnapshot copy;
+        final List<DataSource> dataSources;
+        // no change can happen while the snapshot is taken and the journal restarted
+        data.getReadLock().lock();
+        try {
+            copy = data.getSnapshot();
+            dataSources = new ArrayList<>(data.getDataSources());
+            dataSourceCount = dataSources.size();
+            downloadPolicy = data.getDownloadPolicy();
+            uploadPolicy = data.getUploadPolicy();
+            locked = data.isLocked();
+            newIds.clear();
+            for (OsmPrimitive p : data.allPrimitives()) {
+                if (p.isNew()) {
+                    newIds.put(p, p.getUniqueId());
+                }
+            }
+            synchronized (this) {
+                // changes made while the file is written are journaled once it is written
+                dirty.clear();
+                snapshotRequired = false;
+                snapshot = null;
+                journaledPrimitives = 0;
+            }
+        } finally {
+            data.getReadLock().unlock();
+        }
+        try (OutputStream out = Compression.getCompressedFileOutputStream(file);
+             OsmWriter w = OsmWriterFactory.createOsmWriter(
+                     new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), false, data.getVersion())) {
+            w.header(downloadPolicy, uploadPolicy, locked);
+            w.writeDataSources(dataSources);
+            w.writeContent(copy, uploadPolicy);
+            w.footer();
+            w.flush();
+        } catch (IOException e) {
+            synchronized (this) {
+                snapshotRequired = true;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            snapshot = file;
+        }
+    }
+
+    /**
+     * Appends the changes since the last save to the journal of the current snapshot.
+     * @throws IOException if the journal cannot be written. A full snapshot is then required for the next save.
+     */
+    void append() throws IOException {
+        final Set<OsmPrimitive> changed;
+        synchronized (this) {
+            if (dirty.isEmpty())
+                return;
+            changed = dirty;
+            dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+        }
+        final List<PrimitiveData> saved = new ArrayList<>(changed.size());
+        final List<SimplePrimitiveId> removed = new ArrayList<>();
+        final Map<Long, String> users = new HashMap<>();
+        data.getReadLock().lock();
+        try {
+            // referrers of uploaded primitives have to refer to the new ids
+            final Set<OsmPrimitive> referrers = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (OsmPrimitive p : changed) {
+                Long oldId = newIds.remove(p);
+                if (p.getDataSet() == data) {
+                    saved.add(save(p, users));
+                    if (oldId != null && oldId != p.getUniqueId()) {
+                        // the primitive has been uploaded
+                        removed.add(new SimplePrimitiveId(oldId, p.getType()));
+                        referrers.addAll(p.getReferrers());
+                    }
+                    if (p.isNew()) {
+                        newIds.put(p, p.getUniqueId());
+                    }
+                } else {
+                    removed.add(new SimplePrimitiveId(oldId != null ? oldId : p.getUniqueId(), p.getType()));
+                }
+            }
+            referrers.removeAll(changed);
+            for (OsmPrimitive p : referrers) {
+                saved.add(save(p, users));
+            }
+        } finally {
+            data.getReadLock().unlock();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(users);
+            oos.writeObject(saved);
+            oos.writeObject(removed);
+        }
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(getJournalFile(snapshot).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        } catch (IOException e) {
+            synchronized (this) {
+                snapshotRequired = true;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            journaledPrimitives += saved.size() + removed.size();
+        }
+    }
+
+    private static PrimitiveData save(OsmPrimitive p, Map<Long, String> users) {
+        PrimitiveData d = p.save();
+        User user = d.getUser();
+        if (user != null && user.isOsmUser()) {
+            users.put(user.getId(), user.getName());
+        }
+        return d;
+    }
+
+    /**
+     * Replays the journal of an autosaved file into the file, then deletes the journal.
+     * Nothing is done if the file has no journal.
+     * @param snapshot the autosaved file
+     * @return {@code true} if a journal has been replayed
+     */
+    static boolean replay(File snapshot) {
+        File journal = getJournalFile(snapshot);
+        if (!journal.isFile())
+            return false;
+        try {
+            JournalReader reader = new JournalReader();
+            DataSet ds = reader.parse(snapshot);
+            boolean readOnly = ds.isLocked();
+            if (readOnly) {
+                ds.unlock();
+            }
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(journal.toPath()))) {
+                byte[] block;
+                while ((block = readBlock(in)) != null) {
+                    applyBlock(ds, reader.getPrimitivesById(), block);
+                }
+            }
+            if (readOnly) {
+                ds.lock();
+            }
+            File tmp = new File(snapshot.getParentFile(), snapshot.getName() + JOURNAL_EXTENSION + ".tmp");
+            try (OutputStream out = Compression.byExtension(snapshot.getName())
+                    .getCompressedOutputStream(Files.newOutputStream(tmp.toPath()));
+                 OsmWriter w = OsmWriterFactory.createOsmWriter(
+                         new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), false, ds.getVersion())) {
+                w.write(ds);
+                w.flush();
+            }
+            Files.move(tmp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Utils.deleteFile(journal);
+            return true;
+        } catch (IOException | IllegalDataException | ClassNotFoundException | ClassCastException e) {
+            Logging.log(Logging.LEVEL_ERROR, tr("Unable to replay autosave journal {0}", journal.getAbsolutePath()), e);
+            return false;
+        }
+    }
+
+    private static byte[] readBlock(DataInputStream in) throws IOException {
+        try {
+            byte[] block = new byte[in.readInt()];
+            in.readFully(block);
+            return block;
+        } catch (EOFException e) {
+            Logging.trace(e);
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void applyBlock(DataSet ds, Map<PrimitiveId, OsmPrimitive> primitives, byte[] block)
+            throws IOException, ClassNotFoundException, IllegalDataException {
+        final List<PrimitiveData> saved;
+        final List<SimplePrimitiveId> removed;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(block))) {
+            // users must be known before reading the primitives
+            ((Map<Long, String>) ois.readObject()).forEach(User::createOsmUser);
+            saved = (List<PrimitiveData>) ois.readObject();
+            removed = (List<SimplePrimitiveId>) ois.readObject();
+        }
+        // load in order nodes, ways and relations, so that most referenced primitives already exist
+        saved.sort(TYPE_ORDER);
+        for (PrimitiveData data : saved) {
+            PrimitiveData d = data.makeCopy();
+            if (d instanceof WayData) {
+                List<Long> nodeIds = new ArrayList<>(((WayData) d).getNodeIds().size());
+                for (Long id : ((WayData) d).getNodeIds()) {
+                    nodeIds.add(getReference(ds, primitives, OsmPrimitiveType.NODE, id).getUniqueId());
+                }
+                ((WayData) d).setNodeIds(nodeIds);
+            } else if (d instanceof RelationData) {
+                List<RelationMemberData> members = new ArrayList<>(((RelationData) d).getMembers().size());
+                for (RelationMemberData m : ((RelationData) d).getMembers()) {
+                    members.add(new RelationMemberData(m.getRole(), m.getMemberType(),
+                            getReference(ds, primitives, m.getMemberType(), m.getMemberId()).getUniqueId()));
+                }
+                ((RelationData) d).setMembers(members);
+            }
+            SimplePrimitiveId key = new SimplePrimitiveId(data.getUniqueId(), data.getType());
+            OsmPrimitive p = primitives.get(key);
+            if (p == null) {
+                // new primitives get a new unique id
+                p = data.getType().newInstance(data.isNew() ? 0 : data.getUniqueId(), false);
+                primitives.put(key, p);
+                if (d instanceof WayData || d instanceof RelationData) {
+                    // ways and relations are loaded from the primitives of their data set
+                    ds.addPrimitive(p);
+                    p.load(d);
+                } else {
+                    // nodes must have coordinates when added
+                    p.load(d);
+                    ds.addPrimitive(p);
+                }
+            } else {
+                p.load(d);
+            }
+        }
+        // remove in order relations, ways and nodes
+        removed.sort(TYPE_ORDER.reversed());
+        for (SimplePrimitiveId id : removed) {
+            OsmPrimitive p = primitives.get(id);
+            if (p != null && p.getDataSet() == ds && p.getReferrers().isEmpty()) {
+                primitives.remove(id);
+                ds.removePrimitive(p.getPrimitiveId());
+            }
+        }
+    }
+
+    private static OsmPrimitive getReference(DataSet ds, Map<PrimitiveId, OsmPrimitive> primitives,
+            OsmPrimitiveType type, long id) throws IllegalDataException {
+        SimplePrimitiveId key = new SimplePrimitiveId(id, type);
+        OsmPrimitive p = primitives.get(key);
+        if (p == null) {
+            if (id < 0 && type == OsmPrimitiveType.NODE)
+                throw new IllegalDataException(tr("Missing node {0}", id));
+            // referenced existing primitives are incomplete, new ways and relations are empty until loaded
+            p = type.newInstance(id > 0 ? id : 0, false);
+            ds.addPrimitive(p);
+            primitives.put(key, p);
+        }
+        return p;
+    }
+
+    /**
+     * Reader of an autosaved file, giving access to the primitives by their id in the file.
+     */
+    private static final class JournalReader extends OsmReader {
+
+        DataSet parse(File file) throws IOException, IllegalDataException {
+            try (InputStream in = Compression.getUncompressedFileInputStream(file)) {
+                return doParseDataSet(in, NullProgressMonitor.INSTANCE);
+            }
+        }
+
+        Map<PrimitiveId, OsmPrimitive> getPrimitivesById() {
+            return externalIdMap;
+        }
+    }
+}
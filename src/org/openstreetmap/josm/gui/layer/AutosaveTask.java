@@ -62,7 +62,8 @@ import org.openstreetmap.josm.tools.Utils;
  *  - autosave dir: copies of the currently open data layers are saved here every
  *      PROP_INTERVAL seconds. When a data layer is closed normally, the corresponding
  *      files are removed. If this dir is non-empty on start, JOSM assumes
- *      that it crashed last time.
+ *      that it crashed last time. The changes of a data layer made after it has been
+ *      saved are appended to a journal next to the saved file, see {@link AutosaveJournal}.
  *  - deleted layers dir: "secondary archive" - when autosaved layers are restored
  *      they are copied to this directory. We cannot keep them in the autosave folder,
  *      but just deleting it would be dangerous: Maybe a feature inside the file
@@ -110,6 +111,8 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
         private String layerName;
         private String layerFileName;
         private final Deque<File> backupFiles = new LinkedList<>();
+        private AutosaveJournal journal;
+        private DataSetListenerAdapter journalAdapter;
 
         AutosaveLayerInfo(T layer) {
             this.layer = layer;
@@ -149,7 +152,8 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
                 return;
             }
 
-            File[] files = deletedLayersDir.listFiles();
+            // the journals which could not be replayed are archived next to their file
+            File[] files = deletedLayersDir.listFiles(file -> !AutosaveJournal.isJournalFile(file));
             if (files != null) {
                 try {
                     Arrays.sort(files, Comparator.comparingLong(File::lastModified));
@@ -234,10 +238,19 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
         try {
             Data data = info.layer.getData();
             if (data != null && changedData.remove(data)) {
-                File file = getNewLayerFile(info, Instant.now(), 0);
-                if (file != null) {
-                    info.backupFiles.add(file);
-                    info.layer.autosave(file);
+                // a journal is only used if a single file is kept, other files are full backups of previous states
+                if (info.journal != null && PROP_FILES_PER_LAYER.get() <= 1 && info.journal.canAppend()) {
+                    info.journal.append();
+                } else {
+                    File file = getNewLayerFile(info, Instant.now(), 0);
+                    if (file != null) {
+                        info.backupFiles.add(file);
+                        if (info.journal != null) {
+                            info.journal.writeSnapshot(file);
+                        } else {
+                            info.layer.autosave(file);
+                        }
+                    }
                 }
             }
         } catch (IOException e) {
@@ -247,6 +260,7 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
             File oldFile = info.backupFiles.remove();
             if (Utils.deleteFile(oldFile, marktr("Unable to delete old backup file {0}"))) {
                 Utils.deleteFile(getPidFile(oldFile), marktr("Unable to delete old backup file {0}"));
+                Utils.deleteFileIfExists(AutosaveJournal.getJournalFile(oldFile));
             }
         }
     }
@@ -284,7 +298,13 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
     private void registerNewlayer(OsmDataLayer layer) {
         synchronized (layersLock) {
             layer.getDataSet().addDataSetListener(datasetAdapter);
-            layersInfo.add(new AutosaveLayerInfo<>(layer));
+            AutosaveLayerInfo<OsmDataLayer> info = new AutosaveLayerInfo<>(layer);
+            if (AutosaveJournal.PROP_JOURNAL_ENABLED.get()) {
+                info.journal = new AutosaveJournal(layer.getDataSet());
+                info.journalAdapter = new DataSetListenerAdapter(info.journal);
+                layer.getDataSet().addDataSetListener(info.journalAdapter);
+            }
+            layersInfo.add(info);
         }
     }
 
@@ -341,6 +361,9 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
             if (info.layer == removedLayer) {
 
                 savelayer(info);
+                if (info.journal != null) {
+                    info.journal.getDataSet().removeDataSetListener(info.journalAdapter);
+                }
                 File lastFile = info.backupFiles.pollLast();
                 if (lastFile != null) {
                     moveToDeletedLayersFolder(lastFile);
@@ -348,6 +371,7 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
                 for (File file: info.backupFiles) {
                     if (Utils.deleteFile(file)) {
                         Utils.deleteFile(getPidFile(file));
+                        Utils.deleteFileIfExists(AutosaveJournal.getJournalFile(file));
                     }
                 }
 
@@ -439,6 +463,8 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
      */
     public Future<?> recoverUnsavedLayers() {
         List<File> files = getUnsavedLayersFiles();
+        // apply the changes journaled after the last snapshots before opening them
+        MainApplication.worker.submit(() -> files.forEach(AutosaveJournal::replay));
         final OpenFileTask openFileTsk = new OpenFileTask(files, null, tr("Restoring files"));
         final Future<?> openFilesFuture = MainApplication.worker.submit(openFileTsk);
         return MainApplication.worker.submit(() -> {
@@ -459,20 +485,30 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
      * If moving does not work, it will try to delete the file directly.
      * Afterwards, if the number of deleted layers gets larger than PROP_DELETED_LAYERS,
      * some files in the deleted layers directory will be removed.
+     * <p>
+     * The journal of the file is replayed into it first. If it cannot be replayed, it is archived next to the file, so that
+     * the journaled changes are not lost.
      *
      * @param f the file, usually from the autosave dir
      */
     private void moveToDeletedLayersFolder(File f) {
         File backupFile = new File(deletedLayersDir, f.getName());
         File pidFile = getPidFile(f);
+        File journal = AutosaveJournal.getJournalFile(f);
+        // the archived file must contain the journaled changes
+        boolean keepJournal = journal.exists() && !AutosaveJournal.replay(f);
 
         if (backupFile.exists()) {
             deletedLayers.remove(backupFile);
             Utils.deleteFile(backupFile, marktr("Unable to delete old backup file {0}"));
         }
+        Utils.deleteFileIfExists(AutosaveJournal.getJournalFile(backupFile));
         if (f.renameTo(backupFile)) {
             deletedLayers.add(backupFile);
             Utils.deleteFile(pidFile);
+            if (keepJournal && !journal.renameTo(AutosaveJournal.getJournalFile(backupFile))) {
+                Logging.warn(String.format("Could not move autosave journal %s to %s folder", journal.getName(), deletedLayersDir.getName()));
+            }
         } else {
             Logging.warn(String.format("Could not move autosaved file %s to %s folder", f.getName(), deletedLayersDir.getName()));
             // we cannot move to deleted folder, so just try to delete it directly
@@ -486,6 +522,7 @@ public class AutosaveTask extends TimerTask implements LayerChangeListener, List
                 break;
             }
             Utils.deleteFile(next, marktr("Unable to delete archived backup file {0}"));
+            Utils.deleteFileIfExists(AutosaveJournal.getJournalFile(next));
         }
     }
 
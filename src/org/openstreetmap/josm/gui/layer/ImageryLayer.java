@@ -10,10 +10,14 @@ import java.awt.event.ActionEvent;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
 import java.awt.image.ImagingOpException;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -31,6 +35,7 @@ import javax.swing.JTextField;
 
 import org.openstreetmap.josm.data.ProjectionBounds;
 import org.openstreetmap.josm.data.imagery.ImageryInfo;
+import org.openstreetmap.josm.data.imagery.TileMemoryPool;
 import org.openstreetmap.josm.data.preferences.IntegerProperty;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.gui.MainApplication;
@@ -39,6 +44,7 @@ import org.openstreetmap.josm.gui.MenuScroller;
 import org.openstreetmap.josm.gui.layer.imagery.ImageryFilterSettings;
 import org.openstreetmap.josm.gui.layer.imagery.MVTLayer;
 import org.openstreetmap.josm.gui.widgets.UrlLabel;
+import org.openstreetmap.josm.io.session.SessionAwareReadApply;
 import org.openstreetmap.josm.tools.GBC;
 import org.openstreetmap.josm.tools.ImageProcessor;
 import org.openstreetmap.josm.tools.ImageProvider;
@@ -58,6 +64,11 @@ public abstract class ImageryLayer extends Layer {
     public static final IntegerProperty PROP_SHARPEN_LEVEL = new IntegerProperty("imagery.sharpen_level", 0);
 
     private final List<ImageProcessor> imageProcessors = new ArrayList<>();
+    /**
+     * The processed images, by source image, reused while the settings of the image processors do not change. They are
+     * softly referenced, as they are not counted in the {@link TileMemoryPool}: they are dropped when memory is needed.
+     */
+    private final Map<BufferedImage, ProcessedImage> processedImages = Collections.synchronizedMap(new WeakHashMap<>());
 
     protected final ImageryInfo info;
 
@@ -311,13 +322,53 @@ public abstract class ImageryLayer extends Layer {
     }
 
     /**
-     * Applies all the chosen {@link ImageProcessor}s to the image
+     * Applies all the chosen {@link ImageProcessor}s to the image.
+     * <p>
+     * The result is reused for the same image as long as the settings of the processors do not change. This requires that
+     * all processors are {@link SessionAwareReadApply}, which gives their settings, the image is processed each time otherwise.
      *
      * @param img - image which should be changed
      *
      * @return the new changed image
      */
     public BufferedImage applyImageProcessors(BufferedImage img) {
+        final List<Object> settings = getImageProcessorSettings();
+        if (settings == null) {
+            return processImage(img);
+        }
+        final ProcessedImage processed = processedImages.get(img);
+        if (processed != null && processed.settings.equals(settings)) {
+            if (processed.image == null) {
+                return img;
+            }
+            final BufferedImage image = processed.image.get();
+            if (image != null) {
+                return image;
+            }
+        }
+        final BufferedImage result = processImage(img);
+        // do not reference the source image from the value, it would never be collected
+        processedImages.put(img, new ProcessedImage(settings, result == img ? null : result));
+        return result;
+    }
+
+    /**
+     * Get the settings of the image processors
+     * @return the class and the settings of each processor, {@code null} if the settings of a processor are unknown
+     */
+    private List<Object> getImageProcessorSettings() {
+        final List<Object> settings = new ArrayList<>(2 * imageProcessors.size());
+        for (ImageProcessor processor : imageProcessors) {
+            if (!(processor instanceof SessionAwareReadApply)) {
+                return null;
+            }
+            settings.add(processor.getClass());
+            settings.add(((SessionAwareReadApply) processor).toPropertiesMap());
+        }
+        return settings;
+    }
+
+    private BufferedImage processImage(BufferedImage img) {
         for (ImageProcessor processor : imageProcessors) {
             try {
                 img = processor.process(img);
@@ -328,6 +379,17 @@ public abstract class ImageryLayer extends Layer {
         return img;
     }
 
+    private static final class ProcessedImage {
+        private final List<Object> settings;
+        /** the processed image, {@code null} if it is the source image */
+        private final SoftReference<BufferedImage> image;
+
+        ProcessedImage(List<Object> settings, BufferedImage image) {
+            this.settings = settings;
+            this.image = image != null ? new SoftReference<>(image) : null;
+        }
+    }
+
     /**
      * An additional menu entry in the imagery offset menu.
      * @author Michael Zangl
@@ -92,6 +92,7 @@ import org.openstreetmap.josm.data.osm.visitor.BoundingXYVisitor;
 import org.openstreetmap.josm.data.osm.visitor.OsmPrimitiveVisitor;
 import org.openstreetmap.josm.data.osm.visitor.paint.AbstractMapRenderer;
 import org.openstreetmap.josm.data.osm.visitor.paint.MapRendererFactory;
+import org.openstreetmap.josm.data.osm.visitor.paint.TiledMapRenderer;
 import org.openstreetmap.josm.data.osm.visitor.paint.relations.MultipolygonCache;
 import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.data.preferences.IntegerProperty;
@@ -189,6 +190,9 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
     /** List of recent relations */
     private final Map<Relation, Void> recentRelations = new LruCache<>(PROPERTY_RECENT_RELATIONS_NUMBER.get());
 
+    /** The renderer caching tiles of this layer, if {@link TiledMapRenderer#PROP_TILED_RENDERING} is enabled */
+    private TiledMapRenderer tiledRenderer;
+
     /**
      * Returns list of recently closed relations or null if none.
      * @return list of recently closed relations or <code>null</code> if none
@@ -537,10 +541,24 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
             }
         }
 
-        AbstractMapRenderer painter = MapRendererFactory.getInstance().createActiveRenderer(g, mv, inactive);
-        painter.enableSlowOperations(mv.getMapMover() == null || !mv.getMapMover().movementInProgress()
-                || !PROPERTY_HIDE_LABELS_WHILE_DRAGGING.get());
-        painter.render(data, virtual, box);
+        // add the nodes held in compact form which are now displayed
+        if (data.getNodeStore() != null) {
+            data.materializeNodes(box.toBBox());
+        }
+
+        boolean slowOperations = mv.getMapMover() == null || !mv.getMapMover().movementInProgress()
+                || !PROPERTY_HIDE_LABELS_WHILE_DRAGGING.get();
+        if (TiledMapRenderer.PROP_TILED_RENDERING.get()) {
+            if (tiledRenderer == null) {
+                tiledRenderer = new TiledMapRenderer(data);
+            }
+            tiledRenderer.paint(g, mv, inactive, virtual, slowOperations);
+        } else {
+            destroyTiledRenderer();
+            AbstractMapRenderer painter = MapRendererFactory.getInstance().createActiveRenderer(g, mv, inactive);
+            painter.enableSlowOperations(slowOperations);
+            painter.render(data, virtual, box);
+        }
         MainApplication.getMap().conflictDialog.paintConflicts(g, mv);
     }
 
@@ -1143,12 +1161,20 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
         data.removeHighlightUpdateListener(this);
         data.removeDataSetListener(dataSetListenerAdapter);
         data.removeDataSetListener(MultipolygonCache.getInstance());
+        destroyTiledRenderer();
         data.clearSelection();
         validationErrors.clear();
         removeClipboardDataFor(this);
         recentRelations.clear();
     }
 
+    private void destroyTiledRenderer() {
+        if (tiledRenderer != null) {
+            tiledRenderer.destroy();
+            tiledRenderer = null;
+        }
+    }
+
     protected static void removeClipboardDataFor(OsmDataLayer osm) {
         Transferable clipboardContents = ClipboardUtils.getClipboardContent();
         if (clipboardContents != null && clipboardContents.isDataFlavorSupported(OsmLayerTransferData.OSM_FLAVOR)) {
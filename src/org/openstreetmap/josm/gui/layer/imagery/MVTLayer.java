@@ -6,14 +6,19 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 import java.awt.Component;
 import java.awt.Graphics2D;
 import java.awt.event.ActionEvent;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -25,6 +30,7 @@ import javax.swing.JMenuItem;
 
 import org.apache.commons.jcs3.access.CacheAccess;
 import org.openstreetmap.gui.jmapviewer.Tile;
+import org.openstreetmap.gui.jmapviewer.TileRange;
 import org.openstreetmap.gui.jmapviewer.interfaces.TileLoader;
 import org.openstreetmap.josm.actions.ExpertToggleAction;
 import org.openstreetmap.josm.data.Bounds;
@@ -34,8 +40,10 @@ import org.openstreetmap.josm.data.imagery.vectortile.mapbox.Layer;
 import org.openstreetmap.josm.data.imagery.vectortile.mapbox.MVTFile;
 import org.openstreetmap.josm.data.imagery.vectortile.mapbox.MVTTile;
 import org.openstreetmap.josm.data.imagery.vectortile.mapbox.MVTTile.TileListener;
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.MVTTileRenderer;
 import org.openstreetmap.josm.data.imagery.vectortile.mapbox.MapboxVectorCachedTileLoader;
 import org.openstreetmap.josm.data.imagery.vectortile.mapbox.MapboxVectorTileSource;
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.style.PaintLayer;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
@@ -45,6 +53,7 @@ import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.data.osm.visitor.paint.AbstractMapRenderer;
 import org.openstreetmap.josm.data.osm.visitor.paint.MapRendererFactory;
 import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.data.vector.VectorDataSet;
 import org.openstreetmap.josm.data.vector.VectorNode;
 import org.openstreetmap.josm.data.vector.VectorPrimitive;
@@ -57,6 +66,7 @@ import org.openstreetmap.josm.gui.layer.LayerManager;
 import org.openstreetmap.josm.gui.layer.OsmDataLayer;
 import org.openstreetmap.josm.gui.mappaint.ElemStyles;
 import org.openstreetmap.josm.gui.mappaint.StyleSource;
+import org.openstreetmap.josm.tools.Utils;
 
 /**
  * A layer for Mapbox Vector Tiles
@@ -67,8 +77,29 @@ public class MVTLayer extends AbstractCachedTileSourceLayer<MapboxVectorTileSour
     private static final String CACHE_REGION_NAME = "MVT";
     // Just to avoid allocating a bunch of 0 length action arrays
     private static final Action[] EMPTY_ACTIONS = new Action[0];
-    private final Map<String, Boolean> layerNames = new HashMap<>();
+    /**
+     * Draw the tiles directly from their features, with the Mapbox style of the source. The features are converted to
+     * primitives only when the data is needed.
+     * @since 18579
+     */
+    public static final BooleanProperty DIRECT_RENDERING = new BooleanProperty("mvt.render.direct", true);
+    /** The maximal scale of the tiles drawn beyond their zoom level */
+    private static final int MAX_RENDER_SCALE = 8;
+    private final Map<String, Boolean> layerNames = new ConcurrentHashMap<>();
     private final VectorDataSet dataSet = new VectorDataSet();
+    /** The renderer of the tiles, {@code null} if the tiles are drawn from the data set */
+    private MVTTileRenderer renderer;
+    /**
+     * The features of the tiles drawn directly, that are not yet in the data set, by tile key. Only the features are kept, so
+     * that the tiles evicted from the tile cache are converted too.
+     */
+    private final Map<String, MVTTile> pendingTiles = new ConcurrentHashMap<>();
+    /** The tiles drawn directly, to draw them again when the visible layers or the scale change */
+    private final Set<MVTTile> renderedTiles = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    /** The visible tiles, drawn at {@link #renderScale} */
+    private volatile TileRange renderRange;
+    /** The scale of the visible tiles, above 1 when they are displayed beyond their zoom level */
+    private volatile int renderScale = 1;
 
     /**
      * Creates an instance of an MVT layer
@@ -108,6 +139,13 @@ public class MVTLayer extends AbstractCachedTileSourceLayer<MapboxVectorTileSour
     @Override
     public void paint(Graphics2D g, MapView mv, Bounds box) {
         this.dataSet.setZoom(this.getZoomLevel());
+        if (this.renderer != null) {
+            updateRenderScale(mv);
+            if (this.dataSet.getAllSelected().isEmpty()) {
+                // The tiles are already drawn, the data is only drawn to show the selection
+                return;
+            }
+        }
         AbstractMapRenderer painter = MapRendererFactory.getInstance().createActiveRenderer(g, mv, false);
         painter.enableSlowOperations(mv.getMapMover() == null || !mv.getMapMover().movementInProgress()
           || !OsmDataLayer.PROPERTY_HIDE_LABELS_WHILE_DRAGGING.get());
@@ -130,6 +168,12 @@ public class MVTLayer extends AbstractCachedTileSourceLayer<MapboxVectorTileSour
             styles.stream().map(ElemStyles::getStyleSources).flatMap(Collection::stream).forEach(StyleSource::loadStyleSource);
             this.dataSet.setStyles(styles);
             this.setName(source.getName());
+            if (Boolean.TRUE.equals(DIRECT_RENDERING.get())) {
+                List<PaintLayer> paintLayers = source.getStyleSource().getPaintLayers().entrySet().stream()
+                  .filter(entry -> entry.getKey() == null || entry.getKey().getUrls().contains(source.getBaseUrl()))
+                  .flatMap(entry -> entry.getValue().stream()).collect(Collectors.toList());
+                this.renderer = paintLayers.isEmpty() ? null : new MVTTileRenderer(paintLayers, source.getTileSize());
+            }
         }
         return source;
     }
@@ -138,6 +182,9 @@ public class MVTLayer extends AbstractCachedTileSourceLayer<MapboxVectorTileSour
     public Tile createTile(MapboxVectorTileSource source, int x, int y, int zoom) {
         final MVTTile tile = new MVTTile(source, x, y, zoom);
         tile.addTileLoaderFinisher(this);
+        if (this.renderer != null) {
+            tile.setRenderer(this::renderTile);
+        }
         return tile;
     }
 
@@ -154,6 +201,9 @@ public class MVTLayer extends AbstractCachedTileSourceLayer<MapboxVectorTileSour
                             this.dataSet.setInvisibleLayers(layerNames.entrySet().stream()
                                     .filter(entry -> Boolean.FALSE.equals(entry.getValue()))
                                     .map(Map.Entry::getKey).collect(Collectors.toList()));
+                            if (this.renderer != null) {
+                                MainApplication.worker.execute(() -> this.renderTilesAgain(true));
+                            }
                             this.invalidate();
                         }));
             }
@@ -165,12 +215,97 @@ public class MVTLayer extends AbstractCachedTileSourceLayer<MapboxVectorTileSour
     }
 
     /**
-     * Get the data set for this layer
+     * Get the data set for this layer. The tiles drawn directly are converted to primitives.
+     * @return The data set
      */
     public VectorDataSet getData() {
+        for (Iterator<MVTTile> it = this.pendingTiles.values().iterator(); it.hasNext();) {
+            MVTTile tile = it.next();
+            it.remove();
+            this.dataSet.addTileData(tile);
+        }
         return this.dataSet;
     }
-    
+
+    /**
+     * Draw the visible tiles at a larger scale when the map is zoomed beyond their zoom level, so that they are drawn with the
+     * style of the display zoom level instead of being scaled up.
+     * @param mv The map view
+     */
+    private void updateRenderScale(MapView mv) {
+        final int zoom = this.getZoomLevel();
+        final int scale = Utils.clamp(Integer.highestOneBit((int) Math.round(Math.sqrt(this.getScaleFactor(zoom)))),
+                1, MAX_RENDER_SCALE);
+        final TileRange range = this.getTileSet(mv.getProjectionBounds(), zoom);
+        final TileRange oldRange = this.renderRange;
+        final boolean moved = oldRange == null || oldRange.getZoom() != range.getZoom()
+                || oldRange.getMinX() != range.getMinX() || oldRange.getMaxX() != range.getMaxX()
+                || oldRange.getMinY() != range.getMinY() || oldRange.getMaxY() != range.getMaxY();
+        if (scale != this.renderScale || (moved && scale > 1)) {
+            this.renderRange = range;
+            this.renderScale = scale;
+            MainApplication.worker.execute(() -> this.renderTilesAgain(false));
+        } else if (moved) {
+            this.renderRange = range;
+        }
+    }
+
+    private int getRenderScale(MVTTile tile) {
+        final TileRange range = this.renderRange;
+        if (range == null || tile.getZoom() != range.getZoom() || tile.getXtile() < range.getMinX() - 1
+                || tile.getXtile() > range.getMaxX() + 1 || tile.getYtile() < range.getMinY() - 1
+                || tile.getYtile() > range.getMaxY() + 1) {
+            return 1;
+        }
+        return this.renderScale;
+    }
+
+    private boolean isLayerVisible(String layer) {
+        return !Boolean.FALSE.equals(this.layerNames.get(layer));
+    }
+
+    private BufferedImage renderTile(MVTTile tile) {
+        return this.renderer.render(tile, this::isLayerVisible, getRenderScale(tile), getNeighbours(tile));
+    }
+
+    /**
+     * Get the loaded tiles around a tile, whose symbols may cross its edges
+     * @param tile The tile
+     * @return The loaded tiles around the tile, at the same zoom level
+     */
+    private List<MVTTile> getNeighbours(MVTTile tile) {
+        final List<MVTTile> neighbours = new ArrayList<>(8);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                final Tile neighbour = (dx != 0 || dy != 0) ? this.tileCache.getTile(this.tileSource,
+                        tile.getXtile() + dx, tile.getYtile() + dy, tile.getZoom()) : null;
+                if (neighbour instanceof MVTTile && neighbour.isLoaded() && ((MVTTile) neighbour).getLayers() != null) {
+                    neighbours.add((MVTTile) neighbour);
+                }
+            }
+        }
+        return neighbours;
+    }
+
+    /**
+     * Draw the tiles again
+     * @param all {@code true} to draw all tiles, {@code false} to only draw the tiles whose scale changed
+     */
+    private void renderTilesAgain(boolean all) {
+        List<MVTTile> tiles;
+        synchronized (this.renderedTiles) {
+            tiles = new ArrayList<>(this.renderedTiles);
+        }
+        final int tileSize = this.renderer.getTileSize();
+        for (MVTTile tile : tiles) {
+            final BufferedImage image = tile.getImage();
+            if (tile.isLoaded() && image != null && (all || image.getWidth() != tileSize * getRenderScale(tile))) {
+                tile.setImage(renderTile(tile));
+            }
+        }
+        this.invalidate();
+    }
+
     private static class ConvertLayerAction extends AbstractAction implements LayerAction {
         private final MVTLayer layer;
 
@@ -296,6 +431,18 @@ public class MVTLayer extends AbstractCachedTileSourceLayer<MapboxVectorTileSour
         for (Layer layer : tile.getLayers()) {
             this.layerNames.putIfAbsent(layer.getName(), true);
         }
-        this.dataSet.addTileData(tile);
+        if (this.renderer != null) {
+            this.pendingTiles.putIfAbsent(tile.getKey(), tile.getFeatureTile());
+            this.renderedTiles.add(tile);
+            // the symbols of the tile which cross the edges of the tiles drawn before it
+            for (MVTTile neighbour : getNeighbours(tile)) {
+                final BufferedImage image = neighbour.getImage();
+                if (image != null && image.getWidth() >= this.renderer.getTileSize()) {
+                    this.renderer.renderSymbols(image, neighbour, tile, this::isLayerVisible);
+                }
+            }
+        } else {
+            this.dataSet.addTileData(tile);
+        }
     }
 }
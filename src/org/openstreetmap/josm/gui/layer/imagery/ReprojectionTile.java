@@ -141,6 +141,9 @@ public class ReprojectionTile extends Tile {
             case "nearest_neighbor":
                 interpolation = ImageWarp.Interpolation.NEAREST_NEIGHBOR;
                 break;
+            case "bicubic":
+                interpolation = ImageWarp.Interpolation.BICUBIC;
+                break;
             default:
                 interpolation = ImageWarp.Interpolation.BILINEAR;
         }
@@ -182,16 +185,10 @@ public class ReprojectionTile extends Tile {
                 (en11Current.east() - pbTargetAligned.minEast) / scale,
                 (pbTargetAligned.maxNorth - en11Current.north()) / scale);
 
-        ImageWarp.PointTransform transform;
         int stride = Config.getPref().getInt("imagery.warp.projection-interpolation.stride", 7);
-        if (stride > 0) {
-            transform = new ImageWarp.GridTransform(pointTransform, stride);
-        } else {
-            transform = pointTransform;
-        }
         Dimension targetDim = getDimension(pbTargetAligned, scale);
         try {
-            BufferedImage imageOut = ImageWarp.warp(imageIn, targetDim, transform, interpolation);
+            BufferedImage imageOut = ImageWarp.warp(imageIn, targetDim, pointTransform, stride, interpolation);
             synchronized (this) {
                 this.image = imageOut;
                 this.anchor = new TileAnchor(p00Img, p11Img);
@@ -0,0 +1,427 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer.imagery;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.openstreetmap.gui.jmapviewer.Tile;
+import org.openstreetmap.gui.jmapviewer.TileRange;
+import org.openstreetmap.gui.jmapviewer.interfaces.TileJob;
+import org.openstreetmap.josm.data.ProjectionBounds;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.imagery.TMSCachedTileLoader;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+
+/**
+ * Loads the tiles that are likely to become visible soon, with a lower priority than the visible tiles.
+ * <p>
+ * The successive viewports of the map view are used to estimate the pan velocity and the zoom direction.
+ * Tiles are then prefetched for the ring around the tiles loaded by the layer, extended in the direction of the movement,
+ * and for the next zoom level. At most {@link #PROP_MAX_JOBS} prefetch jobs are in the download queue at once, and only
+ * when it is nearly empty, so that the tiles requested for display never wait behind a long list of prefetches. Queued
+ * prefetches are cancelled when a new viewport moves their tile off-screen, prefetches already running are kept, as well
+ * as those whose tile became visible or entered the ring of tiles loaded by the layer around the visible tiles.
+ * <p>
+ * The share of prefetched tiles that are displayed afterwards is reported by {@link #getStats()}.
+ * @since 18577
+ */
+public class TilePrefetcher {
+
+    /** Whether tiles are prefetched */
+    public static final BooleanProperty PROP_ENABLED = new BooleanProperty("imagery.prefetch.enabled", true);
+    /** How far ahead the pan movement is extrapolated, in milliseconds */
+    public static final IntegerProperty PROP_LOOKAHEAD = new IntegerProperty("imagery.prefetch.lookahead", 1000);
+    /** The maximum number of prefetch jobs submitted to the download executor at once */
+    public static final IntegerProperty PROP_MAX_JOBS = new IntegerProperty("imagery.prefetch.maxjobs", 4);
+
+    /** Time after which the previous viewport is not used anymore to estimate the velocity, in milliseconds */
+    private static final long IDLE_TIME = 500;
+    /** Weight of the last viewport change in the estimated velocity */
+    private static final double SMOOTHING = 0.5;
+    /** Width of the prefetched ring, in tiles, around the visible tiles */
+    private static final int RING = 2;
+    /** Number of loaded prefetched tiles remembered to compute the hit rate */
+    private static final int MAX_TRACKED = 1024;
+
+    private final TMSCachedTileLoader loader;
+    private final BiFunction<ProjectionBounds, Integer, ? extends TileRange> tileRanges;
+    private final Function<TilePosition, Tile> tiles;
+    private final Predicate<Tile> offscreen;
+
+    private ProjectionBounds lastBounds;
+    private int lastZoom;
+    private long lastTime;
+    /** estimated velocity, in east/north units per millisecond */
+    private double velocityEast;
+    private double velocityNorth;
+    /** 1 when zooming in, -1 when zooming out, 0 when panning */
+    private int zoomDirection;
+
+    private final Deque<TilePosition> pending = new ArrayDeque<>();
+    private final Map<Long, Prefetch> inFlight = new HashMap<>();
+    private final Map<Long, Boolean> prefetched = new LinkedHashMap<Long, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > MAX_TRACKED;
+        }
+    };
+
+    private long submittedCount;
+    private long loadedCount;
+    private long cancelledCount;
+    private long hitCount;
+
+    /** A submitted prefetch job and its tile */
+    private static final class Prefetch {
+        final Tile tile;
+        final TileJob job;
+
+        Prefetch(Tile tile, TileJob job) {
+            this.tile = tile;
+            this.job = job;
+        }
+    }
+
+    /**
+     * Constructs a new {@code TilePrefetcher}.
+     * @param loader the tile loader of the layer
+     * @param tileRanges returns the tiles covering the given bounds at the given zoom level
+     * @param tiles returns the tile of the layer at a position, creating it if needed
+     * @param offscreen determines if a tile will not be displayed in the current view of the layer
+     */
+    public TilePrefetcher(TMSCachedTileLoader loader, BiFunction<ProjectionBounds, Integer, ? extends TileRange> tileRanges,
+            Function<TilePosition, Tile> tiles, Predicate<Tile> offscreen) {
+        this.loader = loader;
+        this.tileRanges = tileRanges;
+        this.tiles = tiles;
+        this.offscreen = offscreen;
+    }
+
+    /**
+     * Updates the prefetched tiles after a change of the viewport, and submits prefetch jobs if the download queue allows it.
+     * Calling this method for an unchanged viewport only submits the jobs.
+     * @param bounds the visible bounds
+     * @param zoom the zoom level of the visible tiles
+     * @param minZoom the minimum zoom level of the layer
+     * @param maxZoom the maximum zoom level of the layer
+     */
+    public void viewportChanged(ProjectionBounds bounds, int zoom, int minZoom, int maxZoom) {
+        if (!PROP_ENABLED.get()) {
+            clear();
+            return;
+        }
+        viewportChanged(bounds, zoom, minZoom, maxZoom, System.nanoTime() / 1_000_000);
+    }
+
+    void viewportChanged(ProjectionBounds bounds, int zoom, int minZoom, int maxZoom, long timeMillis) {
+        cancel(update(bounds, zoom, minZoom, maxZoom, timeMillis));
+        submitPending();
+    }
+
+    /**
+     * Cancels all prefetches that are not running yet.
+     */
+    public void clear() {
+        List<TileJob> jobs;
+        synchronized (this) {
+            pending.clear();
+            jobs = new ArrayList<>(inFlight.size());
+            for (Prefetch prefetch : inFlight.values()) {
+                jobs.add(prefetch.job);
+            }
+            inFlight.clear();
+        }
+        cancel(jobs);
+    }
+
+    private void cancel(List<TileJob> jobs) {
+        // outside of the lock: the cancellation notifies the listeners of the tiles
+        for (TileJob job : jobs) {
+            if (loader.cancelTask(job)) {
+                synchronized (this) {
+                    cancelledCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the estimated movement and the tiles to prefetch.
+     * @return the jobs to cancel
+     */
+    private synchronized List<TileJob> update(ProjectionBounds bounds, int zoom, int minZoom, int maxZoom, long timeMillis) {
+        if (lastBounds != null && zoom == lastZoom && lastBounds.minEast == bounds.minEast && lastBounds.minNorth == bounds.minNorth
+                && lastBounds.maxEast == bounds.maxEast && lastBounds.maxNorth == bounds.maxNorth) {
+            return Collections.emptyList();
+        }
+        estimateMovement(bounds, zoom, timeMillis);
+        List<TilePosition> plan = computePlan(bounds, zoom, minZoom, maxZoom);
+
+        Set<Long> keys = new HashSet<>();
+        for (TilePosition position : plan) {
+            keys.add(getKey(position.getX(), position.getY(), position.getZoom()));
+        }
+        TileRange visible = tileRanges.apply(bounds, zoom);
+        List<TileJob> obsolete = new ArrayList<>();
+        for (Iterator<Map.Entry<Long, Prefetch>> it = inFlight.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Long, Prefetch> entry = it.next();
+            if (!keys.contains(entry.getKey()) && isObsolete(entry.getValue().tile, visible)) {
+                obsolete.add(entry.getValue().job);
+                it.remove();
+            }
+        }
+        pending.clear();
+        pending.addAll(plan);
+        return obsolete;
+    }
+
+    /**
+     * Determines if a prefetched tile that is not planned anymore will not be displayed: it is off-screen and outside of
+     * the ring of tiles loaded by the layer around the visible tiles.
+     * @param tile the prefetched tile
+     * @param visible the visible tiles
+     * @return {@code true} if the prefetch of the tile can be cancelled
+     */
+    private boolean isObsolete(Tile tile, TileRange visible) {
+        return offscreen.test(tile) && (tile.getZoom() != visible.getZoom()
+                || tile.getXtile() < visible.getMinX() - 1 || tile.getXtile() > visible.getMaxX() + 1
+                || tile.getYtile() < visible.getMinY() - 1 || tile.getYtile() > visible.getMaxY() + 1);
+    }
+
+    private void estimateMovement(ProjectionBounds bounds, int zoom, long timeMillis) {
+        if (lastBounds != null) {
+            EastNorth center = bounds.getCenter();
+            EastNorth lastCenter = lastBounds.getCenter();
+            long dt = timeMillis - lastTime;
+            if (dt > 0 && dt <= IDLE_TIME) {
+                velocityEast = SMOOTHING * (center.east() - lastCenter.east()) / dt + (1 - SMOOTHING) * velocityEast;
+                velocityNorth = SMOOTHING * (center.north() - lastCenter.north()) / dt + (1 - SMOOTHING) * velocityNorth;
+            } else {
+                // start of a new movement
+                velocityEast = 0;
+                velocityNorth = 0;
+            }
+            double width = bounds.maxEast - bounds.minEast;
+            double lastWidth = lastBounds.maxEast - lastBounds.minEast;
+            if (zoom != lastZoom) {
+                zoomDirection = Integer.signum(zoom - lastZoom);
+            } else if (width < lastWidth * 0.99) {
+                zoomDirection = 1;
+            } else if (width > lastWidth * 1.01) {
+                zoomDirection = -1;
+            } else {
+                zoomDirection = 0;
+            }
+        }
+        lastBounds = new ProjectionBounds(bounds.minEast, bounds.minNorth, bounds.maxEast, bounds.maxNorth);
+        lastZoom = zoom;
+        lastTime = timeMillis;
+    }
+
+    /**
+     * Computes the tiles to prefetch, the most useful first.
+     * @param bounds the visible bounds
+     * @param zoom the zoom level of the visible tiles
+     * @param minZoom the minimum zoom level of the layer
+     * @param maxZoom the maximum zoom level of the layer
+     * @return the tiles to prefetch, at most as many as the visible tiles
+     */
+    synchronized List<TilePosition> computePlan(ProjectionBounds bounds, int zoom, int minZoom, int maxZoom) {
+        if (zoom < minZoom || zoom > maxZoom || zoom <= 0) {
+            return Collections.emptyList();
+        }
+        TileRange visible = tileRanges.apply(bounds, zoom);
+        int maxTiles = visible.size();
+        double lookahead = PROP_LOOKAHEAD.get();
+        double shiftEast = velocityEast * lookahead;
+        double shiftNorth = velocityNorth * lookahead;
+        EastNorth predictedCenter = bounds.getCenter().add(shiftEast, shiftNorth);
+
+        List<TilePosition> plan = new ArrayList<>();
+        if (zoomDirection != 0 && zoom + zoomDirection >= minZoom && zoom + zoomDirection <= maxZoom) {
+            // the area visible after zooming to the next level
+            double factor = zoomDirection > 0 ? 0.5 : 2;
+            ProjectionBounds next = new ProjectionBounds(predictedCenter,
+                    (bounds.maxEast - bounds.minEast) * factor, (bounds.maxNorth - bounds.minNorth) * factor);
+            addTiles(plan, tileRanges.apply(next, zoom + zoomDirection), null, predictedCenter, maxTiles);
+        }
+
+        // the ring around the tiles loaded by the layer, extended in the direction of the movement
+        double tileWidth = (bounds.maxEast - bounds.minEast) / (visible.getMaxX() - visible.getMinX() + 1);
+        double tileHeight = (bounds.maxNorth - bounds.minNorth) / (visible.getMaxY() - visible.getMinY() + 1);
+        ProjectionBounds ahead = new ProjectionBounds(
+                Math.min(bounds.minEast, bounds.minEast + shiftEast) - RING * tileWidth,
+                Math.min(bounds.minNorth, bounds.minNorth + shiftNorth) - RING * tileHeight,
+                Math.max(bounds.maxEast, bounds.maxEast + shiftEast) + RING * tileWidth,
+                Math.max(bounds.maxNorth, bounds.maxNorth + shiftNorth) + RING * tileHeight);
+        addTiles(plan, tileRanges.apply(ahead, zoom), visible, predictedCenter, maxTiles);
+        return plan;
+    }
+
+    /**
+     * Adds the tiles of a range to the plan, sorted by distance to the predicted center.
+     * @param plan the tiles to prefetch
+     * @param range the tiles to add
+     * @param visible the visible tiles, which are excluded with the ring of tiles loaded by the layer, can be {@code null}
+     * @param center the predicted center of the viewport
+     * @param maxTiles the maximum size of the plan
+     */
+    private void addTiles(List<TilePosition> plan, TileRange range, TileRange visible, EastNorth center, int maxTiles) {
+        if (plan.size() >= maxTiles || range.size() > 16 * maxTiles) {
+            return;
+        }
+        TileRange centerRange = tileRanges.apply(new ProjectionBounds(center), range.getZoom());
+        double centerX = (centerRange.getMinX() + centerRange.getMaxX() + 1) / 2.0;
+        double centerY = (centerRange.getMinY() + centerRange.getMaxY() + 1) / 2.0;
+        List<TilePosition> positions = new ArrayList<>();
+        for (int x = range.getMinX(); x <= range.getMaxX(); x++) {
+            for (int y = range.getMinY(); y <= range.getMaxY(); y++) {
+                if (visible == null || x < visible.getMinX() - 1 || x > visible.getMaxX() + 1
+                        || y < visible.getMinY() - 1 || y > visible.getMaxY() + 1) {
+                    positions.add(new TilePosition(x, y, range.getZoom()));
+                }
+            }
+        }
+        positions.sort(Comparator.comparingDouble(p -> {
+            double dx = p.getX() + 0.5 - centerX;
+            double dy = p.getY() + 0.5 - centerY;
+            return dx * dx + dy * dy;
+        }));
+        plan.addAll(positions.subList(0, Math.min(positions.size(), maxTiles - plan.size())));
+    }
+
+    private synchronized void submitPending() {
+        ThreadPoolExecutor executor = loader.getDownloadExecutor();
+        int maxJobs = PROP_MAX_JOBS.get();
+        while (!pending.isEmpty() && inFlight.size() < maxJobs && executor.getQueue().size() < maxJobs) {
+            Tile tile = tiles.apply(pending.poll());
+            if (tile == null || tile.isLoaded() || tile.isLoading() || tile.hasError()) {
+                continue;
+            }
+            long key = getKey(tile.getXtile(), tile.getYtile(), tile.getZoom());
+            TileJob job = loader.createTileLoaderJob(tile);
+            inFlight.put(key, new Prefetch(tile, job));
+            submittedCount++;
+            job.submit(false);
+            if (!tile.isLoading()) {
+                // the submission failed
+                inFlight.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Records the end of the loading of a tile. To be called by the layer for all of its tiles.
+     * @param tile the tile
+     * @param success whether the tile was loaded successfully
+     */
+    public synchronized void tileLoadingFinished(Tile tile, boolean success) {
+        long key = getKey(tile.getXtile(), tile.getYtile(), tile.getZoom());
+        if (inFlight.remove(key) == null) {
+            return;
+        }
+        if (success && tile.isLoaded() && !tile.hasError()) {
+            loadedCount++;
+            prefetched.put(key, Boolean.TRUE);
+        } else if (!tile.isLoaded() && !tile.hasError()) {
+            // cancelled by the layer
+            cancelledCount++;
+        }
+    }
+
+    /**
+     * Records the tiles displayed by the layer, to compute the hit rate.
+     * @param shownTiles the displayed tiles
+     */
+    public synchronized void tilesShown(Collection<Tile> shownTiles) {
+        if (prefetched.isEmpty()) {
+            return;
+        }
+        for (Tile tile : shownTiles) {
+            if (tile.isLoaded() && prefetched.remove(getKey(tile.getXtile(), tile.getYtile(), tile.getZoom())) != null) {
+                hitCount++;
+            }
+        }
+    }
+
+    /**
+     * Determines if a tile is being prefetched, i.e. it has been submitted and is not loaded yet.
+     * @param tile the tile
+     * @return {@code true} if the tile is being prefetched
+     * @since 18578
+     */
+    public synchronized boolean isPrefetching(Tile tile) {
+        return inFlight.containsKey(getKey(tile.getXtile(), tile.getYtile(), tile.getZoom()));
+    }
+
+    private static long getKey(int x, int y, int zoom) {
+        return ((long) zoom << 58) | ((x & 0x1fffffffL) << 29) | (y & 0x1fffffffL);
+    }
+
+    /**
+     * Returns the number of submitted prefetch jobs.
+     * @return the number of submitted prefetch jobs
+     */
+    public synchronized long getSubmittedCount() {
+        return submittedCount;
+    }
+
+    /**
+     * Returns the number of tiles loaded by a prefetch job.
+     * @return the number of tiles loaded by a prefetch job
+     */
+    public synchronized long getLoadedCount() {
+        return loadedCount;
+    }
+
+    /**
+     * Returns the number of prefetch jobs cancelled before they started.
+     * @return the number of cancelled prefetch jobs
+     */
+    public synchronized long getCancelledCount() {
+        return cancelledCount;
+    }
+
+    /**
+     * Returns the number of prefetched tiles that were displayed afterwards.
+     * @return the number of prefetched tiles that were displayed
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the share of the prefetched tiles that were displayed afterwards.
+     * @return the hit rate, between 0 and 1
+     */
+    public synchronized double getHitRate() {
+        return loadedCount == 0 ? 0 : (double) hitCount / loadedCount;
+    }
+
+    /**
+     * Returns prefetch statistics as string.
+     * @return prefetch statistics as string
+     */
+    public synchronized String getStats() {
+        return tr("Prefetch: {0} submitted, {1} loaded, {2} cancelled, {3} displayed ({4}%)",
+                submittedCount, loadedCount, cancelledCount, hitCount, Math.round(100 * getHitRate()));
+    }
+}
@@ -11,6 +11,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.openstreetmap.josm.data.osm.INode;
 import org.openstreetmap.josm.data.osm.IPrimitive;
@@ -78,6 +79,9 @@ public class ElemStyles implements PreferenceChangedListener {
 
     private volatile Color backgroundColorCache;
 
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
     /**
      * Constructs a new {@code ElemStyles}.
      */
@@ -167,9 +171,12 @@ public class ElemStyles implements PreferenceChangedListener {
                 osm.setCachedStyle(StyleCache.EMPTY_STYLECACHE);
             } else {
                 Pair<StyleElementList, Range> lst = osm.getCachedStyle().getWithRange(scale, osm.isSelected());
-                if (lst.a != null)
+                if (lst.a != null) {
+                    cacheHits.increment();
                     return lst;
+                }
             }
+            cacheMisses.increment();
             Pair<StyleElementList, Range> p = getImpl(osm, scale, nc);
             if (osm instanceof INode && isDefaultNodes()) {
                 if (p.a.isEmpty()) {
@@ -229,6 +236,26 @@ public class ElemStyles implements PreferenceChangedListener {
         }
     }
 
+    /**
+     * Returns the number of styles found in the style cache of the primitives by
+     * {@link #getStyleCacheWithRange(IPrimitive, double, NavigatableComponent)}.
+     * @return the number of style cache hits
+     * @since 18565
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Returns the number of styles computed by {@link #getStyleCacheWithRange(IPrimitive, double, NavigatableComponent)}
+     * because they were not cached yet, or not anymore.
+     * @return the number of style cache misses
+     * @since 18565
+     */
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
     /**
      * Create the list of styles and its valid scale range for one primitive.
      *
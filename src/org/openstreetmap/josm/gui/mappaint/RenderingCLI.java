@@ -39,6 +39,7 @@ import org.openstreetmap.josm.gui.mappaint.RenderingHelper.StyleData;
 import org.openstreetmap.josm.io.Compression;
 import org.openstreetmap.josm.io.IllegalDataException;
 import org.openstreetmap.josm.io.OsmReader;
+import org.openstreetmap.josm.io.PbfReader;
 import org.openstreetmap.josm.spi.lifecycle.Lifecycle;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.spi.preferences.MemoryPreferences;
@@ -392,7 +393,7 @@ public class RenderingCLI implements CLIModule {
                 tr("Renders data and saves the result to an image file.")+"\n\n"+
                 tr("Options")+":\n"+
                 "\t--help|-h                 "+tr("Show this help")+"\n"+
-                "\t--input|-i <file>         "+tr("Input data file name (.osm)")+"\n"+
+                "\t--input|-i <file>         "+tr("Input data file name (.osm, .osm.pbf)")+"\n"+
                 "\t--output|-o <file>        "+tr("Output image file name (.png); defaults to ''{0}''", "out.png")+"\n"+
                 "\t--style|-s <file>         "+tr("Style file to use for rendering (.mapcss or .zip)")+"\n"+
                 "\t                          "+tr("This option can be repeated to load multiple styles.")+"\n"+
@@ -583,6 +584,9 @@ public class RenderingCLI implements CLIModule {
             throw new IllegalArgumentException(tr("Missing argument - input data file ({0})", "--input|-i"));
         }
         try (InputStream inputStream = Compression.getUncompressedFileInputStream(Paths.get(argInput))) {
+            if (argInput.endsWith(".pbf")) {
+                return PbfReader.parseDataSet(inputStream, null);
+            }
             return OsmReader.parseDataSet(inputStream, null);
         } catch (IllegalDataException e) {
             throw new IllegalDataException(tr("In .osm data file ''{0}'' - ", argInput) + e.getMessage(), e);
@@ -4,8 +4,10 @@ package org.openstreetmap.josm.gui.mappaint;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
 import org.openstreetmap.josm.tools.Pair;
 
 /**
@@ -15,13 +17,24 @@ import org.openstreetmap.josm.tools.Pair;
  */
 public final class StyleCache {
 
-    // TODO: clean up the intern pool from time to time (after purge or layer removal)
+    /**
+     * The maximum number of style caches kept in the intern pool. The pool is emptied when it gets larger, so that it does
+     * not keep the styles of removed layers or of former style settings forever. The style caches of the primitives stay
+     * valid, only the following ones are not shared with the evicted ones.
+     * @since 18565
+     */
+    public static final IntegerProperty MAX_INTERN_POOL_SIZE = new IntegerProperty("mappaint.stylecache.max-pool-size", 100_000);
+
     private static final Map<StyleCache, StyleCache> internPool = new ConcurrentHashMap<>();
+    private static final LongAdder internPoolEvictions = new LongAdder();
+    /** The value of {@link #MAX_INTERN_POOL_SIZE}, updated when the preference changes, {@code null} until it is read */
+    private static volatile Integer maxInternPoolSize;
 
     /**
      * An empty style cache entry
      */
-    public static final StyleCache EMPTY_STYLECACHE = new StyleCache().intern();
+    // not interned, the size of the intern pool cannot be checked before the preferences are initialized
+    public static final StyleCache EMPTY_STYLECACHE = new StyleCache();
 
     private DividedScale<StyleElementList> plainStyle;
     private DividedScale<StyleElementList> selectedStyle;
@@ -91,9 +104,32 @@ public final class StyleCache {
      * @return style cache
      */
     private StyleCache intern() {
+        if (internPool.size() >= getMaxInternPoolSize()) {
+            internPool.clear();
+            internPoolEvictions.increment();
+        }
         return internPool.computeIfAbsent(this, Function.identity());
     }
 
+    /**
+     * Returns the maximum size of the intern pool. The preference is read once, then the value is updated by a listener.
+     * @return the value of {@link #MAX_INTERN_POOL_SIZE}
+     */
+    private static int getMaxInternPoolSize() {
+        Integer max = maxInternPoolSize;
+        if (max == null) {
+            synchronized (internPool) {
+                max = maxInternPoolSize;
+                if (max == null) {
+                    MAX_INTERN_POOL_SIZE.addListener(e -> maxInternPoolSize = MAX_INTERN_POOL_SIZE.get());
+                    max = MAX_INTERN_POOL_SIZE.get();
+                    maxInternPoolSize = max;
+                }
+            }
+        }
+        return max;
+    }
+
     /**
      * Clears the style cache. This should only be used for testing.
      * It may be removed some day and replaced by a WeakReference implementation that automatically forgets old entries.
@@ -109,4 +145,13 @@ public final class StyleCache {
     public static int getInternPoolSize() {
         return internPool.size();
     }
+
+    /**
+     * Returns the number of times the intern pool has been emptied because it reached {@link #MAX_INTERN_POOL_SIZE}.
+     * @return the number of evictions of the intern pool
+     * @since 18565
+     */
+    public static long getInternPoolEvictions() {
+        return internPoolEvictions.sum();
+    }
 }
@@ -35,6 +35,7 @@ import org.openstreetmap.josm.data.osm.RelationData;
 import org.openstreetmap.josm.data.osm.RelationMember;
 import org.openstreetmap.josm.data.osm.RelationMemberData;
 import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
+import org.openstreetmap.josm.data.osm.TagStringPool;
 import org.openstreetmap.josm.data.osm.Tagged;
 import org.openstreetmap.josm.data.osm.UploadPolicy;
 import org.openstreetmap.josm.data.osm.User;
@@ -284,8 +285,41 @@ public abstract class AbstractReader {
         void accept(InputStreamReader ir) throws IllegalDataException, IOException;
     }
 
+    /**
+     * Parser of binary formats, which must not be read through an {@link InputStreamReader}.
+     * @since 18560
+     */
+    @FunctionalInterface
+    protected interface BinaryParserWorker {
+        /**
+         * Effectively parses the file, depending on the format (PBF, etc.)
+         * @param source input stream
+         * @throws IllegalDataException in case of invalid data
+         * @throws IOException in case of I/O error
+         */
+        void accept(InputStream source) throws IllegalDataException, IOException;
+    }
+
     protected final DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor, ParserWorker parserWorker)
             throws IllegalDataException {
+        return doParseBinaryDataSet(source, progressMonitor, in -> {
+            try (InputStreamReader ir = UTFInputStreamReader.create(in)) {
+                parserWorker.accept(ir);
+            }
+        });
+    }
+
+    /**
+     * Parses a binary format with the given worker, then prepares and post-processes the data set.
+     * @param source the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     * @param parserWorker the parser of the binary format
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source
+     * @since 18560
+     */
+    protected final DataSet doParseBinaryDataSet(InputStream source, ProgressMonitor progressMonitor, BinaryParserWorker parserWorker)
+            throws IllegalDataException {
         if (progressMonitor == null) {
             progressMonitor = NullProgressMonitor.INSTANCE;
         }
@@ -296,8 +330,9 @@ public abstract class AbstractReader {
             progressMonitor.beginTask(tr("Prepare OSM data..."), 4); // read, prepare, post-process, render
             progressMonitor.indeterminateSubTask(tr("Parsing OSM data..."));
 
-            try (InputStreamReader ir = UTFInputStreamReader.create(source)) {
-                parserWorker.accept(ir);
+            parserWorker.accept(source);
+            if (Logging.isDebugEnabled()) {
+                Logging.debug(TagStringPool.getStatistics());
             }
             progressMonitor.worked(1);
 
@@ -430,7 +465,17 @@ public abstract class AbstractReader {
             return;
         }
         try {
-            int timestamp = timestampCache.computeIfAbsent(time, t -> (int) DateUtils.parseInstant(t).getEpochSecond());
+            // the cache is shared by the worker threads of a pipelined OsmReader
+            Integer timestamp;
+            synchronized (timestampCache) {
+                timestamp = timestampCache.get(time);
+            }
+            if (timestamp == null) {
+                timestamp = (int) DateUtils.parseInstant(time).getEpochSecond();
+                synchronized (timestampCache) {
+                    timestampCache.put(time, timestamp);
+                }
+            }
             current.setRawTimestamp(timestamp);
         } catch (UncheckedParseException | DateTimeException e) {
             Logging.error(e);
@@ -573,7 +618,7 @@ public abstract class AbstractReader {
             // Drop the tag on import, but flag the primitive as modified
             ((AbstractPrimitive) t).setModified(true);
         } else {
-            t.put(key.intern(), value.intern());
+            t.put(TagStringPool.intern(key), TagStringPool.intern(value));
         }
     }
 
@@ -641,12 +686,24 @@ public abstract class AbstractReader {
         return p;
     }
 
-    private Node addNode(NodeData nd, NodeReader nodeReader) throws IllegalDataException {
-        nodeReader.accept(nd);
-        return (Node) buildPrimitive(nd);
+    protected final Node parseNode(double lat, double lon, CommonReader commonReader, NodeReader nodeReader)
+            throws IllegalDataException {
+        return (Node) buildPrimitive(readNode(lat, lon, commonReader, nodeReader));
     }
 
-    protected final Node parseNode(double lat, double lon, CommonReader commonReader, NodeReader nodeReader)
+    /**
+     * Reads a node without adding it to the data set. This method does not modify the reader state,
+     * it can be called concurrently as long as the given readers do not share state.
+     * @param lat latitude, can be {@code NaN}
+     * @param lon longitude, can be {@code NaN}
+     * @param commonReader reader of the common primitive attributes
+     * @param nodeReader reader of the node tags
+     * @return the node data
+     * @throws IllegalDataException in case of invalid data
+     * @see #buildPrimitive(PrimitiveData)
+     * @since 18560
+     */
+    protected final NodeData readNode(double lat, double lon, CommonReader commonReader, NodeReader nodeReader)
             throws IllegalDataException {
         NodeData nd = new NodeData(0);
         LatLon ll = null;
@@ -663,11 +720,29 @@ public abstract class AbstractReader {
             throw new IllegalDataException(tr("Illegal value for attributes ''lat'', ''lon'' on node with ID {0}. Got ''{1}'', ''{2}''.",
                     Long.toString(nd.getId()), lat, lon));
         }
-        return addNode(nd, nodeReader);
+        nodeReader.accept(nd);
+        return nd;
     }
 
     protected final Node parseNode(String lat, String lon, CommonReader commonReader, NodeReader nodeReader)
             throws IllegalDataException {
+        return (Node) buildPrimitive(readNode(lat, lon, commonReader, nodeReader));
+    }
+
+    /**
+     * Reads a node without adding it to the data set. This method does not modify the reader state,
+     * it can be called concurrently as long as the given readers do not share state.
+     * @param lat latitude, can be null
+     * @param lon longitude, can be null
+     * @param commonReader reader of the common primitive attributes
+     * @param nodeReader reader of the node tags
+     * @return the node data
+     * @throws IllegalDataException in case of invalid data
+     * @see #buildPrimitive(PrimitiveData)
+     * @since 18559
+     */
+    protected final NodeData readNode(String lat, String lon, CommonReader commonReader, NodeReader nodeReader)
+            throws IllegalDataException {
         NodeData nd = new NodeData(0);
         LatLon ll = null;
         if (areLatLonDefined(lat, lon)) {
@@ -683,33 +758,88 @@ public abstract class AbstractReader {
             throw new IllegalDataException(tr("Illegal value for attributes ''lat'', ''lon'' on node with ID {0}. Got ''{1}'', ''{2}''.",
                     Long.toString(nd.getId()), lat, lon));
         }
-        return addNode(nd, nodeReader);
+        nodeReader.accept(nd);
+        return nd;
     }
 
     protected final Way parseWay(CommonReader commonReader, WayReader wayReader) throws IllegalDataException {
+        Collection<Long> nodeIds = new ArrayList<>();
+        return addWay(readWay(commonReader, wayReader, nodeIds), nodeIds);
+    }
+
+    /**
+     * Reads a way without adding it to the data set. This method does not modify the reader state,
+     * it can be called concurrently as long as the given readers do not share state.
+     * @param commonReader reader of the common primitive attributes
+     * @param wayReader reader of the way nodes and tags
+     * @param nodeIds collection of resulting node ids
+     * @return the way data
+     * @throws IllegalDataException in case of invalid data
+     * @see #addWay(WayData, Collection)
+     * @since 18559
+     */
+    protected final WayData readWay(CommonReader commonReader, WayReader wayReader, Collection<Long> nodeIds)
+            throws IllegalDataException {
         WayData wd = new WayData(0);
         commonReader.accept(wd);
 
-        Collection<Long> nodeIds = new ArrayList<>();
         wayReader.accept(wd, nodeIds);
         if (wd.isDeleted() && !nodeIds.isEmpty()) {
             Logging.info(tr("Deleted way {0} contains nodes", Long.toString(wd.getUniqueId())));
-            nodeIds = new ArrayList<>();
+            nodeIds.clear();
         }
+        return wd;
+    }
+
+    /**
+     * Adds a way read by {@link #readWay} to the data set.
+     * @param wd way data
+     * @param nodeIds node ids of the way, resolved after parsing
+     * @return the new way
+     * @since 18559
+     */
+    protected final Way addWay(WayData wd, Collection<Long> nodeIds) {
         ways.put(wd.getUniqueId(), nodeIds);
         return (Way) buildPrimitive(wd);
     }
 
     protected final Relation parseRelation(CommonReader commonReader, RelationReader relationReader) throws IllegalDataException {
+        Collection<RelationMemberData> members = new ArrayList<>();
+        return addRelation(readRelation(commonReader, relationReader, members), members);
+    }
+
+    /**
+     * Reads a relation without adding it to the data set. This method does not modify the reader state,
+     * it can be called concurrently as long as the given readers do not share state.
+     * @param commonReader reader of the common primitive attributes
+     * @param relationReader reader of the relation members and tags
+     * @param members collection of resulting members
+     * @return the relation data
+     * @throws IllegalDataException in case of invalid data
+     * @see #addRelation(RelationData, Collection)
+     * @since 18559
+     */
+    protected final RelationData readRelation(CommonReader commonReader, RelationReader relationReader,
+            Collection<RelationMemberData> members) throws IllegalDataException {
         RelationData rd = new RelationData(0);
         commonReader.accept(rd);
 
-        Collection<RelationMemberData> members = new ArrayList<>();
         relationReader.accept(rd, members);
         if (rd.isDeleted() && !members.isEmpty()) {
             Logging.info(tr("Deleted relation {0} contains members", Long.toString(rd.getUniqueId())));
-            members = new ArrayList<>();
+            members.clear();
         }
+        return rd;
+    }
+
+    /**
+     * Adds a relation read by {@link #readRelation} to the data set.
+     * @param rd relation data
+     * @param members members of the relation, resolved after parsing
+     * @return the new relation
+     * @since 18559
+     */
+    protected final Relation addRelation(RelationData rd, Collection<RelationMemberData> members) {
         relations.put(rd.getUniqueId(), members);
         return (Relation) buildPrimitive(rd);
     }
@@ -20,6 +20,7 @@ import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.PrimitiveData;
 import org.openstreetmap.josm.data.osm.RelationData;
 import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.TagStringPool;
 import org.openstreetmap.josm.data.osm.Tagged;
 import org.openstreetmap.josm.data.osm.WayData;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
@@ -129,7 +130,7 @@ public class OsmJsonReader extends AbstractReader {
         JsonObject tags = item.getJsonObject("tags");
         if (tags != null) {
             for (Entry<String, JsonValue> entry : tags.entrySet()) {
-                t.put(entry.getKey(), ((JsonString) entry.getValue()).getString());
+                t.put(TagStringPool.intern(entry.getKey()), TagStringPool.intern(((JsonString) entry.getValue()).getString()));
             }
         }
     }
@@ -57,7 +57,13 @@ public class OsmReader extends AbstractReader {
         /**
          * Save the original id of an object (currently stored in `current_id`)
          */
-        SAVE_ORIGINAL_ID
+        SAVE_ORIGINAL_ID,
+        /**
+         * Decode primitives in worker threads while the XML stream is read. The resulting dataset and errors are the same.
+         * Useful for large files, the number of threads is set by the {@code osm.reader.threads} preference.
+         * @since 18559
+         */
+        PIPELINED
     }
 
     protected XMLStreamReader parser;
@@ -65,7 +71,7 @@ public class OsmReader extends AbstractReader {
     /** The {@link OsmReader.Options} to use when parsing the xml data */
     protected final Collection<Options> options;
 
-    private static final Set<String> COMMON_XML_ATTRIBUTES = new TreeSet<>();
+    static final Set<String> COMMON_XML_ATTRIBUTES = new TreeSet<>();
 
     static {
         COMMON_XML_ATTRIBUTES.add("id");
@@ -155,6 +161,25 @@ public class OsmReader extends AbstractReader {
         if (parser.getAttributeValue(null, "upload-changeset") != null) {
             uploadChangesetId = getLong("upload-changeset");
         }
+        if (options.contains(Options.PIPELINED)) {
+            try (OsmReaderPipeline pipeline = new OsmReaderPipeline(this)) {
+                try {
+                    parseOsmContent(generator, uploadChangesetId, pipeline);
+                } catch (OsmParsingCanceledException e) {
+                    throw e;
+                } catch (XMLStreamException | RuntimeException e) {
+                    // Errors of primitives located before the current element must be reported first
+                    pipeline.finish();
+                    throw e;
+                }
+                pipeline.finish();
+            }
+        } else {
+            parseOsmContent(generator, uploadChangesetId, null);
+        }
+    }
+
+    private void parseOsmContent(String generator, Long uploadChangesetId, OsmReaderPipeline pipeline) throws XMLStreamException {
         while (parser.hasNext()) {
             int event = parser.next();
 
@@ -169,13 +194,25 @@ public class OsmReader extends AbstractReader {
                     parseBounds(generator);
                     break;
                 case "node":
-                    parseNode();
+                    if (pipeline != null) {
+                        pipeline.read();
+                    } else {
+                        parseNode();
+                    }
                     break;
                 case "way":
-                    parseWay();
+                    if (pipeline != null) {
+                        pipeline.read();
+                    } else {
+                        parseWay();
+                    }
                     break;
                 case "relation":
-                    parseRelation();
+                    if (pipeline != null) {
+                        pipeline.read();
+                    } else {
+                        parseRelation();
+                    }
                     break;
                 case "changeset":
                     parseChangeset(uploadChangesetId);
@@ -0,0 +1,344 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.openstreetmap.josm.data.osm.NodeData;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.RelationData;
+import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.WayData;
+import org.openstreetmap.josm.io.OsmReader.Options;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.tools.UncheckedParseException;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Pipeline used by {@link OsmReader} in {@link Options#PIPELINED} mode.
+ * <p>
+ * The XML stream is read in three stages:
+ * <ol>
+ * <li>the thread calling the reader tokenizes the <code>node</code>, <code>way</code> and <code>relation</code> elements
+ * into batches of raw attribute values,</li>
+ * <li>worker threads decode the batches into {@link NodeData}, {@link WayData} and {@link RelationData},
+ * parsing ids, coordinates, timestamps and tags,</li>
+ * <li>the calling thread adds the decoded primitives to the data set in document order.</li>
+ * </ol>
+ * Errors are reported in document order, with the same message and location as in sequential mode.
+ * @since 18559
+ */
+final class OsmReaderPipeline implements AutoCloseable {
+
+    /** Number of primitives decoded together by a worker thread */
+    private static final int BATCH_SIZE = 1000;
+
+    private final OsmReader reader;
+    private final ExecutorService executor;
+    private final int maxPendingBatches;
+    private final Deque<Future<List<RawElement>>> pending = new ArrayDeque<>();
+    private List<RawElement> batch = new ArrayList<>(BATCH_SIZE);
+    /** Set when an error has been reported, following primitives must not be added to the data set */
+    private boolean failed;
+
+    /**
+     * An element read from the XML stream, with the raw values of its attributes.
+     * For primitives, it also holds the decoded data once a worker thread has processed it.
+     */
+    private static final class RawElement {
+        private final String name;
+        private final String[] attributes;
+        private final Location location;
+        private final List<RawElement> children;
+
+        private PrimitiveData data;
+        private Collection<?> references;
+        private IllegalDataException error;
+
+        RawElement(XMLStreamReader parser, boolean withChildren) {
+            this.name = parser.getLocalName();
+            this.attributes = new String[2 * parser.getAttributeCount()];
+            for (int i = 0; i < parser.getAttributeCount(); i++) {
+                attributes[2 * i] = parser.getAttributeLocalName(i);
+                attributes[2 * i + 1] = parser.getAttributeValue(i);
+            }
+            this.location = parser.getLocation();
+            this.children = withChildren ? new ArrayList<>() : null;
+        }
+
+        String get(String attribute) {
+            for (int i = 0; i < attributes.length; i += 2) {
+                if (attributes[i].equals(attribute)) {
+                    return attributes[i + 1];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Constructs a new {@code OsmReaderPipeline}.
+     * @param reader the reader that owns the XML stream and the data set
+     */
+    OsmReaderPipeline(OsmReader reader) {
+        this.reader = reader;
+        int threads = Config.getPref().getInt("osm.reader.threads", Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        threads = Math.max(1, threads);
+        this.executor = Executors.newFixedThreadPool(threads, Utils.newThreadFactory("osm-reader-%d", Thread.NORM_PRIORITY));
+        this.maxPendingBatches = 2 * threads;
+    }
+
+    /**
+     * Tokenizes the primitive the XML stream cursor points to. When this method returns, the cursor points to the end of the element.
+     * @throws XMLStreamException if the XML stream is invalid, or if a previously read primitive is invalid
+     */
+    void read() throws XMLStreamException {
+        XMLStreamReader parser = reader.parser;
+        RawElement primitive = new RawElement(parser, true);
+        try {
+            while (true) {
+                int event = parser.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String child = parser.getLocalName();
+                    if ("tag".equals(child) || ("nd".equals(child) && "way".equals(primitive.name))
+                            || ("member".equals(child) && "relation".equals(primitive.name))) {
+                        primitive.children.add(new RawElement(parser, false));
+                        reader.jumpToEnd();
+                    } else {
+                        reader.parseUnknown();
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    break;
+                }
+            }
+        } catch (XMLStreamException | RuntimeException e) {
+            // The sequential reader validates the previous primitives, then the attributes and children read so far
+            finish();
+            decode(Collections.singletonList(primitive));
+            if (primitive.error != null) {
+                failed = true;
+                apply(primitive);
+            }
+            throw e;
+        }
+        batch.add(primitive);
+        if (batch.size() >= BATCH_SIZE) {
+            submit();
+        }
+        applyDecodedBatches(false);
+    }
+
+    /**
+     * Waits until all primitives read so far are added to the data set.
+     * @throws XMLStreamException if a primitive is invalid
+     */
+    void finish() throws XMLStreamException {
+        if (!failed) {
+            submit();
+            applyDecodedBatches(true);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void submit() {
+        if (!batch.isEmpty()) {
+            List<RawElement> toDecode = batch;
+            pending.add(executor.submit(() -> decode(toDecode)));
+            batch = new ArrayList<>(BATCH_SIZE);
+        }
+    }
+
+    private void applyDecodedBatches(boolean all) throws XMLStreamException {
+        try {
+            doApplyDecodedBatches(all);
+        } catch (XMLStreamException | RuntimeException | Error e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    private void doApplyDecodedBatches(boolean all) throws XMLStreamException {
+        while (!pending.isEmpty() && (all || pending.size() > maxPendingBatches || pending.peek().isDone())) {
+            List<RawElement> decoded;
+            try {
+                decoded = pending.poll().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new XmlStreamParsingException(tr("Reading was canceled"), reader.parser.getLocation(), e);
+            } catch (ExecutionException e) {
+                // Unexpected exceptions are propagated as in sequential mode
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new XmlStreamParsingException(cause.getMessage(), reader.parser.getLocation(), cause);
+            }
+            for (RawElement primitive : decoded) {
+                apply(primitive);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(RawElement primitive) throws XMLStreamException {
+        if (primitive.error != null) {
+            Throwable cause = primitive.error.getCause();
+            if (cause instanceof XMLStreamException) {
+                throw (XMLStreamException) cause;
+            }
+            throw new XmlStreamParsingException(primitive.error.getMessage(), primitive.location, primitive.error);
+        } else if (primitive.data instanceof NodeData) {
+            reader.buildPrimitive(primitive.data);
+        } else if (primitive.data instanceof WayData) {
+            reader.addWay((WayData) primitive.data, (Collection<Long>) primitive.references);
+        } else {
+            reader.addRelation((RelationData) primitive.data, (Collection<RelationMemberData>) primitive.references);
+        }
+    }
+
+    private List<RawElement> decode(List<RawElement> primitives) {
+        for (RawElement primitive : primitives) {
+            try {
+                decode(primitive);
+            } catch (IllegalDataException e) {
+                // Following primitives are never added to the data set
+                primitive.error = e;
+                break;
+            }
+        }
+        return primitives;
+    }
+
+    private void decode(RawElement primitive) throws IllegalDataException {
+        switch (primitive.name) {
+        case "node":
+            primitive.data = reader.readNode(primitive.get("lat"), primitive.get("lon"),
+                    pd -> readCommon(primitive, pd), nd -> readTags(primitive, nd));
+            break;
+        case "way":
+            Collection<Long> nodeIds = new ArrayList<>();
+            primitive.data = reader.readWay(pd -> readCommon(primitive, pd), (wd, ids) -> readWayNodesAndTags(primitive, wd, ids), nodeIds);
+            primitive.references = nodeIds;
+            break;
+        default:
+            Collection<RelationMemberData> members = new ArrayList<>();
+            primitive.data = reader.readRelation(pd -> readCommon(primitive, pd),
+                    (rd, list) -> readRelationMembersAndTags(primitive, rd, list), members);
+            primitive.references = members;
+        }
+    }
+
+    /**
+     * Read out the common attributes and put them into current primitive. Same as {@code OsmReader#readCommon}.
+     * @param primitive raw primitive
+     * @param current primitive to update
+     * @throws IllegalDataException in case of invalid data
+     */
+    private void readCommon(RawElement primitive, PrimitiveData current) throws IllegalDataException {
+        try {
+            reader.parseId(current, reader.getLong("id", primitive.get("id")));
+            reader.parseTimestamp(current, primitive.get("timestamp"));
+            reader.parseUser(current, primitive.get("user"), primitive.get("uid"));
+            reader.parseVisible(current, primitive.get("visible"));
+            reader.parseVersion(current, primitive.get("version"));
+            reader.parseAction(current, primitive.get("action"));
+            reader.parseChangeset(current, primitive.get("changeset"));
+
+            if (reader.options.contains(Options.SAVE_ORIGINAL_ID)) {
+                reader.parseTag(current, "current_id", Long.toString(reader.getLong("id", primitive.get("id"))));
+            }
+            if (reader.options.contains(Options.CONVERT_UNKNOWN_TO_TAGS)) {
+                for (int i = 0; i < primitive.attributes.length; i += 2) {
+                    if (!OsmReader.COMMON_XML_ATTRIBUTES.contains(primitive.attributes[i])) {
+                        reader.parseTag(current, primitive.attributes[i], primitive.attributes[i + 1]);
+                    }
+                }
+            }
+        } catch (UncheckedParseException e) {
+            throw new IllegalDataException(e);
+        }
+    }
+
+    private void readTags(RawElement primitive, PrimitiveData current) throws IllegalDataException {
+        for (RawElement child : primitive.children) {
+            readTag(child, current);
+        }
+    }
+
+    private void readTag(RawElement tag, PrimitiveData current) throws IllegalDataException {
+        try {
+            reader.parseTag(current, tag.get("k"), tag.get("v"));
+        } catch (IllegalDataException e) {
+            throw new IllegalDataException(new XmlStreamParsingException(e.getMessage(), tag.location, e));
+        }
+    }
+
+    private void readWayNodesAndTags(RawElement primitive, WayData w, Collection<Long> nodeIds) throws IllegalDataException {
+        for (RawElement child : primitive.children) {
+            if ("nd".equals(child.name)) {
+                nodeIds.add(readWayNode(child, w));
+            } else {
+                readTag(child, w);
+            }
+        }
+    }
+
+    private long readWayNode(RawElement nd, WayData w) throws IllegalDataException {
+        String ref = nd.get("ref");
+        String error = null;
+        long id = 0;
+        if (ref == null) {
+            error = tr("Missing mandatory attribute ''{0}'' on <nd> of way {1}.", "ref", Long.toString(w.getUniqueId()));
+        } else {
+            try {
+                id = reader.getLong("ref", ref);
+            } catch (IllegalDataException e) {
+                throw new IllegalDataException(new XmlStreamParsingException(e.getMessage(), nd.location, e));
+            }
+            if (id == 0) {
+                error = tr("Illegal value of attribute ''ref'' of element <nd>. Got {0}.", Long.toString(id));
+            }
+        }
+        if (error != null) {
+            throw new IllegalDataException(new XmlStreamParsingException(error, nd.location));
+        }
+        return id;
+    }
+
+    private void readRelationMembersAndTags(RawElement primitive, RelationData r, Collection<RelationMemberData> members)
+            throws IllegalDataException {
+        for (RawElement child : primitive.children) {
+            if ("member".equals(child.name)) {
+                try {
+                    members.add(reader.parseRelationMember(r, child.get("ref"), child.get("type"), child.get("role")));
+                } catch (IllegalDataException e) {
+                    throw new IllegalDataException(new XmlStreamParsingException(e.getMessage(), child.location, e));
+                }
+            } else {
+                readTag(child, r);
+            }
+        }
+    }
+
+}
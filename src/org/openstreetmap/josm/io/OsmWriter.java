@@ -5,11 +5,15 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.io.PrintWriter;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
 
 import org.openstreetmap.josm.data.DataSource;
 import org.openstreetmap.josm.data.coor.LatLon;
@@ -17,13 +21,16 @@ import org.openstreetmap.josm.data.coor.conversion.DecimalDegreesCoordinateForma
 import org.openstreetmap.josm.data.osm.AbstractPrimitive;
 import org.openstreetmap.josm.data.osm.Changeset;
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.DataSetSnapshot;
 import org.openstreetmap.josm.data.osm.DownloadPolicy;
 import org.openstreetmap.josm.data.osm.INode;
 import org.openstreetmap.josm.data.osm.IPrimitive;
 import org.openstreetmap.josm.data.osm.IRelation;
 import org.openstreetmap.josm.data.osm.IWay;
+import org.openstreetmap.josm.data.osm.KeyValueVisitor;
 import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
 import org.openstreetmap.josm.data.osm.Relation;
 import org.openstreetmap.josm.data.osm.Tagged;
 import org.openstreetmap.josm.data.osm.UploadPolicy;
@@ -47,6 +54,19 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
     private String version;
     private Changeset changeset;
 
+    /** Reused to write numbers without creating strings */
+    private final char[] digits = new char[20];
+    /** Reused to sort the tags of a primitive: key and value pairs, the first {@link #tagsLength} strings are used */
+    private String[] tags = new String[16];
+    private int tagsLength;
+    private final KeyValueVisitor tagCollector = (primitive, key, value) -> {
+        if (tagsLength == tags.length) {
+            tags = Arrays.copyOf(tags, 2 * tags.length);
+        }
+        tags[tagsLength++] = key;
+        tags[tagsLength++] = value;
+    };
+
     /**
      * Constructs a new {@code OsmWriter}.
      * Do not call this directly. Use {@link OsmWriterFactory} instead.
@@ -106,7 +126,14 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
         header(download, upload, false);
     }
 
-    private void header(DownloadPolicy download, UploadPolicy upload, boolean locked) {
+    /**
+     * Writes OSM header with given download upload policies and locked flag.
+     * @param download download policy
+     * @param upload upload policy
+     * @param locked if {@code true}, the data set is read-only
+     * @since 18571
+     */
+    public void header(DownloadPolicy download, UploadPolicy upload, boolean locked) {
         out.println("<?xml version='1.0' encoding='UTF-8'?>");
         out.print("<osm version='");
         out.print(version);
@@ -145,8 +172,7 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
     };
 
     protected <T extends OsmPrimitive> Collection<T> sortById(Collection<T> primitives) {
-        List<T> result = new ArrayList<>(primitives.size());
-        result.addAll(primitives);
+        List<T> result = new ArrayList<>(primitives);
         result.sort(byIdComparator);
         return result;
     }
@@ -213,6 +239,30 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
         }
     }
 
+    /**
+     * Writes the contents of a snapshot of a dataset (nodes, then ways, then relations). Unlike
+     * {@link #writeContent(DataSet)}, the dataset does not have to be locked while the snapshot is written.
+     * @param snapshot The snapshot to write
+     * @param uploadPolicy The upload policy of the dataset
+     * @since 18571
+     */
+    public void writeContent(DataSetSnapshot snapshot, UploadPolicy uploadPolicy) {
+        setWithVisible(UploadPolicy.NORMAL == uploadPolicy);
+        writeSorted(snapshot.getNodes(), this::visit);
+        writeSorted(snapshot.getWays(), this::visit);
+        writeSorted(snapshot.getRelations(), this::visit);
+    }
+
+    private static <T extends PrimitiveData> void writeSorted(Collection<T> primitives, Consumer<T> visitor) {
+        List<T> sorted = new ArrayList<>(primitives);
+        sorted.sort(byIdComparator);
+        for (T p : sorted) {
+            if (!p.isNewOrUndeleted() || !p.isDeleted()) {
+                visitor.accept(p);
+            }
+        }
+    }
+
     protected boolean shouldWrite(OsmPrimitive osm) {
         return !osm.isNewOrUndeleted() || !osm.isDeleted();
     }
@@ -222,7 +272,16 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
      * @param ds data set
      */
     public void writeDataSources(DataSet ds) {
-        for (DataSource s : ds.getDataSources()) {
+        writeDataSources(ds.getDataSources());
+    }
+
+    /**
+     * Writes data sources with their respective bounds.
+     * @param dataSources data sources
+     * @since 18571
+     */
+    public void writeDataSources(Collection<DataSource> dataSources) {
+        for (DataSource s : dataSources) {
             out.append("  <bounds minlat='").append(DecimalDegreesCoordinateFormat.INSTANCE.latToString(s.bounds.getMin()));
             out.append("' minlon='").append(DecimalDegreesCoordinateFormat.INSTANCE.lonToString(s.bounds.getMin()));
             out.append("' maxlat='").append(DecimalDegreesCoordinateFormat.INSTANCE.latToString(s.bounds.getMax()));
@@ -260,7 +319,9 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
         } else {
             out.println(">");
             for (int i = 0; i < w.getNodesCount(); ++i) {
-                out.append("    <nd ref='").append(String.valueOf(w.getNodeId(i))).append("' />");
+                out.append("    <nd ref='");
+                writeLong(w.getNodeId(i));
+                out.append("' />");
                 out.println();
             }
             addTags(w, "way", false);
@@ -278,7 +339,8 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
             for (int i = 0; i < e.getMembersCount(); ++i) {
                 out.print("    <member type='");
                 out.print(e.getMemberType(i).getAPIName());
-                out.append("' ref='").append(String.valueOf(e.getMemberId(i)));
+                out.append("' ref='");
+                writeLong(e.getMemberId(i));
                 out.append("' role='").append(XmlWriter.encode(e.getRole(i))).append("' />");
                 out.println();
             }
@@ -324,19 +386,95 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
             if (tagOpen) {
                 out.println(">");
             }
-            List<Entry<String, String>> entries = new ArrayList<>(osm.getKeys().entrySet());
-            entries.sort(byKeyComparator);
-            for (Entry<String, String> e : entries) {
-                out.append("    <tag k='").append(XmlWriter.encode(e.getKey()));
-                out.append("' v='").append(XmlWriter.encode(e.getValue())).append("' />");
+            // sort the tags by key without creating a map and its entries
+            tagsLength = 0;
+            osm.visitKeys(tagCollector);
+            sortTags();
+            for (int i = 0; i < tagsLength; i += 2) {
+                out.append("    <tag k='").append(XmlWriter.encode(tags[i]));
+                out.append("' v='").append(XmlWriter.encode(tags[i + 1])).append("' />");
                 out.println();
             }
-            out.println("  </" + tagname + '>');
+            Arrays.fill(tags, 0, tagsLength, null);
+            writeEndTag(tagname);
         } else if (tagOpen) {
             out.println(" />");
         } else {
-            out.println("  </" + tagname + '>');
+            writeEndTag(tagname);
+        }
+    }
+
+    /**
+     * Sorts the collected tags by key. Primitives have few tags, hence an insertion sort is used.
+     */
+    private void sortTags() {
+        for (int i = 2; i < tagsLength; i += 2) {
+            final String key = tags[i];
+            final String value = tags[i + 1];
+            int j = i;
+            for (; j > 0 && tags[j - 2].compareTo(key) > 0; j -= 2) {
+                tags[j] = tags[j - 2];
+                tags[j + 1] = tags[j - 1];
+            }
+            tags[j] = key;
+            tags[j + 1] = value;
+        }
+    }
+
+    private void writeEndTag(String tagname) {
+        out.append("  </").append(tagname).append('>');
+        out.println();
+    }
+
+    /**
+     * Writes a number, like {@link PrintWriter#print(long)} but without creating a string.
+     * @param value the number to write
+     */
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            out.print(value);
+            return;
+        }
+        long remaining = Math.abs(value);
+        int start = digits.length;
+        do {
+            digits[--start] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            digits[--start] = '-';
+        }
+        out.write(digits, start, digits.length - start);
+    }
+
+    /**
+     * Writes a timestamp in ISO 8601 format, like {@link Instant#toString()} for timestamps with a precision of one
+     * second between the years 1000 and 9999.
+     * @param epochSecond the timestamp, in seconds since the epoch
+     */
+    private void writeTimestamp(long epochSecond) {
+        final LocalDateTime dateTime = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+        writeDigits(dateTime.getYear(), 4);
+        out.write('-');
+        writeDigits(dateTime.getMonthValue(), 2);
+        out.write('-');
+        writeDigits(dateTime.getDayOfMonth(), 2);
+        out.write('T');
+        writeDigits(dateTime.getHour(), 2);
+        out.write(':');
+        writeDigits(dateTime.getMinute(), 2);
+        out.write(':');
+        writeDigits(dateTime.getSecond(), 2);
+        out.write('Z');
+    }
+
+    private void writeDigits(int value, int length) {
+        int remaining = value;
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
         }
+        out.write(digits, 0, length);
     }
 
     /**
@@ -348,7 +486,9 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
     protected void addCommon(IPrimitive osm, String tagname) {
         out.append("  <").append(tagname);
         if (osm.getUniqueId() != 0) {
-            out.append(" id='").append(String.valueOf(osm.getUniqueId())).append("'");
+            out.append(" id='");
+            writeLong(osm.getUniqueId());
+            out.append("'");
         } else
             throw new IllegalStateException(tr("Unexpected id 0 for osm primitive found"));
         if (!isOsmChange) {
@@ -364,7 +504,9 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
                 }
             }
             if (!osm.isTimestampEmpty()) {
-                out.append(" timestamp='").append(String.valueOf(osm.getInstant())).append("'");
+                out.append(" timestamp='");
+                writeTimestamp(Integer.toUnsignedLong(osm.getRawTimestamp()));
+                out.append("'");
             }
             // user and visible added with 0.4 API
             if (osm.getUser() != null) {
@@ -372,7 +514,9 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
                     out.append(" user='").append(XmlWriter.encode(osm.getUser().getName())).append("'");
                 } else if (osm.getUser().isOsmUser()) {
                     // uid added with 0.6
-                    out.append(" uid='").append(String.valueOf(osm.getUser().getId())).append("'");
+                    out.append(" uid='");
+                    writeLong(osm.getUser().getId());
+                    out.append("'");
                     out.append(" user='").append(XmlWriter.encode(osm.getUser().getName())).append("'");
                 }
             }
@@ -381,12 +525,18 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
             }
         }
         if (osm.getVersion() != 0) {
-            out.append(" version='").append(String.valueOf(osm.getVersion())).append("'");
+            out.append(" version='");
+            writeLong(osm.getVersion());
+            out.append("'");
         }
         if (this.changeset != null && this.changeset.getId() != 0) {
-            out.append(" changeset='").append(String.valueOf(this.changeset.getId())).append("'");
+            out.append(" changeset='");
+            writeLong(this.changeset.getId());
+            out.append("'");
         } else if (osm.getChangesetId() > 0 && !osm.isNew()) {
-            out.append(" changeset='").append(String.valueOf(osm.getChangesetId())).append("'");
+            out.append(" changeset='");
+            writeLong(osm.getChangesetId());
+            out.append("'");
         }
     }
 }
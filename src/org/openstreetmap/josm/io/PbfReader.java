@@ -0,0 +1,754 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.NodeData;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.RelationData;
+import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.WayData;
+import org.openstreetmap.josm.data.protobuf.ProtobufPacked;
+import org.openstreetmap.josm.data.protobuf.ProtobufParser;
+import org.openstreetmap.josm.data.protobuf.ProtobufRecord;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Parser for the <a href="https://wiki.openstreetmap.org/wiki/PBF_Format">OSM PBF format</a>.
+ * <p>
+ * The file is a sequence of blobs, each holding a zlib compressed block of up to a few thousand primitives
+ * with its own string table. Blobs are decompressed and decoded by worker threads, then their primitives
+ * are added to the data set in file order. Dense nodes are supported.
+ * @since 18560
+ */
+public class PbfReader extends AbstractReader {
+
+    /** Maximum size of a blob header, see specification */
+    static final int MAX_BLOB_HEADER_SIZE = 64 * 1024;
+    /** Maximum size of a blob, see specification */
+    static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+    /** Type of the blob holding the header block */
+    static final String OSM_HEADER = "OSMHeader";
+    /** Type of the blobs holding primitive blocks */
+    static final String OSM_DATA = "OSMData";
+    /** Features of the format we can read */
+    static final Collection<String> SUPPORTED_FEATURES = Arrays.asList("OsmSchema-V0.6", "DenseNodes", "HistoricalInformation");
+
+    // Field numbers, see https://github.com/openstreetmap/OSM-binary/tree/master/osmpbf
+    static final int BLOB_HEADER_TYPE = 1;
+    static final int BLOB_HEADER_DATA_SIZE = 3;
+    static final int BLOB_RAW = 1;
+    static final int BLOB_RAW_SIZE = 2;
+    static final int BLOB_ZLIB_DATA = 3;
+    static final int HEADER_BBOX = 1;
+    static final int HEADER_REQUIRED_FEATURES = 4;
+    static final int HEADER_OPTIONAL_FEATURES = 5;
+    static final int HEADER_WRITING_PROGRAM = 16;
+    static final int HEADER_SOURCE = 17;
+    static final int BBOX_LEFT = 1;
+    static final int BBOX_RIGHT = 2;
+    static final int BBOX_TOP = 3;
+    static final int BBOX_BOTTOM = 4;
+    static final int BLOCK_STRING_TABLE = 1;
+    static final int BLOCK_PRIMITIVE_GROUP = 2;
+    static final int BLOCK_GRANULARITY = 17;
+    static final int BLOCK_DATE_GRANULARITY = 18;
+    static final int BLOCK_LAT_OFFSET = 19;
+    static final int BLOCK_LON_OFFSET = 20;
+    static final int STRING_TABLE_S = 1;
+    static final int GROUP_NODES = 1;
+    static final int GROUP_DENSE = 2;
+    static final int GROUP_WAYS = 3;
+    static final int GROUP_RELATIONS = 4;
+    static final int PRIMITIVE_ID = 1;
+    static final int PRIMITIVE_KEYS = 2;
+    static final int PRIMITIVE_VALS = 3;
+    static final int PRIMITIVE_INFO = 4;
+    static final int NODE_LAT = 8;
+    static final int NODE_LON = 9;
+    static final int WAY_REFS = 8;
+    static final int RELATION_ROLES_SID = 8;
+    static final int RELATION_MEMIDS = 9;
+    static final int RELATION_TYPES = 10;
+    static final int DENSE_ID = 1;
+    static final int DENSE_INFO = 5;
+    static final int DENSE_LAT = 8;
+    static final int DENSE_LON = 9;
+    static final int DENSE_KEYS_VALS = 10;
+    static final int INFO_VERSION = 1;
+    static final int INFO_TIMESTAMP = 2;
+    static final int INFO_CHANGESET = 3;
+    static final int INFO_UID = 4;
+    static final int INFO_USER_SID = 5;
+    static final int INFO_VISIBLE = 6;
+
+    private static final String[] MEMBER_TYPES = {
+            OsmPrimitiveType.NODE.getAPIName(), OsmPrimitiveType.WAY.getAPIName(), OsmPrimitiveType.RELATION.getAPIName()};
+
+    /**
+     * The primitives of a decoded block, in file order.
+     */
+    private static final class DecodedBlock {
+        private final List<PrimitiveData> primitives = new ArrayList<>();
+        /** Node ids of ways or members of relations, {@code null} for nodes */
+        private final List<Collection<?>> references = new ArrayList<>();
+
+        void add(PrimitiveData data, Collection<?> refs) {
+            primitives.add(data);
+            references.add(refs);
+        }
+    }
+
+    /**
+     * Exception thrown after user cancellation.
+     */
+    private static final class PbfParsingCanceledException extends IllegalDataException implements ImportCancelException {
+        PbfParsingCanceledException() {
+            super(tr("Reading was canceled"));
+        }
+    }
+
+    /**
+     * Constructs a new {@code PbfReader}.
+     * @see #parseDataSet(InputStream, ProgressMonitor)
+     */
+    protected PbfReader() {
+        // Restricts visibility
+    }
+
+    @Override
+    protected DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return doParseBinaryDataSet(source, progressMonitor, this::parse);
+    }
+
+    private void parse(InputStream source) throws IllegalDataException, IOException {
+        parseVersion("0.6");
+        DataInputStream in = new DataInputStream(source);
+        int threads = Math.max(1, Config.getPref().getInt("osm.reader.threads", Runtime.getRuntime().availableProcessors() - 1));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, Utils.newThreadFactory("pbf-reader-%d", Thread.NORM_PRIORITY));
+        Deque<Future<DecodedBlock>> pending = new ArrayDeque<>();
+        try {
+            int first;
+            while ((first = in.read()) != -1) {
+                if (cancel) {
+                    throw new PbfParsingCanceledException();
+                }
+                int headerSize = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedShort());
+                if (headerSize < 0 || headerSize > MAX_BLOB_HEADER_SIZE) {
+                    throw new IllegalDataException(tr("Invalid PBF blob header size: {0}", headerSize));
+                }
+                String type = null;
+                int dataSize = -1;
+                for (ProtobufRecord r : readRecords(readFully(in, headerSize))) {
+                    if (r.getField() == BLOB_HEADER_TYPE) {
+                        type = new String(r.getBytes(), StandardCharsets.UTF_8);
+                    } else if (r.getField() == BLOB_HEADER_DATA_SIZE) {
+                        dataSize = (int) r.asUnsignedVarLong();
+                    }
+                }
+                if (dataSize < 0 || dataSize > MAX_BLOB_SIZE) {
+                    throw new IllegalDataException(tr("Invalid PBF blob size: {0}", dataSize));
+                }
+                byte[] blob = readFully(in, dataSize);
+                if (OSM_HEADER.equals(type)) {
+                    parseHeader(decompress(blob));
+                } else if (OSM_DATA.equals(type)) {
+                    pending.add(executor.submit(() -> decodeBlock(decompress(blob))));
+                    while (pending.size() > 2 * threads || (!pending.isEmpty() && pending.peek().isDone())) {
+                        addDecodedBlock(pending.poll());
+                    }
+                } else {
+                    // Unknown blob types must be skipped, see specification
+                    Logging.debug("Skipping PBF blob of type {0}", type);
+                }
+            }
+            while (!pending.isEmpty()) {
+                addDecodedBlock(pending.poll());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] readFully(DataInputStream in, int size) throws IOException, IllegalDataException {
+        byte[] bytes = new byte[size];
+        try {
+            in.readFully(bytes);
+        } catch (EOFException e) {
+            throw new IllegalDataException(tr("Unexpected end of PBF file"), e);
+        }
+        return bytes;
+    }
+
+    private static Collection<ProtobufRecord> readRecords(byte[] bytes) throws IOException {
+        try (ProtobufParser parser = new ProtobufParser(bytes)) {
+            return parser.allRecords();
+        }
+    }
+
+    private static long[] readPacked(ProtobufRecord r, boolean signed) {
+        long[] values = new ProtobufPacked(r.getBytes()).toLongArray();
+        if (signed) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ProtobufParser.decodeZigZagLong(values[i]);
+            }
+        }
+        return values;
+    }
+
+    private static long[] readDeltaPacked(ProtobufRecord r) {
+        long[] values = readPacked(r, true);
+        for (int i = 1; i < values.length; i++) {
+            values[i] += values[i - 1];
+        }
+        return values;
+    }
+
+    private static byte[] decompress(byte[] blob) throws IOException, IllegalDataException {
+        byte[] raw = null;
+        byte[] zlib = null;
+        int rawSize = -1;
+        for (ProtobufRecord r : readRecords(blob)) {
+            if (r.getField() == BLOB_RAW) {
+                raw = r.getBytes();
+            } else if (r.getField() == BLOB_RAW_SIZE) {
+                rawSize = (int) r.asUnsignedVarLong();
+            } else if (r.getField() == BLOB_ZLIB_DATA) {
+                zlib = r.getBytes();
+            }
+        }
+        if (raw != null) {
+            return raw;
+        } else if (zlib == null) {
+            throw new IllegalDataException(tr("Unsupported PBF blob compression"));
+        } else if (rawSize < 0 || rawSize > MAX_BLOB_SIZE) {
+            throw new IllegalDataException(tr("Invalid PBF blob size: {0}", rawSize));
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(zlib);
+            byte[] data = new byte[rawSize];
+            int length = 0;
+            while (length < rawSize && !inflater.finished() && !inflater.needsInput()) {
+                length += inflater.inflate(data, length, rawSize - length);
+            }
+            if (length != rawSize) {
+                throw new IllegalDataException(tr("Invalid PBF blob size: {0}", length));
+            }
+            return data;
+        } catch (DataFormatException e) {
+            throw new IllegalDataException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private void parseHeader(byte[] header) throws IOException, IllegalDataException {
+        byte[] bbox = null;
+        String writingProgram = null;
+        String source = null;
+        for (ProtobufRecord r : readRecords(header)) {
+            switch (r.getField()) {
+            case HEADER_BBOX:
+                bbox = r.getBytes();
+                break;
+            case HEADER_REQUIRED_FEATURES:
+                String feature = new String(r.getBytes(), StandardCharsets.UTF_8);
+                if (!SUPPORTED_FEATURES.contains(feature)) {
+                    throw new IllegalDataException(tr("Unsupported PBF feature: {0}", feature));
+                }
+                break;
+            case HEADER_WRITING_PROGRAM:
+                writingProgram = new String(r.getBytes(), StandardCharsets.UTF_8);
+                break;
+            case HEADER_SOURCE:
+                source = new String(r.getBytes(), StandardCharsets.UTF_8);
+                break;
+            default: // Ignore
+            }
+        }
+        if (bbox != null) {
+            double[] nanoDegrees = new double[5];
+            for (ProtobufRecord r : readRecords(bbox)) {
+                if (r.getField() >= BBOX_LEFT && r.getField() <= BBOX_BOTTOM) {
+                    nanoDegrees[r.getField()] = r.asSignedVarLong() * 1e-9;
+                }
+            }
+            parseBounds(writingProgram,
+                    Double.toString(nanoDegrees[BBOX_LEFT]), Double.toString(nanoDegrees[BBOX_BOTTOM]),
+                    Double.toString(nanoDegrees[BBOX_RIGHT]), Double.toString(nanoDegrees[BBOX_TOP]), source);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addDecodedBlock(Future<DecodedBlock> future) throws IllegalDataException, IOException {
+        DecodedBlock block;
+        try {
+            block = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PbfParsingCanceledException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalDataException) {
+                throw (IllegalDataException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalDataException(cause);
+        }
+        for (int i = 0; i < block.primitives.size(); i++) {
+            PrimitiveData data = block.primitives.get(i);
+            if (data instanceof NodeData) {
+                buildPrimitive(data);
+            } else if (data instanceof WayData) {
+                addWay((WayData) data, (Collection<Long>) block.references.get(i));
+            } else {
+                addRelation((RelationData) data, (Collection<RelationMemberData>) block.references.get(i));
+            }
+        }
+    }
+
+    private DecodedBlock decodeBlock(byte[] data) throws IOException, IllegalDataException {
+        return new BlockDecoder(readRecords(data)).decode();
+    }
+
+    /**
+     * Decodes a primitive block. Called from worker threads, must not modify the reader state.
+     */
+    private final class BlockDecoder {
+        private final DecodedBlock result = new DecodedBlock();
+        private final List<byte[]> groups = new ArrayList<>();
+        private String[] strings = new String[0];
+        private long granularity = 100;
+        private long dateGranularity = 1000;
+        private long latOffset;
+        private long lonOffset;
+
+        // Metadata of the current primitive
+        private boolean hasInfo;
+        private int version;
+        private long timestamp;
+        private long changeset;
+        private long uid;
+        private int userSid;
+        private Boolean visible;
+
+        BlockDecoder(Collection<ProtobufRecord> records) throws IOException {
+            for (ProtobufRecord r : records) {
+                switch (r.getField()) {
+                case BLOCK_STRING_TABLE:
+                    List<String> table = new ArrayList<>();
+                    for (ProtobufRecord s : readRecords(r.getBytes())) {
+                        if (s.getField() == STRING_TABLE_S) {
+                            table.add(new String(s.getBytes(), StandardCharsets.UTF_8));
+                        }
+                    }
+                    strings = table.toArray(strings);
+                    break;
+                case BLOCK_PRIMITIVE_GROUP:
+                    groups.add(r.getBytes());
+                    break;
+                case BLOCK_GRANULARITY:
+                    granularity = r.asUnsignedVarLong();
+                    break;
+                case BLOCK_DATE_GRANULARITY:
+                    dateGranularity = r.asUnsignedVarLong();
+                    break;
+                case BLOCK_LAT_OFFSET:
+                    latOffset = r.asUnsignedVarLong();
+                    break;
+                case BLOCK_LON_OFFSET:
+                    lonOffset = r.asUnsignedVarLong();
+                    break;
+                default: // Ignore
+                }
+            }
+        }
+
+        DecodedBlock decode() throws IOException, IllegalDataException {
+            for (byte[] group : groups) {
+                for (ProtobufRecord r : readRecords(group)) {
+                    switch (r.getField()) {
+                    case GROUP_NODES:
+                        decodeNode(r.getBytes());
+                        break;
+                    case GROUP_DENSE:
+                        decodeDenseNodes(r.getBytes());
+                        break;
+                    case GROUP_WAYS:
+                        decodeWay(r.getBytes());
+                        break;
+                    case GROUP_RELATIONS:
+                        decodeRelation(r.getBytes());
+                        break;
+                    default: // Changesets are ignored
+                    }
+                }
+            }
+            return result;
+        }
+
+        private String getString(long index) throws IllegalDataException {
+            if (index < 0 || index >= strings.length) {
+                throw new IllegalDataException(tr("Invalid PBF string table index: {0}", index));
+            }
+            return strings[(int) index];
+        }
+
+        private double toDegrees(long offset, long value) {
+            return .000000001 * (offset + granularity * value);
+        }
+
+        private void decodeInfo(byte[] info) throws IOException {
+            hasInfo = true;
+            version = -1;
+            timestamp = 0;
+            changeset = 0;
+            uid = 0;
+            userSid = 0;
+            visible = null;
+            for (ProtobufRecord r : readRecords(info)) {
+                switch (r.getField()) {
+                case INFO_VERSION:
+                    version = (int) r.asUnsignedVarLong();
+                    break;
+                case INFO_TIMESTAMP:
+                    timestamp = r.asUnsignedVarLong();
+                    break;
+                case INFO_CHANGESET:
+                    changeset = r.asUnsignedVarLong();
+                    break;
+                case INFO_UID:
+                    uid = (int) r.asUnsignedVarLong();
+                    break;
+                case INFO_USER_SID:
+                    userSid = (int) r.asUnsignedVarLong();
+                    break;
+                case INFO_VISIBLE:
+                    visible = r.asUnsignedVarLong() != 0;
+                    break;
+                default: // Ignore
+                }
+            }
+        }
+
+        /**
+         * Sets the id and the metadata decoded by the last call to {@link #decodeInfo}, in the order used by {@link OsmReader}.
+         * @param pd primitive to update
+         * @param id primitive id
+         * @throws IllegalDataException in case of invalid data
+         */
+        private void readCommon(PrimitiveData pd, long id) throws IllegalDataException {
+            parseId(pd, id);
+            if (!hasInfo) {
+                parseVersion(pd, (String) null);
+                return;
+            }
+            pd.setRawTimestamp((int) (timestamp * dateGranularity / 1000));
+            String user = getString(userSid);
+            if (uid > 0) {
+                parseUser(pd, user, uid);
+            } else if (!user.isEmpty()) {
+                parseUser(pd, user, null);
+            }
+            if (visible != null) {
+                pd.setVisible(visible);
+            }
+            if (version < 0) {
+                parseVersion(pd, (String) null);
+            } else {
+                parseVersion(pd, version);
+            }
+            if (changeset != 0) {
+                parseChangeset(pd, (int) changeset);
+            }
+        }
+
+        private void readTags(PrimitiveData pd, long[] keys, long[] vals) throws IllegalDataException {
+            if (keys.length != vals.length) {
+                throw new IllegalDataException(tr("Mismatch in tags key and value size"));
+            }
+            for (int i = 0; i < keys.length; i++) {
+                parseTag(pd, getString(keys[i]), getString(vals[i]));
+            }
+        }
+
+        private void decodeNode(byte[] node) throws IOException, IllegalDataException {
+            long id = 0;
+            long lat = 0;
+            long lon = 0;
+            long[] keys = new long[0];
+            long[] vals = keys;
+            hasInfo = false;
+            for (ProtobufRecord r : readRecords(node)) {
+                switch (r.getField()) {
+                case PRIMITIVE_ID:
+                    id = r.asSignedVarLong();
+                    break;
+                case PRIMITIVE_KEYS:
+                    keys = readPacked(r, false);
+                    break;
+                case PRIMITIVE_VALS:
+                    vals = readPacked(r, false);
+                    break;
+                case PRIMITIVE_INFO:
+                    decodeInfo(r.getBytes());
+                    break;
+                case NODE_LAT:
+                    lat = r.asSignedVarLong();
+                    break;
+                case NODE_LON:
+                    lon = r.asSignedVarLong();
+                    break;
+                default: // Ignore
+                }
+            }
+            final long nodeId = id;
+            final long[] nodeKeys = keys;
+            final long[] nodeVals = vals;
+            result.add(readNode(toDegrees(latOffset, lat), toDegrees(lonOffset, lon),
+                    pd -> readCommon(pd, nodeId), nd -> readTags(nd, nodeKeys, nodeVals)), null);
+        }
+
+        private void decodeDenseNodes(byte[] dense) throws IOException, IllegalDataException {
+            long[] ids = new long[0];
+            long[] lats = ids;
+            long[] lons = ids;
+            long[] keysVals = ids;
+            byte[] denseInfo = null;
+            for (ProtobufRecord r : readRecords(dense)) {
+                switch (r.getField()) {
+                case DENSE_ID:
+                    ids = readDeltaPacked(r);
+                    break;
+                case DENSE_INFO:
+                    denseInfo = r.getBytes();
+                    break;
+                case DENSE_LAT:
+                    lats = readDeltaPacked(r);
+                    break;
+                case DENSE_LON:
+                    lons = readDeltaPacked(r);
+                    break;
+                case DENSE_KEYS_VALS:
+                    keysVals = readPacked(r, false);
+                    break;
+                default: // Ignore
+                }
+            }
+            if (lats.length != ids.length || lons.length != ids.length) {
+                throw new IllegalDataException(tr("Mismatch in PBF dense node array sizes"));
+            }
+            long[][] info = decodeDenseInfo(denseInfo, ids.length);
+            int keyIndex = 0;
+            for (int i = 0; i < ids.length; i++) {
+                hasInfo = info != null;
+                if (hasInfo) {
+                    version = (int) info[INFO_VERSION][i];
+                    timestamp = info[INFO_TIMESTAMP][i];
+                    changeset = info[INFO_CHANGESET][i];
+                    uid = info[INFO_UID][i];
+                    userSid = (int) info[INFO_USER_SID][i];
+                    visible = info[INFO_VISIBLE] != null ? info[INFO_VISIBLE][i] != 0 : null;
+                }
+                int firstKey = keyIndex;
+                while (keyIndex < keysVals.length && keysVals[keyIndex] != 0) {
+                    keyIndex += 2;
+                }
+                if (keyIndex > keysVals.length) {
+                    throw new IllegalDataException(tr("Mismatch in tags key and value size"));
+                }
+                final int lastKey = keyIndex;
+                if (keyIndex < keysVals.length) {
+                    // Skip the 0 delimiter
+                    keyIndex++;
+                }
+                final long nodeId = ids[i];
+                final long[] tags = keysVals;
+                result.add(readNode(toDegrees(latOffset, lats[i]), toDegrees(lonOffset, lons[i]),
+                        pd -> readCommon(pd, nodeId), nd -> {
+                            for (int k = firstKey; k < lastKey; k += 2) {
+                                parseTag(nd, getString(tags[k]), getString(tags[k + 1]));
+                            }
+                        }), null);
+            }
+        }
+
+        /**
+         * Decodes dense info arrays, indexed by the info field numbers.
+         * @param denseInfo the dense info message, can be null
+         * @param count the number of nodes
+         * @return the arrays, or {@code null} if {@code denseInfo} is null
+         * @throws IOException if an IO error occurs
+         * @throws IllegalDataException if the array sizes do not match the number of nodes
+         */
+        private long[][] decodeDenseInfo(byte[] denseInfo, int count) throws IOException, IllegalDataException {
+            if (denseInfo == null) {
+                return null;
+            }
+            long[][] info = new long[INFO_VISIBLE + 1][];
+            for (ProtobufRecord r : readRecords(denseInfo)) {
+                switch (r.getField()) {
+                case INFO_VERSION:
+                case INFO_VISIBLE:
+                    info[r.getField()] = readPacked(r, false);
+                    break;
+                case INFO_TIMESTAMP:
+                case INFO_CHANGESET:
+                case INFO_UID:
+                case INFO_USER_SID:
+                    info[r.getField()] = readDeltaPacked(r);
+                    break;
+                default: // Ignore
+                }
+            }
+            for (int field = INFO_VERSION; field <= INFO_VISIBLE; field++) {
+                if (info[field] == null && field != INFO_VISIBLE) {
+                    info[field] = new long[count];
+                    if (field == INFO_VERSION) {
+                        Arrays.fill(info[field], -1);
+                    }
+                }
+                if (info[field] != null && info[field].length != count) {
+                    throw new IllegalDataException(tr("Mismatch in PBF dense node array sizes"));
+                }
+            }
+            return info;
+        }
+
+        private void decodeWay(byte[] way) throws IOException, IllegalDataException {
+            long id = 0;
+            long[] keys = new long[0];
+            long[] vals = keys;
+            long[] refs = keys;
+            hasInfo = false;
+            for (ProtobufRecord r : readRecords(way)) {
+                switch (r.getField()) {
+                case PRIMITIVE_ID:
+                    id = r.asUnsignedVarLong();
+                    break;
+                case PRIMITIVE_KEYS:
+                    keys = readPacked(r, false);
+                    break;
+                case PRIMITIVE_VALS:
+                    vals = readPacked(r, false);
+                    break;
+                case PRIMITIVE_INFO:
+                    decodeInfo(r.getBytes());
+                    break;
+                case WAY_REFS:
+                    refs = readDeltaPacked(r);
+                    break;
+                default: // Ignore
+                }
+            }
+            final long wayId = id;
+            final long[] wayKeys = keys;
+            final long[] wayVals = vals;
+            final long[] wayRefs = refs;
+            Collection<Long> nodeIds = new ArrayList<>(refs.length);
+            result.add(readWay(pd -> readCommon(pd, wayId), (wd, ids) -> {
+                readTags(wd, wayKeys, wayVals);
+                for (long ref : wayRefs) {
+                    ids.add(ref);
+                }
+            }, nodeIds), nodeIds);
+        }
+
+        private void decodeRelation(byte[] relation) throws IOException, IllegalDataException {
+            long id = 0;
+            long[] keys = new long[0];
+            long[] vals = keys;
+            long[] roles = keys;
+            long[] memberIds = keys;
+            long[] types = keys;
+            hasInfo = false;
+            for (ProtobufRecord r : readRecords(relation)) {
+                switch (r.getField()) {
+                case PRIMITIVE_ID:
+                    id = r.asUnsignedVarLong();
+                    break;
+                case PRIMITIVE_KEYS:
+                    keys = readPacked(r, false);
+                    break;
+                case PRIMITIVE_VALS:
+                    vals = readPacked(r, false);
+                    break;
+                case PRIMITIVE_INFO:
+                    decodeInfo(r.getBytes());
+                    break;
+                case RELATION_ROLES_SID:
+                    roles = readPacked(r, false);
+                    break;
+                case RELATION_MEMIDS:
+                    memberIds = readDeltaPacked(r);
+                    break;
+                case RELATION_TYPES:
+                    types = readPacked(r, false);
+                    break;
+                default: // Ignore
+                }
+            }
+            if (roles.length != memberIds.length || types.length != memberIds.length) {
+                throw new IllegalDataException(tr("Mismatch in PBF relation member array sizes"));
+            }
+            final long relationId = id;
+            final long[] relationKeys = keys;
+            final long[] relationVals = vals;
+            final long[] relationRoles = roles;
+            final long[] relationMemberIds = memberIds;
+            final long[] relationTypes = types;
+            Collection<RelationMemberData> members = new ArrayList<>(memberIds.length);
+            result.add(readRelation(pd -> readCommon(pd, relationId), (rd, list) -> {
+                readTags(rd, relationKeys, relationVals);
+                for (int i = 0; i < relationMemberIds.length; i++) {
+                    long type = relationTypes[i];
+                    list.add(parseRelationMember(rd, relationMemberIds[i],
+                            type >= 0 && type < MEMBER_TYPES.length ? MEMBER_TYPES[(int) type] : Long.toString(type),
+                            getString(relationRoles[i])));
+                }
+            }, members), members);
+        }
+    }
+
+    /**
+     * Parse the given input source and return the dataset.
+     *
+     * @param source the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     *
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     */
+    public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return new PbfReader().doParseDataSet(source, progressMonitor);
+    }
+}
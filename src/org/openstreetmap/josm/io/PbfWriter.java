@@ -0,0 +1,343 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.io.PbfReader.BBOX_BOTTOM;
+import static org.openstreetmap.josm.io.PbfReader.BBOX_LEFT;
+import static org.openstreetmap.josm.io.PbfReader.BBOX_RIGHT;
+import static org.openstreetmap.josm.io.PbfReader.BBOX_TOP;
+import static org.openstreetmap.josm.io.PbfReader.BLOB_HEADER_DATA_SIZE;
+import static org.openstreetmap.josm.io.PbfReader.BLOB_HEADER_TYPE;
+import static org.openstreetmap.josm.io.PbfReader.BLOB_RAW_SIZE;
+import static org.openstreetmap.josm.io.PbfReader.BLOB_ZLIB_DATA;
+import static org.openstreetmap.josm.io.PbfReader.BLOCK_PRIMITIVE_GROUP;
+import static org.openstreetmap.josm.io.PbfReader.BLOCK_STRING_TABLE;
+import static org.openstreetmap.josm.io.PbfReader.DENSE_ID;
+import static org.openstreetmap.josm.io.PbfReader.DENSE_INFO;
+import static org.openstreetmap.josm.io.PbfReader.DENSE_KEYS_VALS;
+import static org.openstreetmap.josm.io.PbfReader.DENSE_LAT;
+import static org.openstreetmap.josm.io.PbfReader.DENSE_LON;
+import static org.openstreetmap.josm.io.PbfReader.GROUP_DENSE;
+import static org.openstreetmap.josm.io.PbfReader.GROUP_RELATIONS;
+import static org.openstreetmap.josm.io.PbfReader.GROUP_WAYS;
+import static org.openstreetmap.josm.io.PbfReader.HEADER_BBOX;
+import static org.openstreetmap.josm.io.PbfReader.HEADER_OPTIONAL_FEATURES;
+import static org.openstreetmap.josm.io.PbfReader.HEADER_REQUIRED_FEATURES;
+import static org.openstreetmap.josm.io.PbfReader.HEADER_WRITING_PROGRAM;
+import static org.openstreetmap.josm.io.PbfReader.INFO_CHANGESET;
+import static org.openstreetmap.josm.io.PbfReader.INFO_TIMESTAMP;
+import static org.openstreetmap.josm.io.PbfReader.INFO_UID;
+import static org.openstreetmap.josm.io.PbfReader.INFO_USER_SID;
+import static org.openstreetmap.josm.io.PbfReader.INFO_VERSION;
+import static org.openstreetmap.josm.io.PbfReader.OSM_DATA;
+import static org.openstreetmap.josm.io.PbfReader.OSM_HEADER;
+import static org.openstreetmap.josm.io.PbfReader.PRIMITIVE_ID;
+import static org.openstreetmap.josm.io.PbfReader.PRIMITIVE_INFO;
+import static org.openstreetmap.josm.io.PbfReader.PRIMITIVE_KEYS;
+import static org.openstreetmap.josm.io.PbfReader.PRIMITIVE_VALS;
+import static org.openstreetmap.josm.io.PbfReader.RELATION_MEMIDS;
+import static org.openstreetmap.josm.io.PbfReader.RELATION_ROLES_SID;
+import static org.openstreetmap.josm.io.PbfReader.RELATION_TYPES;
+import static org.openstreetmap.josm.io.PbfReader.STRING_TABLE_S;
+import static org.openstreetmap.josm.io.PbfReader.WAY_REFS;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.protobuf.ProtobufWriter;
+
+/**
+ * Writes a data set in the <a href="https://wiki.openstreetmap.org/wiki/PBF_Format">OSM PBF format</a>.
+ * <p>
+ * Nodes are written as dense nodes, in blocks of {@value #BLOCK_SIZE} primitives sorted by type then id.
+ * Deleted and incomplete primitives are skipped. The format has no way to store local modifications,
+ * so primitives are written in their current state without the {@code action} flag of .osm files.
+ * @since 18560
+ */
+public class PbfWriter implements Closeable {
+
+    /** Maximum number of primitives per block */
+    static final int BLOCK_SIZE = 8000;
+    /** Coordinates are stored in units of 100 nanodegrees, the default granularity */
+    private static final double COORDINATE_FACTOR = 1e7;
+
+    private final DataOutputStream out;
+    private final Deflater deflater = new Deflater();
+    private final byte[] buffer = new byte[64 * 1024];
+
+    /** String table of the current block, index 0 is reserved as delimiter */
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    /**
+     * Constructs a new {@code PbfWriter}.
+     * @param out the output stream
+     */
+    public PbfWriter(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    /**
+     * Writes the given data set.
+     * @param ds the data set
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(DataSet ds) throws IOException {
+        writeHeader(ds);
+        Predicate<OsmPrimitive> written = p -> !p.isDeleted() && !p.isIncomplete() && p.isVisible();
+        List<Node> nodes = sorted(ds.getNodes(), written.and(n -> ((Node) n).isLatLonKnown()));
+        for (int i = 0; i < nodes.size(); i += BLOCK_SIZE) {
+            writeNodes(nodes.subList(i, Math.min(nodes.size(), i + BLOCK_SIZE)));
+        }
+        List<Way> ways = sorted(ds.getWays(), written);
+        for (int i = 0; i < ways.size(); i += BLOCK_SIZE) {
+            writeWays(ways.subList(i, Math.min(ways.size(), i + BLOCK_SIZE)));
+        }
+        List<Relation> relations = sorted(ds.getRelations(), written);
+        for (int i = 0; i < relations.size(); i += BLOCK_SIZE) {
+            writeRelations(relations.subList(i, Math.min(relations.size(), i + BLOCK_SIZE)));
+        }
+        out.flush();
+    }
+
+    private static <T extends OsmPrimitive> List<T> sorted(Collection<T> primitives, Predicate<OsmPrimitive> filter) {
+        return primitives.stream().filter(filter).sorted(Comparator.comparingLong(OsmPrimitive::getUniqueId)).collect(Collectors.toList());
+    }
+
+    private void writeHeader(DataSet ds) throws IOException {
+        ProtobufWriter header = new ProtobufWriter();
+        Bounds bounds = null;
+        for (Bounds b : ds.getDataSourceBounds()) {
+            if (bounds == null) {
+                bounds = new Bounds(b);
+            } else {
+                bounds.extend(b);
+            }
+        }
+        if (bounds != null) {
+            ProtobufWriter bbox = new ProtobufWriter();
+            bbox.writeSignedVarInt(BBOX_LEFT, Math.round(bounds.getMinLon() * 1e9));
+            bbox.writeSignedVarInt(BBOX_RIGHT, Math.round(bounds.getMaxLon() * 1e9));
+            bbox.writeSignedVarInt(BBOX_TOP, Math.round(bounds.getMaxLat() * 1e9));
+            bbox.writeSignedVarInt(BBOX_BOTTOM, Math.round(bounds.getMinLat() * 1e9));
+            header.writeMessage(HEADER_BBOX, bbox);
+        }
+        header.writeString(HEADER_REQUIRED_FEATURES, "OsmSchema-V0.6");
+        header.writeString(HEADER_REQUIRED_FEATURES, "DenseNodes");
+        header.writeString(HEADER_OPTIONAL_FEATURES, "Sort.Type_then_ID");
+        header.writeString(HEADER_WRITING_PROGRAM, "JOSM");
+        writeBlob(OSM_HEADER, header.toByteArray());
+    }
+
+    private int stringId(String s) {
+        return stringIndex.computeIfAbsent(s, k -> {
+            strings.add(k);
+            return strings.size() - 1;
+        });
+    }
+
+    private void resetStrings() {
+        stringIndex.clear();
+        strings.clear();
+        stringId("");
+    }
+
+    private int userId(User user) {
+        return stringId(user == null || user.getName() == null ? "" : user.getName());
+    }
+
+    private static long uid(User user) {
+        return user == null || user.getId() < 0 ? 0 : user.getId();
+    }
+
+    private void writeNodes(List<Node> nodes) throws IOException {
+        resetStrings();
+        int count = nodes.size();
+        long[] ids = new long[count];
+        long[] lats = new long[count];
+        long[] lons = new long[count];
+        long[] versions = new long[count];
+        long[] timestamps = new long[count];
+        long[] changesets = new long[count];
+        long[] uids = new long[count];
+        long[] userSids = new long[count];
+        long[] keysVals = new long[count];
+        int keysValsLength = 0;
+        boolean tagged = false;
+        // Delta encoding state
+        long id = 0;
+        long lat = 0;
+        long lon = 0;
+        long timestamp = 0;
+        long changeset = 0;
+        long uid = 0;
+        long userSid = 0;
+        for (int i = 0; i < count; i++) {
+            Node n = nodes.get(i);
+            ids[i] = n.getUniqueId() - id;
+            id = n.getUniqueId();
+            lats[i] = Math.round(n.lat() * COORDINATE_FACTOR) - lat;
+            lat += lats[i];
+            lons[i] = Math.round(n.lon() * COORDINATE_FACTOR) - lon;
+            lon += lons[i];
+            versions[i] = n.getVersion();
+            timestamps[i] = n.getRawTimestamp() - timestamp;
+            timestamp += timestamps[i];
+            changesets[i] = n.getChangesetId() - changeset;
+            changeset += changesets[i];
+            uids[i] = uid(n.getUser()) - uid;
+            uid += uids[i];
+            userSids[i] = userId(n.getUser()) - userSid;
+            userSid += userSids[i];
+
+            int needed = keysValsLength + 2 * n.getNumKeys() + 1;
+            if (needed > keysVals.length) {
+                long[] grown = new long[Math.max(needed, 2 * keysVals.length)];
+                System.arraycopy(keysVals, 0, grown, 0, keysValsLength);
+                keysVals = grown;
+            }
+            for (Map.Entry<String, String> tag : n.getKeys().entrySet()) {
+                keysVals[keysValsLength++] = stringId(tag.getKey());
+                keysVals[keysValsLength++] = stringId(tag.getValue());
+                tagged = true;
+            }
+            keysVals[keysValsLength++] = 0;
+        }
+        ProtobufWriter info = new ProtobufWriter(count * 8)
+                .writePackedVarInts(INFO_VERSION, versions, count)
+                .writePackedSignedVarInts(INFO_TIMESTAMP, timestamps, count)
+                .writePackedSignedVarInts(INFO_CHANGESET, changesets, count)
+                .writePackedSignedVarInts(INFO_UID, uids, count)
+                .writePackedSignedVarInts(INFO_USER_SID, userSids, count);
+        ProtobufWriter dense = new ProtobufWriter(count * 16)
+                .writePackedSignedVarInts(DENSE_ID, ids, count)
+                .writeMessage(DENSE_INFO, info)
+                .writePackedSignedVarInts(DENSE_LAT, lats, count)
+                .writePackedSignedVarInts(DENSE_LON, lons, count);
+        if (tagged) {
+            dense.writePackedVarInts(DENSE_KEYS_VALS, keysVals, keysValsLength);
+        }
+        writeBlock(new ProtobufWriter(dense.size() + 8).writeMessage(GROUP_DENSE, dense));
+    }
+
+    private ProtobufWriter writeCommon(ProtobufWriter message, OsmPrimitive p) {
+        long[] keys = new long[p.getNumKeys()];
+        long[] vals = new long[keys.length];
+        int i = 0;
+        for (Map.Entry<String, String> tag : p.getKeys().entrySet()) {
+            keys[i] = stringId(tag.getKey());
+            vals[i++] = stringId(tag.getValue());
+        }
+        ProtobufWriter info = new ProtobufWriter(32)
+                .writeVarInt(INFO_VERSION, p.getVersion())
+                .writeVarInt(INFO_TIMESTAMP, p.getRawTimestamp())
+                .writeVarInt(INFO_CHANGESET, p.getChangesetId())
+                .writeVarInt(INFO_UID, uid(p.getUser()))
+                .writeVarInt(INFO_USER_SID, userId(p.getUser()));
+        return message.writeVarInt(PRIMITIVE_ID, p.getUniqueId())
+                .writePackedVarInts(PRIMITIVE_KEYS, keys, i)
+                .writePackedVarInts(PRIMITIVE_VALS, vals, i)
+                .writeMessage(PRIMITIVE_INFO, info);
+    }
+
+    private void writeWays(List<Way> ways) throws IOException {
+        resetStrings();
+        ProtobufWriter group = new ProtobufWriter(ways.size() * 64);
+        ProtobufWriter message = new ProtobufWriter();
+        for (Way w : ways) {
+            message.reset();
+            long[] refs = new long[w.getNodesCount()];
+            long previous = 0;
+            for (int i = 0; i < refs.length; i++) {
+                long id = w.getNodeId(i);
+                refs[i] = id - previous;
+                previous = id;
+            }
+            writeCommon(message, w).writePackedSignedVarInts(WAY_REFS, refs, refs.length);
+            group.writeMessage(GROUP_WAYS, message);
+        }
+        writeBlock(group);
+    }
+
+    private void writeRelations(List<Relation> relations) throws IOException {
+        resetStrings();
+        ProtobufWriter group = new ProtobufWriter(relations.size() * 64);
+        ProtobufWriter message = new ProtobufWriter();
+        for (Relation r : relations) {
+            message.reset();
+            List<RelationMember> members = r.getMembers();
+            long[] roles = new long[members.size()];
+            long[] ids = new long[roles.length];
+            long[] types = new long[roles.length];
+            long previous = 0;
+            for (int i = 0; i < roles.length; i++) {
+                RelationMember member = members.get(i);
+                roles[i] = stringId(member.getRole());
+                ids[i] = member.getUniqueId() - previous;
+                previous = member.getUniqueId();
+                types[i] = member.getType().ordinal();
+            }
+            writeCommon(message, r)
+                    .writePackedVarInts(RELATION_ROLES_SID, roles, roles.length)
+                    .writePackedSignedVarInts(RELATION_MEMIDS, ids, ids.length)
+                    .writePackedVarInts(RELATION_TYPES, types, types.length);
+            group.writeMessage(GROUP_RELATIONS, message);
+        }
+        writeBlock(group);
+    }
+
+    private void writeBlock(ProtobufWriter group) throws IOException {
+        ProtobufWriter table = new ProtobufWriter(strings.size() * 8);
+        for (String s : strings) {
+            table.writeString(STRING_TABLE_S, s);
+        }
+        ProtobufWriter block = new ProtobufWriter(table.size() + group.size() + 16)
+                .writeMessage(BLOCK_STRING_TABLE, table)
+                .writeMessage(BLOCK_PRIMITIVE_GROUP, group);
+        writeBlob(OSM_DATA, block.toByteArray());
+    }
+
+    private void writeBlob(String type, byte[] data) throws IOException {
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        ProtobufWriter compressed = new ProtobufWriter(data.length / 2 + 16);
+        ByteArrayOutputStream zlib = new ByteArrayOutputStream(data.length / 2 + 16);
+        while (!deflater.finished()) {
+            zlib.write(buffer, 0, deflater.deflate(buffer));
+        }
+        compressed.writeVarInt(BLOB_RAW_SIZE, data.length)
+                .writeBytes(BLOB_ZLIB_DATA, zlib.toByteArray());
+        ProtobufWriter header = new ProtobufWriter(32)
+                .writeString(BLOB_HEADER_TYPE, type)
+                .writeVarInt(BLOB_HEADER_DATA_SIZE, compressed.size());
+        out.writeInt(header.size());
+        out.write(header.toByteArray());
+        out.write(compressed.toByteArray());
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        out.close();
+    }
+}
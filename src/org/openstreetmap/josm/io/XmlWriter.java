@@ -4,8 +4,6 @@ package org.openstreetmap.josm.io;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Helper class to use for xml outputting classes.
@@ -61,7 +59,7 @@ public class XmlWriter implements Closeable {
             for (int i = 0; i < unencoded.length(); ++i) {
                 String encS = null;
                 if (!keepApos || unencoded.charAt(i) != '\'') {
-                    encS = ENCODING.get(unencoded.charAt(i));
+                    encS = encode(unencoded.charAt(i));
                 }
                 if (encS != null) {
                     if (buffer == null) {
@@ -77,18 +75,22 @@ public class XmlWriter implements Closeable {
     }
 
     /**
-     * The output writer to save the values to.
+     * Returns the XML entity of a character which must be encoded.
+     * @param c the character
+     * @return the entity, or {@code null} if the character does not need to be encoded
      */
-    private static final Map<Character, String> ENCODING = new HashMap<>();
-    static {
-        ENCODING.put('<', "&lt;");
-        ENCODING.put('>', "&gt;");
-        ENCODING.put('"', "&quot;");
-        ENCODING.put('\'', "&apos;");
-        ENCODING.put('&', "&amp;");
-        ENCODING.put('\n', "&#xA;");
-        ENCODING.put('\r', "&#xD;");
-        ENCODING.put('\t', "&#x9;");
+    private static String encode(char c) {
+        switch (c) {
+        case '<': return "&lt;";
+        case '>': return "&gt;";
+        case '"': return "&quot;";
+        case '\'': return "&apos;";
+        case '&': return "&amp;";
+        case '\n': return "&#xA;";
+        case '\r': return "&#xD;";
+        case '\t': return "&#x9;";
+        default: return null;
+        }
     }
 
     @Override
@@ -5,11 +5,13 @@ import java.awt.Dimension;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 /**
  * Image warping algorithm.
@@ -19,6 +21,9 @@ import java.util.Set;
  */
 public final class ImageWarp {
 
+    /** Number of rows of the target image computed by a task of the parallel warp */
+    private static final int BAND_HEIGHT = 16;
+
     private ImageWarp() {
         // Hide default constructor
     }
@@ -137,7 +142,74 @@ public final class ImageWarp {
          *
          * Decent quality.
          */
-        BILINEAR;
+        BILINEAR,
+
+        /**
+         * Bicubic (Catmull-Rom spline).
+         *
+         * Sharper than bilinear, but slower.
+         * @since 18576
+         */
+        BICUBIC;
+    }
+
+    /**
+     * Inverse transformation evaluated on a grid, stored in primitive arrays.
+     *
+     * Same approximation as {@link GridTransform}, but computed once for the whole target image,
+     * so that rows can be transformed independently and concurrently.
+     */
+    private static final class TransformGrid {
+        private final double stride;
+        private final int columns;
+        private final double[] gridX;
+        private final double[] gridY;
+        /** for each column of the target image: index of the grid column to the left */
+        private final int[] columnIndex;
+        /** for each column of the target image: relative position between the grid columns */
+        private final double[] columnOffset;
+
+        TransformGrid(PointTransform trfm, double stride, int width, int height) {
+            this.stride = stride;
+            this.columns = (int) Math.floor((width - 1) / stride) + 2;
+            int rows = (int) Math.floor((height - 1) / stride) + 2;
+            this.gridX = new double[columns * rows];
+            this.gridY = new double[columns * rows];
+            IntStream.range(0, rows).parallel().forEach(yIdx -> {
+                for (int xIdx = 0; xIdx < columns; xIdx++) {
+                    Point2D value = trfm.transform(new Point2D.Double(xIdx * stride, yIdx * stride));
+                    gridX[yIdx * columns + xIdx] = value.getX();
+                    gridY[yIdx * columns + xIdx] = value.getY();
+                }
+            });
+            this.columnIndex = new int[width];
+            this.columnOffset = new double[width];
+            for (int i = 0; i < width; i++) {
+                columnIndex[i] = (int) Math.floor(i / stride);
+                columnOffset[i] = i / stride - columnIndex[i];
+            }
+        }
+
+        /**
+         * Transforms a row of the target image.
+         * @param j the row
+         * @param xs receives the x coordinates in the original image, one for each column
+         * @param ys receives the y coordinates in the original image, one for each column
+         */
+        void transformRow(int j, double[] xs, double[] ys) {
+            int yIdx = (int) Math.floor(j / stride);
+            double dy = j / stride - yIdx;
+            int row0 = yIdx * columns;
+            int row1 = row0 + columns;
+            for (int i = 0; i < xs.length; i++) {
+                int xIdx = columnIndex[i];
+                double dx = columnOffset[i];
+                xs[i] = (gridX[row0 + xIdx] * (1-dx) + gridX[row0 + xIdx + 1] * dx) * (1-dy) +
+                        (gridX[row1 + xIdx] * (1-dx) + gridX[row1 + xIdx + 1] * dx) * dy;
+                ys[i] = (gridY[row0 + xIdx] * (1-dx) + gridY[row0 + xIdx + 1] * dx) * (1-dy) +
+                        (gridY[row1 + xIdx] * (1-dx) + gridY[row1 + xIdx + 1] * dx) * dy;
+            }
+        }
     }
 
     /**
@@ -152,6 +224,7 @@ public final class ImageWarp {
     public static BufferedImage warp(BufferedImage srcImg, Dimension targetDim, PointTransform invTransform, Interpolation interpolation) {
         BufferedImage imgTarget = new BufferedImage(targetDim.width, targetDim.height, BufferedImage.TYPE_INT_ARGB);
         Rectangle2D srcRect = new Rectangle2D.Double(0, 0, srcImg.getWidth(), srcImg.getHeight());
+        int[] srcPixels = interpolation == Interpolation.BICUBIC ? getPixels(srcImg) : null;
         for (int j = 0; j < imgTarget.getHeight(); j++) {
             for (int i = 0; i < imgTarget.getWidth(); i++) {
                 Point2D srcCoord = invTransform.transform(new Point2D.Double(i, j));
@@ -180,6 +253,9 @@ public final class ImageWarp {
                                 rgba |= chVal << shift;
                             }
                             break;
+                        case BICUBIC:
+                            rgba = getBicubicColor(srcCoord.getX(), srcCoord.getY(), srcPixels, srcImg.getWidth(), srcImg.getHeight());
+                            break;
                         default:
                             throw new AssertionError(Objects.toString(interpolation));
                     }
@@ -190,6 +266,174 @@ public final class ImageWarp {
         return imgTarget;
     }
 
+    /**
+     * Warp an image, computing bands of rows in parallel.
+     * <p>
+     * The inverse transformation is evaluated on a grid with the given step size and approximated
+     * by bilinear interpolation in between, like {@link GridTransform} does. The pixels of each band are written
+     * to the raster of the target image at once, so that Java2D can still accelerate the images.
+     * The result is the same as the one of
+     * {@link #warp(BufferedImage, Dimension, PointTransform, Interpolation)} with a {@link GridTransform}.
+     * @param srcImg the original image
+     * @param targetDim dimension of the target image
+     * @param invTransform inverse transformation (translates pixel coordinates
+     * of the target image to pixel coordinates of the original image). It is called concurrently from several threads.
+     * @param stride step size of the grid. If not positive, the inverse transformation is evaluated for each pixel
+     * @param interpolation the interpolation method
+     * @return the warped image
+     * @since 18576
+     */
+    public static BufferedImage warp(BufferedImage srcImg, Dimension targetDim, PointTransform invTransform, double stride,
+            Interpolation interpolation) {
+        final int width = targetDim.width;
+        final int height = targetDim.height;
+        BufferedImage imgTarget = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final WritableRaster target = imgTarget.getRaster();
+        final int[] source = getPixels(srcImg);
+        final int srcWidth = srcImg.getWidth();
+        final int srcHeight = srcImg.getHeight();
+        final TransformGrid grid = stride > 0 && width > 0 && height > 0 ? new TransformGrid(invTransform, stride, width, height) : null;
+        IntStream.range(0, (height + BAND_HEIGHT - 1) / BAND_HEIGHT).parallel().forEach(band -> {
+            double[] xs = new double[width];
+            double[] ys = new double[width];
+            int start = band * BAND_HEIGHT;
+            int end = Math.min(height, start + BAND_HEIGHT);
+            int[] pixels = new int[width * (end - start)];
+            for (int j = start; j < end; j++) {
+                if (grid != null) {
+                    grid.transformRow(j, xs, ys);
+                } else {
+                    for (int i = 0; i < width; i++) {
+                        Point2D srcCoord = invTransform.transform(new Point2D.Double(i, j));
+                        xs[i] = srcCoord.getX();
+                        ys[i] = srcCoord.getY();
+                    }
+                }
+                warpRow(source, srcWidth, srcHeight, xs, ys, pixels, (j - start) * width, interpolation);
+            }
+            // the bands do not overlap
+            target.setDataElements(0, start, width, end - start, pixels);
+        });
+        return imgTarget;
+    }
+
+    private static void warpRow(int[] src, int srcWidth, int srcHeight, double[] xs, double[] ys, int[] target, int offset,
+            Interpolation interpolation) {
+        // one loop for each interpolation method, the pixels outside of the original image are left transparent
+        switch (interpolation) {
+            case NEAREST_NEIGHBOR:
+                for (int i = 0; i < xs.length; i++) {
+                    double x = xs[i];
+                    double y = ys[i];
+                    if (x >= 0 && y >= 0 && x < srcWidth && y < srcHeight) {
+                        int xi = Math.min((int) Math.round(x), srcWidth - 1);
+                        int yi = Math.min((int) Math.round(y), srcHeight - 1);
+                        target[offset + i] = src[yi * srcWidth + xi];
+                    }
+                }
+                break;
+            case BILINEAR:
+                for (int i = 0; i < xs.length; i++) {
+                    double x = xs[i];
+                    double y = ys[i];
+                    if (x >= 0 && y >= 0 && x < srcWidth && y < srcHeight) {
+                        target[offset + i] = getBilinearColor(x, y, src, srcWidth, srcHeight);
+                    }
+                }
+                break;
+            case BICUBIC:
+                for (int i = 0; i < xs.length; i++) {
+                    double x = xs[i];
+                    double y = ys[i];
+                    if (x >= 0 && y >= 0 && x < srcWidth && y < srcHeight) {
+                        target[offset + i] = getBicubicColor(x, y, src, srcWidth, srcHeight);
+                    }
+                }
+                break;
+            default:
+                throw new AssertionError(Objects.toString(interpolation));
+        }
+    }
+
+    private static int getBilinearColor(double x, double y, int[] src, int width, int height) {
+        int x0 = (int) Math.floor(x);
+        double dx = x - x0;
+        int y0 = (int) Math.floor(y);
+        double dy = y - y0;
+        // x0 and y0 are inside of the image, only the next pixel may need to be clamped
+        int x1 = Math.min(x0 + 1, width - 1);
+        int row0 = y0 * width;
+        int row1 = Math.min(y0 + 1, height - 1) * width;
+        int c00 = src[row0 + x0];
+        int c01 = src[row1 + x0];
+        int c10 = src[row0 + x1];
+        int c11 = src[row1 + x1];
+        int rgba = 0;
+        // loop over color components: blue, green, red, alpha
+        for (int ch = 0; ch <= 3; ch++) {
+            int shift = 8 * ch;
+            int chVal = (int) Math.round(
+                (((c00 >> shift) & 0xff) * (1-dx) + ((c10 >> shift) & 0xff) * dx) * (1-dy) +
+                (((c01 >> shift) & 0xff) * (1-dx) + ((c11 >> shift) & 0xff) * dx) * dy);
+            rgba |= chVal << shift;
+        }
+        return rgba;
+    }
+
+    private static int getBicubicColor(double x, double y, int[] src, int width, int height) {
+        int x0 = (int) Math.floor(x);
+        double dx = x - x0;
+        int y0 = (int) Math.floor(y);
+        double dy = y - y0;
+        // border strategy: continue with the color of the outermost pixel
+        int col0 = Utils.clamp(x0 - 1, 0, width - 1);
+        int col1 = Utils.clamp(x0, 0, width - 1);
+        int col2 = Utils.clamp(x0 + 1, 0, width - 1);
+        int col3 = Utils.clamp(x0 + 2, 0, width - 1);
+        double wx0 = cubicWeight0(dx);
+        double wx1 = cubicWeight1(dx);
+        double wx2 = cubicWeight1(1 - dx);
+        double wx3 = cubicWeight0(1 - dx);
+        int rgba = 0;
+        // loop over color components: blue, green, red, alpha
+        for (int ch = 0; ch <= 3; ch++) {
+            int shift = 8 * ch;
+            double chVal = 0;
+            for (int k = 0; k < 4; k++) {
+                int row = Utils.clamp(y0 - 1 + k, 0, height - 1) * width;
+                double wy = k == 0 ? cubicWeight0(dy) : k == 1 ? cubicWeight1(dy) : k == 2 ? cubicWeight1(1 - dy) : cubicWeight0(1 - dy);
+                chVal += wy * (((src[row + col0] >> shift) & 0xff) * wx0 + ((src[row + col1] >> shift) & 0xff) * wx1 +
+                        ((src[row + col2] >> shift) & 0xff) * wx2 + ((src[row + col3] >> shift) & 0xff) * wx3);
+            }
+            // the spline overshoots at sharp edges
+            rgba |= Utils.clamp((int) Math.round(chVal), 0, 255) << shift;
+        }
+        return rgba;
+    }
+
+    // Catmull-Rom weight of the pixel at distance 1 + t, the weight of the pixel at distance 2 - t is cubicWeight0(1 - t)
+    private static double cubicWeight0(double t) {
+        return ((-0.5 * t + 1) * t - 0.5) * t;
+    }
+
+    // Catmull-Rom weight of the pixel at distance t, the weight of the pixel at distance 1 - t is cubicWeight1(1 - t)
+    private static double cubicWeight1(double t) {
+        return (1.5 * t - 2.5) * t * t + 1;
+    }
+
+    /**
+     * Returns a copy of the ARGB pixels of an image, row by row.
+     * The raster is not accessed directly, so that Java2D can still accelerate the image.
+     * @param img the image
+     * @return the pixels of the image
+     */
+    private static int[] getPixels(BufferedImage img) {
+        if (img.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return (int[]) img.getRaster().getDataElements(0, 0, img.getWidth(), img.getHeight(), null);
+        }
+        return img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth());
+    }
+
     private static int getColor(int x, int y, BufferedImage img) {
         // border strategy: continue with the color of the outermost pixel,
         return img.getRGB(
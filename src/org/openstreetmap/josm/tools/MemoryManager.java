@@ -4,7 +4,10 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -26,6 +29,7 @@ public class MemoryManager {
     private static final MemoryManager INSTANCE = new MemoryManager();
 
     private final ArrayList<MemoryHandle<?>> activeHandles = new ArrayList<>();
+    private final Map<String, LongSupplier> memoryUsages = new LinkedHashMap<>();
 
     protected MemoryManager() {
     }
@@ -87,6 +91,37 @@ public class MemoryManager {
         return getMaxMemory() - activeHandles.stream().mapToLong(MemoryHandle::getSize).sum();
     }
 
+    /**
+     * Registers a component whose memory is not allocated by this manager, so that its current memory usage can be
+     * reported, e.g. the undo history. The usage does not change the {@link #getAvailableMemory() available memory}.
+     * @param name the name of the component, replacing any component registered with the same name
+     * @param usage gives the current memory usage of the component, in bytes. It must be thread safe.
+     * @since 18570
+     */
+    public synchronized void registerMemoryUsage(String name, LongSupplier usage) {
+        memoryUsages.put(name, usage);
+    }
+
+    /**
+     * Unregisters a component registered by {@link #registerMemoryUsage(String, LongSupplier)}, e.g. when it is destroyed.
+     * @param name the name of the component
+     * @since 18580
+     */
+    public synchronized void unregisterMemoryUsage(String name) {
+        memoryUsages.remove(name);
+    }
+
+    /**
+     * Returns the current memory usage of the components registered by {@link #registerMemoryUsage(String, LongSupplier)}.
+     * @return the memory usage in bytes, by component name
+     * @since 18570
+     */
+    public synchronized Map<String, Long> getMemoryUsage() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        memoryUsages.forEach((name, usage) -> result.put(name, usage.getAsLong()));
+        return result;
+    }
+
     /**
      * Get the global memory manager instance.
      * @return The memory manager.
@@ -0,0 +1,76 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.jcs3.access.behavior.ICacheAccess;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Compares the JCS block disk cache and the {@link MappedDiskCache} for tiles.
+ */
+@BasicPreferences
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class MappedDiskCachePerformanceTest {
+
+    private static final int TILES = 10_000;
+    private static final int TILE_SIZE = 16 * 1024;
+    private static final int READS = 100_000;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Measures the writes, the random reads and the opening of both caches.
+     * @throws IOException in case of I/O error
+     */
+    @Test
+    void testReadWrite() throws IOException {
+        int maxDiskKb = 2 * TILES * TILE_SIZE / 1024;
+        // the JCS disk cache writes asynchronously, some of the reads can miss
+        measure("JCS", JCSCacheManager.getCache("perf_jcs", 0, maxDiskKb, tempDir.toString()));
+
+        File dir = new File(tempDir.toFile(), "perf_mapped");
+        MappedDiskCache mapped = MappedDiskCache.open("perf_mapped", dir, maxDiskKb * 1024L);
+        assertEquals((long) READS * TILE_SIZE, measure("MappedDiskCache", mapped));
+        mapped.dispose();
+        long start = System.nanoTime();
+        mapped = MappedDiskCache.open("perf_mapped", dir, maxDiskKb * 1024L);
+        PerformanceTestUtils.measurementPlotsPluginOutput("MappedDiskCache open (ms)",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        assertEquals(TILES, mapped.size());
+        mapped.dispose();
+    }
+
+    private static long measure(String name, ICacheAccess<String, BufferedImageCacheEntry> cache) {
+        Random random = new Random(42);
+        byte[] data = new byte[TILE_SIZE];
+        random.nextBytes(data);
+        long start = System.nanoTime();
+        for (int i = 0; i < TILES; i++) {
+            cache.put("tile" + i, new BufferedImageCacheEntry(data), new CacheEntryAttributes());
+        }
+        long written = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < READS; i++) {
+            BufferedImageCacheEntry entry = cache.get("tile" + random.nextInt(TILES));
+            checksum += entry != null ? entry.getContentLength() : 0;
+        }
+        long end = System.nanoTime();
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " writes per second",
+                TILES * TimeUnit.SECONDS.toNanos(1) / (written - start));
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " reads per second",
+                READS * TimeUnit.SECONDS.toNanos(1) / (end - written));
+        return checksum;
+    }
+}
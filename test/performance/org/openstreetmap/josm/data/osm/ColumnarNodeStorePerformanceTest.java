@@ -0,0 +1,71 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * This test compares the heap needed to hold nodes as {@link Node} objects and in a {@link ColumnarNodeStore}.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class ColumnarNodeStorePerformanceTest {
+    private static final int NODE_COUNT = 1_000_000;
+
+    /**
+     * Prepare the test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().projection();
+
+    @SuppressFBWarnings(value = "DM_GC", justification = "Performance test code")
+    private static long usedMemory() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Measures the heap used per node by {@link Node} objects and by a {@link ColumnarNodeStore}.
+     */
+    @Test
+    void testMemoryPerNode() {
+        Random random = new Random(42);
+
+        long before = usedMemory();
+        List<Node> nodes = new ArrayList<>(NODE_COUNT);
+        for (int i = 1; i <= NODE_COUNT; i++) {
+            Node n = new Node(i, 1);
+            n.setCoor(new LatLon(random.nextDouble() * 10, random.nextDouble() * 10));
+            n.getEastNorth();
+            nodes.add(n);
+        }
+        double bytesPerNode = (double) (usedMemory() - before) / NODE_COUNT;
+        PerformanceTestUtils.measurementPlotsPluginOutput("Heap per Node object (bytes)", bytesPerNode);
+
+        before = usedMemory();
+        ColumnarNodeStore store = new ColumnarNodeStore(NODE_COUNT);
+        for (Node n : nodes) {
+            store.add(n.getUniqueId(), n.getVersion(), n.lat(), n.lon());
+        }
+        double bytesPerStoredNode = (double) (usedMemory() - before) / NODE_COUNT;
+        PerformanceTestUtils.measurementPlotsPluginOutput("Heap per ColumnarNodeStore entry (bytes)", bytesPerStoredNode);
+
+        assertTrue(store.getEstimatedMemoryUsage() * 2 < bytesPerNode * NODE_COUNT);
+    }
+}
@@ -0,0 +1,92 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Performance test of {@link DataSetMerger}, on synthetic data from {@link OsmDataGenerator}.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class DataSetMergerPerformanceTest {
+
+    private static final int NODE_COUNT = 10_000;
+
+    /**
+     * Prepare the test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().projection();
+
+    private DataSet target;
+    private DataSet source;
+
+    /**
+     * Generates the datasets: the source contains new nodes, half of them being copies of the target nodes.
+     */
+    @BeforeEach
+    void setUp() {
+        target = OsmDataGenerator.getKeyValue(NODE_COUNT, 3).generateDataSet();
+        source = new DataSet(OsmDataGenerator.getKeyValue(NODE_COUNT / 2, 3).generateDataSet());
+        int i = 0;
+        for (Node n : target.getNodes()) {
+            if (i++ % 2 == 0) {
+                source.addPrimitive(new Node(n, true));
+            }
+        }
+    }
+
+    /**
+     * The merge as it was done before the merge targets were looked up in parallel: the source nodes are merged one
+     * after the other, each new source node being compared with all new target nodes.
+     */
+    private static final class NodeByNodeMerger extends DataSetMerger {
+        private final DataSet source;
+
+        NodeByNodeMerger(DataSet target, DataSet source) {
+            super(target, source);
+            this.source = source;
+        }
+
+        @Override
+        public void merge() {
+            getTargetDataSet().update(() -> {
+                List<Node> candidates = new ArrayList<>(getTargetDataSet().getNodes());
+                for (Node node : source.getNodes()) {
+                    mergePrimitive(node, candidates);
+                }
+                fixReferences();
+            });
+        }
+    }
+
+    private int merge(boolean nodeByNode) {
+        DataSet copy = new DataSet(target);
+        DataSetMerger merger = nodeByNode ? new NodeByNodeMerger(copy, source) : new DataSetMerger(copy, source);
+        merger.merge();
+        return copy.getNodes().size();
+    }
+
+    /**
+     * Compares {@link DataSetMerger#merge()} with merging the nodes one after the other.
+     */
+    @Test
+    void testMergeNewNodes() {
+        assertEquals(merge(true), merge(false));
+        PerformanceTestUtils.runPerformanceTest("DataSetMerger node by node", () -> merge(true));
+        PerformanceTestUtils.runPerformanceTest("DataSetMerger", () -> merge(false));
+    }
+}
@@ -0,0 +1,81 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Performance test of {@link DataSet#getSnapshot()}: compares a full copy with the copy of the changed primitives.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class DataSetSnapshotPerformanceTest {
+
+    private static final int ROUNDS = 100;
+    private static final int CHANGES_PER_ROUND = 100;
+
+    /**
+     * Prepare the test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().projection();
+
+    /**
+     * Measures the time of the snapshots of a dataset modified between the snapshots.
+     * @throws Exception in case of error
+     */
+    @Test
+    void testSnapshot() throws Exception {
+        DataSet ds = PerformanceTestUtils.getNeubrandenburgDataSet();
+        List<Node> nodes = new ArrayList<>(ds.getNodes());
+
+        long fullNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            modify(nodes, i);
+            long start = System.nanoTime();
+            ds.getReadLock().lock();
+            try {
+                DataSetSnapshot.of(ds.getEpoch(), ds.allPrimitives());
+            } finally {
+                ds.getReadLock().unlock();
+            }
+            fullNanos += System.nanoTime() - start;
+        }
+        PerformanceTestUtils.measurementPlotsPluginOutput("full snapshot x" + ROUNDS + "(ms)",
+                TimeUnit.NANOSECONDS.toMillis(fullNanos));
+
+        ds.getSnapshot();
+        long incrementalNanos = 0;
+        DataSetSnapshot snapshot = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            modify(nodes, i);
+            long start = System.nanoTime();
+            snapshot = ds.getSnapshot();
+            incrementalNanos += System.nanoTime() - start;
+        }
+        PerformanceTestUtils.measurementPlotsPluginOutput("incremental snapshot x" + ROUNDS + "(ms)",
+                TimeUnit.NANOSECONDS.toMillis(incrementalNanos));
+        assertEquals(ds.allPrimitives().size(), snapshot.size());
+        Node last = nodes.get((ROUNDS * CHANGES_PER_ROUND - 1) % nodes.size());
+        assertEquals(last.getCoor(), ((NodeData) snapshot.getPrimitiveById(last)).getCoor());
+    }
+
+    private static void modify(List<Node> nodes, int round) {
+        for (int j = 0; j < CHANGES_PER_ROUND; j++) {
+            Node n = nodes.get((round * CHANGES_PER_ROUND + j) % nodes.size());
+            n.setCoor(new LatLon(n.lat() + 1e-6, n.lon()));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Compares the BBox and nearest neighbour query throughput of {@link QuadBuckets} and {@link RTree} on real data.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class SpatialIndexPerformanceTest {
+
+    private static final int QUERIES = 20000;
+    /** About 10 pixels at zoom 17, in east/north units of the Mercator projection */
+    private static final double SNAP_DISTANCE = 12;
+
+    /**
+     * Prepare the test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().projection();
+
+    /**
+     * Measures the construction and the BBox queries of both indexes, for the nodes and the ways of a data set.
+     * @throws Exception in case of error
+     */
+    @Test
+    void testSearch() throws Exception {
+        DataSet ds = PerformanceTestUtils.getNeubrandenburgDataSet();
+        List<Node> nodes = new ArrayList<>(ds.getNodes());
+        nodes.removeIf(n -> !n.isLatLonKnown());
+        List<Way> ways = new ArrayList<>(ds.getWays());
+        BBox bounds = new BBox();
+        nodes.forEach(n -> bounds.add(n.getCoor()));
+
+        // queries of about a screen at zoom 17
+        Random random = new Random(42);
+        List<BBox> queries = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            double lon = bounds.getMinLon() + random.nextDouble() * bounds.getWidth();
+            double lat = bounds.getMinLat() + random.nextDouble() * bounds.getHeight();
+            queries.add(new BBox(lon, lat, lon + 0.01, lat + 0.005));
+        }
+
+        long quadBucketNodes = measure("QuadBuckets nodes", QuadBuckets::new, nodes, queries);
+        long rtreeNodes = measure("RTree nodes", RTree::new, nodes, queries);
+        assertEquals(quadBucketNodes, rtreeNodes);
+        long quadBucketWays = measure("QuadBuckets ways", QuadBuckets::new, ways, queries);
+        long rtreeWays = measure("RTree ways", RTree::new, ways, queries);
+        assertEquals(quadBucketWays, rtreeWays);
+    }
+
+    /**
+     * Measures the hit-testing of the map view: the nodes and ways within a snap distance of random points.
+     * The nodes are searched by a BBox query sorted in a map, as the map view used to do, then by the
+     * nearest neighbour search of both indexes.
+     * @throws Exception in case of error
+     */
+    @Test
+    void testNearest() throws Exception {
+        DataSet ds = PerformanceTestUtils.getNeubrandenburgDataSet();
+        DataSet rtreeDs;
+        Config.getPref().putBoolean("osm.spatial-index.rtree", true);
+        try {
+            rtreeDs = new DataSet(ds);
+        } finally {
+            Config.getPref().put("osm.spatial-index.rtree", null);
+        }
+        Projection projection = ProjectionRegistry.getProjection();
+        BBox bounds = new BBox();
+        ds.getNodes().stream().filter(Node::isLatLonKnown).forEach(n -> bounds.add(n.getCoor()));
+        Random random = new Random(42);
+        List<EastNorth> points = new ArrayList<>();
+        for (int i = 0; i < QUERIES; i++) {
+            points.add(projection.latlon2eastNorth(new LatLon(
+                    bounds.getMinLat() + random.nextDouble() * bounds.getHeight(),
+                    bounds.getMinLon() + random.nextDouble() * bounds.getWidth())));
+        }
+
+        measureNearest("BBox and TreeMap nearest nodes", points, en -> {
+            Map<Double, List<Node>> nearestMap = new TreeMap<>();
+            BBox bbox = new BBox(projection.eastNorth2latlon(en.add(-SNAP_DISTANCE, -SNAP_DISTANCE)),
+                    projection.eastNorth2latlon(en.add(SNAP_DISTANCE, SNAP_DISTANCE)));
+            double snapDistanceSq = SNAP_DISTANCE * SNAP_DISTANCE;
+            for (Node n : ds.searchNodes(bbox)) {
+                double dist = n.getEastNorth().distanceSq(en);
+                if (dist < snapDistanceSq) {
+                    nearestMap.computeIfAbsent(dist, k -> new LinkedList<>()).add(n);
+                }
+            }
+            return nearestMap.values().stream().mapToLong(List::size).sum();
+        });
+        long quadBucketNodes = measureNearest("QuadBuckets nearest nodes", points,
+                en -> ds.nodesWithinDistance(en, SNAP_DISTANCE, n -> true).size());
+        long rtreeNodes = measureNearest("RTree nearest nodes", points,
+                en -> rtreeDs.nodesWithinDistance(en, SNAP_DISTANCE, n -> true).size());
+        assertEquals(quadBucketNodes, rtreeNodes);
+        long quadBucketWays = measureNearest("QuadBuckets nearest ways", points,
+                en -> ds.waysWithinDistance(en, SNAP_DISTANCE, w -> true).size());
+        long rtreeWays = measureNearest("RTree nearest ways", points,
+                en -> rtreeDs.waysWithinDistance(en, SNAP_DISTANCE, w -> true).size());
+        assertEquals(quadBucketWays, rtreeWays);
+    }
+
+    private static long measureNearest(String name, List<EastNorth> points, ToLongFunction<EastNorth> query) {
+        long found = query.applyAsLong(points.get(0));
+        long start = System.nanoTime();
+        for (int round = 0; round < 3; round++) {
+            found = 0;
+            for (EastNorth en : points) {
+                found += query.applyAsLong(en);
+            }
+        }
+        long end = System.nanoTime();
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " queries per second",
+                3L * points.size() * TimeUnit.SECONDS.toNanos(1) / (end - start));
+        return found;
+    }
+
+    private static <T extends OsmPrimitive> long measure(String name, Supplier<SpatialIndex<T>> factory,
+            List<T> primitives, List<BBox> queries) {
+        long start = System.nanoTime();
+        SpatialIndex<T> index = factory.get();
+        index.addAll(primitives);
+        // the R-tree is bulk loaded by the first query
+        long found = index.search(queries.get(0)).size();
+        long built = System.nanoTime();
+        for (int round = 0; round < 3; round++) {
+            found = 0;
+            for (BBox query : queries) {
+                found += index.search(query).size();
+            }
+        }
+        long end = System.nanoTime();
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " build (ms)", TimeUnit.NANOSECONDS.toMillis(built - start));
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " queries per second",
+                3L * queries.size() * TimeUnit.SECONDS.toNanos(1) / (end - built));
+        return found;
+    }
+}
@@ -0,0 +1,57 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+
+/**
+ * This test measures how well the {@link TagStringPool} shares tag strings of a real world OSM file.
+ * <p>
+ * For this, we use the neubrandenburg-file, which is a good real world example of an OSM file.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class TagStringPoolPerformanceTest {
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeAll
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+    }
+
+    /**
+     * Measures the pool hit rate and the number of distinct tag string instances after loading a file.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testSharedTagStrings() throws Exception {
+        TagStringPool.resetStatistics();
+        DataSet ds = PerformanceTestUtils.getNeubrandenburgDataSet();
+        PerformanceTestUtils.measurementPlotsPluginOutput("Tag string pool hit rate (%)", 100 * TagStringPool.getHitRate());
+
+        Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        long references = 0;
+        for (OsmPrimitive p : ds.allPrimitives()) {
+            for (Map.Entry<String, String> tag : p.getKeys().entrySet()) {
+                instances.add(tag.getKey());
+                instances.add(tag.getValue());
+                references += 2;
+            }
+        }
+        PerformanceTestUtils.measurementPlotsPluginOutput("Tag string references", references);
+        PerformanceTestUtils.measurementPlotsPluginOutput("Distinct tag string instances", instances.size());
+        assertTrue(instances.size() < references);
+    }
+}
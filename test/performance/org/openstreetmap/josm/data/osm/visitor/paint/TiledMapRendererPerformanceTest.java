@@ -0,0 +1,113 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.visitor.paint;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.gui.NavigatableComponent;
+
+/**
+ * Performance test of {@code TiledMapRenderer}, compared to the rendering of the whole view while panning the map.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class TiledMapRendererPerformanceTest {
+
+    private static final int IMG_WIDTH = 1400;
+    private static final int IMG_HEIGHT = 1050;
+    /** The number of pan steps */
+    private static final int STEPS = 20;
+    /** The distance of each pan step, in pixels */
+    private static final int STEP_SIZE = 50;
+
+    private static Graphics2D g;
+    private static BufferedImage img;
+    private static NavigatableComponent nc;
+    private static DataSet dsCity;
+
+    /**
+     * Loads the data set.
+     * @throws Exception if any error occurs
+     */
+    @BeforeAll
+    public static void load() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        img = new BufferedImage(IMG_WIDTH, IMG_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        g = img.createGraphics();
+        g.setClip(0, 0, IMG_WIDTH, IMG_HEIGHT);
+        nc = new NavigatableComponent() {
+            {
+                setBounds(0, 0, IMG_WIDTH, IMG_HEIGHT);
+                updateLocationState();
+            }
+
+            @Override
+            protected boolean isVisibleOnScreen() {
+                return true;
+            }
+
+            @Override
+            public Point getLocationOnScreen() {
+                return new Point(0, 0);
+            }
+        };
+        dsCity = PerformanceTestUtils.getNeubrandenburgDataSet();
+    }
+
+    /**
+     * Cleanup.
+     */
+    @AfterAll
+    public static void clean() {
+        g.dispose();
+        g = null;
+        img = null;
+        nc = null;
+        dsCity = null;
+    }
+
+    private static void pan(Runnable paint) {
+        nc.zoomTo(new Bounds(53.55, 13.25, 53.57, 13.28));
+        final EastNorth center = nc.getCenter();
+        for (int i = 0; i < STEPS; i++) {
+            nc.zoomTo(center.add(i * STEP_SIZE * nc.getScale(), 0));
+            paint.run();
+        }
+    }
+
+    /**
+     * Pans the map and renders the whole view after each step.
+     */
+    @Test
+    void testPanFullRendering() {
+        PerformanceTestUtils.runPerformanceTest("Full rendering while panning " + dsCity.getName(), () -> pan(() -> {
+            final Bounds bounds = nc.getLatLonBounds(g.getClipBounds());
+            MapRendererFactory.getInstance().createActiveRenderer(g, nc, false).render(dsCity, false, bounds);
+        }));
+    }
+
+    /**
+     * Pans the map and renders the tiles scrolled into view after each step.
+     */
+    @Test
+    void testPanTiledRendering() {
+        PerformanceTestUtils.runPerformanceTest("Tiled rendering while panning " + dsCity.getName(), () -> {
+            final TiledMapRenderer renderer = new TiledMapRenderer(dsCity);
+            try {
+                pan(() -> renderer.paint(g, nc, false, false, true));
+            } finally {
+                renderer.destroy();
+            }
+        });
+    }
+}
@@ -0,0 +1,89 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.protobuf;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.Feature;
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.Layer;
+
+/**
+ * This test measures how fast we decode Mapbox vector tiles, which is dominated by {@link ProtobufParser}.
+ * <p>
+ * For this, we use the vector tiles of the unit test data, which are real world tiles. We ignore disk access times.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class ProtobufParserPerformanceTest {
+    private static final int WARMUP = 200;
+    private static final int TIMES = 1000;
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeAll
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+    }
+
+    /**
+     * Decodes the layers, features and geometries of all test tiles.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testDecodeTiles() throws Exception {
+        List<byte[]> tiles = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(Paths.get(TestUtils.getTestDataRoot(), "pbf"))) {
+            for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                tiles.add(Files.readAllBytes(path));
+            }
+        }
+        assertTrue(decode(tiles) > 0);
+        for (int i = 0; i < WARMUP; i++) {
+            decode(tiles);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("decode " + tiles.size() + " vector tiles " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            decode(tiles);
+        }
+        timer.done();
+        PerformanceTestUtils.measurementPlotsPluginOutput("vector tile decoding allocations (kB per tile)",
+                (threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocated) / 1024d / TIMES / tiles.size());
+    }
+
+    private static int decode(List<byte[]> tiles) throws IOException {
+        int features = 0;
+        for (byte[] tile : tiles) {
+            try (ProtobufParser parser = new ProtobufParser(tile)) {
+                for (ProtobufRecord protobufRecord : parser.allRecords()) {
+                    if (protobufRecord.getField() == Layer.LAYER_FIELD) {
+                        for (Feature feature : new Layer(protobufRecord.getBytes()).getFeatures()) {
+                            feature.getGeometryObject();
+                            features++;
+                        }
+                    }
+                }
+            }
+        }
+        return features;
+    }
+}
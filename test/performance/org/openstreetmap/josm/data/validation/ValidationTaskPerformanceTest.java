@@ -6,7 +6,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.validation.tests.ApiCapabilitiesTest;
 import org.openstreetmap.josm.gui.MainApplication;
@@ -18,6 +20,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -64,4 +67,28 @@ class ValidationTaskPerformanceTest {
             assertTrue(validationTask.getErrors().size() > 3000);
         });
     }
+
+    /**
+     * Runs the incremental validation after moving a single node of a test dataset.
+     */
+    @Test
+    void testIncremental() {
+        DataSet dataSet = MainApplication.getLayerManager().getActiveDataSet();
+        IncrementalValidator validator = new IncrementalValidator(dataSet, tests);
+        try {
+            int errors = validator.validate(NullProgressMonitor.INSTANCE).size();
+            Node node = dataSet.getWays().stream().filter(w -> w.hasKey("highway")).findFirst()
+                    .orElseThrow(AssertionError::new).firstNode();
+            LatLon coor = node.getCoor();
+
+            PerformanceTestUtils.runPerformanceTest("IncrementalValidator#validate on " + dataSet.getName(), () -> {
+                node.setCoor(new LatLon(coor.lat() + 0.0001, coor.lon()));
+                validator.validate(NullProgressMonitor.INSTANCE);
+                node.setCoor(coor);
+                assertEquals(errors, validator.validate(NullProgressMonitor.INSTANCE).size());
+            });
+        } finally {
+            validator.destroy();
+        }
+    }
 }
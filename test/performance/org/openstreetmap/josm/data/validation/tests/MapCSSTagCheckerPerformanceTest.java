@@ -1,12 +1,16 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data.validation.tests;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.openstreetmap.josm.PerformanceTestUtils;
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
 
 /**
@@ -41,4 +45,23 @@ class MapCSSTagCheckerPerformanceTest {
         PerformanceTestUtils.runPerformanceTest("MapCSSTagChecker on " + dsCity.getName(),
                 () -> tagChecker.visit(dsCity.allPrimitives()));
     }
+
+    /**
+     * Compares the evaluation of the candidate rules given by the rule index with the evaluation of all rules,
+     * on every tenth primitive of the data set.
+     */
+    @Test
+    void testRuleIndex() {
+        final List<OsmPrimitive> primitives = new ArrayList<>();
+        int i = 0;
+        for (OsmPrimitive p : dsCity.allPrimitives()) {
+            if (i++ % 10 == 0) {
+                primitives.add(p);
+            }
+        }
+        PerformanceTestUtils.runPerformanceTest("MapCSSTagChecker all rules on " + dsCity.getName(),
+                () -> primitives.forEach(p -> MapCSSTagChecker.getErrorsForPrimitive(p, false, tagChecker.checks.values())));
+        PerformanceTestUtils.runPerformanceTest("MapCSSTagChecker candidate rules on " + dsCity.getName(),
+                () -> primitives.forEach(p -> tagChecker.getErrorsForPrimitive(p, false)));
+    }
 }
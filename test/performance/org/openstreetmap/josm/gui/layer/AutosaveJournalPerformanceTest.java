@@ -0,0 +1,101 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.event.DataSetListenerAdapter;
+import org.openstreetmap.josm.io.Compression;
+import org.openstreetmap.josm.io.OsmReader;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Performance test of {@link AutosaveJournal}: compares a full autosave with the journal of a few changes.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class AutosaveJournalPerformanceTest {
+
+    private static final int ROUNDS = 20;
+    private static final int CHANGES_PER_ROUND = 100;
+
+    /**
+     * Prepare the test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences().projection();
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Measures the time of the autosaves of a layer modified between the saves.
+     * @throws Exception in case of error
+     */
+    @Test
+    void testJournal() throws Exception {
+        DataSet ds = PerformanceTestUtils.getNeubrandenburgDataSet();
+        OsmDataLayer layer = new OsmDataLayer(ds, "perf", null);
+        AutosaveJournal journal = new AutosaveJournal(ds);
+        ds.addDataSetListener(new DataSetListenerAdapter(journal));
+        List<Node> nodes = new ArrayList<>(ds.getNodes());
+        File file = tempDir.resolve("perf.osm").toFile();
+
+        // the layer listeners make the modifications slow, only the saves are measured
+        long snapshotNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            modify(nodes, i);
+            long start = System.nanoTime();
+            journal.writeSnapshot(file);
+            snapshotNanos += System.nanoTime() - start;
+        }
+        PerformanceTestUtils.measurementPlotsPluginOutput("full autosave x" + ROUNDS + "(ms)",
+                TimeUnit.NANOSECONDS.toMillis(snapshotNanos));
+
+        long journalNanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            modify(nodes, i);
+            long start = System.nanoTime();
+            assertTrue(journal.canAppend());
+            journal.append();
+            journalNanos += System.nanoTime() - start;
+        }
+        PerformanceTestUtils.measurementPlotsPluginOutput("journaled autosave x" + ROUNDS + "(ms)",
+                TimeUnit.NANOSECONDS.toMillis(journalNanos));
+
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("journal replay");
+        assertTrue(AutosaveJournal.replay(file));
+        timer.done();
+        try (InputStream in = Compression.getUncompressedFileInputStream(file)) {
+            DataSet recovered = OsmReader.parseDataSet(in, null);
+            assertEquals(ds.allPrimitives().size(), recovered.allPrimitives().size());
+            Node last = nodes.get((ROUNDS - 1) * CHANGES_PER_ROUND);
+            assertTrue(last.getCoor().equalsEpsilon(((Node) recovered.getPrimitiveById(last)).getCoor()));
+        }
+    }
+
+    private static void modify(List<Node> nodes, int round) {
+        for (int j = 0; j < CHANGES_PER_ROUND; j++) {
+            Node n = nodes.get((round * CHANGES_PER_ROUND + j) % nodes.size());
+            n.setCoor(new LatLon(n.lat() + 1e-6, n.lon()));
+        }
+    }
+}
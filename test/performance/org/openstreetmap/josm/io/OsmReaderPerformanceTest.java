@@ -56,7 +56,16 @@ class OsmReaderPerformanceTest {
         runTest(".osm-file", true);
     }
 
-    private void runTest(String what, boolean decompressBeforeRead) throws IllegalDataException, IOException {
+    /**
+     * Simulates a plain read of a .osm file (from memory) with {@link OsmReader.Options#PIPELINED}
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testPlainPipelined() throws Exception {
+        runTest(".osm-file (pipelined)", true, OsmReader.Options.PIPELINED);
+    }
+
+    private void runTest(String what, boolean decompressBeforeRead, OsmReader.Options... options) throws IllegalDataException, IOException {
         InputStream is = loadFile(decompressBeforeRead);
         PerformanceTestTimer timer = PerformanceTestUtils.startTimer("load " + what + " " + TIMES + " times");
         DataSet ds = null;
@@ -64,7 +73,7 @@ class OsmReaderPerformanceTest {
             is.reset();
 
             ds = OsmReader.parseDataSet(decompressBeforeRead ? is : Compression.byExtension(PerformanceTestUtils.DATA_FILE)
-                    .getUncompressedInputStream(is), null);
+                    .getUncompressedInputStream(is), null, options);
         }
         timer.done();
         assertNotNull(ds);
@@ -12,6 +12,8 @@ import org.openstreetmap.josm.data.osm.DataSet;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -57,4 +59,54 @@ class OsmWriterPerformanceTest {
         timer.done();
     }
 
+    /**
+     * Tests writing OSM data to a stream discarding it, and reports the memory allocated while writing.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testWriterAllocations() throws Exception {
+        write();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("stream .osm-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            write();
+        }
+        timer.done();
+        PerformanceTestUtils.measurementPlotsPluginOutput("write .osm-file allocations (bytes per primitive)",
+                (threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocated) / (double) TIMES
+                / neubrandenburgDataSet.allPrimitives().size());
+    }
+
+    private void write() throws Exception {
+        try (OsmWriter osmWriter = OsmWriterFactory.createOsmWriter(new PrintWriter(new NullWriter()), true,
+                OsmWriter.DEFAULT_API_VERSION)) {
+            osmWriter.write(neubrandenburgDataSet);
+        }
+    }
+
+    /**
+     * A writer discarding everything, so that only the allocations of the {@link OsmWriter} are measured.
+     */
+    private static final class NullWriter extends Writer {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            // discard
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            // discard
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
 }
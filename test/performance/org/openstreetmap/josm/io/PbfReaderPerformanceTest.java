@@ -0,0 +1,72 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.PerformanceTestUtils.PerformanceTestTimer;
+import org.openstreetmap.josm.data.osm.DataSet;
+
+/**
+ * This test compares reading the same data from .osm.pbf and .osm files.
+ * <p>
+ * For this, we write the neubrandenburg-file in both formats to memory. We ignore disk access times.
+ */
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class PbfReaderPerformanceTest {
+    private static final int TIMES = 4;
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeAll
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+    }
+
+    /**
+     * Measures the size of both formats and the time needed to read them.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testPbfVersusXml() throws Exception {
+        DataSet data = PerformanceTestUtils.getNeubrandenburgDataSet();
+        ByteArrayOutputStream pbf = new ByteArrayOutputStream();
+        try (PbfWriter writer = new PbfWriter(pbf)) {
+            writer.write(data);
+        }
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        try (OsmWriter writer = OsmWriterFactory.createOsmWriter(
+                new PrintWriter(new OutputStreamWriter(xml, StandardCharsets.UTF_8)), false, data.getVersion())) {
+            writer.write(data);
+        }
+        PerformanceTestUtils.measurementPlotsPluginOutput(".osm.pbf size (kB)", pbf.size() / 1024);
+        PerformanceTestUtils.measurementPlotsPluginOutput(".osm size (kB)", xml.size() / 1024);
+
+        DataSet ds = null;
+        PerformanceTestTimer timer = PerformanceTestUtils.startTimer("load .osm.pbf-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            ds = PbfReader.parseDataSet(new ByteArrayInputStream(pbf.toByteArray()), null);
+        }
+        timer.done();
+        assertEquals(data.allPrimitives().size(), ds.allPrimitives().size());
+
+        timer = PerformanceTestUtils.startTimer("load .osm-file " + TIMES + " times");
+        for (int i = 0; i < TIMES; i++) {
+            ds = OsmReader.parseDataSet(new ByteArrayInputStream(xml.toByteArray()), null);
+        }
+        timer.done();
+        assertEquals(data.allPrimitives().size(), ds.allPrimitives().size());
+    }
+}
@@ -0,0 +1,88 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.Projections;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.tools.ImageWarp.Interpolation;
+
+/**
+ * Compares the sequential warp with a {@link ImageWarp.GridTransform} and the parallel warp of {@link ImageWarp},
+ * for a tile reprojected from EPSG:3857 to EPSG:2180, as done by the imagery layers.
+ */
+@BasicPreferences
+@Timeout(value = 15*60, unit = TimeUnit.SECONDS)
+class ImageWarpPerformanceTest {
+
+    private static final int TILE_SIZE = 512;
+    private static final int STRIDE = 7;
+    private static final int RUNS = 200;
+
+    /**
+     * Measures the tiles warped per second by both implementations.
+     * @param interpolation the interpolation method
+     */
+    @ParameterizedTest
+    @EnumSource(Interpolation.class)
+    void testWarp(Interpolation interpolation) {
+        Projection projServer = Projections.getProjectionByCode("EPSG:3857");
+        Projection projCurrent = Projections.getProjectionByCode("EPSG:2180");
+        // a tile of 2.5 km over Warsaw
+        EastNorth origin = projServer.latlon2eastNorth(new LatLon(52.23, 21.01));
+        double tileMeters = 2500;
+        double scale = tileMeters / TILE_SIZE;
+        EastNorth originCurrent = projCurrent.latlon2eastNorth(projServer.eastNorth2latlon(origin));
+        ImageWarp.PointTransform transform = pt -> {
+            EastNorth target = new EastNorth(originCurrent.east() + pt.getX() * scale, originCurrent.north() - pt.getY() * scale);
+            EastNorth sourceEN = projServer.latlon2eastNorth(projCurrent.eastNorth2latlon(target));
+            return new Point2D.Double((sourceEN.east() - origin.east()) / scale, (origin.north() - sourceEN.north()) / scale);
+        };
+
+        BufferedImage source = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(42);
+        for (int y = 0; y < TILE_SIZE; y++) {
+            for (int x = 0; x < TILE_SIZE; x++) {
+                source.setRGB(x, y, random.nextInt());
+            }
+        }
+        Dimension targetDim = new Dimension(TILE_SIZE + 16, TILE_SIZE + 16);
+
+        BufferedImage expected = null;
+        BufferedImage actual = null;
+        // warm up
+        for (int i = 0; i < RUNS / 10; i++) {
+            expected = ImageWarp.warp(source, targetDim, new ImageWarp.GridTransform(transform, STRIDE), interpolation);
+            actual = ImageWarp.warp(source, targetDim, transform, STRIDE, interpolation);
+        }
+        assertArrayEquals(expected.getRGB(0, 0, targetDim.width, targetDim.height, null, 0, targetDim.width),
+                actual.getRGB(0, 0, targetDim.width, targetDim.height, null, 0, targetDim.width));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            ImageWarp.warp(source, targetDim, new ImageWarp.GridTransform(transform, STRIDE), interpolation);
+        }
+        long sequential = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            ImageWarp.warp(source, targetDim, transform, STRIDE, interpolation);
+        }
+        long end = System.nanoTime();
+        PerformanceTestUtils.measurementPlotsPluginOutput("GridTransform " + interpolation + " tiles per second",
+                RUNS * TimeUnit.SECONDS.toNanos(1) / (sequential - start));
+        PerformanceTestUtils.measurementPlotsPluginOutput("Parallel " + interpolation + " tiles per second",
+                RUNS * TimeUnit.SECONDS.toNanos(1) / (end - sequential));
+    }
+}
@@ -112,6 +112,37 @@ class ChangeCommandTest {
         assertEquals(LatLon.ZERO, testData.existingNode.getCoor());
     }
 
+    /**
+     * Test {@link ChangeCommand#spill}: the new primitive is dropped, and copied back on undo.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testSpill() throws Exception {
+        Node newNode = new Node(5);
+        newNode.setCoor(LatLon.NORTH_POLE);
+        newNode.put("new", "new");
+
+        ChangeCommand command = new ChangeCommand(testData.existingNode, newNode);
+        long footprint = command.getMemoryFootprint();
+        assertTrue(footprint > 0);
+        command.executeCommand();
+        assertTrue(command.getMemoryFootprint() > footprint);
+
+        try (UndoSpillFile file = new UndoSpillFile()) {
+            assertEquals(command.getMemoryFootprint(), command.spill(file));
+            assertEquals(0, command.getMemoryFootprint());
+
+            command.undoCommand();
+        }
+        assertNull(testData.existingNode.get("new"));
+        assertEquals(LatLon.ZERO, testData.existingNode.getCoor());
+        assertEquals("new", command.getNewOsmPrimitive().get("new"));
+
+        command.executeCommand();
+        assertEquals("new", testData.existingNode.get("new"));
+        assertEquals(LatLon.NORTH_POLE, testData.existingNode.getCoor());
+    }
+
     /**
      * Tests {@link ChangeCommand#fillModifiedData(java.util.Collection, java.util.Collection, java.util.Collection)}
      */
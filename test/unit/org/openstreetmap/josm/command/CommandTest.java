@@ -1,7 +1,12 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.command;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import java.util.Arrays;
+import java.util.HashSet;
 
 import org.openstreetmap.josm.TestUtils;
 import org.openstreetmap.josm.data.coor.LatLon;
@@ -44,6 +49,39 @@ public class CommandTest {
             .verify();
     }
 
+    /**
+     * Unit test of {@link Command#spill} and {@link Command#getMemoryFootprint()}.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testSpill() throws Exception {
+        Node n1 = new Node(new LatLon(1, 1));
+        Node n2 = new Node(new LatLon(2, 2));
+        Way w = new Way();
+        w.setNodes(Arrays.asList(n1, n2));
+        w.put("highway", "track");
+        Node n3 = new Node(new LatLon(3, 3));
+        DataSet ds = new DataSet(n1, n2, n3, w);
+        Command command = new SequenceCommand("test",
+                new ChangePropertyCommand(w, "highway", "path"), new DeleteCommand(ds, Arrays.asList(n3)));
+        command.executeCommand();
+        long footprint = command.getMemoryFootprint();
+        assertTrue(footprint > 0);
+
+        try (UndoSpillFile file = new UndoSpillFile()) {
+            assertEquals(footprint, command.spill(file));
+            assertEquals(0, command.getMemoryFootprint());
+            assertEquals(0, command.spill(file));
+            assertTrue(file.length() > 0);
+            assertEquals(new HashSet<>(Arrays.asList(w, n3)), new HashSet<>(command.getParticipatingPrimitives()));
+
+            command.undoCommand();
+        }
+        assertEquals("track", w.get("highway"));
+        assertFalse(n3.isDeleted());
+        assertEquals(footprint, command.getMemoryFootprint());
+    }
+
     /**
      * A change test data consisting of two nodes and a way.
      * @author Michael Zangl
@@ -2,6 +2,7 @@
 package org.openstreetmap.josm.command;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -93,6 +94,40 @@ class PurgeCommandTest {
         assertNull(testData.existingNode.getDataSet());
     }
 
+    /**
+     * Test {@link PurgeCommand#getMemoryFootprint()} and {@link PurgeCommand#spill}
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testSpill() throws Exception {
+        testData.existingWay.put("highway", "track");
+        PurgeCommand command = new PurgeCommand(testData.layer.getDataSet(),
+                Arrays.<OsmPrimitive>asList(testData.existingNode, testData.existingWay),
+                Arrays.<OsmPrimitive>asList(testData.existingWay));
+        long saved = command.getMemoryFootprint();
+        assertTrue(saved > 0);
+        command.executeCommand();
+        // the purged node is only referenced by the command
+        long footprint = command.getMemoryFootprint();
+        assertTrue(footprint > saved);
+
+        try (UndoSpillFile file = new UndoSpillFile()) {
+            assertEquals(saved, command.spill(file));
+            assertEquals(footprint - saved, command.getMemoryFootprint());
+            assertEquals(0, command.spill(file));
+
+            command.undoCommand();
+        }
+        assertFalse(testData.existingWay.isIncomplete());
+        assertEquals("track", testData.existingWay.get("highway"));
+        assertSame(testData.layer.data, testData.existingNode.getDataSet());
+        assertEquals(saved, command.getMemoryFootprint());
+
+        command.executeCommand();
+        assertTrue(testData.existingWay.isIncomplete());
+        assertNull(testData.existingNode.getDataSet());
+    }
+
     /**
      * Tests {@link PurgeCommand#fillModifiedData(java.util.Collection, java.util.Collection, java.util.Collection)}
      */
@@ -0,0 +1,76 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.command;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link UndoSpillFile} class.
+ */
+@BasicPreferences
+class UndoSpillFileTest {
+
+    private static byte[] randomBytes(Random random) {
+        // random bytes cannot be compressed
+        byte[] bytes = new byte[700_000];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Test {@link UndoSpillFile#write}, {@link UndoSpillFile#read} and {@link UndoSpillFile#release}.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testWriteRead() throws IOException {
+        try (UndoSpillFile file = new UndoSpillFile()) {
+            long a = file.write("a");
+            long b = file.write("b");
+            assertEquals("b", file.read(b));
+            assertEquals("a", file.read(a));
+            file.release(a);
+            file.release(a);
+            assertThrows(IOException.class, () -> file.read(a));
+            assertEquals("b", file.read(b));
+        }
+    }
+
+    /**
+     * Test that the file is compacted once the released objects take more space than the live ones.
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testCompact() throws IOException {
+        Random random = new Random(42);
+        byte[] bytes1 = randomBytes(random);
+        byte[] bytes2 = randomBytes(random);
+        byte[] bytes3 = randomBytes(random);
+        try (UndoSpillFile file = new UndoSpillFile()) {
+            long key1 = file.write(bytes1);
+            long key2 = file.write(bytes2);
+            long key3 = file.write(bytes3);
+            long length = file.length();
+
+            // not enough space to reclaim yet
+            file.release(key1);
+            assertEquals(length, file.length());
+
+            file.release(key3);
+            assertTrue(file.length() < length / 2);
+            assertArrayEquals(bytes2, (byte[]) file.read(key2));
+
+            // objects written after the compaction are appended to the live ones
+            long key4 = file.write(bytes1);
+            assertArrayEquals(bytes1, (byte[]) file.read(key4));
+            assertArrayEquals(bytes2, (byte[]) file.read(key2));
+        }
+    }
+}
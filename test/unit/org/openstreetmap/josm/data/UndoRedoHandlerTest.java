@@ -0,0 +1,60 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.command.ChangePropertyCommand;
+import org.openstreetmap.josm.command.Command;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.tools.MemoryManager;
+
+/**
+ * Unit tests of {@link UndoRedoHandler} class.
+ */
+@BasicPreferences
+class UndoRedoHandlerTest {
+
+    /**
+     * Cleans the undo history.
+     */
+    @AfterEach
+    void tearDown() {
+        UndoRedoHandler.getInstance().clean();
+        UndoRedoHandler.PROP_MAX_MEMORY.put(null);
+    }
+
+    /**
+     * Test {@link UndoRedoHandler#PROP_MAX_MEMORY}: the state of the oldest commands is moved to disk.
+     */
+    @Test
+    void testMemoryLimit() {
+        UndoRedoHandler handler = UndoRedoHandler.getInstance();
+        UndoRedoHandler.PROP_MAX_MEMORY.put(0);
+        Node node = new Node(LatLon.ZERO);
+        new DataSet(node);
+
+        Command last = null;
+        for (int i = 0; i < 5; i++) {
+            last = new ChangePropertyCommand(node, "name", Integer.toString(i));
+            handler.add(last);
+        }
+        // only the last command stays in memory
+        assertTrue(last.getMemoryFootprint() > 0);
+        assertEquals(last.getMemoryFootprint(), handler.getMemoryFootprint());
+        assertEquals(0, handler.getUndoCommands().get(0).getMemoryFootprint());
+        assertEquals(handler.getMemoryFootprint(), MemoryManager.getInstance().getMemoryUsage().get("undo"));
+
+        handler.undo(5);
+        assertEquals(0, handler.getMemoryFootprint());
+        assertTrue(node.getKeys().isEmpty());
+        handler.redo(5);
+        assertEquals("4", node.get("name"));
+        assertEquals(last.getMemoryFootprint(), handler.getMemoryFootprint());
+    }
+}
@@ -6,6 +6,11 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -73,6 +78,84 @@ class HostLimitQueueTest {
         }
     }
 
+    /**
+     * Mock class with a priority, that records the order of execution
+     */
+    static class PriorityTask extends Task {
+        private final List<Integer> order;
+        private final CountDownLatch latch;
+        private final int id;
+        private volatile double priority;
+
+        PriorityTask(ICacheAccess<String, CacheEntry> cache, int id, double priority, List<Integer> order, CountDownLatch latch)
+                throws IOException {
+            super(cache, new URL("http://localhost/" + id), new AtomicInteger());
+            this.id = id;
+            this.priority = priority;
+            this.order = order;
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Logging.trace(e);
+            } finally {
+                order.add(id);
+                executionFinished();
+            }
+        }
+
+        @Override
+        public double getPriority() {
+            return priority;
+        }
+    }
+
+    private static List<Integer> runPriorityTasks(double[] priorities, double[] newPriorities) throws Exception {
+        ThreadPoolExecutor tpe = TMSCachedTileLoader.getNewThreadPoolExecutor("test-%d", 1, 1);
+        ICacheAccess<String, CacheEntry> cache = JCSCacheManager.getCache("test", 3, 0, "");
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(1);
+        // the first task blocks the only thread, the other ones wait in the queue
+        tpe.execute(new PriorityTask(cache, -1, 0, order, latch));
+        List<PriorityTask> tasks = new ArrayList<>();
+        for (int i = 0; i < priorities.length; i++) {
+            PriorityTask task = new PriorityTask(cache, i, priorities[i], order, latch);
+            tasks.add(task);
+            tpe.execute(task);
+        }
+        if (newPriorities != null) {
+            for (int i = 0; i < newPriorities.length; i++) {
+                tasks.get(i).priority = newPriorities[i];
+            }
+        }
+        latch.countDown();
+        tpe.shutdown();
+        assertTrue(tpe.awaitTermination(15, TimeUnit.SECONDS));
+        return order.subList(1, order.size());
+    }
+
+    /**
+     * Check that the jobs are taken by priority, then in insertion order
+     * @throws Exception in case of error
+     */
+    @Test
+    void testPriority() throws Exception {
+        assertEquals(Arrays.asList(2, 4, 0, 3, 1), runPriorityTasks(new double[] {5, 10, 1, 5, 1}, null));
+    }
+
+    /**
+     * Check that a change of priority of the queued jobs changes the order of execution
+     * @throws Exception in case of error
+     */
+    @Test
+    void testReprioritize() throws Exception {
+        assertEquals(Arrays.asList(3, 2, 1, 0), runPriorityTasks(new double[] {1, 2, 3, 4}, new double[] {40, 30, 20, 10}));
+    }
+
     /**
      * Check if single threaded execution works properly
      * @throws Exception in case of error
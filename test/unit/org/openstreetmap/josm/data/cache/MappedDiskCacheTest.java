@@ -0,0 +1,137 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.apache.commons.jcs3.access.exception.ObjectExistsException;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Unit tests for class {@link MappedDiskCache}.
+ */
+@BasicPreferences
+class MappedDiskCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static BufferedImageCacheEntry entry(String content) {
+        return new BufferedImageCacheEntry(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String content(BufferedImageCacheEntry entry) {
+        return new String(entry.getContent(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test storing and reading entries with their attributes.
+     * @throws IOException if any I/O error occurs
+     */
+    @Test
+    void testPutGet() throws IOException {
+        MappedDiskCache cache = MappedDiskCache.open("test", tempDir.toFile(), 8 << 20);
+        CacheEntryAttributes attributes = new CacheEntryAttributes();
+        attributes.setEtag("abc");
+        attributes.setExpirationTime(1234);
+        attributes.setMetadata(Collections.singletonMap("key", "value"));
+        cache.put("tile1", entry("content1"), attributes);
+        cache.put("tile2", entry("content2"));
+        assertEquals(2, cache.size());
+
+        ICacheElement<String, BufferedImageCacheEntry> element = cache.getCacheElement("tile1");
+        assertEquals("content1", content(element.getVal()));
+        assertEquals(8, element.getVal().getContentLength());
+        assertArrayEquals("content1".getBytes(StandardCharsets.UTF_8), Utils.readBytesFromStream(element.getVal().getContentStream()));
+        CacheEntryAttributes read = (CacheEntryAttributes) element.getElementAttributes();
+        assertEquals("abc", read.getEtag());
+        assertEquals(1234, read.getExpirationTime());
+        assertEquals("value", read.getMetadata().get("key"));
+        assertEquals(attributes.getCreateTime(), read.getCreateTime());
+        assertNull(cache.get("tile3"));
+
+        cache.put("tile1", entry("new content"));
+        assertEquals("new content", content(cache.get("tile1")));
+        assertEquals(2, cache.getMatching("tile.*").size());
+        assertThrows(ObjectExistsException.class, () -> cache.putSafe("tile2", entry("x")));
+        cache.remove("tile2");
+        assertNull(cache.get("tile2"));
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("tile1"));
+        cache.dispose();
+    }
+
+    /**
+     * Test reopening a cache, with the index written at dispose and with a rebuilt index.
+     * @throws IOException if any I/O error occurs
+     */
+    @Test
+    void testReopen() throws IOException {
+        File dir = tempDir.toFile();
+        MappedDiskCache cache = MappedDiskCache.open("test", dir, 8 << 20);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("tile" + i, entry("content" + i));
+        }
+        cache.remove("tile5");
+        cache.dispose();
+        assertNull(cache.get("tile1"));
+
+        cache = MappedDiskCache.open("test", dir, 8 << 20);
+        assertEquals(999, cache.size());
+        assertEquals("content1", content(cache.get("tile1")));
+        assertNull(cache.get("tile5"));
+        cache.put("tile1000", entry("content1000"));
+        cache.dispose();
+
+        // a missing index, as after a crash, is rebuilt from the segments
+        Files.delete(new File(dir, "index.dat").toPath());
+        cache = MappedDiskCache.open("test", dir, 8 << 20);
+        assertEquals(1000, cache.size());
+        assertEquals("content999", content(cache.get("tile999")));
+        assertEquals("content1000", content(cache.get("tile1000")));
+        assertNull(cache.get("tile5"));
+        cache.dispose();
+    }
+
+    /**
+     * Test the size bound of the cache: old entries are dropped, recently read ones are kept.
+     * @throws IOException if any I/O error occurs
+     */
+    @Test
+    void testCompaction() throws IOException {
+        // 2 segments of 1 MiB
+        MappedDiskCache cache = MappedDiskCache.open("test", tempDir.toFile(), 2 << 20);
+        byte[] data = new byte[10_000];
+        cache.put("recent", new BufferedImageCacheEntry(data));
+        cache.put("old", new BufferedImageCacheEntry(data));
+        for (int i = 0; i < 1000; i++) {
+            cache.put("tile" + i, new BufferedImageCacheEntry(data));
+            assertNotNull(cache.get("recent"));
+        }
+        assertTrue(cache.getDiskSize() <= 2 << 20);
+        assertTrue(cache.size() < 1000);
+        assertNotNull(cache.get("recent"));
+        assertNull(cache.get("old"));
+        assertNotNull(cache.get("tile999"));
+        assertEquals(data.length, cache.get("tile999").getContentLength());
+        cache.dispose();
+        assertEquals(2, tempDir.toFile().listFiles((d, name) -> name.startsWith("segment-")).length);
+    }
+}
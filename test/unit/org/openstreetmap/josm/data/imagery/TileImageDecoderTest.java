@@ -0,0 +1,125 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.imagery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.cache.BufferedImageCacheEntry;
+
+/**
+ * Unit tests for class {@link TileImageDecoder}.
+ */
+class TileImageDecoderTest {
+    private static final String URL = "https://decoder.test/1/2/3.png";
+
+    private static byte[] png(Color color) throws IOException {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, color.getRGB());
+        try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "png", output);
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * Test that the same content is decoded once for the same URL
+     * @throws IOException never
+     */
+    @Test
+    void testDecodeOnce() throws IOException {
+        TileImageDecoder decoder = new TileImageDecoder(1);
+        byte[] content = png(Color.RED);
+        BufferedImage image = decoder.decode(URL, new BufferedImageCacheEntry(content));
+        assertNotNull(image);
+        assertEquals(Color.RED.getRGB(), image.getRGB(0, 0));
+        // another entry with the same content, e.g. read from the disk cache, or backed by a buffer
+        assertSame(image, decoder.decode(URL, new BufferedImageCacheEntry(content)));
+        assertSame(image, decoder.decode(URL, new BufferedImageCacheEntry(ByteBuffer.wrap(content))));
+        assertEquals(1, decoder.getDecodedCount());
+        assertEquals(2, decoder.getSharedCount());
+        assertEquals(1, decoder.getImageCount());
+
+        // another URL is decoded again
+        assertNotSame(image, decoder.decode(URL + "?other", new BufferedImageCacheEntry(content)));
+        assertEquals(2, decoder.getDecodedCount());
+    }
+
+    /**
+     * Test that a new content of a URL is decoded again
+     * @throws IOException never
+     */
+    @Test
+    void testContentChanged() throws IOException {
+        TileImageDecoder decoder = new TileImageDecoder(1);
+        BufferedImage red = decoder.decode(URL, new BufferedImageCacheEntry(png(Color.RED)));
+        BufferedImage blue = decoder.decode(URL, new BufferedImageCacheEntry(png(Color.BLUE)));
+        assertNotSame(red, blue);
+        assertEquals(Color.BLUE.getRGB(), blue.getRGB(0, 0));
+        assertEquals(2, decoder.getDecodedCount());
+        assertEquals(0, decoder.getSharedCount());
+    }
+
+    /**
+     * Test a content that is not an image
+     * @throws IOException never
+     */
+    @Test
+    void testNotAnImage() throws IOException {
+        TileImageDecoder decoder = new TileImageDecoder(1);
+        byte[] content = "<html>error</html>".getBytes(StandardCharsets.UTF_8);
+        assertNull(decoder.decode(URL, new BufferedImageCacheEntry(content)));
+        assertNull(decoder.decode(URL, new BufferedImageCacheEntry(content)));
+        assertEquals(2, decoder.getDecodedCount());
+        assertEquals(0, decoder.getImageCount());
+    }
+
+    /**
+     * Test that the tasks run in the pool, or in the calling thread when the pool is busy
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    void testExecute() throws InterruptedException {
+        TileImageDecoder decoder = new TileImageDecoder(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> poolThread = new AtomicReference<>();
+        decoder.execute(() -> {
+            poolThread.set(Thread.currentThread());
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), poolThread.get());
+        // fill the queue, the next task runs in this thread
+        CountDownLatch queued = new CountDownLatch(16);
+        for (int i = 0; i < 16; i++) {
+            decoder.execute(queued::countDown);
+        }
+        AtomicReference<Thread> callerThread = new AtomicReference<>();
+        decoder.execute(() -> callerThread.set(Thread.currentThread()));
+        assertSame(Thread.currentThread(), callerThread.get());
+        release.countDown();
+        assertTrue(queued.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,195 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.imagery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.gui.jmapviewer.Tile;
+import org.openstreetmap.gui.jmapviewer.tilesources.TMSTileSource;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+import org.openstreetmap.josm.tools.MemoryManager;
+import org.openstreetmap.josm.tools.MemoryManager.MemoryHandle;
+import org.openstreetmap.josm.tools.MemoryManager.NotEnoughMemoryException;
+
+/**
+ * Unit tests for class {@link TileMemoryPool}.
+ */
+class TileMemoryPoolTest {
+    /** The size of the image of a tile, 4 tiles fit in the pool */
+    private static final long TILE_SIZE = 256 * 256 * 4;
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    JOSMTestRules test = new JOSMTestRules().preferences();
+
+    private final TMSTileSource source = new TMSTileSource(new ImageryInfo("pool"));
+    private final Object layerA = new Object();
+    private final Object layerB = new Object();
+
+    @BeforeEach
+    void setUp() {
+        TileMemoryPool.MAX_SIZE.put(1);
+    }
+
+    private Tile createTile(int x) {
+        Tile tile = new Tile(source, x, 0, 10);
+        tile.setImage(new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB));
+        tile.finishLoading();
+        return tile;
+    }
+
+    /**
+     * Test that the least recently used tile of all layers is evicted
+     * @throws NotEnoughMemoryException if the pool cannot be allocated
+     */
+    @Test
+    void testEvictLeastRecentlyUsed() throws NotEnoughMemoryException {
+        TileMemoryPool pool = new TileMemoryPool(0);
+        MemoryHandle<TileMemoryPool> handleA = pool.attach(layerA, "A");
+        MemoryHandle<TileMemoryPool> handleB = pool.attach(layerB, "B");
+        assertEquals(1024 * 1024, pool.getMaxBytes());
+        Tile[] tiles = new Tile[4];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = createTile(i);
+            pool.add(layerA, tiles[i]);
+        }
+        assertEquals(4 * TILE_SIZE, pool.getBytes());
+        assertEquals(0, pool.getEvictionCount());
+        pool.touch(tiles[0]);
+
+        Tile other = createTile(0);
+        pool.add(layerB, other);
+        // tiles[1] is the least recently used one
+        assertNull(tiles[1].getImage());
+        assertFalse(tiles[1].isLoaded());
+        for (int i : new int[] {0, 2, 3}) {
+            assertNotNull(tiles[i].getImage());
+            assertTrue(tiles[i].isLoaded());
+        }
+        assertEquals(1, pool.getEvictionCount());
+        assertEquals(1, pool.getEvictionCount(layerA));
+        assertEquals(0, pool.getEvictionCount(layerB));
+        assertEquals(3 * TILE_SIZE, pool.getBytes(layerA));
+        assertEquals(TILE_SIZE, pool.getBytes(layerB));
+        assertEquals(TILE_SIZE, handleB.getSize());
+        assertEquals(4, pool.getTileCount());
+        assertEquals(3 * TILE_SIZE, MemoryManager.getInstance().getMemoryUsage().get("imagery tiles: A"));
+
+        handleA.free();
+        assertFalse(MemoryManager.getInstance().getMemoryUsage().containsKey("imagery tiles: A"));
+        assertEquals(TILE_SIZE, pool.getBytes());
+        assertThrows(IllegalStateException.class, handleA::get);
+        assertThrows(IllegalStateException.class, handleA::free);
+        assertSame(pool, handleB.get());
+        handleB.free();
+        assertEquals(0, pool.getBytes());
+    }
+
+    /**
+     * Test that the recently used tiles are kept, even if they do not fit in the pool
+     * @throws NotEnoughMemoryException if the pool cannot be allocated
+     */
+    @Test
+    void testRecentlyUsedTilesAreKept() throws NotEnoughMemoryException {
+        TileMemoryPool pool = new TileMemoryPool(TimeUnit.HOURS.toNanos(1));
+        MemoryHandle<TileMemoryPool> handle = pool.attach(layerA, "A");
+        for (int i = 0; i < 6; i++) {
+            pool.add(layerA, createTile(i));
+        }
+        assertEquals(6 * TILE_SIZE, pool.getBytes());
+        assertEquals(0, pool.getEvictionCount());
+        handle.free();
+    }
+
+    /**
+     * Test the tiles of layers that are not attached, and clearing the tiles of a layer
+     * @throws NotEnoughMemoryException if the pool cannot be allocated
+     */
+    @Test
+    void testClear() throws NotEnoughMemoryException {
+        TileMemoryPool pool = new TileMemoryPool(0);
+        Tile tile = createTile(0);
+        pool.add(layerA, tile);
+        assertEquals(0, pool.getTileCount());
+
+        MemoryHandle<TileMemoryPool> handle = pool.attach(layerA, "A");
+        assertSame(handle, pool.attach(layerA, "A"));
+        pool.add(layerA, tile);
+        // adding a tile again replaces it
+        pool.add(layerA, tile);
+        assertEquals(1, pool.getTileCount());
+        assertEquals(TILE_SIZE, pool.getBytes());
+        pool.clear(layerA);
+        assertEquals(0, pool.getTileCount());
+        assertEquals(0, pool.getBytes(layerA));
+        assertNotNull(tile.getImage());
+        handle.free();
+    }
+
+    /**
+     * Test that an image shared by the tiles of several layers is counted once
+     * @throws NotEnoughMemoryException if the pool cannot be allocated
+     */
+    @Test
+    void testSharedImage() throws NotEnoughMemoryException {
+        TileMemoryPool pool = new TileMemoryPool(TimeUnit.HOURS.toNanos(1));
+        MemoryHandle<TileMemoryPool> handleA = pool.attach(layerA, "A");
+        MemoryHandle<TileMemoryPool> handleB = pool.attach(layerB, "B");
+        Tile tileA = createTile(0);
+        Tile tileB = new Tile(source, 0, 0, 10);
+        tileB.setImage(tileA.getImage());
+        tileB.finishLoading();
+        pool.add(layerA, tileA);
+        pool.add(layerB, tileB);
+        assertEquals(2, pool.getTileCount());
+        assertEquals(TILE_SIZE, pool.getBytes());
+        assertEquals(TILE_SIZE, pool.getBytes(layerA));
+        assertEquals(0, pool.getBytes(layerB));
+
+        // the image is still used by the tile of the other layer, which is charged for it
+        pool.clear(layerA);
+        assertEquals(TILE_SIZE, pool.getBytes());
+        assertEquals(TILE_SIZE, pool.getBytes(layerB));
+        handleB.free();
+        assertEquals(0, pool.getBytes());
+        handleA.free();
+    }
+
+    /**
+     * Test that two layers with the same name are reported separately
+     * @throws NotEnoughMemoryException if the pool cannot be allocated
+     */
+    @Test
+    void testSameName() throws NotEnoughMemoryException {
+        TileMemoryPool pool = new TileMemoryPool(0);
+        MemoryHandle<TileMemoryPool> handleA = pool.attach(layerA, "Layer");
+        MemoryHandle<TileMemoryPool> handleB = pool.attach(layerB, "Layer");
+        assertTrue(MemoryManager.getInstance().getMemoryUsage().containsKey("imagery tiles: Layer"));
+        assertTrue(MemoryManager.getInstance().getMemoryUsage().containsKey("imagery tiles: Layer (2)"));
+        handleA.free();
+        handleB.free();
+    }
+
+    /**
+     * Test {@link TileMemoryPool#getSize}
+     */
+    @Test
+    void testGetSize() {
+        assertEquals(400, TileMemoryPool.getSize(new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB)));
+        assertEquals(300, TileMemoryPool.getSize(new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR)));
+        assertEquals(200, TileMemoryPool.getSize(new BufferedImage(10, 10, BufferedImage.TYPE_USHORT_GRAY)));
+    }
+}
@@ -0,0 +1,184 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.imagery.vectortile.mapbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.json.Json;
+import javax.json.JsonReader;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.imagery.ImageryInfo;
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.style.PaintLayer;
+import org.openstreetmap.josm.data.vector.VectorNode;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+/**
+ * Test class for {@link MVTTileRenderer}
+ */
+class MVTTileRendererTest {
+    // Pixels are classified by their main color component, the features are drawn antialiased
+    private static final int BACKGROUND = 0;
+    private static final int SEQUENCE = 8;
+    private static final int IMAGE = 16;
+
+    @RegisterExtension
+    JOSMTestRules rule = new JOSMTestRules();
+
+    private MVTTile tile;
+    private MVTTileRenderer renderer;
+
+    private static PaintLayer layer(String json) {
+        try (JsonReader reader = Json.createReader(new StringReader(json))) {
+            return new PaintLayer("test", reader.readObject());
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MapboxVectorTileSource tileSource = new MapboxVectorTileSource(new ImageryInfo("Test Mapillary", "file:/"
+                + TestUtils.getTestDataRoot() + "pbf/mapillary/{z}/{x}/{y}.mvt"));
+        List<PaintLayer> layers = Arrays.asList(
+                layer("{\"id\":\"background\",\"type\":\"background\",\"paint\":{\"background-color\":\"#0000ff\"}}"),
+                layer("{\"id\":\"sequences\",\"type\":\"line\",\"source\":\"mapillary\",\"source-layer\":\"mapillary-sequences\","
+                        + "\"paint\":{\"line-color\":\"#00ff00\",\"line-width\":3}}"),
+                layer("{\"id\":\"images\",\"type\":\"circle\",\"source\":\"mapillary\",\"source-layer\":\"mapillary-images\","
+                        + "\"filter\":[\"has\",\"key\"],\"paint\":{\"circle-color\":\"#ff0000\",\"circle-radius\":3}}"));
+        renderer = new MVTTileRenderer(layers, 512);
+        tile = new MVTTile(tileSource, 3249, 6258, 14);
+        tile.setRenderer(t -> renderer.render(t, name -> true));
+        try (InputStream inputStream = Files.newInputStream(Paths.get(TestUtils.getTestDataRoot(), "pbf", "mapillary", "14", "3249",
+                "6258.mvt"))) {
+            tile.loadImage(inputStream);
+        }
+    }
+
+    private static int count(BufferedImage image, int shift) {
+        int count = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                final int rgb = image.getRGB(x, y);
+                final int component = (rgb >> shift) & 0xff;
+                if (component > 128 && component > ((rgb >> ((shift + 8) % 24)) & 0xff)
+                        && component > ((rgb >> ((shift + 16) % 24)) & 0xff)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Test that a loaded tile is drawn with the style, and that its features are kept
+     */
+    @Test
+    void testRender() {
+        assertTrue(tile.isLoaded());
+        BufferedImage image = tile.getImage();
+        assertEquals(512, image.getWidth());
+        assertTrue(count(image, BACKGROUND) > 0);
+        assertTrue(count(image, SEQUENCE) > 0);
+        assertTrue(count(image, IMAGE) > 0);
+        // The features are not destroyed, they can still be converted to primitives
+        assertEquals(116, tile.getLayers().stream().filter(layer -> "mapillary-images".equals(layer.getName()))
+                .mapToInt(layer -> layer.getFeatures().size()).sum());
+        assertEquals(116, tile.getData().getAllPrimitives().stream()
+                .filter(p -> p instanceof VectorNode && "mapillary-images".equals(p.getLayer())).count());
+    }
+
+    /**
+     * Test hiding a layer of the tile
+     */
+    @Test
+    void testHiddenLayer() {
+        BufferedImage image = renderer.render(tile, name -> !"mapillary-images".equals(name));
+        assertTrue(count(image, SEQUENCE) > 0);
+        assertEquals(0, count(image, IMAGE));
+        // Drawing again gives the same image
+        BufferedImage again = renderer.render(tile, name -> !"mapillary-images".equals(name));
+        assertEquals(count(image, SEQUENCE), count(again, SEQUENCE));
+    }
+
+    /**
+     * Test that a tile displayed beyond its zoom level is drawn at a larger scale, with the style of the display zoom level
+     */
+    @Test
+    void testScale() {
+        MVTTileRenderer zoomed = new MVTTileRenderer(Arrays.asList(
+                layer("{\"id\":\"images\",\"type\":\"circle\",\"source\":\"mapillary\",\"source-layer\":\"mapillary-images\","
+                        + "\"minzoom\":15,\"paint\":{\"circle-color\":\"#ff0000\",\"circle-radius\":3}}")), 512);
+        BufferedImage image = zoomed.render(tile, name -> true, 1, Collections.emptyList());
+        assertEquals(512, image.getWidth());
+        assertEquals(0, count(image, IMAGE));
+        image = zoomed.render(tile, name -> true, 2, Collections.emptyList());
+        assertEquals(1024, image.getWidth());
+        assertEquals(1024, image.getHeight());
+        assertTrue(count(image, IMAGE) > 0);
+    }
+
+    /**
+     * Test that the labels of a neighbouring tile are drawn across the tile edges
+     * @throws IOException if the tile cannot be read
+     */
+    @Test
+    void testNeighbourLabels() throws IOException {
+        MVTTileRenderer labels = new MVTTileRenderer(Collections.singletonList(
+                layer("{\"id\":\"labels\",\"type\":\"symbol\",\"source\":\"mapillary\",\"source-layer\":\"mapillary-images\","
+                        + "\"layout\":{\"text-field\":\"{key}\",\"text-size\":16},\"paint\":{\"text-color\":\"#ff0000\"}}")), 512);
+        // the same features, on the tile to the right
+        MVTTile neighbour = new MVTTile(tile.getTileSource(), 3250, 6258, 14);
+        neighbour.setRenderer(t -> labels.render(t, name -> true));
+        try (InputStream inputStream = Files.newInputStream(Paths.get(TestUtils.getTestDataRoot(), "pbf", "mapillary", "14", "3249",
+                "6258.mvt"))) {
+            neighbour.loadImage(inputStream);
+        }
+        BufferedImage alone = labels.render(tile, name -> true, 1, Collections.emptyList());
+        BufferedImage padded = labels.render(tile, name -> true, 1, Collections.singletonList(neighbour));
+        assertTrue(count(alone, IMAGE) > 0);
+        assertTrue(count(padded, IMAGE) > count(alone, IMAGE));
+        // the labels of a neighbour loaded after the tile are added to its image
+        labels.renderSymbols(alone, tile, neighbour, name -> true);
+        assertEquals(count(padded, IMAGE), count(alone, IMAGE));
+    }
+
+    /**
+     * Test that the copy of a tile keeps its features, without its image
+     */
+    @Test
+    void testFeatureTile() {
+        MVTTile copy = tile.getFeatureTile();
+        assertTrue(copy.isLoaded());
+        assertSame(MVTTile.CLEAR_LOADED, copy.getImage());
+        assertEquals(tile.getKey(), copy.getKey());
+        assertEquals(116, copy.getData().getAllPrimitives().stream()
+                .filter(p -> p instanceof VectorNode && "mapillary-images".equals(p.getLayer())).count());
+    }
+
+    /**
+     * Test that a tile without renderer is still converted when loaded
+     * @throws IOException if the tile cannot be read
+     */
+    @Test
+    void testWithoutRenderer() throws IOException {
+        MVTTile other = new MVTTile(tile.getTileSource(), 3249, 6258, 14);
+        try (InputStream inputStream = Files.newInputStream(Paths.get(TestUtils.getTestDataRoot(), "pbf", "mapillary", "14", "3249",
+                "6258.mvt"))) {
+            other.loadImage(inputStream);
+        }
+        assertSame(MVTTile.CLEAR_LOADED, other.getImage());
+    }
+}
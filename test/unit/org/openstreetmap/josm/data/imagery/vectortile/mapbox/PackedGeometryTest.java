@@ -0,0 +1,92 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.imagery.vectortile.mapbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link PackedGeometry}
+ */
+class PackedGeometryTest {
+    private static CommandInteger createCommandInteger(int command, int... parameters) {
+        CommandInteger commandInteger = new CommandInteger(command);
+        for (int parameter : parameters) {
+            commandInteger.addParameter(parameter);
+        }
+        return commandInteger;
+    }
+
+    @Test
+    void testPoints() {
+        // MoveTo with 2 points, the second one is relative to the first one
+        PackedGeometry geometry = new PackedGeometry(GeometryTypes.POINT, Collections.singletonList(createCommandInteger(17, 5, 7, 3, -2)));
+        assertEquals(2, geometry.getPartCount());
+        assertEquals(2, geometry.getPointCount());
+        assertEquals(5, geometry.getX(0));
+        assertEquals(7, geometry.getY(0));
+        assertEquals(8, geometry.getX(1));
+        assertEquals(5, geometry.getY(1));
+        assertEquals(1, geometry.getPartStart(1));
+        assertEquals(2, geometry.getPartEnd(1));
+    }
+
+    @Test
+    void testLines() {
+        PackedGeometry geometry = new PackedGeometry(GeometryTypes.LINESTRING, Arrays.asList(
+                createCommandInteger(9, 2, 2), createCommandInteger(18, 0, 8, 8, 0),
+                createCommandInteger(9, 0, -8), createCommandInteger(10, -4, 0)));
+        assertEquals(2, geometry.getPartCount());
+        assertEquals(5, geometry.getPointCount());
+        assertEquals(0, geometry.getPartStart(0));
+        assertEquals(3, geometry.getPartEnd(0));
+        assertEquals(10, geometry.getX(2));
+        assertEquals(10, geometry.getY(2));
+        assertEquals(6, geometry.getX(4));
+        assertEquals(2, geometry.getY(4));
+
+        Path2D path = new Path2D.Double();
+        geometry.appendTo(path, 0.5);
+        assertEquals(5, path.getBounds2D().getMaxX());
+        assertEquals(1, path.getBounds2D().getMinY());
+    }
+
+    @Test
+    void testPolygonWithHole() {
+        // A clockwise 10x10 square and a counter-clockwise 2x2 square inside it
+        PackedGeometry geometry = new PackedGeometry(GeometryTypes.POLYGON, Arrays.asList(
+                createCommandInteger(9, 0, 0), createCommandInteger(26, 10, 0, 0, 10, -10, 0), createCommandInteger(15),
+                createCommandInteger(9, 4, -6), createCommandInteger(26, 0, 2, 2, 0, 0, -2), createCommandInteger(15)));
+        assertEquals(2, geometry.getPartCount());
+        assertTrue(geometry.isExteriorRing(0));
+        assertFalse(geometry.isExteriorRing(1));
+
+        Path2D path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+        geometry.appendTo(path, 1);
+        assertTrue(path.contains(1, 1));
+        assertFalse(path.contains(5, 5));
+        // Same shape as Geometry
+        Area expected = (Area) new Geometry(GeometryTypes.POLYGON, Arrays.asList(
+                createCommandInteger(9, 0, 0), createCommandInteger(26, 10, 0, 0, 10, -10, 0), createCommandInteger(15),
+                createCommandInteger(9, 4, -6), createCommandInteger(26, 0, 2, 2, 0, 0, -2), createCommandInteger(15)))
+                .getShapes().iterator().next();
+        assertTrue(expected.equals(new Area(path)));
+    }
+
+    @Test
+    void testBadGeometry() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PackedGeometry(GeometryTypes.POINT, Collections.singletonList(createCommandInteger(1))));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PackedGeometry(GeometryTypes.LINESTRING, Collections.singletonList(createCommandInteger(15))));
+        assertEquals(0, new PackedGeometry(GeometryTypes.UNKNOWN, Collections.emptyList()).getPartCount());
+    }
+}
@@ -0,0 +1,118 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.imagery.vectortile.mapbox.style;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.imagery.vectortile.mapbox.GeometryTypes;
+
+/**
+ * Test class for {@link PaintLayer}
+ */
+class PaintLayerTest {
+    private static JsonStructure json(String json) {
+        try (JsonReader reader = Json.createReader(new StringReader(json))) {
+            return reader.read();
+        }
+    }
+
+    private static boolean test(String filter, Map<String, String> tags, GeometryTypes type) {
+        BiPredicate<Map<String, String>, GeometryTypes> predicate = PaintLayer.compileFilter(json(filter));
+        return predicate.test(tags, type);
+    }
+
+    @Test
+    void testLegacyFilters() {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("class", "primary");
+        tags.put("rank", "5");
+        assertTrue(test("[\"==\", \"class\", \"primary\"]", tags, GeometryTypes.LINESTRING));
+        assertFalse(test("[\"!=\", \"class\", \"primary\"]", tags, GeometryTypes.LINESTRING));
+        // Numbers are compared numerically
+        assertTrue(test("[\"<\", \"rank\", 10]", tags, GeometryTypes.LINESTRING));
+        assertTrue(test("[\">=\", \"rank\", 5.0]", tags, GeometryTypes.LINESTRING));
+        assertFalse(test("[\">\", \"rank\", 5]", tags, GeometryTypes.LINESTRING));
+        assertTrue(test("[\"in\", \"class\", \"secondary\", \"primary\"]", tags, GeometryTypes.LINESTRING));
+        assertFalse(test("[\"!in\", \"class\", \"secondary\", \"primary\"]", tags, GeometryTypes.LINESTRING));
+        assertTrue(test("[\"has\", \"rank\"]", tags, GeometryTypes.LINESTRING));
+        assertTrue(test("[\"!has\", \"name\"]", tags, GeometryTypes.LINESTRING));
+        assertTrue(test("[\"==\", \"$type\", \"LineString\"]", tags, GeometryTypes.LINESTRING));
+        assertFalse(test("[\"==\", \"$type\", \"Polygon\"]", tags, GeometryTypes.LINESTRING));
+        assertTrue(test("[\"all\", [\"==\", \"class\", \"primary\"], [\"<\", \"rank\", 10]]", tags, GeometryTypes.LINESTRING));
+        assertFalse(test("[\"all\", [\"==\", \"class\", \"primary\"], [\">\", \"rank\", 10]]", tags, GeometryTypes.LINESTRING));
+        assertTrue(test("[\"any\", [\"==\", \"class\", \"motorway\"], [\"<\", \"rank\", 10]]", tags, GeometryTypes.LINESTRING));
+        assertFalse(test("[\"none\", [\"==\", \"class\", \"motorway\"], [\"<\", \"rank\", 10]]", tags, GeometryTypes.LINESTRING));
+        // A missing tag is not equal to anything
+        assertFalse(test("[\"==\", \"name\", \"\"]", tags, GeometryTypes.LINESTRING));
+        assertTrue(test("[\"!=\", \"name\", \"x\"]", tags, GeometryTypes.LINESTRING));
+    }
+
+    @Test
+    void testExpressionFilters() {
+        Map<String, String> tags = new HashMap<>();
+        tags.put("class", "primary");
+        tags.put("oneway", "true");
+        assertTrue(test("[\"==\", [\"get\", \"class\"], \"primary\"]", tags, GeometryTypes.LINESTRING));
+        assertTrue(test("[\"==\", [\"get\", \"oneway\"], true]", tags, GeometryTypes.LINESTRING));
+        assertTrue(test("[\"==\", [\"geometry-type\"], \"LineString\"]", tags, GeometryTypes.LINESTRING));
+        assertTrue(test("[\"!\", [\"has\", \"name\"]]", tags, GeometryTypes.LINESTRING));
+        // Not supported expressions do not filter anything, as in the MapCSS conversion
+        assertTrue(test("[\"match\", [\"get\", \"class\"], \"x\", true, false]", tags, GeometryTypes.LINESTRING));
+        assertTrue(PaintLayer.compileFilter(JsonValue.TRUE).test(tags, GeometryTypes.LINESTRING));
+        assertFalse(PaintLayer.compileFilter(JsonValue.FALSE).test(tags, GeometryTypes.LINESTRING));
+    }
+
+    @Test
+    void testColors() {
+        assertEquals(new Color(0xff, 0x88, 0x00), PaintLayer.parseColor("#ff8800"));
+        assertEquals(new Color(0xff, 0x88, 0x00), PaintLayer.parseColor("#f80"));
+        assertEquals(new Color(10, 20, 30), PaintLayer.parseColor("rgb(10, 20, 30)"));
+        assertEquals(new Color(10, 20, 30, 128), PaintLayer.parseColor("rgba(10, 20, 30, 0.5)"));
+        assertEquals(new Color(0, 255, 255), PaintLayer.parseColor("hsl(180, 100%, 50%)"));
+        assertEquals(new Color(128, 128, 128), PaintLayer.parseColor("hsl(0, 0%, 50%)"));
+        assertEquals(new Color(0xff, 0, 0), PaintLayer.parseColor("red"));
+        assertNull(PaintLayer.parseColor("not a color"));
+        assertNull(PaintLayer.parseColor(null));
+    }
+
+    @Test
+    void testZoomAndVisibility() {
+        PaintLayer layer = new PaintLayer("style", (JsonObject) json("{\"id\":\"roads\",\"type\":\"line\",\"source\":\"s\","
+                + "\"source-layer\":\"transportation\",\"minzoom\":10,\"maxzoom\":14,\"paint\":{\"line-color\":\"#ff0000\"}}"));
+        assertEquals("roads", layer.getId());
+        assertEquals("transportation", layer.getSourceLayer());
+        assertFalse(layer.isBackground());
+        assertFalse(layer.isVisible(9));
+        assertTrue(layer.isVisible(10));
+        assertTrue(layer.isVisible(13));
+        assertFalse(layer.isVisible(14));
+
+        PaintLayer hidden = new PaintLayer("style", (JsonObject) json("{\"id\":\"roads\",\"type\":\"line\",\"source\":\"s\","
+                + "\"source-layer\":\"transportation\",\"layout\":{\"visibility\":\"none\"}}"));
+        assertFalse(hidden.isVisible(10));
+        assertNotEquals(layer, hidden);
+        assertEquals(layer, new PaintLayer("style", (JsonObject) json("{\"id\":\"roads\",\"type\":\"line\",\"source\":\"s\","
+                + "\"source-layer\":\"transportation\",\"minzoom\":10,\"maxzoom\":14,\"paint\":{\"line-color\":\"#ff0000\"}}")));
+
+        PaintLayer background = new PaintLayer("style", (JsonObject) json("{\"id\":\"bg\",\"type\":\"background\","
+                + "\"paint\":{\"background-color\":\"#ffffff\"}}"));
+        assertTrue(background.isBackground());
+        assertTrue(background.isVisible(0));
+    }
+}
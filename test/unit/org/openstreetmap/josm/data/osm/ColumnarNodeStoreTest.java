@@ -0,0 +1,177 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of the {@code ColumnarNodeStore} class.
+ */
+class ColumnarNodeStoreTest {
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().projection();
+
+    private static NodeData createNodeData(long id, double lat, double lon) {
+        NodeData data = new NodeData(id);
+        data.setVersion(3);
+        data.setChangesetId(42);
+        data.setRawTimestamp(1_600_000_000);
+        data.setUser(User.createOsmUser(1, "user"));
+        data.setCoor(new LatLon(lat, lon));
+        data.put("highway", "crossing");
+        return data;
+    }
+
+    /**
+     * Unit test of {@link ColumnarNodeStore#add(NodeData)} and {@link ColumnarNodeStore#getNodeData(int)}.
+     */
+    @Test
+    void testRoundTrip() {
+        ColumnarNodeStore store = new ColumnarNodeStore(1);
+        NodeData data = createNodeData(10, 52.1234567, 13.7654321);
+        int index = store.add(data);
+        store.add(11, 1, 1, 2);
+        assertEquals(2, store.size());
+
+        NodeData read = store.getNodeData(index);
+        assertEquals(10, read.getUniqueId());
+        assertEquals(3, read.getVersion());
+        assertEquals(42, read.getChangesetId());
+        assertEquals(1_600_000_000, read.getRawTimestamp());
+        assertEquals(data.getUser(), read.getUser());
+        assertEquals(data.getCoor(), read.getCoor());
+        assertEquals("crossing", read.get("highway"));
+        assertFalse(store.hasKeys(1));
+        assertEquals(2.0, store.lon(1));
+    }
+
+    /**
+     * Unit test of {@link ColumnarNodeStore#indexOf(long)}, for sorted and unsorted ids.
+     */
+    @Test
+    void testIndexOf() {
+        ColumnarNodeStore store = new ColumnarNodeStore();
+        store.add(1, 1, 0, 0);
+        store.add(5, 1, 0, 0);
+        assertEquals(1, store.indexOf(5));
+        assertEquals(-1, store.indexOf(3));
+        store.add(-3, 1, 0, 0);
+        store.add(2, 1, 0, 0);
+        assertEquals(2, store.indexOf(-3));
+        assertEquals(3, store.indexOf(2));
+        assertEquals(0, store.indexOf(1));
+        assertEquals(-1, store.indexOf(4));
+    }
+
+    /**
+     * Unit test of {@link ColumnarNodeStore#indexOf(long)}, for many unsorted ids.
+     */
+    @Test
+    void testIndexOfShuffled() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = -500; id < 500; id++) {
+            ids.add(id * 3);
+        }
+        Collections.shuffle(ids, new Random(42));
+        ColumnarNodeStore store = new ColumnarNodeStore();
+        ids.forEach(id -> store.add(id, 1, 0, 0));
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i, store.indexOf(ids.get(i)));
+            assertEquals(-1, store.indexOf(ids.get(i) + 1));
+        }
+    }
+
+    /**
+     * Unit test of {@link ColumnarNodeStore#getNode(int)}.
+     */
+    @Test
+    void testGetNode() {
+        ColumnarNodeStore store = new ColumnarNodeStore();
+        int index = store.add(createNodeData(7, 1.5, 2.5));
+        int incomplete = store.add(8, 0, Double.NaN, Double.NaN);
+        assertFalse(store.isMaterialized(index));
+        Node node = store.getNode(index);
+        assertTrue(store.isMaterialized(index));
+        assertSame(node, store.getNode(index));
+        assertEquals(7, node.getUniqueId());
+        assertEquals(new LatLon(1.5, 2.5), node.getCoor());
+        assertEquals("crossing", node.get("highway"));
+        assertTrue(store.getNode(incomplete).isIncomplete());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.getNode(2));
+    }
+
+    /**
+     * Unit test of {@link ColumnarNodeStore#materialize(DataSet, BBox)}.
+     */
+    @Test
+    void testMaterialize() {
+        ColumnarNodeStore store = new ColumnarNodeStore();
+        store.add(1, 1, 10, 10);
+        store.add(2, 1, 20, 20);
+        store.add(3, 1, Double.NaN, Double.NaN);
+        DataSet ds = new DataSet();
+        List<Node> added = store.materialize(ds, new BBox(5, 5, 15, 15));
+        assertEquals(1, added.size());
+        assertEquals(1, ds.getNodes().size());
+        assertSame(store.getNode(0), ds.getPrimitiveById(1, OsmPrimitiveType.NODE));
+        assertEquals(2, store.materialize(ds, null).size());
+        assertEquals(3, ds.getNodes().size());
+        assertTrue(store.materialize(ds, null).isEmpty());
+    }
+
+    /**
+     * Unit test of {@link ColumnarNodeStore#materialize(DataSet, BBox)}: nodes are added at most once.
+     */
+    @Test
+    void testMaterializeOnce() {
+        ColumnarNodeStore store = new ColumnarNodeStore();
+        store.add(1, 1, 10, 10);
+        store.add(2, 1, 20, 20);
+        Node existing = new Node(2, 1);
+        existing.setCoor(LatLon.ZERO);
+        DataSet ds = new DataSet(existing);
+        assertEquals(1, store.materialize(ds, null).size());
+        // node 2 is already in the data set
+        assertFalse(store.isMaterialized(1));
+
+        Node node = store.getNode(0);
+        ds.removePrimitive(node);
+        assertTrue(store.materialize(ds, null).isEmpty());
+        assertEquals(1, ds.getNodes().size());
+    }
+
+    /**
+     * Unit test of {@link ColumnarNodeStore#of(DataSet)}.
+     */
+    @Test
+    void testOf() {
+        DataSet ds = new DataSet();
+        Node n = new Node(new LatLon(3, 4));
+        ds.addPrimitive(n);
+        ColumnarNodeStore store = ColumnarNodeStore.of(ds);
+        assertEquals(1, store.size());
+        assertEquals(n.getUniqueId(), store.getUniqueId(0));
+        assertEquals(3.0, store.lat(0));
+        assertEquals(new LatLon(3, 4), store.getNodeData(0).getCoor());
+    }
+}
@@ -1368,4 +1368,43 @@ class DataSetMergerTest {
         assertEquals(w1b, visitor.getConflicts().iterator().next().getMy());
     }
 
+    /**
+     * Merges enough primitives for their merge targets to be looked up in parallel.
+     */
+    @Test
+    void testMergeManyPrimitives() {
+        final int count = 5000;
+        final Node[] myNew = new Node[count];
+        for (int i = 0; i < count; i++) {
+            // existing primitives, modified on the server
+            Node n1 = new Node(new LatLon(0, i * 1e-3));
+            n1.setOsmId(i + 1, 1);
+            my.addPrimitive(n1);
+            Node n2 = new Node(new LatLon(1, i * 1e-3));
+            n2.setOsmId(i + 1, 2);
+            n2.put("version", "2");
+            their.addPrimitive(n2);
+
+            // new primitives, the same in both datasets for even indexes
+            myNew[i] = new Node(new LatLon(2, i * 1e-3));
+            myNew[i].put("ref", Integer.toString(i % 10));
+            my.addPrimitive(myNew[i]);
+            Node theirNew = new Node(new LatLon(i % 2 == 0 ? 2 : 3, i * 1e-3));
+            theirNew.put("ref", Integer.toString(i % 10));
+            their.addPrimitive(theirNew);
+        }
+
+        DataSetMerger visitor = new DataSetMerger(my, their);
+        visitor.merge();
+
+        assertTrue(visitor.getConflicts().isEmpty());
+        assertEquals(2 * count + count / 2, my.getNodes().size());
+        for (int i = 0; i < count; i++) {
+            Node n = (Node) my.getPrimitiveById(i + 1, OsmPrimitiveType.NODE);
+            assertEquals(2, n.getVersion());
+            assertEquals(new LatLon(1, i * 1e-3), n.getCoor());
+            assertEquals("2", n.get("version"));
+            assertSame(myNew[i], my.getPrimitiveById(myNew[i]));
+        }
+    }
 }
@@ -3,12 +3,21 @@ package org.openstreetmap.josm.data.osm;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
 
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
@@ -16,10 +25,19 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 import org.openstreetmap.josm.TestUtils;
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListenerAdapter;
 import org.openstreetmap.josm.data.osm.event.DataSourceAddedEvent;
 import org.openstreetmap.josm.data.osm.event.DataSourceRemovedEvent;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+import org.openstreetmap.josm.data.projection.Projections;
+import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
+import org.openstreetmap.josm.tools.Geometry;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -33,7 +51,7 @@ class DataSetTest {
      */
     @RegisterExtension
     @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
-    public JOSMTestRules test = new JOSMTestRules();
+    public JOSMTestRules test = new JOSMTestRules().projection();
 
     /**
      * Unit test of method {@link DataSet#searchRelations}.
@@ -364,4 +382,254 @@ class DataSetTest {
         assertEquals(4, copy.allPrimitives().size());
         assertTrue(copy.isLocked());
     }
+
+    /**
+     * Unit test of {@link DataSet#getSnapshot()}.
+     * @throws Exception if the test is interrupted
+     */
+    @Test
+    void testSnapshot() throws Exception {
+        DataSet ds = new DataSet();
+        Node n1 = new Node(LatLon.ZERO);
+        Node n2 = new Node(LatLon.NORTH_POLE);
+        Way w = new Way();
+        w.setNodes(Arrays.asList(n1, n2));
+        ds.addPrimitive(n1);
+        ds.addPrimitive(n2);
+        ds.addPrimitive(w);
+
+        DataSetSnapshot s1 = ds.getSnapshot();
+        assertEquals(3, s1.size());
+        assertEquals(3, s1.allPrimitives().size());
+        assertEquals(2, s1.getNodes().size());
+        assertSame(s1, ds.getSnapshot());
+
+        // the modifications do not change the previous snapshot
+        n1.setCoor(LatLon.SOUTH_POLE);
+        w.put("highway", "track");
+        ds.removePrimitive(n2);
+        Node n3 = new Node(LatLon.ZERO);
+        ds.addPrimitive(n3);
+        DataSetSnapshot s2 = ds.getSnapshot();
+        assertTrue(s2.getEpoch() > s1.getEpoch());
+        assertEquals(ds.getEpoch(), s2.getEpoch());
+        assertEquals(LatLon.ZERO, ((NodeData) s1.getPrimitiveById(n1)).getCoor());
+        assertEquals(LatLon.SOUTH_POLE, ((NodeData) s2.getPrimitiveById(n1)).getCoor());
+        assertNull(s1.getPrimitiveById(w).get("highway"));
+        assertEquals("track", s2.getPrimitiveById(w).get("highway"));
+        assertNotNull(s1.getPrimitiveById(n2));
+        assertNull(s2.getPrimitiveById(n2));
+        assertNull(s1.getPrimitiveById(n3));
+        assertNotNull(s2.getPrimitiveById(n3));
+        assertEquals(3, s2.size());
+        assertEquals(3, s2.allPrimitives().size());
+        assertEquals(new HashSet<>(Arrays.asList(n1.getPrimitiveId(), w.getPrimitiveId(), n3.getPrimitiveId())),
+                s2.allPrimitives().stream().map(PrimitiveData::getPrimitiveId).collect(Collectors.toSet()));
+
+        // a reader is not blocked by a writer
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            ds.beginUpdate();
+            try {
+                n3.put("name", "n3");
+                locked.countDown();
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                ds.endUpdate();
+            }
+        });
+        writer.start();
+        locked.await();
+        assertSame(s2, ds.getSnapshot());
+        done.countDown();
+        writer.join();
+        assertEquals("n3", ds.getSnapshot().getPrimitiveById(n3).get("name"));
+
+        ds.clear();
+        assertEquals(0, ds.getSnapshot().size());
+    }
+
+    /**
+     * Checks that the dataset does not keep a snapshot that no reader holds anymore.
+     */
+    @Test
+    void testSnapshotReleased() {
+        DataSet ds = new DataSet();
+        Node n = new Node(LatLon.ZERO);
+        ds.addPrimitive(n);
+        DataSetSnapshot s = ds.getSnapshot();
+        WeakReference<DataSetSnapshot> weak = new WeakReference<>(s);
+        s = null;
+        System.gc();
+        assertNull(weak.get());
+
+        // the changes made after the release are in the next snapshot
+        n.setCoor(LatLon.NORTH_POLE);
+        ds.addPrimitive(new Node(LatLon.SOUTH_POLE));
+        s = ds.getSnapshot();
+        assertEquals(2, s.size());
+        assertEquals(LatLon.NORTH_POLE, ((NodeData) s.getPrimitiveById(n)).getCoor());
+    }
+
+    /**
+     * Checks that the events of a bulk change are coalesced instead of collapsed into one {@link DataChangedEvent}.
+     */
+    @Test
+    void testBulkChangeEvents() {
+        DataSet ds = new DataSet();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Node n = new Node(LatLon.ZERO);
+            ds.addPrimitive(n);
+            nodes.add(n);
+        }
+        List<AbstractDatasetChangedEvent> events = new ArrayList<>();
+        ds.addDataSetListener(new DataSetListenerAdapter(events::add));
+        ds.update(() -> nodes.forEach(n -> {
+            n.put("name", "a");
+            n.put("name", "b");
+            n.setCoor(LatLon.NORTH_POLE);
+        }));
+        assertEquals(1, events.size());
+        assertEquals(2 * nodes.size(), ((DataChangedEvent) events.get(0)).getEvents().size());
+    }
+
+    /**
+     * Unit test of {@link DataSet#nearestNodes} and {@link DataSet#nearestWays}, with both spatial indexes.
+     */
+    @Test
+    void testNearest() {
+        checkNearest(LatLon.ZERO, 1, 5000);
+    }
+
+    /**
+     * Unit test of {@link DataSet#nearestNodes} and {@link DataSet#nearestWays} in a conic projection, whose projected
+     * bounding boxes are not bounded by their corners.
+     */
+    @Test
+    void testNearestConicProjection() {
+        Projection mercator = ProjectionRegistry.getProjection();
+        ProjectionRegistry.setProjection(Projections.getProjectionByCode("EPSG:2154")); // Lambert 93
+        try {
+            checkNearest(new LatLon(42, -5), 9, 50_000);
+        } finally {
+            ProjectionRegistry.setProjection(mercator);
+        }
+    }
+
+    private static void checkNearest(LatLon min, double size, double radius) {
+        for (boolean rtree : new boolean[] {false, true}) {
+            Config.getPref().putBoolean("osm.spatial-index.rtree", rtree);
+            try {
+                Random random = new Random(42);
+                DataSet ds = new DataSet();
+                List<Node> nodes = new ArrayList<>();
+                for (int i = 0; i < 1500; i++) {
+                    Node n = new Node(randomLatLon(random, min, size));
+                    ds.addPrimitive(n);
+                    nodes.add(n);
+                }
+                for (int i = 0; i + 2 < nodes.size(); i += 3) {
+                    Way w = new Way();
+                    w.setNodes(nodes.subList(i, i + 3));
+                    ds.addPrimitive(w);
+                }
+                for (int i = 0; i < 20; i++) {
+                    EastNorth en = ProjectionRegistry.getProjection().latlon2eastNorth(randomLatLon(random, min, size));
+                    ToDoubleFunction<Node> nodeDistance = n -> n.getEastNorth().distance(en);
+                    ToDoubleFunction<Way> wayDistance = w -> {
+                        double d = Double.POSITIVE_INFINITY;
+                        for (int j = 1; j < w.getNodesCount(); j++) {
+                            EastNorth a = w.getNode(j - 1).getEastNorth();
+                            EastNorth b = w.getNode(j).getEastNorth();
+                            d = Math.min(d, Geometry.closestPointToSegment(a, b, en).distance(en));
+                        }
+                        return d;
+                    };
+                    assertDistances(ds.getNodes().stream().mapToDouble(nodeDistance).sorted().limit(10).toArray(),
+                            ds.nearestNodes(en, 10, Double.POSITIVE_INFINITY, n -> true).stream().mapToDouble(nodeDistance).toArray());
+                    assertDistances(ds.getWays().stream().mapToDouble(wayDistance).sorted().limit(5).toArray(),
+                            ds.nearestWays(en, 5, Double.POSITIVE_INFINITY, w -> true).stream().mapToDouble(wayDistance).toArray());
+                    assertEquals(ds.getNodes().stream().filter(n -> n.getId() % 2 == 0 && nodeDistance.applyAsDouble(n) <= radius)
+                            .collect(Collectors.toSet()),
+                            new HashSet<>(ds.nodesWithinDistance(en, radius, n -> n.getId() % 2 == 0)));
+                    assertEquals(ds.getWays().stream().filter(w -> wayDistance.applyAsDouble(w) <= radius).collect(Collectors.toSet()),
+                            new HashSet<>(ds.waysWithinDistance(en, radius, w -> true)));
+                }
+                assertTrue(ds.nearestNodes(new EastNorth(0, 0), 0, Double.POSITIVE_INFINITY, n -> true).isEmpty());
+                assertTrue(ds.nodesWithinDistance(new EastNorth(-1e6, -1e6), 10, n -> true).isEmpty());
+            } finally {
+                Config.getPref().put("osm.spatial-index.rtree", null);
+            }
+        }
+    }
+
+    private static LatLon randomLatLon(Random random, LatLon min, double size) {
+        return new LatLon(min.lat() + size * random.nextDouble(), min.lon() + size * random.nextDouble());
+    }
+
+    private static void assertDistances(double[] expected, double[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], 1e-6);
+        }
+    }
+
+    /**
+     * Unit test of {@link DataSet#getSnapshot()}: changes which fire no event are in the next snapshot.
+     */
+    @Test
+    void testSnapshotSilentChanges() {
+        DataSet ds = new DataSet();
+        Node n = new Node(1, 1);
+        n.setCoor(LatLon.ZERO);
+        ds.addPrimitive(n);
+        DataSetSnapshot s1 = ds.getSnapshot();
+
+        User user = User.createOsmUser(1, "foo");
+        n.setUser(user);
+        DataSetSnapshot s2 = ds.getSnapshot();
+        assertNotSame(s1, s2);
+        assertSame(user, s2.getPrimitiveById(n).getUser());
+
+        n.setVisible(false);
+        DataSetSnapshot s3 = ds.getSnapshot();
+        assertFalse(s3.getPrimitiveById(n).isVisible());
+
+        n.setRawTimestamp(1_600_000_000);
+        DataSetSnapshot s4 = ds.getSnapshot();
+        assertEquals(1_600_000_000, s4.getPrimitiveById(n).getRawTimestamp());
+        assertEquals(0, s3.getPrimitiveById(n).getRawTimestamp());
+    }
+
+    /**
+     * Unit test of {@link DataSet#setNodeStore} and {@link DataSet#materializeNodes}.
+     */
+    @Test
+    void testNodeStore() {
+        DataSet ds = new DataSet();
+        assertTrue(ds.materializeNodes(null).isEmpty());
+        ColumnarNodeStore store = new ColumnarNodeStore();
+        store.add(1, 1, 10, 10);
+        store.add(2, 1, 20, 20);
+        ds.setNodeStore(store);
+        assertSame(store, ds.getNodeStore());
+        assertTrue(ds.getNodes().isEmpty());
+
+        ds.lock();
+        assertTrue(ds.materializeNodes(null).isEmpty());
+        ds.unlock();
+
+        assertEquals(1, ds.materializeNodes(new BBox(5, 5, 15, 15)).size());
+        assertSame(store.getNode(0), ds.getPrimitiveById(1, OsmPrimitiveType.NODE));
+        assertNull(ds.getPrimitiveById(2, OsmPrimitiveType.NODE));
+        assertEquals(1, ds.materializeNodes(null).size());
+        assertEquals(2, ds.getNodes().size());
+
+        ds.clear();
+        assertNull(ds.getNodeStore());
+    }
 }
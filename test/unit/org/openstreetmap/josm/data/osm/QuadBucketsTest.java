@@ -13,6 +13,10 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import org.junit.Assert;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -261,4 +265,38 @@ class QuadBucketsTest {
         }
         Assert.assertEquals(0, qb.size());
     }
+
+    /**
+     * Test that searches running at the same time, e.g. by validation tests, find the same objects as one after another.
+     * @throws Exception if a search fails
+     */
+    @Test
+    void testConcurrentSearch() throws Exception {
+        QuadBuckets<Node> qb = new QuadBuckets<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            qb.add(new Node(new LatLon(random.nextDouble() * 10, random.nextDouble() * 10)));
+        }
+        List<BBox> boxes = new ArrayList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            double lat = random.nextDouble() * 10;
+            double lon = random.nextDouble() * 10;
+            BBox box = new BBox(lon, lat, lon + random.nextDouble() * 0.1, lat + random.nextDouble() * 0.1);
+            boxes.add(box);
+            expected.add(qb.search(box).size());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Integer>>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> boxes.stream().map(box -> qb.search(box).size()).collect(Collectors.toList())));
+            }
+            for (Future<List<Integer>> result : results) {
+                Assert.assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,188 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.IQuadBucketType;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link RTree}.
+ */
+@BasicPreferences
+class RTreeTest {
+
+    private static final class Box implements IQuadBucketType {
+        private final BBox bbox;
+
+        Box(BBox bbox) {
+            this.bbox = bbox;
+        }
+
+        @Override
+        public BBox getBBox() {
+            return bbox;
+        }
+    }
+
+    private static List<Box> randomBoxes(Random random, int count) {
+        List<Box> boxes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double x = random.nextDouble() * 10;
+            double y = random.nextDouble() * 10;
+            // mostly points, some long objects
+            double size = i % 10 == 0 ? random.nextDouble() * 3 : 0;
+            boxes.add(new Box(new BBox(x, y, x + size, y + size / 2)));
+        }
+        return boxes;
+    }
+
+    private static void assertSearch(RTree<Box> tree, List<Box> boxes, BBox query) {
+        assertEquals(boxes.stream().filter(b -> b.getBBox().intersects(query)).collect(Collectors.toSet()),
+                new HashSet<>(tree.search(query)));
+    }
+
+    /**
+     * Test the bulk load, the incremental inserts and the removals against a linear scan.
+     */
+    @Test
+    void testSearch() {
+        Random random = new Random(42);
+        List<Box> boxes = randomBoxes(random, 5000);
+        RTree<Box> tree = new RTree<>();
+        tree.addAll(boxes.subList(0, 4000));
+        // the first search bulk loads the tree
+        assertSearch(tree, boxes.subList(0, 4000), new BBox(2, 2, 3, 4));
+        assertEquals(3, tree.height());
+
+        tree.addAll(boxes.subList(4000, 5000));
+        for (int i = 0; i < 2000; i++) {
+            tree.remove(boxes.get(i));
+        }
+        List<Box> remaining = boxes.subList(2000, 5000);
+        assertEquals(remaining.size(), tree.size());
+        for (int i = 0; i < 50; i++) {
+            double x = random.nextDouble() * 10;
+            double y = random.nextDouble() * 10;
+            assertSearch(tree, remaining, new BBox(x, y, x + random.nextDouble(), y + random.nextDouble()));
+        }
+        assertEquals(new HashSet<>(remaining), new HashSet<>(tree));
+        assertTrue(tree.contains(remaining.get(0)));
+        assertFalse(tree.contains(boxes.get(0)));
+
+        for (Box b : remaining) {
+            assertTrue(tree.remove(b));
+        }
+        assertTrue(tree.isEmpty());
+        assertTrue(tree.search(new BBox(0, 0, 10, 10)).isEmpty());
+    }
+
+    /**
+     * Test {@link RTree#nearest} against a linear scan.
+     */
+    @Test
+    void testNearest() {
+        Random random = new Random(42);
+        List<Box> boxes = randomBoxes(random, 3000);
+        RTree<Box> tree = new RTree<>();
+        tree.addAll(boxes);
+        for (int i = 0; i < 20; i++) {
+            double x = random.nextDouble() * 10;
+            double y = random.nextDouble() * 10;
+            List<Box> nearest = tree.nearest(x, y, 10, Double.POSITIVE_INFINITY, b -> true);
+            List<Double> expected = boxes.stream()
+                    .map(b -> SpatialIndex.distance(b.getBBox(), x, y))
+                    .sorted(Comparator.naturalOrder())
+                    .limit(10)
+                    .collect(Collectors.toList());
+            assertEquals(expected, nearest.stream().map(b -> SpatialIndex.distance(b.getBBox(), x, y)).collect(Collectors.toList()));
+            // the default implementation gives the same distances
+            QuadBuckets<Box> quadBuckets = new QuadBuckets<>();
+            quadBuckets.addAll(boxes);
+            assertEquals(expected, quadBuckets.nearest(x, y, 10, Double.POSITIVE_INFINITY, b -> true).stream()
+                    .map(b -> SpatialIndex.distance(b.getBBox(), x, y)).collect(Collectors.toList()));
+        }
+        assertTrue(tree.nearest(-10, -10, 5, 1, b -> true).isEmpty());
+        assertTrue(tree.nearest(5, 5, 5, 10, b -> false).isEmpty());
+    }
+
+    /**
+     * Test the objects with an invalid bounding box and the iterator.
+     */
+    @Test
+    void testInvalidBBoxAndIterator() {
+        RTree<Node> tree = new RTree<>();
+        Node incomplete = new Node(1);
+        Node n1 = new Node(LatLon.ZERO);
+        Node n2 = new Node(new LatLon(1, 1));
+        tree.add(incomplete);
+        tree.add(n1);
+        tree.add(n2);
+        assertEquals(3, tree.size());
+        assertTrue(tree.contains(incomplete));
+        assertEquals(1, tree.search(new BBox(-0.5, -0.5, 0.5, 0.5)).size());
+
+        Iterator<Node> it = tree.iterator();
+        while (it.hasNext()) {
+            if (it.next() == n1) {
+                it.remove();
+            }
+        }
+        assertEquals(2, tree.size());
+        assertFalse(tree.contains(n1));
+        tree.clear();
+        assertTrue(tree.isEmpty());
+    }
+
+    /**
+     * Test a data set indexed by a R-tree, while its nodes are moved.
+     */
+    @Test
+    void testDataSet() {
+        Config.getPref().putBoolean("osm.spatial-index.rtree", true);
+        try {
+            Random random = new Random(42);
+            DataSet ds = new DataSet();
+            List<Node> nodes = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                Node n = new Node(new LatLon(random.nextDouble(), random.nextDouble()));
+                ds.addPrimitive(n);
+                nodes.add(n);
+            }
+            for (int i = 0; i + 1 < nodes.size(); i += 2) {
+                Way w = new Way();
+                w.setNodes(Arrays.asList(nodes.get(i), nodes.get(i + 1)));
+                ds.addPrimitive(w);
+            }
+            BBox query = new BBox(0.2, 0.2, 0.4, 0.4);
+            assertEquals(ds.getWays().stream().filter(w -> w.getBBox().intersects(query)).collect(Collectors.toSet()),
+                    new HashSet<>(ds.searchWays(query)));
+            for (int i = 0; i < 200; i++) {
+                nodes.get(i).setCoor(new LatLon(random.nextDouble(), random.nextDouble()));
+            }
+            ds.removePrimitive(nodes.get(999).getReferrers().get(0));
+            ds.removePrimitive(nodes.get(999));
+            assertEquals(ds.getNodes().stream().filter(n -> n.getBBox().intersects(query)).collect(Collectors.toSet()),
+                    new HashSet<>(ds.searchNodes(query)));
+            assertEquals(ds.getWays().stream().filter(w -> w.getBBox().intersects(query)).collect(Collectors.toSet()),
+                    new HashSet<>(ds.searchWays(query)));
+            assertTrue(DatasetConsistencyTest.runTests(ds).isEmpty());
+        } finally {
+            Config.getPref().put("osm.spatial-index.rtree", null);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of the {@code TagStringPool} class.
+ */
+class TagStringPoolTest {
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules();
+
+    /**
+     * Unit test of {@link TagStringPool#intern(String)}.
+     */
+    @Test
+    void testIntern() {
+        String first = new String("tag-string-pool-test");
+        String second = new String("tag-string-pool-test");
+        assertNotSame(first, second);
+        assertSame(first, TagStringPool.intern(first));
+        assertSame(first, TagStringPool.intern(second));
+        assertNull(TagStringPool.intern(null));
+    }
+
+    /**
+     * Long strings must not be pooled.
+     */
+    @Test
+    void testLongStringsNotPooled() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            sb.append('x');
+        }
+        String first = sb.toString();
+        String second = sb.toString();
+        TagStringPool.intern(first);
+        assertSame(second, TagStringPool.intern(second));
+    }
+
+    /**
+     * Unit test of the statistics methods.
+     */
+    @Test
+    void testStatistics() {
+        TagStringPool.resetStatistics();
+        assertEquals(0, TagStringPool.getHitRate());
+        TagStringPool.intern(new String("tag-string-pool-statistics"));
+        TagStringPool.intern(new String("tag-string-pool-statistics"));
+        assertTrue(TagStringPool.getHitCount() >= 1);
+        assertTrue(TagStringPool.getMissCount() >= 1);
+        assertTrue(TagStringPool.getHitRate() > 0);
+        assertTrue(TagStringPool.getStatistics().startsWith("tag string pool: "));
+    }
+
+    /**
+     * Tags set on primitives share the pooled instances.
+     */
+    @Test
+    void testPrimitivesSharePooledStrings() {
+        Node a = new Node();
+        Node b = new Node();
+        a.put(new String("tag-string-pool-key"), new String("tag-string-pool-value"));
+        b.put(new String("tag-string-pool-key"), new String("tag-string-pool-value"));
+        String key = a.keySet().iterator().next();
+        assertSame(key, b.keySet().iterator().next());
+        assertSame(a.get(key), b.get(key));
+    }
+}
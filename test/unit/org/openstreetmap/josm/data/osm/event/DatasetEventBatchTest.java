@@ -0,0 +1,98 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+
+/**
+ * Unit tests of {@link DatasetEventBatch} class.
+ */
+class DatasetEventBatchTest {
+
+    /**
+     * Test that the events of the same primitive are coalesced.
+     */
+    @Test
+    void testCoalesce() {
+        DataSet ds = new DataSet();
+        Node n1 = new Node(LatLon.ZERO);
+        Node n2 = new Node(LatLon.ZERO);
+        DatasetEventBatch batch = new DatasetEventBatch(() -> 100);
+        assertTrue(batch.isEmpty());
+
+        TagsChangedEvent first = new TagsChangedEvent(ds, n1, Collections.emptyMap());
+        batch.add(first);
+        batch.add(new TagsChangedEvent(ds, n1, Collections.singletonMap("name", "1")));
+        batch.add(new TagsChangedEvent(ds, n2, Collections.emptyMap()));
+        batch.add(new NodeMovedEvent(ds, n1));
+        batch.add(new NodeMovedEvent(ds, n1));
+        batch.add(new FilterChangedEvent(ds));
+        batch.add(new FilterChangedEvent(ds));
+
+        List<AbstractDatasetChangedEvent> events = batch.getEvents();
+        assertEquals(4, events.size());
+        // the original keys before the batch are kept
+        assertSame(first, events.get(0));
+        assertSame(n2, events.get(1).getPrimitives().iterator().next());
+        assertTrue(events.get(2) instanceof NodeMovedEvent);
+        assertTrue(events.get(3) instanceof FilterChangedEvent);
+
+        batch.clear();
+        assertTrue(batch.isEmpty());
+        assertTrue(batch.getEvents().isEmpty());
+    }
+
+    /**
+     * Test that consecutive added and removed events are merged.
+     */
+    @Test
+    void testMergeAddedRemoved() {
+        DataSet ds = new DataSet();
+        Node n1 = new Node(LatLon.ZERO);
+        Node n2 = new Node(LatLon.ZERO);
+        DatasetEventBatch batch = new DatasetEventBatch(() -> 100);
+
+        batch.add(new TagsChangedEvent(ds, n1, Collections.emptyMap()));
+        batch.add(new PrimitivesRemovedEvent(ds, Collections.singletonList(n1), false));
+        batch.add(new PrimitivesRemovedEvent(ds, Collections.singletonList(n2), false));
+        batch.add(new PrimitivesAddedEvent(ds, Collections.singletonList(n1), false));
+        batch.add(new PrimitivesAddedEvent(ds, Collections.singletonList(n2), true));
+        // reported again after the primitive was added
+        batch.add(new TagsChangedEvent(ds, n1, Collections.emptyMap()));
+
+        List<AbstractDatasetChangedEvent> events = batch.getEvents();
+        assertEquals(5, events.size());
+        assertEquals(Arrays.asList(n1, n2), events.get(1).getPrimitives());
+        assertEquals(Arrays.asList(n1), events.get(2).getPrimitives());
+        assertTrue(((PrimitivesAddedEvent) events.get(3)).wasIncomplete());
+        assertTrue(events.get(4) instanceof TagsChangedEvent);
+    }
+
+    /**
+     * Test that the batch overflows.
+     */
+    @Test
+    void testOverflow() {
+        DataSet ds = new DataSet();
+        DatasetEventBatch batch = new DatasetEventBatch(() -> 2);
+        for (int i = 0; i < 3; i++) {
+            batch.add(new TagsChangedEvent(ds, new Node(LatLon.ZERO), Collections.emptyMap()));
+        }
+        assertTrue(batch.isOverflowed());
+        assertFalse(batch.isEmpty());
+        assertTrue(batch.getEvents().isEmpty());
+        batch.clear();
+        assertFalse(batch.isOverflowed());
+    }
+}
@@ -0,0 +1,77 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.event.DatasetEventManager.DispatchStatistics;
+import org.openstreetmap.josm.data.osm.event.DatasetEventManager.FireMode;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link DatasetEventManager} class.
+ */
+@BasicPreferences
+class DatasetEventManagerTest {
+
+    /**
+     * Test {@link DatasetEventManager#addDatasetListener(DataSetListener, java.util.concurrent.Executor)}.
+     */
+    @Test
+    void testExecutor() {
+        DatasetEventManager manager = new DatasetEventManager();
+        List<Runnable> tasks = new ArrayList<>();
+        List<AbstractDatasetChangedEvent> received = new ArrayList<>();
+        DataSetListener listener = new DataSetListenerAdapter(received::add);
+        manager.addDatasetListener(listener, tasks::add);
+
+        DataSet ds = new DataSet();
+        Node n = new Node(LatLon.ZERO);
+        manager.processDatasetEvent(new TagsChangedEvent(ds, n, Collections.emptyMap()));
+        manager.processDatasetEvent(new NodeMovedEvent(ds, n));
+        // the listener is scheduled once
+        assertEquals(1, tasks.size());
+        assertTrue(received.isEmpty());
+
+        tasks.remove(0).run();
+        assertEquals(1, received.size());
+        assertEquals(2, ((DataChangedEvent) received.get(0)).getEvents().size());
+        assertTrue(tasks.isEmpty());
+
+        manager.processDatasetEvent(new DataChangedEvent(ds));
+        manager.processDatasetEvent(new NodeMovedEvent(ds, n));
+        tasks.remove(0).run();
+        // the dataset was completely changed
+        assertNull(((DataChangedEvent) received.get(1)).getEvents());
+
+        DispatchStatistics statistics = manager.getDispatchStatistics(listener);
+        assertEquals(2, statistics.getEventCount());
+        assertTrue(statistics.getMaxLatency() >= statistics.getAverageLatency());
+
+        manager.removeDatasetListener(listener);
+        assertNull(manager.getDispatchStatistics(listener));
+    }
+
+    /**
+     * Test {@link DatasetEventManager#getDispatchStatistics(DataSetListener)} for listeners fired immediately.
+     */
+    @Test
+    void testDispatchStatistics() {
+        DatasetEventManager manager = new DatasetEventManager();
+        DataSetListener listener = new DataSetListenerAdapter(e -> { });
+        manager.addDatasetListener(listener, FireMode.IMMEDIATELY);
+        assertEquals(0, manager.getDispatchStatistics(listener).getEventCount());
+        manager.processDatasetEvent(new FilterChangedEvent(new DataSet()));
+        assertEquals(1, manager.getDispatchStatistics(listener).getEventCount());
+        manager.removeDatasetListener(listener);
+    }
+}
@@ -0,0 +1,224 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.visitor.paint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link TiledMapRenderer} class.
+ */
+class TiledMapRendererTest {
+
+    private static final int IMG_WIDTH = 1024;
+    private static final int IMG_HEIGHT = 768;
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences().projection().mapStyles();
+
+    private NavigatableComponent nc;
+    private Graphics2D g;
+    private DataSet ds;
+    private Node n1;
+    private Node n2;
+    private TiledMapRenderer renderer;
+
+    /**
+     * Setup the data set and the map view.
+     */
+    @BeforeEach
+    void setUp() {
+        nc = new NavigatableComponent() {
+            {
+                setBounds(0, 0, IMG_WIDTH, IMG_HEIGHT);
+                updateLocationState();
+            }
+
+            @Override
+            protected boolean isVisibleOnScreen() {
+                return true;
+            }
+
+            @Override
+            public Point getLocationOnScreen() {
+                return new Point(0, 0);
+            }
+        };
+        g = new BufferedImage(IMG_WIDTH, IMG_HEIGHT, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        n1 = new Node(new LatLon(50.001, 8.001));
+        n2 = new Node(new LatLon(50.009, 8.009));
+        n1.put("amenity", "bench");
+        n2.put("amenity", "bench");
+        ds = new DataSet(n1, n2);
+        nc.zoomTo(new Bounds(50, 8, 50.01, 8.01));
+        // initializes the renderer preferences
+        MapRendererFactory.getInstance();
+        renderer = new TiledMapRenderer(ds);
+    }
+
+    /**
+     * Cleanup test.
+     */
+    @AfterEach
+    void tearDown() {
+        renderer.destroy();
+        g.dispose();
+    }
+
+    /**
+     * Test that the visible tiles are cached
+     */
+    @Test
+    void testPaint() {
+        renderer.paint(g, nc, false, false, true);
+        int tiles = renderer.getCachedTileCount();
+        assertTrue(tiles >= (IMG_WIDTH / TiledMapRenderer.TILE_SIZE) * (IMG_HEIGHT / TiledMapRenderer.TILE_SIZE));
+        renderer.paint(g, nc, false, false, true);
+        assertEquals(tiles, renderer.getCachedTileCount());
+    }
+
+    /**
+     * Test that only the tiles of changed primitives are dropped
+     */
+    @Test
+    void testInvalidate() {
+        renderer.paint(g, nc, false, false, true);
+        int tiles = renderer.getCachedTileCount();
+
+        n1.setCoor(new LatLon(50.0011, 8.0011));
+        int afterMove = renderer.getCachedTileCount();
+        assertTrue(afterMove < tiles);
+        assertTrue(afterMove > 0);
+
+        n2.put("name", "Bench");
+        assertTrue(renderer.getCachedTileCount() < afterMove);
+
+        renderer.paint(g, nc, false, false, true);
+        assertEquals(tiles, renderer.getCachedTileCount());
+    }
+
+    /**
+     * Test that all tiles are dropped when the scale or the render settings change
+     */
+    @Test
+    void testRenderSettings() {
+        renderer.paint(g, nc, false, false, true);
+        int tiles = renderer.getCachedTileCount();
+
+        nc.zoomTo(new Bounds(50, 8, 50.1, 8.1));
+        renderer.paint(g, nc, false, false, true);
+        assertTrue(renderer.getCachedTileCount() < 2 * tiles);
+
+        renderer.paint(g, nc, true, false, true);
+        assertTrue(renderer.getCachedTileCount() < 2 * tiles);
+
+        renderer.clear();
+        assertEquals(0, renderer.getCachedTileCount());
+    }
+
+    /**
+     * Test that only the tiles of primitives whose highlighting changed are dropped
+     */
+    @Test
+    void testHighlight() {
+        renderer.paint(g, nc, false, false, true);
+        int tiles = renderer.getCachedTileCount();
+
+        n1.setHighlighted(true);
+        int afterHighlight = renderer.getCachedTileCount();
+        assertTrue(afterHighlight < tiles);
+        assertTrue(afterHighlight > 0);
+
+        renderer.paint(g, nc, false, false, true);
+        assertEquals(tiles, renderer.getCachedTileCount());
+        // the highlighting of n2 did not change
+        n2.setHighlighted(false);
+        assertEquals(tiles, renderer.getCachedTileCount());
+
+        n1.setHighlighted(false);
+        assertEquals(afterHighlight, renderer.getCachedTileCount());
+    }
+
+    /**
+     * Test that the tiles are rendered in device pixels
+     */
+    @Test
+    void testPixelScale() {
+        assertEquals(1, TiledMapRenderer.getPixelScale(new AffineTransform()));
+        assertEquals(2, TiledMapRenderer.getPixelScale(AffineTransform.getScaleInstance(2, 2)));
+        assertEquals(1, TiledMapRenderer.getPixelScale(AffineTransform.getScaleInstance(2, 1)));
+        assertEquals(1, TiledMapRenderer.getPixelScale(AffineTransform.getRotateInstance(1)));
+
+        renderer.paint(g, nc, false, false, true);
+        int tiles = renderer.getCachedTileCount();
+        BufferedImage hidpi = new BufferedImage(2 * IMG_WIDTH, 2 * IMG_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = hidpi.createGraphics();
+        try {
+            g2.scale(2, 2);
+            renderer.paint(g2, nc, false, false, true);
+            // all tiles are rendered again for the new scale
+            assertEquals(tiles, renderer.getCachedTileCount());
+            renderer.paint(g2, nc, false, false, true);
+            assertEquals(tiles, renderer.getCachedTileCount());
+        } finally {
+            g2.dispose();
+        }
+        // the benches are drawn in the whole image
+        BufferedImage lowdpi = new BufferedImage(IMG_WIDTH, IMG_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g1 = lowdpi.createGraphics();
+        try {
+            renderer.paint(g1, nc, false, false, true);
+        } finally {
+            g1.dispose();
+        }
+        assertEquals(countOpaque(lowdpi) * 4, countOpaque(hidpi), countOpaque(hidpi) / 2d);
+    }
+
+    private static int countOpaque(BufferedImage image) {
+        int count = 0;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) >>> 24) != 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Test that the renderer does not listen to the data set once destroyed
+     */
+    @Test
+    void testDestroy() {
+        TiledMapRenderer other = new TiledMapRenderer(ds);
+        other.paint(g, nc, false, false, true);
+        other.destroy();
+        assertEquals(0, other.getCachedTileCount());
+        other.paint(g, nc, false, false, true);
+        int tiles = other.getCachedTileCount();
+        n1.setCoor(new LatLon(50.0011, 8.0011));
+        assertEquals(tiles, other.getCachedTileCount());
+    }
+}
@@ -0,0 +1,51 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.protobuf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link ProtobufPacked}
+ */
+class ProtobufPackedTest {
+    /** 3, 270, 86942, see https://developers.google.com/protocol-buffers/docs/encoding#packed */
+    private static final byte[] PACKED = ProtobufTest.toByteArray(new int[] {0x03, 0x8e, 0x02, 0x9e, 0xa7, 0x05});
+
+    /**
+     * Check the different views of the packed values
+     */
+    @Test
+    void testViews() {
+        ProtobufPacked packed = new ProtobufPacked(PACKED);
+        assertEquals(3, packed.size());
+        assertArrayEquals(new long[] {3, 270, 86_942}, packed.toLongArray());
+        Number[] numbers = packed.getArray();
+        assertEquals(3, numbers.length);
+        assertEquals(270, numbers[1].intValue());
+
+        PrimitiveIterator.OfLong iterator = packed.iterator();
+        assertEquals(3, iterator.nextLong());
+        assertEquals(270, iterator.nextLong());
+        assertEquals(86_942, iterator.nextLong());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::nextLong);
+    }
+
+    /**
+     * Check an empty packed field
+     */
+    @Test
+    void testEmpty() {
+        ProtobufPacked packed = new ProtobufPacked(new byte[0]);
+        assertEquals(0, packed.size());
+        assertEquals(0, packed.getArray().length);
+        assertFalse(packed.iterator().hasNext());
+    }
+}
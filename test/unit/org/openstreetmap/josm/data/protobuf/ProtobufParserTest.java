@@ -2,6 +2,12 @@
 package org.openstreetmap.josm.data.protobuf;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
 
 import org.junit.jupiter.api.Test;
 
@@ -48,4 +54,39 @@ class ProtobufParserTest {
         assertEquals(4_294_967_296L, ProtobufParser.encodeZigZag(Integer.MAX_VALUE + 1L).longValue());
         assertEquals(4_294_967_297L, ProtobufParser.encodeZigZag(Integer.MIN_VALUE - 1L).longValue());
     }
+
+    /**
+     * Check that zig zags are decoded without boxing, including the 64 bit boundaries
+     */
+    @Test
+    void testDecodeZigZagLong() {
+        assertEquals(0, ProtobufParser.decodeZigZagLong(0));
+        assertEquals(-1, ProtobufParser.decodeZigZagLong(1));
+        assertEquals(1, ProtobufParser.decodeZigZagLong(2));
+        assertEquals(Long.MAX_VALUE, ProtobufParser.decodeZigZagLong(-2));
+        assertEquals(Long.MIN_VALUE, ProtobufParser.decodeZigZagLong(-1));
+        assertEquals(Long.MIN_VALUE, ProtobufParser.decodeZigZag(-1L).longValue());
+    }
+
+    /**
+     * Check the primitive var int methods, for both byte arrays and streams
+     * @throws IOException if the parser fails
+     */
+    @Test
+    void testReadVarLong() throws IOException {
+        // 150, -2 (sint32), Long.MIN_VALUE (sint64), -1 (int64, 10 bytes)
+        byte[] bytes = ProtobufTest.toByteArray(new int[] {0x96, 0x01, 0x03,
+                0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0x01,
+                0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0x01});
+        for (ProtobufParser parser : new ProtobufParser[] {new ProtobufParser(bytes), new ProtobufParser(new ByteArrayInputStream(bytes))}) {
+            assertEquals(150, parser.readVarLong());
+            assertEquals(-2, parser.readSInt32());
+            assertEquals(Long.MIN_VALUE, parser.readSInt64());
+            assertEquals(-1, parser.readVarLong());
+            assertFalse(parser.hasNext());
+            assertThrows(EOFException.class, parser::readVarLong);
+        }
+        assertThrows(EOFException.class, () -> new ProtobufParser(new byte[] {(byte) 0x80}).readVarLong());
+        assertThrows(EOFException.class, () -> new ProtobufParser(new byte[] {0x05, 0x01}).nextLengthDelimited());
+    }
 }
@@ -0,0 +1,72 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.protobuf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link ProtobufWriter}
+ */
+class ProtobufWriterTest {
+    private static List<ProtobufRecord> parse(ProtobufWriter writer) throws IOException {
+        try (ProtobufParser parser = new ProtobufParser(writer.toByteArray())) {
+            return new ArrayList<>(parser.allRecords());
+        }
+    }
+
+    /**
+     * Check the encoding of var ints against the specification example
+     */
+    @Test
+    void testVarInt() {
+        // See https://developers.google.com/protocol-buffers/docs/encoding#simple
+        assertArrayEquals(new byte[] {0x08, (byte) 0x96, 0x01}, new ProtobufWriter().writeVarInt(1, 150).toByteArray());
+        assertArrayEquals(new byte[] {0x08, 0x03}, new ProtobufWriter().writeSignedVarInt(1, -2).toByteArray());
+    }
+
+    /**
+     * Check that written fields can be read by {@link ProtobufParser}
+     * @throws IOException if the parser fails
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        ProtobufWriter message = new ProtobufWriter().writeString(1, "testing");
+        ProtobufWriter writer = new ProtobufWriter()
+                .writeVarInt(1, Long.MAX_VALUE)
+                .writeSignedVarInt(2, -1_234_567_890_123L)
+                .writeVarInt(3, -1)
+                .writeMessage(4, message)
+                .writePackedSignedVarInts(5, new long[] {-3, 0, 300, 42}, 3)
+                .writePackedVarInts(6, new long[0], 0);
+        List<ProtobufRecord> records = parse(writer);
+        assertEquals(5, records.size());
+        assertEquals(Long.MAX_VALUE, records.get(0).asUnsignedVarInt().longValue());
+        assertEquals(-1_234_567_890_123L, records.get(1).asSignedVarInt().longValue());
+        assertEquals(-1, records.get(2).asUnsignedVarInt().longValue());
+        assertEquals(4, records.get(3).getField());
+        assertEquals("testing", parse(message).get(0).asString());
+        Number[] packed = new ProtobufPacked(records.get(4).getBytes()).getArray();
+        assertEquals(3, packed.length);
+        assertEquals(-3, ProtobufParser.decodeZigZag(packed[0]).longValue());
+        assertEquals(0, ProtobufParser.decodeZigZag(packed[1]).longValue());
+        assertEquals(300, ProtobufParser.decodeZigZag(packed[2]).longValue());
+    }
+
+    /**
+     * Check that a writer can be reused after {@link ProtobufWriter#reset()}
+     */
+    @Test
+    void testReset() {
+        ProtobufWriter writer = new ProtobufWriter(1).writeString(2, "a");
+        assertEquals(3, writer.size());
+        writer.reset();
+        assertEquals(0, writer.size());
+        assertArrayEquals(new byte[] {0x10, 0x01}, writer.writeVarInt(2, 1).toByteArray());
+    }
+}
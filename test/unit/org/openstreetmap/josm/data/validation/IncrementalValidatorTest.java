@@ -0,0 +1,230 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.validation.tests.CrossingWays;
+import org.openstreetmap.josm.data.validation.tests.DuplicateNode;
+import org.openstreetmap.josm.data.validation.tests.UnconnectedWays;
+import org.openstreetmap.josm.data.validation.tests.UntaggedNode;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link IncrementalValidator}.
+ */
+class IncrementalValidatorTest {
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences().projection();
+
+    private List<Test> tests;
+    private DataSet ds;
+
+    /**
+     * Initializes the tests and a data set made of two distant groups of crossing highways.
+     * @throws Exception if the tests cannot be initialized
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        tests = Arrays.asList(new DuplicateNode(), new CrossingWays.Ways(), new UnconnectedWays.UnconnectedHighways());
+        for (Test t : tests) {
+            t.initialize();
+        }
+        ds = new DataSet();
+        addCrossing(0, 0);
+        addCrossing(1, 1);
+    }
+
+    private void addCrossing(double lat, double lon) {
+        addWay(lat, lon - 0.001, lat, lon + 0.001);
+        addWay(lat - 0.001, lon, lat + 0.001, lon);
+    }
+
+    private Way addWay(double lat1, double lon1, double lat2, double lon2) {
+        Node n1 = new Node(new LatLon(lat1, lon1));
+        Node n2 = new Node(new LatLon(lat2, lon2));
+        Way w = TestUtils.newWay("highway=residential", n1, n2);
+        ds.addPrimitive(n1);
+        ds.addPrimitive(n2);
+        ds.addPrimitive(w);
+        return w;
+    }
+
+    private Set<String> fullValidation() {
+        IncrementalValidator validator = new IncrementalValidator(ds, tests);
+        try {
+            return signatures(validator.validate(NullProgressMonitor.INSTANCE));
+        } finally {
+            validator.destroy();
+        }
+    }
+
+    private static Set<String> signatures(List<TestError> errors) {
+        return errors.stream()
+                .map(e -> e.getTester().getClass().getSimpleName() + ' ' + e.getCode() + ' ' + e.getPrimitives().stream()
+                        .map(OsmPrimitive::getPrimitiveId).map(Object::toString).sorted().collect(Collectors.joining(",")))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static TestError findError(List<TestError> errors, Class<? extends Test> tester, OsmPrimitive primitive) {
+        return errors.stream().filter(e -> tester.isInstance(e.getTester()) && e.getPrimitives().contains(primitive))
+                .findFirst().orElseThrow(AssertionError::new);
+    }
+
+    /**
+     * Checks that only the changes are validated, and that the errors of other primitives are kept.
+     */
+    @org.junit.jupiter.api.Test
+    void testOnlyChangesAreValidated() {
+        IncrementalValidator validator = new IncrementalValidator(ds, tests);
+        try {
+            List<TestError> errors = validator.validate(NullProgressMonitor.INSTANCE);
+            assertEquals(2, errors.stream().filter(e -> e.getTester() instanceof CrossingWays).count());
+            Way farAway = ds.getWays().stream().filter(w -> w.firstNode().lat() > 0.5).findFirst().orElseThrow(AssertionError::new);
+            TestError farAwayError = findError(errors, CrossingWays.class, farAway);
+
+            // Move a node onto the end of another way
+            Way w = addWay(0.0005, 0.0005, 0.0006, 0.0006);
+            assertEquals(3, validator.getChangedCount());
+            Node end = ds.getWays().stream().filter(x -> x.firstNode().lat() == 0 && x != w).findFirst()
+                    .orElseThrow(AssertionError::new).firstNode();
+            w.firstNode().setCoor(end.getCoor());
+            errors = validator.validate(NullProgressMonitor.INSTANCE);
+            assertEquals(0, validator.getChangedCount());
+            assertSame(farAwayError, findError(errors, CrossingWays.class, farAway));
+            findError(errors, DuplicateNode.class, end);
+            assertEquals(fullValidation(), signatures(errors));
+
+            // Merge the nodes
+            ds.removePrimitive(w);
+            ds.removePrimitive(w.firstNode());
+            errors = validator.validate(NullProgressMonitor.INSTANCE);
+            assertTrue(errors.stream().noneMatch(e -> e.getTester() instanceof DuplicateNode));
+            assertSame(farAwayError, findError(errors, CrossingWays.class, farAway));
+            assertEquals(fullValidation(), signatures(errors));
+        } finally {
+            validator.destroy();
+        }
+    }
+
+    /**
+     * Checks that the incremental validation finds the same errors as a full validation after various edits.
+     */
+    @org.junit.jupiter.api.Test
+    void testSameResultsAsFullValidation() {
+        IncrementalValidator validator = new IncrementalValidator(ds, tests);
+        try {
+            assertEquals(fullValidation(), signatures(validator.validate(NullProgressMonitor.INSTANCE)));
+
+            // New way crossing the first group
+            Way crossing = addWay(-0.0005, -0.0005, 0.0005, 0.0005);
+            assertEquals(fullValidation(), signatures(validator.validate(NullProgressMonitor.INSTANCE)));
+
+            // Move it to the second group
+            ds.beginUpdate();
+            try {
+                crossing.firstNode().setCoor(new LatLon(0.9995, 0.9995));
+                crossing.lastNode().setCoor(new LatLon(1.0005, 1.0005));
+            } finally {
+                ds.endUpdate();
+            }
+            assertEquals(fullValidation(), signatures(validator.validate(NullProgressMonitor.INSTANCE)));
+
+            // Not a highway anymore
+            crossing.put("highway", null);
+            crossing.put("building", "yes");
+            assertEquals(fullValidation(), signatures(validator.validate(NullProgressMonitor.INSTANCE)));
+
+            // Deleted
+            crossing.setDeleted(true);
+            crossing.getNodes().forEach(n -> n.setDeleted(true));
+            List<TestError> errors = validator.validate(NullProgressMonitor.INSTANCE);
+            assertEquals(fullValidation(), signatures(errors));
+            assertFalse(errors.stream().anyMatch(e -> e.getPrimitives().contains(crossing)));
+        } finally {
+            validator.destroy();
+        }
+    }
+
+    /**
+     * Checks that the errors of the nodes removed from a way are found, even far away from the way.
+     */
+    @org.junit.jupiter.api.Test
+    void testNodeRemovedFromWay() throws Exception {
+        Test untagged = new UntaggedNode();
+        untagged.initialize();
+        tests = Arrays.asList(tests.get(0), tests.get(1), untagged);
+        Node a = new Node(new LatLon(2, 2));
+        Node b = new Node(new LatLon(2.01, 2.01));
+        Node c = new Node(new LatLon(2, 2.0001));
+        Way w = TestUtils.newWay("highway=residential", a, b, c);
+        ds.addPrimitive(a);
+        ds.addPrimitive(b);
+        ds.addPrimitive(c);
+        ds.addPrimitive(w);
+        IncrementalValidator validator = new IncrementalValidator(ds, tests);
+        try {
+            assertTrue(validator.validate(NullProgressMonitor.INSTANCE).stream().noneMatch(e -> e.getTester() instanceof UntaggedNode));
+
+            w.removeNode(b);
+            List<TestError> errors = validator.validate(NullProgressMonitor.INSTANCE);
+            findError(errors, UntaggedNode.class, b);
+            assertEquals(fullValidation(), signatures(errors));
+
+            // the node is connected again
+            w.addNode(1, b);
+            errors = validator.validate(NullProgressMonitor.INSTANCE);
+            assertTrue(errors.stream().noneMatch(e -> e.getTester() instanceof UntaggedNode));
+            assertEquals(fullValidation(), signatures(errors));
+        } finally {
+            validator.destroy();
+        }
+    }
+
+    /**
+     * Checks that too many changes at once lead to a full validation.
+     */
+    @org.junit.jupiter.api.Test
+    void testDataChanged() {
+        IncrementalValidator validator = new IncrementalValidator(ds, tests);
+        try {
+            validator.validate(NullProgressMonitor.INSTANCE);
+            ds.beginUpdate();
+            try {
+                for (int i = 0; i < 1100; i++) {
+                    addWay(2, 2 + i * 0.0001, 2.0001, 2 + i * 0.0001);
+                }
+            } finally {
+                ds.endUpdate();
+            }
+            assertEquals(fullValidation(), signatures(validator.validate(NullProgressMonitor.INSTANCE)));
+        } finally {
+            validator.destroy();
+        }
+        assertEquals(0, validator.getErrors().size());
+    }
+}
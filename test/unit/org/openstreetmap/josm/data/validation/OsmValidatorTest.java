@@ -1,14 +1,27 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data.validation;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.data.validation.tests.Addresses;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -104,4 +117,63 @@ class OsmValidatorTest {
         assertTrue(OsmValidator.getAllAvailableTestClasses().contains(Addresses.class));
     }
 
+    private static DataSet createDataSet() {
+        final String[] tags = {"highway=residential", "highway=footway", "building=yes", "waterway=stream", "railway=rail",
+            "barrier=fence", "landuse=forest"};
+        final Random random = new Random(42);
+        final DataSet ds = new DataSet();
+        for (int i = 0; i < 1500; i++) {
+            final Way way = new Way();
+            final double lat = random.nextDouble() * 0.02;
+            final double lon = random.nextDouble() * 0.02;
+            final int count = 2 + random.nextInt(4);
+            for (int j = 0; j < count; j++) {
+                final Node node = new Node(new LatLon(lat + random.nextDouble() * 0.001, lon + random.nextDouble() * 0.001));
+                ds.addPrimitive(node);
+                way.addNode(node);
+            }
+            if (random.nextBoolean()) {
+                way.addNode(way.firstNode());
+            }
+            final String[] tag = tags[random.nextInt(tags.length)].split("=", -1);
+            way.put(tag[0], tag[1]);
+            ds.addPrimitive(way);
+        }
+        return ds;
+    }
+
+    private static List<String> describe(List<TestError> errors) {
+        return errors.stream().map(e -> e.getCode() + " " + e.getMessage() + " " + e.getDescription() + " "
+                + e.getPrimitives().stream().map(p -> p.getPrimitiveId().toString()).collect(Collectors.joining(",")))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> validate(Collection<org.openstreetmap.josm.data.validation.Test> tests, DataSet ds,
+            ForkJoinPool pool) {
+        for (org.openstreetmap.josm.data.validation.Test test : tests) {
+            test.setBeforeUpload(false);
+            test.setPartialSelection(false);
+        }
+        return describe(ValidationScheduler.runTests(tests, new ArrayList<>(ds.allPrimitives()), NullProgressMonitor.INSTANCE, pool));
+    }
+
+    /**
+     * Test that the default tests, some of which search the data set, find the same errors when they run in parallel.
+     */
+    @Test
+    void testParallelValidationDeterministic() {
+        OsmValidator.initialize();
+        final Collection<org.openstreetmap.josm.data.validation.Test> tests = OsmValidator.getEnabledTests(false);
+        final DataSet ds = createDataSet();
+        final List<String> sequential = validate(tests, ds, null);
+        assertFalse(sequential.isEmpty());
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertEquals(sequential, validate(tests, ds, pool));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,151 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link ValidationScheduler}.
+ */
+@BasicPreferences
+class ValidationSchedulerTest {
+
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+
+    private ForkJoinPool pool;
+    private List<OsmPrimitive> primitives;
+
+    /**
+     * A tag test reporting every primitive whose id is a multiple of the given number.
+     */
+    static class MultipleTest extends Test.TagTest {
+        private final int multiple;
+        private final boolean threadSafe;
+
+        MultipleTest(int multiple, boolean threadSafe) {
+            super("multiple of " + multiple);
+            this.multiple = multiple;
+            this.threadSafe = threadSafe;
+        }
+
+        @Override
+        public boolean isCheckThreadSafe() {
+            return threadSafe;
+        }
+
+        @Override
+        public void startTest(org.openstreetmap.josm.gui.progress.ProgressMonitor progressMonitor) {
+            super.startTest(progressMonitor);
+            RUNNING.incrementAndGet();
+        }
+
+        @Override
+        public void check(OsmPrimitive p) {
+            if (p.getUniqueId() % multiple == 0) {
+                errors.add(TestError.builder(this, Severity.WARNING, multiple).message(name).primitives(p).build());
+            }
+        }
+
+        @Override
+        public void endTest() {
+            RUNNING.decrementAndGet();
+            super.endTest();
+        }
+    }
+
+    /**
+     * A test which must not run at the same time as other tests.
+     */
+    static class ExclusiveTest extends Test {
+        final AtomicBoolean concurrent = new AtomicBoolean();
+
+        ExclusiveTest() {
+            super("exclusive");
+        }
+
+        @Override
+        public boolean isParallelizable() {
+            return false;
+        }
+
+        @Override
+        public void visit(Node n) {
+            if (RUNNING.get() > 0) {
+                concurrent.set(true);
+            }
+        }
+    }
+
+    /**
+     * Creates the thread pool and the primitives.
+     */
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        primitives = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            primitives.add(new Node(new LatLon(0, i * 1e-5)));
+        }
+        RUNNING.set(0);
+    }
+
+    /**
+     * Shuts the thread pool down.
+     */
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static List<String> describe(List<TestError> errors) {
+        return errors.stream().map(e -> e.getCode() + " " + e.getPrimitives().iterator().next().getUniqueId())
+                .collect(Collectors.toList());
+    }
+
+    private long count(int multiple) {
+        return primitives.stream().filter(p -> p.getUniqueId() % multiple == 0).count();
+    }
+
+    private static List<Test> tests() {
+        return Arrays.asList(new MultipleTest(3, true), new ExclusiveTest(), new MultipleTest(7, false), new MultipleTest(5, true));
+    }
+
+    /**
+     * Checks that the errors are the same, in the same order, with and without parallelism.
+     */
+    @org.junit.jupiter.api.Test
+    void testDeterministic() {
+        List<String> sequential = describe(ValidationScheduler.runTests(tests(), primitives, NullProgressMonitor.INSTANCE, null));
+        assertEquals(count(3) + count(7) + count(5), sequential.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(sequential, describe(ValidationScheduler.runTests(tests(), primitives, NullProgressMonitor.INSTANCE, pool)));
+        }
+    }
+
+    /**
+     * Checks that tests which are not parallelizable run alone.
+     */
+    @org.junit.jupiter.api.Test
+    void testNotParallelizable() {
+        List<Test> tests = tests();
+        ValidationScheduler.runTests(tests, primitives, NullProgressMonitor.INSTANCE, pool);
+        assertFalse(((ExclusiveTest) tests.get(1)).concurrent.get());
+        assertEquals(0, RUNNING.get());
+    }
+}
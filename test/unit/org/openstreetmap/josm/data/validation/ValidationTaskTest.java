@@ -0,0 +1,59 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link ValidationTask}.
+ */
+@BasicPreferences
+class ValidationTaskTest {
+
+    /**
+     * A test reporting every node, and renaming the nodes named "edit" like a user editing during the validation.
+     */
+    private static class EditingTest extends Test {
+        EditingTest() {
+            super("editing");
+        }
+
+        @Override
+        public void visit(Node n) {
+            errors.add(TestError.builder(this, Severity.WARNING, 1).message("node").primitives(n).build());
+            if ("edit".equals(n.get("name"))) {
+                n.put("name", "edited");
+            }
+        }
+    }
+
+    /**
+     * Test that the primitives are validated as in the snapshot taken at the start of the validation.
+     */
+    @org.junit.jupiter.api.Test
+    void testSnapshot() {
+        Node kept = new Node(LatLon.ZERO);
+        Node edited = new Node(LatLon.NORTH_POLE);
+        edited.put("name", "edit");
+        Node deleted = new Node(LatLon.SOUTH_POLE);
+        DataSet ds = new DataSet(kept, edited, deleted);
+        deleted.setDeleted(true);
+        List<OsmPrimitive> primitives = ds.allPrimitives().stream().collect(Collectors.toList());
+
+        ValidationTask task = new ValidationTask(NullProgressMonitor.INSTANCE,
+                Collections.singletonList(new EditingTest()), primitives, null);
+        task.realRun();
+        assertEquals(Collections.singletonList(kept),
+                task.getErrors().stream().flatMap(e -> e.getPrimitives().stream()).collect(Collectors.toList()));
+    }
+}
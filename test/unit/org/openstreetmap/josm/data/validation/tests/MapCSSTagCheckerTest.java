@@ -14,6 +14,7 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -286,6 +287,32 @@ class MapCSSTagCheckerTest {
         }
     }
 
+    /**
+     * Tests that the validation of a partial selection does not replace the rules checked by
+     * {@link MapCSSTagChecker#getErrorsForPrimitive(OsmPrimitive, boolean)} with the reduced set of rules used for the
+     * surrounding primitives.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testPartialSelectionKeepsIndex() throws Exception {
+        final MapCSSTagChecker test = buildTagChecker(
+                "node[amenity=parking] ∈ *[amenity=parking] {" +
+                "  throwWarning: tr(\"{0} inside {1}\", \"amenity=parking\", \"amenity=parking\");" +
+                "}" +
+                "node[amenity=bench][!backrest] {" +
+                "  throwWarning: \"bench without backrest\";" +
+                "}");
+        final OsmPrimitive bench = OsmUtils.createPrimitive("node amenity=bench");
+        assertEquals(1, test.getErrorsForPrimitive(bench, false).size());
+        try (InputStream is = TestUtils.getRegressionDataStream(14287, "example.osm")) {
+            DataSet ds = OsmReader.parseDataSet(is, null);
+            test.setPartialSelection(true);
+            test.visit(ds.getNodes().stream().filter(n -> n.hasTag("amenity", "parking")).collect(Collectors.toList()));
+            assertFalse(test.getErrors().isEmpty());
+        }
+        assertEquals(1, test.getErrorsForPrimitive(bench, false).size());
+    }
+
     /**
      * Non-regression test for <a href="https://josm.openstreetmap.de/ticket/17053">Bug #17053</a>.
      * @throws ParseException if a parsing error occurs
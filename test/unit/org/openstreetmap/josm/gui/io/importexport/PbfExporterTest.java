@@ -0,0 +1,101 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.io.importexport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.swing.JOptionPane;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.openstreetmap.josm.actions.SaveActionBase;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+/**
+ * Unit tests of {@link PbfExporter} class.
+ */
+class PbfExporterTest {
+
+    /**
+     * Setup test.
+     */
+    @RegisterExtension
+    public final JOSMTestRules rules = new JOSMTestRules().preferences();
+
+    @TempDir
+    Path tempDir;
+
+    private OsmDataLayer layer;
+    private File osmFile;
+
+    @BeforeEach
+    void setUp() {
+        osmFile = tempDir.resolve("test.osm").toFile();
+        layer = new OsmDataLayer(new DataSet(), "test.osm", osmFile);
+        layer.getDataSet().addPrimitive(new Node(new LatLon(1, 2)));
+    }
+
+    private static void answer(int value) {
+        Config.getPref().putBoolean("message.pbf_export_modified", false);
+        Config.getPref().putInt("message.pbf_export_modified.value", value);
+    }
+
+    /**
+     * Test that a modified layer is exported, but neither associated with the file nor marked as saved
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testExportModifiedLayer() throws IOException {
+        answer(JOptionPane.YES_OPTION);
+        File file = tempDir.resolve("test.osm.pbf").toFile();
+        assertTrue(layer.requiresSaveToFile());
+        assertTrue(SaveActionBase.doSave(layer, file, true));
+        assertTrue(file.isFile());
+        assertTrue(layer.requiresSaveToFile());
+        assertEquals(osmFile, layer.getAssociatedFile());
+        assertEquals("test.osm", layer.getName());
+    }
+
+    /**
+     * Test that the export of a modified layer is canceled if the user does not confirm it
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testExportModifiedLayerCanceled() throws IOException {
+        answer(JOptionPane.NO_OPTION);
+        File file = tempDir.resolve("test.osm.pbf").toFile();
+        PbfExporter exporter = new PbfExporter();
+        exporter.exportData(file, layer);
+        assertTrue(exporter.isCanceled());
+        assertFalse(file.exists());
+        assertFalse(SaveActionBase.doSave(layer, file, true));
+        assertFalse(file.exists());
+        assertTrue(layer.requiresSaveToFile());
+    }
+
+    /**
+     * Test that a layer is exported quietly, without confirmation
+     * @throws IOException if an error occurs
+     */
+    @Test
+    void testExportQuiet() throws IOException {
+        answer(JOptionPane.NO_OPTION);
+        File file = tempDir.resolve("test.osm.pbf").toFile();
+        assertTrue(SaveActionBase.doSave(layer, file, false));
+        assertTrue(file.isFile());
+        assertTrue(layer.requiresSaveToFile());
+        assertEquals(osmFile, layer.getAssociatedFile());
+    }
+}
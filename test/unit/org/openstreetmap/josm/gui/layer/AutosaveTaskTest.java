@@ -10,6 +10,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
@@ -18,16 +19,28 @@ import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.openstreetmap.josm.command.MoveCommand;
 import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.layer.AutosaveTask.AutosaveLayerInfo;
+import org.openstreetmap.josm.io.Compression;
+import org.openstreetmap.josm.io.OsmReader;
+import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -210,6 +223,30 @@ class AutosaveTaskTest {
         assertEquals(1, countFiles());
     }
 
+    /**
+     * Tests that {@link AutosaveTask#discardUnsavedLayers()} archives a journal which cannot be replayed next to its file,
+     * instead of deleting it.
+     * @throws IOException in case of I/O error
+     */
+    @Test
+    void testDiscardUnsavedLayersKeepsCorruptJournal() throws IOException {
+        File deletedLayersDir = new File(Config.getDirs().getUserDataDirectory(true), "autosave/deleted_layers");
+        Files.createDirectories(task.getAutosaveDir());
+        Files.createDirectories(deletedLayersDir.toPath());
+        File file = task.getAutosaveDir().resolve("corrupt_journal.osm").toFile();
+        Files.write(file.toPath(), "<osm version='0.6' generator='JOSM'/>".getBytes(StandardCharsets.UTF_8));
+        File journal = AutosaveJournal.getJournalFile(file);
+        // a block which is not a serialized stream
+        Files.write(journal.toPath(), new byte[] {0, 0, 0, 4, 'j', 'u', 'n', 'k'});
+
+        task.discardUnsavedLayers();
+        assertFalse(file.exists());
+        assertFalse(journal.exists());
+        File backupFile = new File(deletedLayersDir, file.getName());
+        assertTrue(backupFile.isFile());
+        assertTrue(AutosaveJournal.getJournalFile(backupFile).isFile());
+    }
+
     /**
      * Tests that {@link AutosaveTask#run()} handles duplicate layers
      */
@@ -254,4 +291,141 @@ class AutosaveTaskTest {
 
         assertEquals(1, countFiles());
     }
+
+    /**
+     * Tests that {@link AutosaveTask#run()} journals the changes after the first save, and that the journal can be
+     * replayed into the autosaved file.
+     * @throws Exception in case of error
+     */
+    @Test
+    void testAutosaveJournal() throws Exception {
+        DataSet data = new DataSet();
+        Node n1 = new Node(new LatLon(1, 1));
+        Node n2 = new Node(new LatLon(2, 2));
+        Node n3 = new Node(1234, 1);
+        n3.setCoor(new LatLon(3, 3));
+        n3.setUser(User.createOsmUser(42, "mapper"));
+        Node n4 = new Node(new LatLon(4, 4));
+        Way w = new Way();
+        w.setNodes(Arrays.asList(n1, n2, n3));
+        Relation r = new Relation();
+        r.addMember(new RelationMember("outer", w));
+        data.addPrimitive(n1);
+        data.addPrimitive(n2);
+        data.addPrimitive(n3);
+        data.addPrimitive(n4);
+        data.addPrimitive(w);
+        OsmDataLayer layer = new OsmDataLayer(data, "OsmData", null);
+        MainApplication.getLayerManager().addLayer(layer);
+        try {
+            task.schedule();
+            data.addPrimitive(r);
+            task.run();
+            assertEquals(1, countFiles());
+            File file = task.getAutosaveDir().resolve(task.getAutosaveDir().toFile().list((dir, name) -> name.endsWith(".osm"))[0])
+                    .toFile();
+            File journal = AutosaveJournal.getJournalFile(file);
+            assertFalse(journal.exists());
+
+            // changes are appended to the journal
+            n1.setCoor(new LatLon(1.5, 1.5));
+            w.put("highway", "track");
+            Node n5 = new Node(new LatLon(5, 5));
+            data.addPrimitive(n5);
+            w.addNode(n5);
+            data.removePrimitive(n4);
+            task.run();
+            assertTrue(journal.isFile());
+            long length = journal.length();
+
+            // an uploaded primitive gets a new id
+            n2.setOsmId(5678, 1);
+            r.put("type", "multipolygon");
+            Relation r2 = new Relation();
+            r2.addMember(new RelationMember("", r));
+            r2.addMember(new RelationMember("", n3));
+            data.addPrimitive(r2);
+            task.run();
+            assertEquals(1, countFiles());
+            assertTrue(journal.length() > length);
+
+            assertTrue(AutosaveJournal.replay(file));
+            assertFalse(journal.exists());
+            DataSet recovered;
+            try (InputStream in = Compression.getUncompressedFileInputStream(file)) {
+                recovered = OsmReader.parseDataSet(in, null);
+            }
+            assertEquals(describe(data), describe(recovered));
+            assertEquals("mapper", recovered.getPrimitiveById(n3).getUser().getName());
+        } finally {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Tests that a change of more primitives than fit in a single data set event, such as moving a long way, is journaled
+     * instead of causing a new snapshot.
+     * @throws Exception in case of error
+     */
+    @Test
+    void testAutosaveJournalBatchedEvents() throws Exception {
+        DataSet data = new DataSet();
+        for (int i = 0; i < 3000; i++) {
+            data.addPrimitive(new Node(new LatLon(i / 10_000.0, 0)));
+        }
+        Way w = new Way();
+        for (int i = 0; i < 50; i++) {
+            Node n = new Node(new LatLon(1, i / 10_000.0));
+            data.addPrimitive(n);
+            w.addNode(n);
+        }
+        OsmDataLayer layer = new OsmDataLayer(data, "OsmData", null);
+        MainApplication.getLayerManager().addLayer(layer);
+        try {
+            task.schedule();
+            data.addPrimitive(w);
+            task.run();
+            File file = task.getAutosaveDir().resolve(task.getAutosaveDir().toFile().list((dir, name) -> name.endsWith(".osm"))[0])
+                    .toFile();
+            byte[] snapshot = Files.readAllBytes(file.toPath());
+            File journal = AutosaveJournal.getJournalFile(file);
+
+            // the way is moved in a single update, fired as a data changed event
+            data.update(() -> new MoveCommand(w, 10, 10).executeCommand());
+            task.run();
+            assertEquals(1, countFiles());
+            assertTrue(journal.isFile());
+            assertTrue(Arrays.equals(snapshot, Files.readAllBytes(file.toPath())));
+            assertTrue(journal.length() < snapshot.length / 10);
+
+            assertTrue(AutosaveJournal.replay(file));
+            DataSet recovered;
+            try (InputStream in = Compression.getUncompressedFileInputStream(file)) {
+                recovered = OsmReader.parseDataSet(in, null);
+            }
+            assertEquals(data.allPrimitives().size(), recovered.allPrimitives().size());
+            List<Node> nodes = recovered.getWays().iterator().next().getNodes();
+            assertEquals(w.getNodesCount(), nodes.size());
+            for (int i = 0; i < nodes.size(); i++) {
+                assertTrue(w.getNode(i).getCoor().equalsEpsilon(nodes.get(i).getCoor()));
+            }
+        } finally {
+            task.cancel();
+        }
+    }
+
+    private static List<String> describe(DataSet ds) {
+        return ds.allPrimitives().stream().map(AutosaveTaskTest::describe).sorted().collect(Collectors.toList());
+    }
+
+    private static String describe(OsmPrimitive p) {
+        List<String> members = new ArrayList<>();
+        if (p instanceof Way) {
+            ((Way) p).getNodes().forEach(n -> members.add(describe(n)));
+        } else if (p instanceof Relation) {
+            ((Relation) p).getMembers().forEach(m -> members.add(m.getRole() + '=' + (m.isRelation() ? "relation" : describe(m.getMember()))));
+        }
+        return p.getType() + " " + (p.isNew() ? "new" : p.getId() + "v" + p.getVersion()) + " " + p.getKeys()
+                + (p instanceof Node ? " " + ((Node) p).getCoor() : "") + " " + members;
+    }
 }
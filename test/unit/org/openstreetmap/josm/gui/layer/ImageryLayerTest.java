@@ -1,9 +1,14 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.gui.layer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.Test;
 import org.openstreetmap.josm.gui.layer.imagery.ImageryFilterSettings;
 import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
@@ -23,4 +28,48 @@ class ImageryLayerTest {
         assertNotNull(settings);
         assertSame(settings, layer.getFilterSettings());
     }
+
+    /**
+     * Unit test of {@link ImageryLayer#applyImageProcessors}
+     */
+    @Test
+    void testApplyImageProcessors() {
+        ImageryLayer layer = TMSLayerTest.createTmsLayer();
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+        // default settings do not change the image
+        assertSame(image, layer.applyImageProcessors(image));
+        assertSame(image, layer.applyImageProcessors(image));
+
+        layer.getFilterSettings().setGamma(2);
+        BufferedImage processed = layer.applyImageProcessors(image);
+        assertNotSame(image, processed);
+        // the image is processed once for the same settings
+        assertSame(processed, layer.applyImageProcessors(image));
+        assertNotSame(processed, layer.applyImageProcessors(new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB)));
+
+        layer.getFilterSettings().setGamma(1.5);
+        BufferedImage processedAgain = layer.applyImageProcessors(image);
+        assertNotSame(processed, processedAgain);
+        assertSame(processedAgain, layer.applyImageProcessors(image));
+
+        layer.getFilterSettings().setGamma(1);
+        assertSame(image, layer.applyImageProcessors(image));
+    }
+
+    /**
+     * Unit test of {@link ImageryLayer#applyImageProcessors} with a processor whose settings are unknown
+     */
+    @Test
+    void testApplyImageProcessorsWithoutSettings() {
+        ImageryLayer layer = TMSLayerTest.createTmsLayer();
+        AtomicInteger count = new AtomicInteger();
+        layer.addImageProcessor(img -> {
+            count.incrementAndGet();
+            return img;
+        });
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+        layer.applyImageProcessors(image);
+        layer.applyImageProcessors(image);
+        assertEquals(2, count.get());
+    }
 }
@@ -0,0 +1,202 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer.imagery;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.gui.jmapviewer.Tile;
+import org.openstreetmap.gui.jmapviewer.TileRange;
+import org.openstreetmap.gui.jmapviewer.TileXY;
+import org.openstreetmap.gui.jmapviewer.tilesources.TMSTileSource;
+import org.openstreetmap.josm.data.ProjectionBounds;
+import org.openstreetmap.josm.data.cache.JCSCacheManager;
+import org.openstreetmap.josm.data.imagery.ImageryInfo;
+import org.openstreetmap.josm.data.imagery.TMSCachedTileLoader;
+import org.openstreetmap.josm.data.imagery.TileJobOptions;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests for class {@link TilePrefetcher}.
+ */
+@BasicPreferences
+class TilePrefetcherTest {
+
+    private static final int ZOOM = 10;
+
+    /** executor that never runs its tasks, so that the queue can be inspected */
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+        @Override
+        public void execute(Runnable command) {
+            getQueue().add(command);
+        }
+    };
+    private final Map<String, Tile> tiles = new HashMap<>();
+    private TMSCachedTileLoader loader;
+    private TilePrefetcher prefetcher;
+    private TileRange visibleRange;
+
+    private static class MockTileSource extends TMSTileSource {
+        MockTileSource() {
+            super(new ImageryInfo("mock"));
+        }
+
+        @Override
+        public String getTileUrl(int zoom, int tilex, int tiley) throws IOException {
+            return "https://prefetch.test/" + zoom + "/" + tilex + "/" + tiley + ".png";
+        }
+    }
+
+    /**
+     * The tiles of a zoom level have a size of 2^(10 - zoom) east/north units, y increases to the south from north = 1000.
+     * @param bounds bounds
+     * @param zoom zoom level
+     * @return the tiles covering the bounds
+     */
+    private static TileRange getTileRange(ProjectionBounds bounds, int zoom) {
+        double size = Math.pow(2, ZOOM - zoom);
+        return new TileRange(new TileXY(bounds.minEast / size, (1000 - bounds.maxNorth) / size),
+                new TileXY(bounds.maxEast / size, (1000 - bounds.minNorth) / size), zoom);
+    }
+
+    @BeforeEach
+    void setUp() {
+        loader = new TMSCachedTileLoader((tile, success) -> { }, JCSCacheManager.getCache("test"),
+                new TileJobOptions(30000, 30000, null, 0));
+        loader.setDownloadExecutor(executor);
+        MockTileSource source = new MockTileSource();
+        prefetcher = new TilePrefetcher(loader, TilePrefetcherTest::getTileRange,
+                p -> tiles.computeIfAbsent(p.getZoom() + "/" + p.getX() + "/" + p.getY(),
+                        k -> new Tile(source, p.getX(), p.getY(), p.getZoom())),
+                this::isOffscreen);
+    }
+
+    /**
+     * Same as the layer, a tile is off-screen if it is outside of the visible tiles.
+     * @param tile tile
+     * @return {@code true} if the tile is off-screen
+     */
+    private boolean isOffscreen(Tile tile) {
+        return visibleRange != null && (tile.getZoom() != visibleRange.getZoom()
+                || tile.getXtile() < visibleRange.getMinX() || tile.getXtile() > visibleRange.getMaxX()
+                || tile.getYtile() < visibleRange.getMinY() || tile.getYtile() > visibleRange.getMaxY());
+    }
+
+    private void viewportChanged(ProjectionBounds bounds, long timeMillis) {
+        visibleRange = getTileRange(bounds, ZOOM);
+        prefetcher.viewportChanged(bounds, ZOOM, 1, 20, timeMillis);
+    }
+
+    @AfterEach
+    void tearDown() {
+        prefetcher.clear();
+        loader.cancelOutstandingTasks();
+    }
+
+    /**
+     * Tests that the tiles in the direction of a pan movement are prefetched first.
+     */
+    @Test
+    void testPan() {
+        // 8x6 tiles, moving to the east with 1 tile per 100 ms
+        for (int i = 0; i < 5; i++) {
+            viewportChanged(new ProjectionBounds(i + 0.5, 0.5, i + 8.5, 6.5), 100L * i);
+        }
+        ProjectionBounds bounds = new ProjectionBounds(4.5, 0.5, 12.5, 6.5);
+        TileRange visible = getTileRange(bounds, ZOOM);
+        List<TilePosition> plan = prefetcher.computePlan(bounds, ZOOM, 1, 20);
+        assertFalse(plan.isEmpty());
+        assertTrue(plan.size() <= visible.size());
+        for (TilePosition p : plan) {
+            assertEquals(ZOOM, p.getZoom());
+            // the ring loaded by the layer itself is not prefetched
+            assertTrue(p.getX() < visible.getMinX() - 1 || p.getX() > visible.getMaxX() + 1
+                    || p.getY() < visible.getMinY() - 1 || p.getY() > visible.getMaxY() + 1);
+        }
+        assertTrue(plan.get(0).getX() > visible.getMaxX() + 1);
+        // the prefetches wait in the download queue, up to the limit
+        assertEquals(TilePrefetcher.PROP_MAX_JOBS.get().intValue(), executor.getQueue().size());
+        // the prefetches that became irrelevant while panning were replaced
+        assertEquals(prefetcher.getSubmittedCount(), TilePrefetcher.PROP_MAX_JOBS.get() + prefetcher.getCancelledCount());
+
+        // after a jump, the queued prefetches are irrelevant
+        long cancelled = prefetcher.getCancelledCount();
+        List<Tile> queued = tiles.values().stream().filter(prefetcher::isPrefetching).collect(Collectors.toList());
+        viewportChanged(new ProjectionBounds(500.5, 0.5, 508.5, 6.5), 5000);
+        assertEquals(TilePrefetcher.PROP_MAX_JOBS.get().intValue(), prefetcher.getCancelledCount() - cancelled);
+        assertEquals(TilePrefetcher.PROP_MAX_JOBS.get().intValue(), executor.getQueue().size());
+        assertTrue(queued.stream().noneMatch(Tile::isLoading));
+    }
+
+    /**
+     * Tests that the queued prefetches are kept when the viewport moves onto their tiles.
+     */
+    @Test
+    void testViewportMovesOntoPrefetch() {
+        for (int i = 0; i < 5; i++) {
+            viewportChanged(new ProjectionBounds(i + 0.5, 0.5, i + 8.5, 6.5), 100L * i);
+        }
+        Tile target = tiles.values().stream().filter(prefetcher::isPrefetching).findFirst().orElseThrow(AssertionError::new);
+        long cancelled = prefetcher.getCancelledCount();
+
+        // the tile becomes visible, so it leaves the plan, but its download must go on
+        int x = target.getXtile();
+        int y = target.getYtile();
+        viewportChanged(new ProjectionBounds(x - 3.5, 1000 - y - 3.5, x + 4.5, 1000 - y + 2.5), 5000);
+        assertFalse(isOffscreen(target));
+        assertTrue(prefetcher.isPrefetching(target));
+        assertTrue(target.isLoading());
+        assertTrue(prefetcher.getCancelledCount() - cancelled < TilePrefetcher.PROP_MAX_JOBS.get());
+    }
+
+    /**
+     * Tests that the next zoom level is prefetched when zooming in.
+     */
+    @Test
+    void testZoomIn() {
+        viewportChanged(new ProjectionBounds(0, 0, 16, 12), 0);
+        viewportChanged(new ProjectionBounds(1, 1, 15, 11), 100);
+        List<TilePosition> plan = prefetcher.computePlan(new ProjectionBounds(1, 1, 15, 11), ZOOM, 1, 20);
+        assertEquals(ZOOM + 1, plan.get(0).getZoom());
+        // nothing beyond the maximum zoom level
+        plan = prefetcher.computePlan(new ProjectionBounds(1, 1, 15, 11), ZOOM, 1, ZOOM);
+        assertTrue(plan.stream().allMatch(p -> p.getZoom() == ZOOM));
+    }
+
+    /**
+     * Tests the hit rate of the prefetched tiles.
+     */
+    @Test
+    void testHitRate() {
+        viewportChanged(new ProjectionBounds(0.5, 0.5, 8.5, 6.5), 0);
+        assertEquals(0, prefetcher.getHitRate());
+        Tile loaded = null;
+        for (Tile tile : tiles.values()) {
+            if (tile.isLoading()) {
+                tile.finishLoading();
+                prefetcher.tileLoadingFinished(tile, true);
+                if (loaded == null) {
+                    loaded = tile;
+                }
+            }
+        }
+        assertEquals(TilePrefetcher.PROP_MAX_JOBS.get().intValue(), prefetcher.getLoadedCount());
+        prefetcher.tilesShown(Collections.singletonList(loaded));
+        prefetcher.tilesShown(Collections.singletonList(loaded));
+        assertEquals(1, prefetcher.getHitCount());
+        assertEquals(1d / TilePrefetcher.PROP_MAX_JOBS.get(), prefetcher.getHitRate(), 1e-9);
+    }
+}
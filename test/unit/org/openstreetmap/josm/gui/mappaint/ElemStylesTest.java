@@ -0,0 +1,63 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.mappaint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link ElemStyles} class.
+ */
+@BasicPreferences
+class ElemStylesTest {
+
+    /**
+     * Test {@link ElemStyles#getCacheHits()} and {@link ElemStyles#getCacheMisses()}
+     */
+    @Test
+    void testCacheStatistics() {
+        ElemStyles styles = new ElemStyles(Collections.emptyList());
+        Node n = new Node(LatLon.ZERO);
+        new DataSet(n);
+
+        styles.get(n, 100, null);
+        assertEquals(0, styles.getCacheHits());
+        assertEquals(1, styles.getCacheMisses());
+
+        // other scale in the same range
+        styles.get(n, 200, null);
+        assertEquals(1, styles.getCacheHits());
+        assertEquals(1, styles.getCacheMisses());
+
+        // only the changed primitive has to be styled again
+        n.put("amenity", "bench");
+        styles.get(n, 100, null);
+        assertEquals(1, styles.getCacheHits());
+        assertEquals(2, styles.getCacheMisses());
+    }
+
+    /**
+     * Test {@link StyleCache#MAX_INTERN_POOL_SIZE}
+     */
+    @Test
+    void testInternPoolSize() {
+        StyleCache.MAX_INTERN_POOL_SIZE.put(3);
+        try {
+            long evictions = StyleCache.getInternPoolEvictions();
+            for (int i = 1; i <= 10; i++) {
+                StyleCache.EMPTY_STYLECACHE.put(new StyleElementList(), new Range(i, i + 1), false);
+                assertTrue(StyleCache.getInternPoolSize() <= 3);
+            }
+            assertTrue(StyleCache.getInternPoolEvictions() > evictions);
+        } finally {
+            StyleCache.MAX_INTERN_POOL_SIZE.put(null);
+        }
+    }
+}
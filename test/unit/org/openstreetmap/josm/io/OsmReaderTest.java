@@ -28,6 +28,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.openstreetmap.josm.TestUtils;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
@@ -46,7 +47,9 @@ class OsmReaderTest {
                 Arguments.of((Object) new Options[0]),
                 Arguments.of((Object) new Options[] {Options.CONVERT_UNKNOWN_TO_TAGS}),
                 Arguments.of((Object) new Options[] {Options.SAVE_ORIGINAL_ID}),
-                Arguments.of((Object) new Options[] {Options.CONVERT_UNKNOWN_TO_TAGS, Options.SAVE_ORIGINAL_ID}));
+                Arguments.of((Object) new Options[] {Options.CONVERT_UNKNOWN_TO_TAGS, Options.SAVE_ORIGINAL_ID}),
+                Arguments.of((Object) new Options[] {Options.PIPELINED}),
+                Arguments.of((Object) new Options[] {Options.PIPELINED, Options.CONVERT_UNKNOWN_TO_TAGS, Options.SAVE_ORIGINAL_ID}));
     }
 
     private static final class PostProcessorStub implements OsmServerReadPostprocessor {
@@ -152,9 +155,19 @@ class OsmReaderTest {
      * @return The exception
      */
     private static IllegalDataException testInvalidData(String osm) throws Exception {
+        return testInvalidData(osm, (Options[]) null);
+    }
+
+    /**
+     * Test invalid data.
+     * @param osm OSM data without XML prefix
+     * @param options The options to use
+     * @return The exception
+     */
+    private static IllegalDataException testInvalidData(String osm, Options... options) throws Exception {
         try (InputStream in = new ByteArrayInputStream(
                 ("<?xml version='1.0' encoding='UTF-8'?>" + osm).getBytes(StandardCharsets.UTF_8))) {
-            return assertThrows(IllegalDataException.class, () -> OsmReader.parseDataSet(in, NullProgressMonitor.INSTANCE));
+            return assertThrows(IllegalDataException.class, () -> OsmReader.parseDataSet(in, NullProgressMonitor.INSTANCE, options));
         }
     }
 
@@ -436,4 +449,81 @@ class OsmReaderTest {
         IllegalDataException illegalDataException = testInvalidData(testData);
         assertTrue(illegalDataException.getMessage().contains("Unknown error element type"));
     }
+
+    /**
+     * Test that {@link Options#PIPELINED} reports the same errors as the sequential reader.
+     * @param testData The invalid data
+     * @throws Exception if any error occurs
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<osm version='0.6'><node id='1' uid='nan'/></osm>",
+            "<osm version='0.6'><node/></osm>",
+            "<osm version='0.6'><way id='1' version='1'><nd/></way></osm>",
+            "<osm version='0.6'><way id='1' version='1'><nd ref='nan'/></way></osm>",
+            "<osm version='0.6'><relation id='1' version='1'><member type='node' ref='0'/></relation></osm>",
+            "<osm version='0.6'><relation id='1' version='1'><member type='foo' ref='1'/></relation></osm>",
+            "<osm version='0.6'><node id='1' version='1'><tag k='foo'/></node></osm>",
+            "<osm version='0.6'><node id='1' version='nan'/></osm>",
+            "<osm version='0.6'><node id='1' version='1' lat='nan' lon='0'/></osm>",
+            "<osm version='0.6'><node id='1' version='1'/><node id='2' version='1' changeset='-1'/><bounds/></osm>",
+            "<osm version='0.6'><node id='1' version='nan'><error>Mismatch in tags key and value size</error></node></osm>",
+            "<osm version='0.6'><way id='1' version='1'><tag k='foo'/><error>Mismatch in tags key and value size</error></way></osm>",
+            "<osm version='0.6'><way id='1' version='1'><nd ref='1'/><error/></way></osm>",
+            "<osm version='0.6'><node id='1' version='1'/><node id='2'></osm>"
+    })
+    void testPipelinedInvalidData(String testData) throws Exception {
+        assertEquals(testInvalidData(testData).getMessage(), testInvalidData(testData, Options.PIPELINED).getMessage());
+    }
+
+    private static String createLargeFile(int count, String end) {
+        StringBuilder sb = new StringBuilder("<osm version='0.6'>");
+        for (int i = 1; i <= count; i++) {
+            sb.append("<node id='").append(i).append("' version='1' changeset='").append(i)
+              .append("' timestamp='2020-01-01T00:00:00Z' user='foo' uid='1' lat='").append(i / 1e4).append("' lon='0.5'>")
+              .append("<tag k='ref' v='").append(i).append("'/></node>");
+        }
+        for (int i = 1; i < count; i++) {
+            sb.append("<way id='").append(i).append("' version='1'><nd ref='").append(i).append("'/><nd ref='").append(i + 1)
+              .append("'/><tag k='highway' v='residential'/></way>");
+        }
+        sb.append("<relation id='1' version='1'><member type='way' ref='1' role='outer'/><member type='node' ref='").append(count)
+          .append("' role=''/><member type='relation' ref='2' role='sub'/></relation>");
+        return sb.append(end).toString();
+    }
+
+    /**
+     * Test that {@link Options#PIPELINED} builds the same data set as the sequential reader, in document order.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testPipelinedLargeFile() throws Exception {
+        String osm = createLargeFile(2500, "</osm>");
+        DataSet expected = testValidData(osm, null);
+        DataSet actual = testValidData(osm, new Options[] {Options.PIPELINED});
+        assertEquals(expected.allPrimitives().size(), actual.allPrimitives().size());
+        for (OsmPrimitive p : expected.allPrimitives()) {
+            OsmPrimitive q = actual.getPrimitiveById(p);
+            assertTrue(p.hasEqualSemanticAttributes(q), p::toString);
+            assertEquals(p.getRawTimestamp(), q.getRawTimestamp());
+            assertEquals(p.getChangesetId(), q.getChangesetId());
+            assertEquals(p.getUser(), q.getUser());
+        }
+        assertEquals(expected.getRelations().iterator().next().getMembers().toString(),
+                actual.getRelations().iterator().next().getMembers().toString());
+    }
+
+    /**
+     * Test that {@link Options#PIPELINED} reports the first error of the document, even if it was found after a later error.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    void testPipelinedErrorOrder() throws Exception {
+        String osm = createLargeFile(2500, "<node id='0' version='1'/></osm>").replace("id='1800' version='1'", "id='1800' version='-1'");
+        String expected = testInvalidData(osm).getMessage();
+        assertTrue(expected.startsWith("Illegal value for attribute 'version' on OSM primitive with ID 1800."), expected);
+        assertEquals(expected, testInvalidData(osm, Options.PIPELINED).getMessage());
+        osm = osm.replace("</osm>", "<node");
+        assertEquals(expected, testInvalidData(osm, Options.PIPELINED).getMessage());
+    }
 }
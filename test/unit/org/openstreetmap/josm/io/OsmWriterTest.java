@@ -21,10 +21,12 @@ import org.openstreetmap.josm.data.osm.Changeset;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.DownloadPolicy;
 import org.openstreetmap.josm.data.osm.INode;
+import org.openstreetmap.josm.data.osm.IWay;
 import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.NodeData;
 import org.openstreetmap.josm.data.osm.UploadPolicy;
 import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
 
 import org.junit.jupiter.api.Test;
@@ -137,4 +139,29 @@ class OsmWriterTest {
                     stringWriter.toString().replace("\r", ""));
         }
     }
+
+    /**
+     * Unit test of {@link OsmWriter#visit(IWay)}, with tags to sort and encode.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    void testWayTags() throws IOException {
+        Way way = new Way(2, 3);
+        way.setNodes(Arrays.asList(new Node(10), new Node(11)));
+        way.setInstant(Instant.parse("2100-12-31T23:59:59Z"));
+        StringBuilder expectedTags = new StringBuilder();
+        for (int i = 20; i >= 10; i--) {
+            way.put("k" + i, "<" + i + ">");
+        }
+        for (int i = 10; i <= 20; i++) {
+            expectedTags.append("    <tag k='k").append(i).append("' v='&lt;").append(i).append("&gt;' />\n");
+        }
+        try (StringWriter stringWriter = new StringWriter();
+             OsmWriter osmWriter = OsmWriterFactory.createOsmWriter(new PrintWriter(stringWriter), true, OsmWriter.DEFAULT_API_VERSION)) {
+            osmWriter.visit(way);
+            assertEquals("  <way id='2' timestamp='2100-12-31T23:59:59Z' visible='true' version='3'>\n" +
+                    "    <nd ref='10' />\n    <nd ref='11' />\n" + expectedTags + "  </way>\n",
+                    stringWriter.toString().replace("\r", ""));
+        }
+    }
 }
@@ -0,0 +1,238 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.protobuf.ProtobufWriter;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link PbfReader} class.
+ */
+@BasicPreferences
+class PbfReaderTest {
+
+    static byte[] write(DataSet ds) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PbfWriter writer = new PbfWriter(out)) {
+            writer.write(ds);
+        }
+        return out.toByteArray();
+    }
+
+    static DataSet read(byte[] pbf) throws IllegalDataException {
+        return PbfReader.parseDataSet(new ByteArrayInputStream(pbf), NullProgressMonitor.INSTANCE);
+    }
+
+    private static <T extends OsmPrimitive> T setMetadata(T p, int version, long changeset) {
+        p.setOsmId(p.getUniqueId(), version);
+        p.setChangesetId((int) changeset);
+        p.setInstant(Instant.ofEpochSecond(1_600_000_000L + p.getUniqueId()));
+        p.setUser(User.createOsmUser(p.getUniqueId() % 3 + 1, "user" + p.getUniqueId() % 3));
+        return p;
+    }
+
+    private static void writeBlob(DataOutputStream out, String type, ProtobufWriter data) throws IOException {
+        ProtobufWriter blob = new ProtobufWriter().writeBytes(PbfReader.BLOB_RAW, data.toByteArray());
+        ProtobufWriter header = new ProtobufWriter()
+                .writeString(PbfReader.BLOB_HEADER_TYPE, type)
+                .writeVarInt(PbfReader.BLOB_HEADER_DATA_SIZE, blob.size());
+        out.writeInt(header.size());
+        out.write(header.toByteArray());
+        out.write(blob.toByteArray());
+    }
+
+    /**
+     * Reads back a data set with tags, metadata and all member types.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testRoundTrip() throws Exception {
+        DataSet ds = new DataSet();
+        ds.addDataSource(new DataSource(new Bounds(53.5, 13.2, 53.6, 13.3), "test"));
+        Node n1 = setMetadata(new Node(1), 2, 10);
+        n1.setCoor(new LatLon(53.5512345, 13.2612345));
+        n1.put("amenity", "bench");
+        n1.put("name", "Bänk");
+        Node n2 = setMetadata(new Node(5), 1, 11);
+        n2.setCoor(new LatLon(-53.55, -13.26));
+        Way w = setMetadata(new Way(7), 3, 12);
+        w.setNodes(Arrays.asList(n2, n1, n2));
+        w.put("highway", "residential");
+        Relation r = setMetadata(new Relation(9), 1, 13);
+        Relation r2 = setMetadata(new Relation(10), 4, 13);
+        r.setMembers(Arrays.asList(new RelationMember("outer", w), new RelationMember("", n1), new RelationMember("sub", r2)));
+        r.put("type", "multipolygon");
+        for (OsmPrimitive p : Arrays.asList(n1, n2, w, r2, r)) {
+            ds.addPrimitive(p);
+        }
+
+        DataSet read = read(write(ds));
+        assertEquals(2, read.getNodes().size());
+        assertEquals(1, read.getWays().size());
+        assertEquals(2, read.getRelations().size());
+        assertEquals(1, read.getDataSourceBounds().size());
+        assertEquals(53.5, read.getDataSourceBounds().get(0).getMinLat(), 1e-9);
+        assertEquals(13.3, read.getDataSourceBounds().get(0).getMaxLon(), 1e-9);
+
+        Node node = (Node) read.getPrimitiveById(1, OsmPrimitiveType.NODE);
+        assertEquals(53.5512345, node.lat(), 1e-7);
+        assertEquals(13.2612345, node.lon(), 1e-7);
+        assertEquals(n1.getKeys(), node.getKeys());
+        assertEquals(2, node.getVersion());
+        assertEquals(10, node.getChangesetId());
+        assertEquals(n1.getInstant(), node.getInstant());
+        assertEquals(n1.getUser(), node.getUser());
+        Node node2 = (Node) read.getPrimitiveById(5, OsmPrimitiveType.NODE);
+        assertEquals(-53.55, node2.lat(), 1e-7);
+        assertFalse(node2.hasKeys());
+
+        Way way = (Way) read.getPrimitiveById(7, OsmPrimitiveType.WAY);
+        assertEquals(Arrays.asList(node2, node, node2), way.getNodes());
+        assertEquals("residential", way.get("highway"));
+        assertEquals(3, way.getVersion());
+        assertEquals(w.getUser(), way.getUser());
+
+        Relation relation = (Relation) read.getPrimitiveById(9, OsmPrimitiveType.RELATION);
+        assertEquals(3, relation.getMembersCount());
+        assertEquals(way, relation.getMember(0).getMember());
+        assertEquals("outer", relation.getMember(0).getRole());
+        assertEquals(node, relation.getMember(1).getMember());
+        assertEquals("", relation.getMember(1).getRole());
+        assertEquals(10, relation.getMember(2).getUniqueId());
+        assertEquals("sub", relation.getMember(2).getRole());
+        assertEquals(4, relation.getMember(2).getMember().getVersion());
+        assertEquals("multipolygon", relation.get("type"));
+    }
+
+    /**
+     * Reads back new primitives, which have negative ids and no metadata.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testNewPrimitives() throws Exception {
+        DataSet ds = new DataSet();
+        Node n1 = new Node(new LatLon(1, 2));
+        Node n2 = new Node(new LatLon(3, 4));
+        Way w = new Way();
+        w.setNodes(Arrays.asList(n1, n2));
+        ds.addPrimitive(n1);
+        ds.addPrimitive(n2);
+        ds.addPrimitive(w);
+
+        DataSet read = read(write(ds));
+        assertTrue(read.getDataSourceBounds().isEmpty());
+        Way way = read.getWays().iterator().next();
+        assertTrue(way.isNew());
+        assertTrue(way.firstNode().isNew());
+        assertEquals(new LatLon(1, 2), way.firstNode().getCoor());
+        assertEquals(new LatLon(3, 4), way.lastNode().getCoor());
+    }
+
+    /**
+     * Reads a data set spanning several blocks.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testManyBlocks() throws Exception {
+        DataSet ds = new DataSet();
+        int count = 3 * PbfWriter.BLOCK_SIZE + 1;
+        Way way = setMetadata(new Way(1), 1, 1);
+        for (int i = 1; i <= count; i++) {
+            Node n = setMetadata(new Node(i), 1, i);
+            n.setCoor(new LatLon(i * 1e-4, -i * 1e-4));
+            if (i % 10 == 0) {
+                n.put("ref", Integer.toString(i));
+            }
+            ds.addPrimitive(n);
+            if (i % 2 == 0) {
+                way.addNode(n);
+            }
+        }
+        ds.addPrimitive(way);
+
+        DataSet read = read(write(ds));
+        assertEquals(count, read.getNodes().size());
+        for (Node n : ds.getNodes()) {
+            Node node = (Node) read.getPrimitiveById(n);
+            assertNotNull(node);
+            assertEquals(n.getKeys(), node.getKeys());
+            assertEquals(n.getChangesetId(), node.getChangesetId());
+            assertTrue(n.getCoor().equalsEpsilon(node.getCoor()));
+        }
+        assertEquals(way.getNodesCount(), ((Way) read.getPrimitiveById(way)).getNodesCount());
+    }
+
+    /**
+     * Files requiring unknown features must be rejected.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testUnsupportedFeature() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeBlob(new DataOutputStream(out), PbfReader.OSM_HEADER, new ProtobufWriter()
+                .writeString(PbfReader.HEADER_REQUIRED_FEATURES, "OsmSchema-V0.6")
+                .writeString(PbfReader.HEADER_REQUIRED_FEATURES, "LocationsOnWays"));
+        IllegalDataException e = assertThrows(IllegalDataException.class, () -> read(out.toByteArray()));
+        assertEquals("Unsupported PBF feature: LocationsOnWays", e.getMessage());
+    }
+
+    /**
+     * Unknown blob types must be skipped, truncated files must be rejected.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testBlobs() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeBlob(new DataOutputStream(out), "Unknown", new ProtobufWriter().writeVarInt(1, 1));
+        assertTrue(read(out.toByteArray()).allPrimitives().isEmpty());
+
+        DataSet ds = new DataSet();
+        ds.addPrimitive(new Node(LatLon.ZERO));
+        byte[] pbf = write(ds);
+        assertEquals(1, read(pbf).getNodes().size());
+        assertThrows(IllegalDataException.class, () -> read(Arrays.copyOf(pbf, pbf.length - 1)));
+    }
+
+    /**
+     * Errors in primitive blocks are reported like in {@link OsmReader}.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testMissingNode() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ProtobufWriter way = new ProtobufWriter()
+                .writeVarInt(PbfReader.PRIMITIVE_ID, 1)
+                .writeMessage(PbfReader.PRIMITIVE_INFO, new ProtobufWriter().writeVarInt(PbfReader.INFO_VERSION, 1))
+                .writePackedSignedVarInts(PbfReader.WAY_REFS, new long[] {0}, 1);
+        ProtobufWriter block = new ProtobufWriter()
+                .writeMessage(PbfReader.BLOCK_STRING_TABLE, new ProtobufWriter().writeString(PbfReader.STRING_TABLE_S, ""))
+                .writeMessage(PbfReader.BLOCK_PRIMITIVE_GROUP, new ProtobufWriter().writeMessage(PbfReader.GROUP_WAYS, way));
+        writeBlob(new DataOutputStream(out), PbfReader.OSM_DATA, block);
+        assertThrows(IllegalDataException.class, () -> read(out.toByteArray()));
+    }
+}
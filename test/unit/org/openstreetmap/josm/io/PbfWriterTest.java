@@ -0,0 +1,55 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.testutils.annotations.BasicPreferences;
+
+/**
+ * Unit tests of {@link PbfWriter} class.
+ */
+@BasicPreferences
+class PbfWriterTest {
+
+    /**
+     * Deleted and incomplete primitives are not written.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testSkippedPrimitives() throws Exception {
+        DataSet ds = new DataSet();
+        Node n1 = new Node(new LatLon(1, 2));
+        Node deleted = new Node(new LatLon(3, 4));
+        Node incomplete = new Node(42);
+        ds.addPrimitive(n1);
+        ds.addPrimitive(deleted);
+        ds.addPrimitive(incomplete);
+        Way w = new Way();
+        w.setNodes(Arrays.asList(n1, deleted));
+        ds.addPrimitive(w);
+        w.removeNode(deleted);
+        deleted.setDeleted(true);
+
+        DataSet read = PbfReaderTest.read(PbfReaderTest.write(ds));
+        assertEquals(1, read.getNodes().size());
+        assertEquals(n1.getCoor(), read.getNodes().iterator().next().getCoor());
+        assertEquals(1, read.getWays().iterator().next().getNodesCount());
+    }
+
+    /**
+     * An empty data set is written as a header only.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    void testEmpty() throws Exception {
+        assertTrue(PbfReaderTest.read(PbfReaderTest.write(new DataSet())).allPrimitives().isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.openstreetmap.josm.tools.ImageWarp.Interpolation;
+
+/**
+ * Unit tests of {@link ImageWarp} class.
+ */
+class ImageWarpTest {
+
+    // rotation and scaling around the center of the source image, with some distortion
+    private static final ImageWarp.PointTransform TRANSFORM = pt -> {
+        double x = pt.getX() - 60;
+        double y = pt.getY() - 50;
+        double r = 1 + 1e-4 * (x * x + y * y);
+        return new Point2D.Double(32 + 0.5 * r * (0.8 * x - 0.6 * y), 24 + 0.5 * r * (0.6 * x + 0.8 * y));
+    };
+
+    private static BufferedImage createImage(int type) {
+        BufferedImage image = new BufferedImage(64, 48, type);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+    private static int[] getPixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    /**
+     * Test that the parallel warp computes the same image as the sequential warp with a {@link ImageWarp.GridTransform}.
+     * @param interpolation the interpolation method
+     */
+    @ParameterizedTest
+    @EnumSource(Interpolation.class)
+    void testParallelWarp(Interpolation interpolation) {
+        Dimension targetDim = new Dimension(120, 100);
+        for (int type : new int[] {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR}) {
+            BufferedImage source = createImage(type);
+            BufferedImage expected = ImageWarp.warp(source, targetDim, new ImageWarp.GridTransform(TRANSFORM, 7), interpolation);
+            BufferedImage actual = ImageWarp.warp(source, targetDim, TRANSFORM, 7, interpolation);
+            assertEquals(BufferedImage.TYPE_INT_ARGB, actual.getType());
+            assertArrayEquals(getPixels(expected), getPixels(actual));
+
+            // without grid, the transform is evaluated for each pixel
+            expected = ImageWarp.warp(source, targetDim, TRANSFORM, interpolation);
+            actual = ImageWarp.warp(source, targetDim, TRANSFORM, 0, interpolation);
+            assertArrayEquals(getPixels(expected), getPixels(actual));
+        }
+    }
+
+    /**
+     * Test that the bicubic interpolation keeps uniform areas and reproduces linear gradients.
+     */
+    @Test
+    void testBicubic() {
+        BufferedImage source = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                source.setRGB(x, y, 0xff102000 | (64 * x));
+            }
+        }
+        BufferedImage target = ImageWarp.warp(source, new Dimension(16, 16), pt -> new Point2D.Double(pt.getX() / 4, pt.getY() / 4),
+                4, Interpolation.BICUBIC);
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                assertEquals(0xff102000, target.getRGB(x, y) & 0xffffff00);
+            }
+            // away from the borders, the spline is exact for linear functions
+            for (int x = 4; x < 8; x++) {
+                assertEquals(16 * x, target.getRGB(x, y) & 0xff);
+            }
+        }
+    }
+}
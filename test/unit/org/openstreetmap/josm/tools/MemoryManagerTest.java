@@ -127,6 +127,22 @@ public class MemoryManagerTest {
         assertThrows(IllegalArgumentException.class, () -> manager.isAvailable(-10));
     }
 
+    /**
+     * Test {@link MemoryManager#registerMemoryUsage} and {@link MemoryManager#unregisterMemoryUsage}
+     */
+    @Test
+    void testMemoryUsage() {
+        MemoryManager manager = MemoryManager.getInstance();
+        long available = manager.getAvailableMemory();
+        manager.registerMemoryUsage("test", () -> 42);
+        assertEquals(42, manager.getMemoryUsage().get("test"));
+        assertEquals(available, manager.getAvailableMemory());
+        manager.registerMemoryUsage("test", () -> 0);
+        assertEquals(0, manager.getMemoryUsage().get("test"));
+        manager.unregisterMemoryUsage("test");
+        assertFalse(manager.getMemoryUsage().containsKey("test"));
+    }
+
     /**
      * Test {@link MemoryManager#resetState()}
      * @throws NotEnoughMemoryException if there is not enough memory